@@ -161,6 +161,9 @@ public abstract class GaiaObSourceBase extends ObservationSourcePluginBase {
 		 */
 		public GAIADR2FormatRetriever(boolean transform, boolean ignoreFlags, GaiaRelease gaiaRelease) {
 			super(getVelaFilterStr());
+
+			// G, BP and RP observations are interleaved out of JD order.
+			setBufferedInsertion(true);
 			
 			fieldIndices = new HashMap<String, Integer>();
 			fieldIndices.put("source_id", -1);
@@ -720,7 +723,7 @@ public abstract class GaiaObSourceBase extends ObservationSourcePluginBase {
 			double uncertainty = -2.5 * Math.log10(flux / (flux + ferr));
 			String uncertaintyStr = String.valueOf(uncertainty);
 			uncertainty = uncertaintyValueValidator.validate(uncertaintyStr);
-			observation.getMagnitude().setUncertainty(uncertainty);
+			observation.setMagUncertainty(uncertainty);
 
 			String filter = fields[fieldIndices.get("band")].trim();
 			SeriesType band;
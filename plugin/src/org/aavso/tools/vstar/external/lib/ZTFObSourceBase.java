@@ -251,7 +251,7 @@ public abstract class ZTFObSourceBase extends ObservationSourcePluginBase {
 			Magnitude magnitude = magnitudeFieldValidator.validate(fields[fieldIndices.get("mag")].trim());
 			observation.setMagnitude(magnitude);
 			double uncertainty = uncertaintyValueValidator.validate(fields[fieldIndices.get("magerr")].trim());
-			observation.getMagnitude().setUncertainty(uncertainty);
+			observation.setMagUncertainty(uncertainty);
 
 			String filter = fields[fieldIndices.get("filtercode")].trim();
 			SeriesType band;
@@ -243,13 +243,13 @@ public class AAVSOPhotometrySearchExportFormatObservationSource extends Observat
 
             case UNCERTAINTY:
                 double uncertainty = uncertaintyValidator.validate(value);
-                ob.getMagnitude().setUncertainty(uncertainty);
+                ob.setMagUncertainty(uncertainty);
                 break;
 
             case FAINTERTHAN:
                 // "True" or "False" -> Java Boolean value -> magnitude modifier
                 if (Boolean.parseBoolean(value.toLowerCase())) {
-                    ob.getMagnitude().setMagModifier(MagnitudeModifier.FAINTER_THAN);
+                    ob.setMagModifier(MagnitudeModifier.FAINTER_THAN);
                 }
                 break;
 
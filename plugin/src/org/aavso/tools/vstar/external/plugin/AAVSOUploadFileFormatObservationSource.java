@@ -305,7 +305,7 @@ public class AAVSOUploadFileFormatObservationSource extends ObservationSourcePlu
 			String uncertaintyStr = fields[3].trim();
 			if (!isNA(uncertaintyStr)) {
 				double uncertainty = uncertaintyValueValidator.validate(uncertaintyStr);
-				observation.getMagnitude().setUncertainty(uncertainty);
+				observation.setMagUncertainty(uncertainty);
 			}
 
 			String filter = fields[4].trim();
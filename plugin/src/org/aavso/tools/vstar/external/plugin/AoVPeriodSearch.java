@@ -19,7 +19,6 @@ package org.aavso.tools.vstar.external.plugin;
 
 import java.awt.Component;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,8 +26,6 @@ import java.util.Map;
 import javax.swing.JDialog;
 import javax.swing.JPanel;
 
-import org.aavso.tools.vstar.data.DateInfo;
-import org.aavso.tools.vstar.data.Magnitude;
 import org.aavso.tools.vstar.data.SeriesType;
 import org.aavso.tools.vstar.data.ValidObservation;
 import org.aavso.tools.vstar.exception.AlgorithmError;
@@ -53,18 +50,15 @@ import org.aavso.tools.vstar.ui.mediator.message.PeriodAnalysisSelectionMessage;
 import org.aavso.tools.vstar.ui.model.list.PeriodAnalysisDataTableModel;
 import org.aavso.tools.vstar.ui.model.plot.ObservationAndMeanPlotModel;
 import org.aavso.tools.vstar.ui.model.plot.PeriodAnalysis2DPlotModel;
-import org.aavso.tools.vstar.ui.model.plot.PhaseTimeElementEntity;
-import org.aavso.tools.vstar.util.comparator.StandardPhaseComparator;
 import org.aavso.tools.vstar.util.model.Harmonic;
 import org.aavso.tools.vstar.util.model.PeriodAnalysisDerivedMultiPeriodicModel;
 import org.aavso.tools.vstar.util.notification.Listener;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisDatum;
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+import org.aavso.tools.vstar.util.period.aov.AoVPeriodogram;
 import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
-import org.aavso.tools.vstar.util.stats.BinningResult;
-import org.aavso.tools.vstar.util.stats.DescStats;
-import org.aavso.tools.vstar.util.stats.PhaseCalcs;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.DatasetRenderingOrder;
 
@@ -81,9 +75,7 @@ import org.jfree.chart.plot.DatasetRenderingOrder;
  * 
  * http://iopscience.iop.org/1538-4357/460/2/L107/pdf/1538-4357_460_2_L107.pdf
  * 
- * o Top hits performance!<br/>
  * o Create a piecewise model from means (see Foster)? Polynomial? Spline?<br/>
- * o Parallelise!<br/>
  */
 public class AoVPeriodSearch extends PeriodAnalysisPluginBase {
 
@@ -335,43 +327,45 @@ public class AoVPeriodSearch extends PeriodAnalysisPluginBase {
         }
     }
 
+    @Override
+    public PeriodAnalysisCoordinateType getPartialResultType() {
+        return F_STATISTIC;
+    }
+
+    @Override
+    public PeriodAnalysisCoordinateType getPartialResultDomainType() {
+        return PeriodAnalysisCoordinateType.PERIOD;
+    }
+
     // The AoV algorithm implementation.
     class AoVAlgorithm implements IPeriodAnalysisAlgorithm {
 
         private List<ValidObservation> obs;
 
         private List<Double> frequencies;
-        private ArrayList<Double> orderedFrequencies;
 
         private List<Double> periods;
-        private ArrayList<Double> orderedPeriods;
 
         private List<Double> fValues;
-        private ArrayList<Double> orderedFValues;
 
         private List<Double> pValues;
-        private ArrayList<Double> orderedPValues;
 
-        // private double smallestFValue;
-        // private int smallestValueIndex;
+        private TopHitsHeap topHits;
+
+        private volatile AoVPeriodogram periodogram;
 
         public AoVAlgorithm(List<ValidObservation> obs) {
             this.obs = obs;
 
             frequencies = new ArrayList<Double>();
-            orderedFrequencies = new ArrayList<Double>();
 
             periods = new ArrayList<Double>();
-            orderedPeriods = new ArrayList<Double>();
 
             fValues = new ArrayList<Double>();
-            orderedFValues = new ArrayList<Double>();
 
             pValues = new ArrayList<Double>();
-            orderedPValues = new ArrayList<Double>();
 
-            // smallestFValue = Double.MAX_VALUE;
-            // smallestValueIndex = 0;
+            topHits = TopHitsHeap.largest(MAX_TOP_HITS);
         }
 
         @Override
@@ -393,18 +387,7 @@ public class AoVPeriodSearch extends PeriodAnalysisPluginBase {
 
         @Override
         public Map<PeriodAnalysisCoordinateType, List<Double>> getTopHits() {
-            // TODO: create top hits by sorting doubles in descending order
-            // pairs of doubles;
-            // limit to MAX_TOP_HITS = 100
-
-            Map<PeriodAnalysisCoordinateType, List<Double>> topHits = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
-
-            topHits.put(PeriodAnalysisCoordinateType.FREQUENCY, orderedFrequencies);
-            topHits.put(PeriodAnalysisCoordinateType.PERIOD, orderedPeriods);
-            topHits.put(F_STATISTIC, orderedFValues);
-            topHits.put(P_VALUE, orderedPValues);
-
-            return topHits;
+            return topHits.toMap(F_STATISTIC, P_VALUE);
         }
 
         @Override
@@ -432,144 +415,39 @@ public class AoVPeriodSearch extends PeriodAnalysisPluginBase {
 
                 interrupted = false;
 
-                // Duplicate the obs (just JD and mag) so we can set phases
-                // without disturbing the original observation object.
-                // TODO: for a multi-threaded range-subset approach, we would
-                // need to do this once for each thread
-                List<ValidObservation> phObs = copyObs(obs);
-
-                // Choose an epoch value.
-                double epoch = PhaseCalcs.epochStrategyMap.get("alpha").determineEpoch(phObs);
-
-                // Iterate over the periods in the range at the specified
-                // resolution.
-
-                // TODO: multi-core approach => iterate over a subset of the
-                // period range but over all observations, where the full set
-                // is copied for each core (set phases, sort mutate obs and
-                // list...); top-hits will have to be combined and ordered once
-                // at end as part of or before prune operation; instead, could
-                // just iterate over a subset of observations; this would only
-                // give a large speedup if many observations; such a for-loop
-                // unrolling would be simpler and less memory intensive though;
-                // may be worth trying first
-
-                for (double period = minPeriod; period <= maxPeriod; period += resolution) {
-                    if (interrupted)
-                        break;
-
-                    PhaseCalcs.setPhases(phObs, epoch, period);
-
-                    Collections.sort(phObs, StandardPhaseComparator.instance);
-
-                    // Note: 1 / bins = 1 cycle divided into N bins
-                    BinningResult binningResult = DescStats.createSymmetricBinnedObservations(phObs,
-                            PhaseTimeElementEntity.instance, 1.0 / bins);
-
-                    // Collect results
-                    // PMAK, Issue #152:
-                    // Use fixInf() to prevent
-                    // 'java.lang.IllegalArgumentException: Must be finite'
-                    // error in AoV chart when period = 0
-                    frequencies.add(fixInf(1.0 / period));
-                    periods.add(period);
-                    fValues.add(fixInf(binningResult.getFValue()));
-                    pValues.add(fixInf(binningResult.getPValue()));
-
-                    updateOrderedValues();
-                }
-
-                pruneTopHits();
-            }
-        }
+                // Phases are computed into per-thread buffers so the
+                // observations themselves are not disturbed.
+                periodogram = new AoVPeriodogram(obs, minPeriod, maxPeriod, resolution, bins);
+                periodogram.setMaxTopHits(MAX_TOP_HITS);
+                periodogram.setPartialResultChannel(getPartialResultChannel());
 
-        // replace +-Infinity by NaN
-        private double fixInf(double v) {
-            if (Double.isInfinite(v))
-                return Double.NaN;
-            else
-                return v;
-        }
+                periodogram.execute();
 
-        private void updateOrderedValues() {
-            if (orderedFrequencies.isEmpty()) {
-                orderedFrequencies.add(frequencies.get(0));
-                orderedPeriods.add(periods.get(0));
-                orderedFValues.add(fValues.get(0));
-                orderedPValues.add(pValues.get(0));
-            } else {
-                int i = periods.size() - 1;
-
-                double frequency = frequencies.get(i);
-                double period = periods.get(i);
-                double fValue = fValues.get(i);
-                double pValue = pValues.get(i);
-
-                // Starting from highest fValue, find index to insert value
-                // and...
-                int index = 0;
-                for (int j = 0; j < orderedFValues.size(); j++) {
-                    if (fValue < orderedFValues.get(j)) {
-                        // Insertion index is one after the matched element's
-                        // index since the list's elements are in descending
-                        // order.
-                        index++;
-                    }
-                }
+                double[] frequencyValues = periodogram.getFrequencies();
+                double[] periodValues = periodogram.getPeriods();
+                double[] fStatValues = periodogram.getFValues();
+                double[] pValueValues = periodogram.getPValues();
 
-                // ...apply to all ordered collections.
-                if (index >= 0) {
-                    orderedFrequencies.add(index, frequency);
-                    orderedPeriods.add(index, period);
-                    orderedFValues.add(index, fValue);
-                    orderedPValues.add(index, pValue);
-                } else {
-                    orderedFrequencies.add(0, frequency);
-                    orderedPeriods.add(0, period);
-                    orderedFValues.add(0, fValue);
-                    orderedPValues.add(0, pValue);
+                for (int i = 0; i < periodValues.length; i++) {
+                    frequencies.add(frequencyValues[i]);
+                    periods.add(periodValues[i]);
+                    fValues.add(fStatValues[i]);
+                    pValues.add(pValueValues[i]);
                 }
-            }
-        }
-
-        private void pruneTopHits() {
-            if (periods.size() > MAX_TOP_HITS) {
-                orderedFrequencies = new ArrayList<Double>(orderedFrequencies.subList(0, MAX_TOP_HITS));
-
-                orderedPeriods = new ArrayList<Double>(orderedPeriods.subList(0, MAX_TOP_HITS));
 
-                orderedFValues = new ArrayList<Double>(orderedFValues.subList(0, MAX_TOP_HITS));
-
-                orderedPValues = new ArrayList<Double>(orderedPValues.subList(0, MAX_TOP_HITS));
+                topHits = periodogram.getTopHits();
             }
         }
 
         @Override
         public void interrupt() {
             interrupted = true;
-        }
-    }
-
-    // Return a copy of the specified observation list
-    private List<ValidObservation> copyObs(List<ValidObservation> obs) {
-        List<ValidObservation> copiedObs = new ArrayList<ValidObservation>();
 
-        for (ValidObservation ob : obs) {
-            if (interrupted)
-                break;
-
-            ValidObservation copiedOb = new ValidObservation();
-
-            double jd = ob.getDateInfo().getJulianDay();
-            copiedOb.setDateInfo(new DateInfo(jd));
-
-            Magnitude mag = new Magnitude(ob.getMagnitude().getMagValue(), ob.getMagnitude().getUncertainty());
-            copiedOb.setMagnitude(mag);
-
-            copiedObs.add(copiedOb);
+            AoVPeriodogram current = periodogram;
+            if (current != null) {
+                current.interrupt();
+            }
         }
-
-        return copiedObs;
     }
 
     // Ask user for period min, max, resolution and number of bins.
@@ -629,6 +507,10 @@ public class AoVPeriodSearch extends PeriodAnalysisPluginBase {
     @Override
     public void interrupt() {
         interrupted = true;
+
+        if (algorithm != null) {
+            algorithm.interrupt();
+        }
     }
 
     @Override
@@ -0,0 +1,189 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.external.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.plugin.period.PeriodRangeSearchPluginBase;
+import org.aavso.tools.vstar.ui.dialog.DoubleField;
+import org.aavso.tools.vstar.ui.dialog.ITextComponent;
+import org.aavso.tools.vstar.ui.dialog.IntegerField;
+import org.aavso.tools.vstar.ui.dialog.MessageBox;
+import org.aavso.tools.vstar.util.period.IPeriodAnalysisDatum;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
+import org.aavso.tools.vstar.util.period.bls.BoxLeastSquares;
+
+/**
+ * This plug-in implements the Box Least Squares (BLS) period search, which
+ * fits a periodic box-shaped dip to the light curve over a range of periods
+ * and durations. It suits transits and eclipses of short duration relative to
+ * the period, e.g. in TESS or Kepler light curves.
+ *
+ * Top hits include the depth, duration and epoch (mid-eclipse) of the best
+ * box for each period. The epoch is passed to the phase plot dialog along with
+ * the period, so that the eclipse appears at phase 0.
+ *
+ * Reference: Kov&aacute;cs, G., Zucker, S. &amp; Mazeh, T. (2002), A&amp;A
+ * 391, 369
+ */
+public class BoxLeastSquaresPeriodSearch extends PeriodRangeSearchPluginBase {
+
+	private Double minDuration, maxDuration;
+	private int durationCount;
+	private int bins;
+
+	private DoubleField minDurationField;
+	private DoubleField maxDurationField;
+	private IntegerField durationCountField;
+	private IntegerField binsField;
+
+	private volatile BoxLeastSquares bls;
+
+	private PeriodAnalysisCoordinateType DEPTH;
+	private PeriodAnalysisCoordinateType DURATION;
+	private PeriodAnalysisCoordinateType EPOCH;
+
+	/**
+	 * Constructor
+	 */
+	public BoxLeastSquaresPeriodSearch() {
+		super("BLS");
+		reset();
+	}
+
+	@Override
+	public String getDescription() {
+		return "Box Least Squares transit and eclipse period search";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return "BLS with Period Range";
+	}
+
+	@Override
+	protected void createCoordinateTypes() {
+		DEPTH = PeriodAnalysisCoordinateType.create("Depth");
+		DURATION = PeriodAnalysisCoordinateType.create("Duration");
+		EPOCH = PeriodAnalysisCoordinateType.create("Epoch");
+	}
+
+	@Override
+	protected PeriodAnalysisCoordinateType[] getCoordinateTypes() {
+		return new PeriodAnalysisCoordinateType[] {
+				PeriodAnalysisCoordinateType.FREQUENCY,
+				PeriodAnalysisCoordinateType.PERIOD,
+				PeriodAnalysisCoordinateType.POWER, DEPTH, DURATION, EPOCH };
+	}
+
+	@Override
+	protected PeriodAnalysisCoordinateType getScoreType() {
+		return PeriodAnalysisCoordinateType.POWER;
+	}
+
+	// The epoch of the selected box, if there is one.
+	@Override
+	protected double getEpoch(IPeriodAnalysisDatum datum) {
+		return datum.getValue(EPOCH);
+	}
+
+	// Ask user for duration range and count, and number of bins.
+	@Override
+	protected List<ITextComponent<?>> createParameterFields() {
+		List<ITextComponent<?>> fields = new ArrayList<ITextComponent<?>>();
+
+		minDurationField = new DoubleField("Minimum Duration", 0.0, null,
+				minDuration);
+		fields.add(minDurationField);
+
+		maxDurationField = new DoubleField("Maximum Duration", 0.0, null,
+				maxDuration);
+		fields.add(maxDurationField);
+
+		durationCountField = new IntegerField("Durations", 1, 100,
+				durationCount);
+		fields.add(durationCountField);
+
+		binsField = new IntegerField("Bins", 2, 10000, bins);
+		fields.add(binsField);
+
+		return fields;
+	}
+
+	@Override
+	protected boolean acceptParameters() {
+		minDuration = minDurationField.getValue();
+		maxDuration = maxDurationField.getValue();
+
+		if (minDuration == null || maxDuration == null
+				|| durationCountField.getValue() == null
+				|| binsField.getValue() == null) {
+			return false;
+		}
+
+		durationCount = durationCountField.getValue();
+		bins = binsField.getValue();
+
+		if (minDuration <= 0.0 || minDuration > maxDuration) {
+			MessageBox.showErrorDialog(getParamsTitle(),
+					"Minimum duration must be greater than zero and no greater than maximum duration");
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	protected void search(List<ValidObservation> obs,
+			PeriodAnalysisResult result, PeriodAnalysisResult topHits)
+			throws AlgorithmError {
+		bls = new BoxLeastSquares(obs, minPeriod, maxPeriod, resolution,
+				BoxLeastSquares.createDurations(minDuration, maxDuration,
+						durationCount), bins);
+		bls.setMaxTopHits(MAX_TOP_HITS);
+
+		bls.execute();
+
+		addResults(result, topHits, bls.getTopHits(), bls.getFrequencies(),
+				bls.getPeriods(), bls.getPowers(), bls.getDepths(),
+				bls.getDurations(), bls.getEpochs());
+	}
+
+	@Override
+	protected void interruptSearch() {
+		BoxLeastSquares current = bls;
+		if (current != null) {
+			current.interrupt();
+		}
+	}
+
+	@Override
+	protected void resetParameters() {
+		minPeriod = 0.5;
+		maxPeriod = 10.0;
+		resolution = 0.001;
+		minDuration = 0.04;
+		maxDuration = 0.3;
+		durationCount = 5;
+		bins = BoxLeastSquares.DEFAULT_BINS;
+	}
+}
@@ -63,6 +63,7 @@ import org.aavso.tools.vstar.plugin.period.PeriodAnalysisComponentFactory;
 import org.aavso.tools.vstar.plugin.period.PeriodAnalysisDialogBase;
 import org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase;
 import org.aavso.tools.vstar.ui.NamedComponent;
+import org.aavso.tools.vstar.ui.dialog.Checkbox;
 import org.aavso.tools.vstar.ui.dialog.DoubleField;
 import org.aavso.tools.vstar.ui.dialog.ITextComponent;
 import org.aavso.tools.vstar.ui.dialog.MessageBox;
@@ -84,9 +85,13 @@ import org.aavso.tools.vstar.util.model.Harmonic;
 import org.aavso.tools.vstar.util.model.PeriodAnalysisDerivedMultiPeriodicModel;
 import org.aavso.tools.vstar.util.model.PeriodFitParameters;
 import org.aavso.tools.vstar.util.notification.Listener;
+import org.aavso.tools.vstar.util.period.AdaptiveFrequencyGrid;
+import org.aavso.tools.vstar.util.period.IFrequencyScorer;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisDatum;
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+import org.aavso.tools.vstar.util.period.TrigRecurrence;
 import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
 import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 import org.jfree.chart.JFreeChart;
@@ -138,6 +143,7 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 	
 	private FAnalysisType analysisType;
 	private int harmonicCount;
+	private boolean coarseToFine;
 
 	private IPeriodAnalysisAlgorithm algorithm;
 	
@@ -231,9 +237,12 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 
 		ftResult.setAnalysisType(analysisType, harmonicCount);		
 		
-		algorithm = new DFTandSpectralWindowAlgorithm(minFrequency, maxFrequency, resolution, ftResult);
-		Mediator.getInstance().getProgressNotifier().notifyListeners(
-				new ProgressInfo(ProgressType.MAX_PROGRESS, ((DFTandSpectralWindowAlgorithm)algorithm).getNumberOfSteps()));
+		algorithm = new DFTandSpectralWindowAlgorithm(minFrequency, maxFrequency, resolution, ftResult, coarseToFine);
+		// The number of steps of a coarse-to-fine scan is not known in advance.
+		if (!coarseToFine) {
+			Mediator.getInstance().getProgressNotifier().notifyListeners(
+					new ProgressInfo(ProgressType.MAX_PROGRESS, ((DFTandSpectralWindowAlgorithm)algorithm).getNumberOfSteps()));
+		}
 		algorithmCreated = true;
 		plugin_interrupted = false;
 		algStartTime = System.currentTimeMillis();
@@ -691,6 +700,8 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 		
 		double minFrequency, maxFrequency, resolution;
 		
+		private boolean coarseToFine;
+		
 		private FtResult ftResult;
 		
 		//I (Max) am not sure if it is required (volatile). However, it is accessed from different threads.
@@ -702,10 +713,28 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 		public DFTandSpectralWindowAlgorithm(
 				double minFrequency, double maxFrequency, double resolution,
 				FtResult ftResult) {
+			this(minFrequency, maxFrequency, resolution, ftResult, false);
+		}
+
+		/**
+		 * Constructor
+		 * 
+		 * @param minFrequency The minimum frequency.
+		 * @param maxFrequency The maximum frequency.
+		 * @param resolution The frequency step, or with a coarse-to-fine scan, the
+		 *                   resolution to which peaks are refined.
+		 * @param ftResult The Fourier transform calculator.
+		 * @param coarseToFine Whether to scan coarsely, then refine only the
+		 *                     strongest peaks (see AdaptiveFrequencyGrid).
+		 */
+		public DFTandSpectralWindowAlgorithm(
+				double minFrequency, double maxFrequency, double resolution,
+				FtResult ftResult, boolean coarseToFine) {
 			this.minFrequency = minFrequency;
 			this.maxFrequency = maxFrequency;
 			this.resolution = resolution;
 			this.ftResult = ftResult;
+			this.coarseToFine = coarseToFine;
 			frequencies = new ArrayList<Double>();
 			periods = new ArrayList<Double>();
 			powers = new ArrayList<Double>();
@@ -732,18 +761,11 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 		@Override
 		public Map<PeriodAnalysisCoordinateType, List<Double>> getTopHits() {
 
-			ArrayList<Double> hitFrequencies = new ArrayList<Double>();
-			ArrayList<Double> hitPeriods = new ArrayList<Double>();
-			ArrayList<Double> hitPowers = new ArrayList<Double>();
-			ArrayList<Double> hitSemiAmplitudes = new ArrayList<Double>();
+			// Set maxTopHits to -1 for the unrestricted number.
+			TopHitsHeap topHits = TopHitsHeap.largest(MAX_TOP_HITS >= 0 ? MAX_TOP_HITS : Integer.MAX_VALUE);
 
 			// Extracting top hits (local maxima)
 			if (frequencies.size() > 1) {
-				Map<Integer, Double> hitFrequenciesRaw = new HashMap<Integer, Double>();
-				Map<Integer, Double> hitPeriodsRaw = new HashMap<Integer, Double>();
-				ArrayList<IntDoublePair> hitPowersRaw = new ArrayList<IntDoublePair>();
-				Map<Integer, Double> hitSemiAmplitudesRaw = new HashMap<Integer, Double>();
-				
 				for (int i = 0; i < frequencies.size(); i++) {
 					boolean top = false;
 					if (i > 0 && i < frequencies.size() - 1) {
@@ -762,37 +784,12 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 //						}
 					}
 					if (top) {
-						hitFrequenciesRaw.put(i, frequencies.get(i));
-						hitPeriodsRaw.put(i, periods.get(i));
-						hitPowersRaw.add(new IntDoublePair(i, powers.get(i)));
-						hitSemiAmplitudesRaw.put(i, semiAmplitudes.get(i));
+						topHits.offer(i, powers.get(i), frequencies.get(i), periods.get(i), semiAmplitudes.get(i));
 					}
 				}
-				
-				hitPowersRaw.sort(new IntDoublePairComparator(false));
-
-				// Here we can limit the number of the top hits, however, is it worth to?
-				// set maxTopHits to -1 for the unrestricted number
-				int count = 0;
-				for (IntDoublePair pair : hitPowersRaw) {
-					if (MAX_TOP_HITS >= 0 && count >= MAX_TOP_HITS)
-						break;
-					hitFrequencies.add(hitFrequenciesRaw.get(pair.i));
-					hitPeriods.add(hitPeriodsRaw.get(pair.i));
-					hitPowers.add(pair.d);
-					hitSemiAmplitudes.add(hitSemiAmplitudesRaw.get(pair.i));
-					count++;
-				}
 			}
 	
-			Map<PeriodAnalysisCoordinateType, List<Double>> topHits = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
-
-			topHits.put(PeriodAnalysisCoordinateType.FREQUENCY,	hitFrequencies);
-			topHits.put(PeriodAnalysisCoordinateType.PERIOD, hitPeriods);
-			topHits.put(PeriodAnalysisCoordinateType.POWER, hitPowers);
-			topHits.put(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE, hitSemiAmplitudes);
-			
-			return topHits;
+			return topHits.toMap(PeriodAnalysisCoordinateType.POWER, PeriodAnalysisCoordinateType.SEMI_AMPLITUDE);
 		}
 		
 		@Override
@@ -916,7 +913,9 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 				
 			int n_steps = getNumberOfSteps();
 
-			if (USE_MULTI_THREAD_VERSION) {
+			if (coarseToFine) {
+				calculationErrorOccured = coarseToFineDFT();
+			} else if (USE_MULTI_THREAD_VERSION) {
 				calculationErrorOccured = multiThreadDFT(minFrequency, resolution, n_steps);
 			} else {
 				calculationErrorOccured = singleThreadDFT(minFrequency, resolution, n_steps);
@@ -947,10 +946,74 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 						new ProgressInfo(ProgressType.INCREMENT_PROGRESS, steps));
 		}
 		
+		// Scan coarsely, then refine the strongest peaks, each scan appending
+		// its results to the lists; finally, replace the lists' contents with
+		// the merged results in frequency order.
+		private boolean coarseToFineDFT() throws AlgorithmError {
+			
+			final boolean[] calcFailedForSomeFreq = { false };
+			
+			IFrequencyScorer scorer = (loFreq, step, scores) -> {
+				int first = powers.size();
+				boolean failed;
+				if (USE_MULTI_THREAD_VERSION) {
+					failed = multiThreadDFT(loFreq, step, scores.length);
+				} else {
+					failed = singleThreadDFT(loFreq, step, scores.length);
+				}
+				if (algorithm_interrupted || powers.size() < first + scores.length)
+					throw new InterruptedException();
+				if (failed)
+					calcFailedForSomeFreq[0] = true;
+				for (int i = 0; i < scores.length; i++) {
+					scores[i] = powers.get(first + i);
+				}
+			};
+			
+			double coarseStep = Math.max(AdaptiveFrequencyGrid.coarseStep(ftResult.getObservationTimeSpan()), resolution);
+			
+			AdaptiveFrequencyGrid grid = new AdaptiveFrequencyGrid(minFrequency, maxFrequency, coarseStep, resolution,
+					AdaptiveFrequencyGrid.DEFAULT_MAX_PEAKS, true);
+			
+			try {
+				grid.execute(scorer);
+			} catch (InterruptedException e) {
+				algorithm_interrupted = true;
+				return calcFailedForSomeFreq[0];
+			}
+			
+			Map<Double, Integer> indices = new HashMap<Double, Integer>();
+			for (int i = frequencies.size() - 1; i >= 0; i--) {
+				indices.put(frequencies.get(i), i);
+			}
+			
+			List<Double> mergedPeriods = new ArrayList<Double>();
+			List<Double> mergedSemiAmplitudes = new ArrayList<Double>();
+			List<Double> mergedFrequencies = new ArrayList<Double>();
+			List<Double> mergedPowers = new ArrayList<Double>();
+			
+			for (double frequency : grid.getFrequencies()) {
+				int i = indices.get(frequency);
+				mergedFrequencies.add(frequency);
+				mergedPeriods.add(fixInf(periods.get(i)));
+				mergedPowers.add(powers.get(i));
+				mergedSemiAmplitudes.add(semiAmplitudes.get(i));
+			}
+			
+			frequencies = mergedFrequencies;
+			periods = mergedPeriods;
+			powers = mergedPowers;
+			semiAmplitudes = mergedSemiAmplitudes;
+			
+			return calcFailedForSomeFreq[0];
+		}
+		
 		private boolean singleThreadDFT(double minFrequency, double resolution, int n_steps) {
 			
 			boolean calcFailedForSomeFreq = false;
 			
+			TrigRecurrence recurrence = ftResult.createTrigRecurrence(minFrequency, resolution);
+			
 			int progress_counter = 0;
 			for (int i = 0; i < n_steps; i++) {
 				if (algorithm_interrupted)
@@ -963,12 +1026,15 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 
 				double[] result;
 				try {
-					result = ftResult.calculateF(frequency);
+					result = ftResult.calculateF(frequency, recurrence);
 				} catch (Exception ex) {
 					calcFailedForSomeFreq = true;
 					result = new double[] {Double.NaN, Double.NaN};
 				}
 				
+				if (recurrence != null)
+					recurrence.advance();
+				
 				semiAmplitudes.add(fixInf(result[0]));
 				powers.add(fixInf(result[1]));
 				
@@ -1088,6 +1154,9 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 					try {
 						startLatch.await();				
 						//System.out.println("DftThread #" + thread_n + " started. start_n=" + start_n + "; steps_to_do=" + steps_to_do);
+						TrigRecurrence recurrence = ftResult.createTrigRecurrence(minFrequency, resolution);
+						if (recurrence != null)
+							recurrence.seek(start_n);
 						int progress_counter = 0;
 						for (int i = 0; i < steps_to_do; i++) {
 							if (algorithm_interrupted) {
@@ -1099,12 +1168,15 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 							
 							double[] result;
 							try {
-								result = ftResult.calculateF(frequency);
+								result = ftResult.calculateF(frequency, recurrence);
 							} catch (Exception ex) {
 								calculationFailed = true;
 								result = new double[] {Double.NaN, Double.NaN};
 							}
 							
+							if (recurrence != null)
+								recurrence.advance();
+							
 							frqArray[i] = frequency;
 							perArray[i] = 1 / frequency;
 							ampArray[i] = result[0];
@@ -1185,7 +1257,8 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 					resolution,
 					ftResult != null ? ftResult.getObservationTimeSpan() : 0.0,
 					analysisType,
-					harmonicCount);
+					harmonicCount,
+					coarseToFine);
 		
 		try {
 			javax.swing.SwingUtilities.invokeAndWait(runParametersDialog);
@@ -1200,6 +1273,7 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 			resolution = runParametersDialog.getResolution();
 			analysisType = runParametersDialog.getAnalysisType();
 			harmonicCount = runParametersDialog.getHarmonicCount();
+			coarseToFine = runParametersDialog.getCoarseToFine();
 			return true;
 		}
 		
@@ -1214,6 +1288,7 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 		private double timeSpan;
 		private FAnalysisType analysisType;
 		private int harmonicCount;
+		private boolean coarseToFine;
 		private boolean dialogCancelled;
 	
 		public RunParametersDialog(
@@ -1222,13 +1297,15 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 				double resolution,
 				double timeSpan,
 				FAnalysisType analysisType,
-				int harmonicCount) {
+				int harmonicCount,
+				boolean coarseToFine) {
 			this.minFrequency = minFrequency;
 			this.maxFrequency = maxFrequency;
 			this.resolution = resolution;
 			this.timeSpan = timeSpan;
 			this.analysisType = analysisType;
 			this.harmonicCount = harmonicCount;
+			this.coarseToFine = coarseToFine;
 		}
 		
 		public void run() {
@@ -1244,6 +1321,10 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 			DoubleField resolutionField = new DoubleField("Resolution", 0.0, null, resolution);
 			fields.add(resolutionField);
 
+			// Scan at about 1/(5T), refining only the strongest peaks to the resolution.
+			Checkbox coarseToFineField = new Checkbox("Refine peaks only", coarseToFine);
+			fields.add(coarseToFineField);
+
 			JPanel addPanel = new JPanel();
 			addPanel.setLayout(new BoxLayout(addPanel, BoxLayout.PAGE_AXIS));
 			Button defaultResolution = new Button("Recommended Resolution");
@@ -1354,6 +1435,7 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 				minFrequency = minFrequencyField.getValue();
 				maxFrequency = maxFrequencyField.getValue();
 				resolution = resolutionField.getValue();
+				coarseToFine = coarseToFineField.getValue();
 	
 				if (minFrequency >= maxFrequency) {
 					MessageBox.showErrorDialog("Parameters", 
@@ -1394,6 +1476,10 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 			return harmonicCount;
 		}
 		
+		public boolean getCoarseToFine() {
+			return coarseToFine;
+		}
+		
 		public boolean getDialogCancelled() {
 			return dialogCancelled;
 		}
@@ -1433,6 +1519,7 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 		resolution = 0.0;
 		analysisType = FAnalysisType.DFT;
 		harmonicCount = 1;
+		coarseToFine = false;
 		if (resultDialogList != null) {
 			List<PeriodAnalysisDialog> tempResultDialogList = resultDialogList;
 			resultDialogList = null;
@@ -1546,19 +1633,50 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 			return median.evaluate(intervals);
 		}
 		
+		/**
+		 * Create a trig recurrence over the observation times for a scan of
+		 * evenly spaced frequencies, to be passed to calculateF() for each
+		 * frequency in turn and advanced after each.
+		 * 
+		 * @param loFrequency The first frequency.
+		 * @param resolution The frequency step.
+		 * @return The recurrence, or null if trig recurrences are disabled.
+		 */
+		public TrigRecurrence createTrigRecurrence(double loFrequency, double resolution) {
+			if (!TrigRecurrence.isEnabled())
+				return null;
+			double[] centredTimes = new double[count];
+			for (int i = 0; i < count; i++) {
+				centredTimes[i] = times[i] - meanTime;
+			}
+			return new TrigRecurrence(centredTimes, 2 * Math.PI * loFrequency, 2 * Math.PI * resolution);
+		}
+		
 		public double[] calculateF(double nu) {
+			return calculateF(nu, null);
+		}
+		
+		public double[] calculateF(double nu, TrigRecurrence recurrence) {
             double amp;
             double pwr;
 	        double reF = 0.0;
             double imF = 0.0;
-            double omega = 2 * Math.PI * nu;            
+            double omega = 2 * Math.PI * nu;
+            // Use the recurrence only if it is for this frequency.
+            boolean useRecurrence = recurrence != null
+            		&& Math.abs(recurrence.getOmega() - omega) <= 1e-9 * Math.abs(omega);
             if (analysisType == FAnalysisType.DFT || analysisType == FAnalysisType.SPW) {
 	            boolean typeIsDFT = analysisType != FAnalysisType.SPW;
 	            for (int i = 0; i < count; i++) {
-	            	double a = omega * (times[i] - meanTime);
 	            	double b = typeIsDFT ? mags[i] - meanMag : 0.5;
-	                reF += b * Math.cos(a);
-	                imF += b * Math.sin(a);
+	            	if (useRecurrence) {
+	            		reF += b * recurrence.cos(i);
+	            		imF += b * recurrence.sin(i);
+	            	} else {
+	            		double a = omega * (times[i] - meanTime);
+	            		reF += b * Math.cos(a);
+	            		imF += b * Math.sin(a);
+	            	}
 	            }
 	            // Like Period04
 	            amp = 2.0 * Math.sqrt(reF * reF + imF * imF) / count;
@@ -1583,8 +1701,13 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 	            	for (int i = 0; i < times.length; i++) {
 	            		a[i] = omega * (times[i] - meanTime);
 	            		for (int n = 0; n < localHarmonicCount; n++) {
-	            			cos_sin[i][2 * n] = Math.cos((n + 1) * a[i]);
-	            			cos_sin[i][2 * n + 1] = Math.sin((n + 1) * a[i]);
+	            			if (n == 0 && useRecurrence) {
+	            				cos_sin[i][0] = recurrence.cos(i);
+	            				cos_sin[i][1] = recurrence.sin(i);
+	            			} else {
+	            				cos_sin[i][2 * n] = Math.cos((n + 1) * a[i]);
+	            				cos_sin[i][2 * n + 1] = Math.sin((n + 1) * a[i]);
+	            			}
 	            		}
 	            	}
 
@@ -1655,34 +1778,6 @@ public class DFTandSpectralWindow extends PeriodAnalysisPluginBase {
 	    }
 	}
 
-	private static class IntDoublePair {
-		public int i;
-		public double d;
-		public IntDoublePair(int i, double d) {
-			this.i = i;
-			this.d = d;
-		}
-	}
-	
-	private static class IntDoublePairComparator implements Comparator<IntDoublePair> {
-		
-		private boolean direct;
-		
-	    public IntDoublePairComparator(boolean direct) {
-	    	this.direct = direct;
-		}
-
-		@Override
-	    public int compare(IntDoublePair a, IntDoublePair b) {
-	        if (a.d > b.d) 
-	        	return direct ? 1 : -1;
-	        else if (a.d < b.d)
-	        	return direct ? -1 : 1;
-	        else
-	        	return 0;
-	    }
-	}
-
     @SuppressWarnings("serial")
 	class LinkLabel extends JLabel {
     	
@@ -0,0 +1,214 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.external.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JDialog;
+
+import org.aavso.tools.vstar.data.SeriesType;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.exception.CancellationException;
+import org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase;
+import org.aavso.tools.vstar.ui.dialog.Checkbox;
+import org.aavso.tools.vstar.ui.dialog.DoubleField;
+import org.aavso.tools.vstar.ui.dialog.ITextComponent;
+import org.aavso.tools.vstar.ui.dialog.MessageBox;
+import org.aavso.tools.vstar.ui.dialog.MultiEntryComponentDialog;
+import org.aavso.tools.vstar.ui.dialog.period.PeriodAnalysis2DResultDialog;
+import org.aavso.tools.vstar.ui.mediator.Mediator;
+import org.aavso.tools.vstar.ui.mediator.message.NewStarMessage;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.dcdft.DcDftAnalysisType;
+import org.aavso.tools.vstar.util.period.dcdft.TSDcDft;
+import org.aavso.tools.vstar.util.period.lombscargle.FastLombScargle;
+
+/**
+ * <p>
+ * This plug-in computes a generalised Lomb-Scargle periodogram over a
+ * frequency range using the fast (O(N log N)) method of Press &amp; Rybicki,
+ * optionally fitting a floating mean at each frequency.
+ * </p>
+ *
+ * <p>
+ * It is much faster than DC DFT over large datasets or fine frequency grids.
+ * Results are shown in the standard period analysis dialog, from which phase
+ * plots and models can be created as for DC DFT.
+ * </p>
+ *
+ * References:<br/>
+ * Press, W. H. &amp; Rybicki, G. B. (1989), ApJ 338, 277<br/>
+ * Zechmeister, M. &amp; K&uuml;rster, M. (2009), A&amp;A 496, 577
+ */
+public class FastLombScarglePeriodSearch extends PeriodAnalysisPluginBase {
+
+	private static final String PARAMS_TITLE = "Lomb-Scargle Parameters";
+
+	private PeriodAnalysisCoordinateType[] dataCoordTypes = {
+			PeriodAnalysisCoordinateType.FREQUENCY,
+			PeriodAnalysisCoordinateType.PERIOD,
+			PeriodAnalysisCoordinateType.POWER,
+			PeriodAnalysisCoordinateType.SEMI_AMPLITUDE };
+
+	private boolean firstInvocation;
+	private boolean interrupted;
+
+	private NewStarMessage newStarMessage;
+
+	private Double loFreq, hiFreq, resolution;
+	private boolean floatingMean;
+
+	private FastLombScargle algorithm;
+
+	/**
+	 * Constructor
+	 */
+	public FastLombScarglePeriodSearch() {
+		super();
+		firstInvocation = true;
+		floatingMean = true;
+		reset();
+	}
+
+	@Override
+	public String getDescription() {
+		return "Fast Lomb-Scargle period search";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return "Fast Lomb-Scargle with Frequency Range";
+	}
+
+	@Override
+	public void executeAlgorithm(List<ValidObservation> obs)
+			throws AlgorithmError, CancellationException {
+
+		if (firstInvocation) {
+			Mediator.getInstance().getNewStarNotifier()
+					.addListener(getNewStarListener());
+
+			firstInvocation = false;
+		}
+
+		interrupted = false;
+
+		if (loFreq == null) {
+			// Use DC DFT's defaults, once per dataset. See also reset().
+			TSDcDft dcdft = new TSDcDft(obs,
+					DcDftAnalysisType.FREQUENCY_RANGE);
+			loFreq = dcdft.getLoFreqValue();
+			hiFreq = dcdft.getHiFreqValue();
+			resolution = dcdft.getResolutionValue();
+		}
+
+		while (!areParametersLegal())
+			;
+
+		algorithm = new FastLombScargle(obs, loFreq, hiFreq, resolution,
+				floatingMean);
+		algorithm.execute();
+	}
+
+	@Override
+	public JDialog getDialog(SeriesType sourceSeriesType) {
+		String designation = newStarMessage != null ? " "
+				+ newStarMessage.getStarInfo().getDesignation() : "";
+
+		return interrupted ? null : new PeriodAnalysis2DResultDialog(
+				"Lomb-Scargle" + designation, "(Series: "
+						+ sourceSeriesType.getDescription() + ")", algorithm,
+				dataCoordTypes, PeriodAnalysisCoordinateType.FREQUENCY);
+	}
+
+	// Ask user for low and high frequency, resolution and whether to fit a
+	// floating mean, throwing a cancellation exception if the dialog is
+	// cancelled.
+	private boolean areParametersLegal() throws CancellationException {
+		List<ITextComponent<?>> fields = new ArrayList<ITextComponent<?>>();
+
+		DoubleField loFreqField = new DoubleField("Low Frequency", 0.0, null,
+				loFreq);
+		fields.add(loFreqField);
+
+		DoubleField hiFreqField = new DoubleField("High Frequency", 0.0, null,
+				hiFreq);
+		fields.add(hiFreqField);
+
+		DoubleField resolutionField = new DoubleField("Resolution", 0.0, null,
+				resolution);
+		fields.add(resolutionField);
+
+		Checkbox floatingMeanField = new Checkbox("Floating mean",
+				floatingMean);
+		fields.add(floatingMeanField);
+
+		MultiEntryComponentDialog dlg = new MultiEntryComponentDialog(
+				PARAMS_TITLE, fields);
+
+		if (dlg.isCancelled()) {
+			throw new CancellationException();
+		}
+
+		boolean legalParams = true;
+
+		loFreq = loFreqField.getValue();
+		hiFreq = hiFreqField.getValue();
+		resolution = resolutionField.getValue();
+		floatingMean = floatingMeanField.getValue();
+
+		if (loFreq == null || hiFreq == null || resolution == null) {
+			legalParams = false;
+		} else if (loFreq > hiFreq) {
+			MessageBox.showErrorDialog(PARAMS_TITLE,
+					"Low frequency must be less than or equal to high frequency");
+			legalParams = false;
+		} else if (resolution <= 0.0) {
+			MessageBox.showErrorDialog(PARAMS_TITLE,
+					"Resolution must be greater than zero");
+			legalParams = false;
+		}
+
+		return legalParams;
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+
+		if (algorithm != null) {
+			algorithm.interrupt();
+		}
+	}
+
+	@Override
+	protected void newStarAction(NewStarMessage message) {
+		newStarMessage = message;
+		reset();
+	}
+
+	@Override
+	public void reset() {
+		interrupted = false;
+		loFreq = null;
+		hiFreq = null;
+		resolution = null;
+	}
+}
@@ -26,6 +26,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.awt.Color;
 
 import org.aavso.tools.vstar.data.DateInfo;
@@ -49,6 +50,7 @@ import org.aavso.tools.vstar.plugin.ObservationSourcePluginBase;
 import org.aavso.tools.vstar.ui.mediator.StarInfo;
 import org.aavso.tools.vstar.util.Pair;
 
+import org.aavso.tools.vstar.vela.CompiledProgram;
 import org.aavso.tools.vstar.vela.VeLaInterpreter;
 import org.aavso.tools.vstar.vela.VeLaValidObservationEnvironment;
 import org.aavso.tools.vstar.vela.Operand;
@@ -193,6 +195,7 @@ public class FlexibleTextFileFormatObservationSource extends
 		private ValflagValidator valflagValidator;
 
 		private VeLaInterpreter vela = null;
+		private CompiledProgram filterProgram = null;
 
 		/**
 		 * Constructor
@@ -384,6 +387,7 @@ public class FlexibleTextFileFormatObservationSource extends
 					defObsCode = pair.second;
 				} else if ("#VELAFILTER".equals(pair.first)) {
 					filterVeLa = pair.second;
+					filterProgram = null;
 				} else if ("#DEFINESERIES".equals(pair.first)) {
 					String newSeries = pair.second;
 					if (!isNullOrEmpty(newSeries)) {
@@ -727,15 +731,26 @@ public class FlexibleTextFileFormatObservationSource extends
 					vela = new VeLaInterpreter();
 
 				boolean includeObservation = true;
-				vela.pushEnvironment(new VeLaValidObservationEnvironment(
-						observation));
 				try {
-					Optional<Operand> result = vela.program(filterVeLa);
-					if (result.isPresent()) {
-						if (result.get().getType() == Type.BOOLEAN) {
-							includeObservation = result.get().booleanVal();
-						} else {
-							observationWarnings = addObservationWarning(observationWarnings, "VeLa filter error: Expected a Boolean value");
+					// Parse the filter once, not once per observation.
+					if (filterProgram == null)
+						filterProgram = vela.compile(filterVeLa);
+
+					// Where possible, the filter is compiled to a predicate.
+					Optional<Predicate<ValidObservation>> predicate = filterProgram
+							.getObservationPredicate();
+
+					if (predicate.isPresent()) {
+						includeObservation = predicate.get().test(observation);
+					} else {
+						Optional<Operand> result = filterProgram.evaluate(
+								new VeLaValidObservationEnvironment(observation));
+						if (result.isPresent()) {
+							if (result.get().getType() == Type.BOOLEAN) {
+								includeObservation = result.get().booleanVal();
+							} else {
+								observationWarnings = addObservationWarning(observationWarnings, "VeLa filter error: Expected a Boolean value");
+							}
 						}
 					}
 				} catch (VeLaParseError | VeLaEvalError e) {
@@ -743,8 +758,6 @@ public class FlexibleTextFileFormatObservationSource extends
 					if (isNullOrEmpty(error))
 						error = e.toString();
 					observationWarnings = addObservationWarning(observationWarnings, "VeLa filter error: " + error);
-				} finally {
-					vela.popEnvironment();
 				}
 
 				if (!includeObservation)
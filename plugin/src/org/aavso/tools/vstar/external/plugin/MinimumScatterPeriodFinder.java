@@ -20,7 +20,6 @@ package org.aavso.tools.vstar.external.plugin;
 import java.awt.Component;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -48,14 +47,15 @@ import org.aavso.tools.vstar.ui.mediator.message.NewStarMessage;
 import org.aavso.tools.vstar.ui.mediator.message.PeriodAnalysisSelectionMessage;
 import org.aavso.tools.vstar.ui.model.list.PeriodAnalysisDataTableModel;
 import org.aavso.tools.vstar.ui.model.plot.PeriodAnalysis2DPlotModel;
-import org.aavso.tools.vstar.util.Pair;
 import org.aavso.tools.vstar.util.model.Harmonic;
 import org.aavso.tools.vstar.util.model.PeriodAnalysisDerivedMultiPeriodicModel;
 import org.aavso.tools.vstar.util.notification.Listener;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisDatum;
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
 import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
+import org.aavso.tools.vstar.util.period.scatter.MinimumScatterPeriodogram;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.DatasetRenderingOrder;
 
@@ -66,16 +66,12 @@ import org.jfree.chart.plot.DatasetRenderingOrder;
  * This is a port of Jeff Byron's Period Finder C code.
  * 
  * TODO:<br/>
- * o create a model from segments? o interrupted!
+ * o create a model from segments?
  */
 public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 
 	private final static int MAX_TOP_HITS = 20;
 
-	// TODO: left this limit and remove second
-	private final static int MAX_OBS = 20000;
-	private final static int ASTERISK_COUNTER_LIMIT = 1000;
-
 	private boolean firstInvocation;
 	private boolean interrupted;
 	private boolean cancelled;
@@ -88,9 +84,6 @@ public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 
 	private PeriodAnalysisCoordinateType SCATTER, SEGMENT_SUM;
 
-	private int observations;
-	private double[] obsTime, mag, phase;
-
 	/**
 	 * Constructor
 	 */
@@ -412,34 +405,32 @@ public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 
 		private List<ValidObservation> obs;
 
-		private LinkedList<Double> frequencies;
-		private ArrayList<Double> orderedFrequencies;
+		private List<Double> frequencies;
 
-		private LinkedList<Double> periods;
-		private ArrayList<Double> orderedPeriods;
+		private List<Double> periods;
 
-		private LinkedList<Double> scatterValues;
-		private ArrayList<Double> orderedScatterValues;
+		private List<Double> scatterValues;
 
-		private LinkedList<Double> segmentSumValues;
-		private ArrayList<Double> orderedSegmentSumValues;
+		private List<Double> segmentSumValues;
+
+		private TopHitsHeap topHits;
 
 		private List<Double> power;
 
+		private volatile MinimumScatterPeriodogram periodogram;
+
 		public PeriodFinderAlgorithm(List<ValidObservation> obs) {
 			this.obs = obs;
 
-			frequencies = new LinkedList<Double>();
-			orderedFrequencies = new ArrayList<Double>();
+			frequencies = new ArrayList<Double>();
 
-			periods = new LinkedList<Double>();
-			orderedPeriods = new ArrayList<Double>();
+			periods = new ArrayList<Double>();
 
-			scatterValues = new LinkedList<Double>();
-			orderedScatterValues = new ArrayList<Double>();
+			scatterValues = new ArrayList<Double>();
 
-			segmentSumValues = new LinkedList<Double>();
-			orderedSegmentSumValues = new ArrayList<Double>();
+			segmentSumValues = new ArrayList<Double>();
+
+			topHits = TopHitsHeap.smallest(MAX_TOP_HITS);
 		}
 
 		@Override
@@ -462,17 +453,9 @@ public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 
 		@Override
 		public Map<PeriodAnalysisCoordinateType, List<Double>> getTopHits() {
-			Map<PeriodAnalysisCoordinateType, List<Double>> topHits = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
-
-			topHits.put(PeriodAnalysisCoordinateType.FREQUENCY,
-					orderedFrequencies);
-			topHits.put(PeriodAnalysisCoordinateType.PERIOD, orderedPeriods);
 			// topHits.put(PeriodAnalysisCoordinateType.POWER, power.stream()
 			// .sorted().limit(MAX_TOP_HITS).collect(Collectors.toList()));
-			topHits.put(SCATTER, orderedScatterValues);
-			topHits.put(SEGMENT_SUM, orderedSegmentSumValues);
-
-			return topHits;
+			return topHits.toMap(SCATTER, SEGMENT_SUM);
 		}
 
 		@Override
@@ -499,68 +482,33 @@ public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 				;
 
 			if (!cancelled) {
-				// Duplicate the obs (just JD and mag) so we can set phases
-				// without disturbing the original observation object.
-				List<ValidObservation> phObs = new ArrayList<ValidObservation>();
-
 				// TODO: cache these by JD range between new star resets...
 
 				interrupted = false;
 
-				inputData(obs);
-
-				stepThroughPeriods(minPeriod, maxPeriod, resolution, filter);
-
-				// for (ValidObservation ob : obs) {
-				// if (interrupted)
-				// break;
-				//
-				// ValidObservation phOb = new ValidObservation();
-				//
-				// double jd = ob.getDateInfo().getJulianDay();
-				// phOb.setDateInfo(new DateInfo(jd));
-				//
-				// Magnitude mag = new Magnitude(ob.getMagnitude()
-				// .getMagValue(), ob.getMagnitude().getUncertainty());
-				// phOb.setMagnitude(mag);
-				//
-				// phObs.add(phOb);
-				// }
-
-				// Choose an epoch value.
-				// double epoch = PhaseCalcs.epochStrategyMap.get("alpha")
-				// .determineEpoch(phObs);
-
-				// Iterate over the periods in the range at the specified
-				// resolution.
-
-				// TODO: multi-core approach => iterate over a subset of the
-				// period range but over all observations, where the full set
-				// is copied for each core (set phases, sort mutate obs and
-				// list...); top-hits will have to be combined and ordered once
-				// at end as part of or before prune operation
-
-				// for (double period = minPeriod; period <= maxPeriod; period
-				// += resolution) {
-				// if (interrupted)
-				// break;
-				//
-				// PhaseCalcs.setPhases(phObs, epoch, period);
-				//
-				// Collections.sort(phObs, StandardPhaseComparator.instance);
-				//
-				// // Note: 1 / bins = 1 cycle divided into N bins
-				// BinningResult binningResult = DescStats
-				// .createSymmetricBinnedObservations(phObs,
-				// PhaseTimeElementEntity.instance, 1.0 / bins);
-				//
-				// // Collect results
-				// frequencies.add(1.0 / period);
-				// periods.add(period);
-				// scatterValues.add(fValue);
-				//
-				// updateOrderedValues();
-				// }
+				// Phases are computed into per-thread buffers so the
+				// observations themselves are not disturbed.
+				periodogram = new MinimumScatterPeriodogram(obs, minPeriod,
+						maxPeriod, resolution);
+				periodogram.setMaxTopHits(MAX_TOP_HITS);
+
+				periodogram.execute();
+
+				double[] frequencyValues = periodogram.getFrequencies();
+				double[] periodValues = periodogram.getPeriods();
+				double[] scatters = periodogram.getScatters();
+				double[] segmentSums = periodogram.getSegmentSums();
+
+				// Best matches are listed from best (longest period) to
+				// worst.
+				for (int i = periodValues.length - 1; i >= 0; i--) {
+					frequencies.add(frequencyValues[i]);
+					periods.add(periodValues[i]);
+					scatterValues.add(scatters[i]);
+					segmentSumValues.add(segmentSums[i]);
+				}
+
+				topHits = periodogram.getTopHits();
 
 				// Create a power series where elements are a fraction of
 				// maximum scatter subtracted from one such that values from
@@ -573,116 +521,17 @@ public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 				// return 1 - n / maxScatter;
 				// }).sorted(Collections.reverseOrder())
 				// .collect(Collectors.toList());
-
-				pruneTopHits();
-			}
-		}
-
-		// Steps through the periods to test, calling scatterCalc() for each
-		// test
-		// period. Writes data to output files and closes them.
-		void stepThroughPeriods(double minPeriod, double maxPeriod,
-				double periodStep, double filter) {
-			int i, counter;
-			double period, trialPeriod, bestMatch, scatter, sumSegs;
-			// time_t startTime, endTime;
-			// char* c_time_string;
-
-			period = 0;
-
-			// Output data
-			// TODO: could use MAXINT
-			bestMatch = 1000000000.0; // Initialise to much more than expected
-										// final
-										// value
-			counter = 1;
-			for (trialPeriod = minPeriod; trialPeriod < maxPeriod + periodStep; trialPeriod += periodStep) {
-				if (++counter > ASTERISK_COUNTER_LIMIT) {
-					// printf("*");
-					counter = 1;
-				}
-
-				Pair<Double, Double> scatterPair = scatterCalc(trialPeriod);
-				sumSegs = scatterPair.first;
-				scatter = scatterPair.second;
-
-				if ((scatter <= filter) || (filter < 0.1)) {
-					// System.out.printf("%.10f\t%f\n", trialPeriod, scatter);
-				}
-
-				if (scatter < bestMatch) {
-					bestMatch = scatter;
-					period = trialPeriod;
-					// Collect results
-					frequencies.addFirst(1.0 / period);
-					periods.addFirst(period);
-					scatterValues.addFirst(scatter);
-					segmentSumValues.addFirst(sumSegs);
-					updateOrderedValues();
-				}
-			}
-		}
-
-		private void updateOrderedValues() {
-			if (orderedFrequencies.isEmpty()) {
-				orderedFrequencies.add(frequencies.get(0));
-				orderedPeriods.add(periods.get(0));
-				orderedScatterValues.add(scatterValues.get(0));
-				orderedSegmentSumValues.add(segmentSumValues.get(0));
-			} else {
-				int i = 0;
-
-				double frequency = frequencies.get(i);
-				double period = periods.get(i);
-				double scatterValue = scatterValues.get(i);
-				double segmentSumValue = segmentSumValues.get(i);
-
-				// Starting from highest scatter value, find index to insert
-				// value and...
-				int index = 0;
-				for (int j = 0; j < orderedScatterValues.size(); j++) {
-					if (scatterValue > orderedScatterValues.get(j)) {
-						// Insertion index is one after the matched element's
-						// index since the list's elements are in ascending
-						// order.
-						index++;
-					}
-				}
-
-				// ...apply to all ordered collections.
-				if (index >= 0) {
-					orderedFrequencies.add(index, frequency);
-					orderedPeriods.add(index, period);
-					orderedScatterValues.add(index, scatterValue);
-					orderedSegmentSumValues.add(index, segmentSumValue);
-				} else {
-					orderedFrequencies.add(0, frequency);
-					orderedPeriods.add(0, period);
-					orderedScatterValues.add(0, scatterValue);
-					orderedSegmentSumValues.add(0, segmentSumValue);
-				}
-			}
-		}
-
-		private void pruneTopHits() {
-			if (periods.size() > MAX_TOP_HITS) {
-				orderedFrequencies = new ArrayList<Double>(
-						orderedFrequencies.subList(0, MAX_TOP_HITS));
-
-				orderedPeriods = new ArrayList<Double>(orderedPeriods.subList(
-						0, MAX_TOP_HITS));
-
-				orderedScatterValues = new ArrayList<Double>(
-						orderedScatterValues.subList(0, MAX_TOP_HITS));
-
-				orderedSegmentSumValues = new ArrayList<Double>(
-						orderedSegmentSumValues.subList(0, MAX_TOP_HITS));
 			}
 		}
 
 		@Override
 		public void interrupt() {
 			interrupted = true;
+
+			MinimumScatterPeriodogram current = periodogram;
+			if (current != null) {
+				current.interrupt();
+			}
 		}
 	}
 
@@ -758,6 +607,10 @@ public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 	@Override
 	public void interrupt() {
 		interrupted = true;
+
+		if (algorithm != null) {
+			algorithm.interrupt();
+		}
 	}
 
 	@Override
@@ -775,89 +628,4 @@ public class MinimumScatterPeriodFinder extends PeriodAnalysisPluginBase {
 		resolution = 0.1;
 		filter = 0.1; // TODO: check Jeff's default
 	}
-
-	// Helpers
-
-	// Reads in observation data (and closes input file).
-	private void inputData(List<ValidObservation> obs) {
-		int i = 0;
-		obsTime = new double[obs.size()];
-		mag = new double[obs.size()];
-		phase = new double[obs.size()];
-		observations = obs.size();
-
-		// TODO: take the opportunity to use this for multi-threading
-		for (ValidObservation ob : obs) {
-			obsTime[i] = ob.getJD();
-			mag[i] = ob.getMag();
-			i++;
-		}
-	}
-
-	// For a given period, this routine calculates the scatter of magnitude
-	// (comparing
-	// adjacent points). It also calculates the sum of the segments connecting
-	// points on a phase - magnitude plot.
-	// At the time of writing, it was not clear which would be the better
-	// technique.
-	// (In fact, the former was thought to be at least as good and less
-	// computation.
-	// Initially, experience seemed to be indicating that sum-of-segments worked
-	// far better,
-	// but when errors (uncertainties) are considered, the "improvement" is
-	// probably illusionary.)
-	// But tests have indicated that disabling calculation of sum-of-segments
-	// makes very little
-	// difference to the overall computation time.
-	private Pair<Double, Double> scatterCalc(double period/* , double *seg */) {
-		int i;
-		double seg, scatter;
-		// Generate phase data
-		// TODO: use my code?
-		for (i = 0; i < observations; i++) {
-			phase[i] = (obsTime[i] / period) - Math.floor(obsTime[i] / period);
-			// System.out.printf("Period = %f\tTime = %f\tPhase = %f\n", period,
-			// obsTime[i], phase[i]);
-		}
-
-		// TODO: use my code?
-		sort(/* period */);
-
-		scatter = 0;
-		seg = 0;
-		// TODO: i can't start at 0 else i-1 = -1
-		for (i = 1; i < observations; i++) {
-			seg += Math.sqrt((phase[i] - phase[i - 1])
-					* (phase[i] - phase[i - 1]) + (mag[i] - mag[i - 1])
-					* (mag[i] - mag[i - 1]));
-
-			scatter += Math.abs(mag[i] - mag[i - 1]);
-		}
-
-		return new Pair<Double, Double>(seg, scatter);
-	}
-
-	// Performs bubble-sort of phase-folded data.
-	// TODO: replace with efficient sort as per execute() but in scatterCalc()?
-	void sort(/* double period */) {
-		int i, changes;
-		double tempPhase, tempTime, tempMag;
-		do {
-			changes = 0;
-			for (i = 0; i < observations - 1; i++) {
-				if (phase[i] > phase[i + 1]) {
-					tempPhase = phase[i + 1];
-					tempTime = obsTime[i + 1];
-					tempMag = mag[i + 1];
-					phase[i + 1] = phase[i];
-					obsTime[i + 1] = obsTime[i];
-					mag[i + 1] = mag[i];
-					phase[i] = tempPhase;
-					obsTime[i] = tempTime;
-					mag[i] = tempMag;
-					changes++;
-				}
-			}
-		} while (changes > 0);
-	}
 }
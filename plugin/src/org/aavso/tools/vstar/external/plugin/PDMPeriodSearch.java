@@ -0,0 +1,156 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.external.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.plugin.period.PeriodRangeSearchPluginBase;
+import org.aavso.tools.vstar.ui.dialog.Checkbox;
+import org.aavso.tools.vstar.ui.dialog.ITextComponent;
+import org.aavso.tools.vstar.ui.dialog.IntegerField;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
+import org.aavso.tools.vstar.util.period.pdm.PDMPeriodogram;
+
+/**
+ * This plug-in implements Stellingwerf's Phase Dispersion Minimisation (PDM)
+ * period search over a period range, with bins, covers and the optional beta
+ * distribution significance of PDM2.
+ *
+ * Theta is the ratio of the pooled variance of phase bins to the overall
+ * variance, so the best periods are those with the smallest theta.
+ *
+ * Reference: Stellingwerf, R. F. (1978), ApJ 224, 953
+ */
+public class PDMPeriodSearch extends PeriodRangeSearchPluginBase {
+
+	private int bins;
+	private int covers;
+	private boolean significance;
+
+	private IntegerField binsField;
+	private IntegerField coversField;
+	private Checkbox significanceField;
+
+	private volatile PDMPeriodogram pdm;
+
+	private PeriodAnalysisCoordinateType THETA;
+	private PeriodAnalysisCoordinateType SIGNIFICANCE;
+
+	/**
+	 * Constructor
+	 */
+	public PDMPeriodSearch() {
+		super("PDM");
+		reset();
+	}
+
+	@Override
+	public String getDescription() {
+		return "Phase Dispersion Minimisation period search";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return "PDM with Period Range";
+	}
+
+	@Override
+	protected void createCoordinateTypes() {
+		THETA = PeriodAnalysisCoordinateType.create("Theta");
+		SIGNIFICANCE = PeriodAnalysisCoordinateType.create("Significance");
+	}
+
+	@Override
+	protected PeriodAnalysisCoordinateType[] getCoordinateTypes() {
+		return new PeriodAnalysisCoordinateType[] {
+				PeriodAnalysisCoordinateType.FREQUENCY,
+				PeriodAnalysisCoordinateType.PERIOD, THETA, SIGNIFICANCE };
+	}
+
+	@Override
+	protected PeriodAnalysisCoordinateType getScoreType() {
+		return THETA;
+	}
+
+	// Ask user for number of bins and covers, and whether to compute
+	// significance.
+	@Override
+	protected List<ITextComponent<?>> createParameterFields() {
+		List<ITextComponent<?>> fields = new ArrayList<ITextComponent<?>>();
+
+		binsField = new IntegerField("Bins", 2, 100, bins);
+		fields.add(binsField);
+
+		coversField = new IntegerField("Covers", 1, 10, covers);
+		fields.add(coversField);
+
+		significanceField = new Checkbox("Beta significance", significance);
+		fields.add(significanceField);
+
+		return fields;
+	}
+
+	@Override
+	protected boolean acceptParameters() {
+		if (binsField.getValue() == null || coversField.getValue() == null) {
+			return false;
+		}
+
+		bins = binsField.getValue();
+		covers = coversField.getValue();
+		significance = significanceField.getValue();
+
+		return true;
+	}
+
+	@Override
+	protected void search(List<ValidObservation> obs,
+			PeriodAnalysisResult result, PeriodAnalysisResult topHits)
+			throws AlgorithmError {
+		pdm = new PDMPeriodogram(obs, minPeriod, maxPeriod, resolution, bins,
+				covers, significance);
+		pdm.setMaxTopHits(MAX_TOP_HITS);
+
+		pdm.execute();
+
+		addResults(result, topHits, pdm.getTopHits(), pdm.getFrequencies(),
+				pdm.getPeriods(), pdm.getThetas(), pdm.getSignificances());
+	}
+
+	@Override
+	protected void interruptSearch() {
+		PDMPeriodogram current = pdm;
+		if (current != null) {
+			current.interrupt();
+		}
+	}
+
+	@Override
+	protected void resetParameters() {
+		minPeriod = 0.1;
+		maxPeriod = 50.0;
+		resolution = 0.001;
+		bins = PDMPeriodogram.DEFAULT_BINS;
+		covers = PDMPeriodogram.DEFAULT_COVERS;
+		significance = true;
+	}
+}
@@ -34,7 +34,9 @@ import org.aavso.tools.vstar.util.ApacheCommonsDerivativeBasedExtremaFinder;
 import org.aavso.tools.vstar.util.Tolerance;
 import org.aavso.tools.vstar.util.locale.LocaleProps;
 import org.aavso.tools.vstar.util.model.AbstractModel;
+import org.aavso.tools.vstar.util.model.IBatchUnivariateRealFunction;
 import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
+import org.aavso.tools.vstar.vela.NumericFunction;
 import org.aavso.tools.vstar.vela.Operand;
 import org.aavso.tools.vstar.vela.Type;
 import org.aavso.tools.vstar.vela.VeLaInterpreter;
@@ -176,14 +178,17 @@ public class VeLaModelCreator extends ModelCreatorPluginBase {
         return new VeLaModel(obs);
     }
 
-    class VeLaUnivariateRealFunction implements DifferentiableUnivariateRealFunction {
+    class VeLaUnivariateRealFunction
+            implements DifferentiableUnivariateRealFunction, IBatchUnivariateRealFunction {
 
         private VeLaInterpreter vela;
-        private String funcName;
+        private NumericFunction function;
 
         public VeLaUnivariateRealFunction(VeLaInterpreter vela, String funcName) {
             this.vela = vela;
-            this.funcName = funcName;
+            // Resolve the function once rather than parsing a function call
+            // string for each time value.
+            this.function = vela.numericFunction(funcName);
         }
 
         /**
@@ -196,13 +201,20 @@ public class VeLaModelCreator extends ModelCreatorPluginBase {
          */
         @Override
         public double value(double t) throws FunctionEvaluationException {
-            String funCall = funcName + "(" + NumericPrecisionPrefs.formatTime(t) + ")";
-            Optional<Operand> result = vela.program(funCall);
-            if (result.isPresent()) {
-                return result.get().doubleVal();
-            } else {
-                throw new FunctionEvaluationException(t);
-            }
+            return function.value(t);
+        }
+
+        /**
+         * Return the values of the model function or its derivative.
+         * 
+         * @param ts The time values.
+         * @return The model values at the time values.
+         * @throws FunctionEvaluationException If there is an error during function
+         *                                     evaluation.
+         */
+        @Override
+        public double[] values(double[] ts) throws FunctionEvaluationException {
+            return function.values(ts);
         }
 
         /**
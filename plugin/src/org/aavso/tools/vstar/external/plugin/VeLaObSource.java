@@ -90,9 +90,8 @@ import org.aavso.tools.vstar.ui.mediator.StarInfo;
 import org.aavso.tools.vstar.util.Pair;
 import org.aavso.tools.vstar.util.help.Help;
 import org.aavso.tools.vstar.util.locale.LocaleProps;
-import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 import org.aavso.tools.vstar.vela.FunctionExecutor;
-import org.aavso.tools.vstar.vela.Operand;
+import org.aavso.tools.vstar.vela.NumericFunction;
 import org.aavso.tools.vstar.vela.Type;
 import org.aavso.tools.vstar.vela.VeLaInterpreter;
 import org.w3c.dom.Document;
@@ -290,6 +289,8 @@ public class VeLaObSource extends ObservationSourcePluginBase {
 			
 			VeLaInterpreter vela = createVeLaInterpreter(veLaCode);
 
+			NumericFunction function = vela.numericFunction(FUNC_NAME);
+
 			Double magVal = null;
 			
 			double step = (maxJD - minJD) / (points - 1);
@@ -298,13 +299,7 @@ public class VeLaObSource extends ObservationSourcePluginBase {
 				
 				double time = minJD + i * step;
 				
-				String funCall = FUNC_NAME + "(" + NumericPrecisionPrefs.formatTime(time) + ")";
-				Optional<Operand> result = vela.program(funCall);
-				if (result.isPresent() && result.get().getType() == Type.REAL) {
-					magVal = result.get().doubleVal();
-				} else {
-					throw new ObservationReadError("VeLa expression: Expected a Real value");
-				}
+				magVal = function.value(time);
 
 				if (magVal != null) {
 					double uncertainty = 0;
@@ -38,9 +38,12 @@ import org.aavso.tools.vstar.ui.undo.IUndoableAction;
 import org.aavso.tools.vstar.ui.vela.VeLaDialog;
 import org.aavso.tools.vstar.util.Pair;
 import org.aavso.tools.vstar.util.notification.Listener;
+import org.aavso.tools.vstar.vela.CompiledProgram;
+import org.aavso.tools.vstar.vela.FunctionExecutor;
 import org.aavso.tools.vstar.vela.Operand;
 import org.aavso.tools.vstar.vela.Type;
 import org.aavso.tools.vstar.vela.VeLaInterpreter;
+import org.aavso.tools.vstar.vela.VeLaObservationBatch;
 import org.aavso.tools.vstar.vela.VeLaValidObservationEnvironment;
 
 /**
@@ -49,6 +52,7 @@ import org.aavso.tools.vstar.vela.VeLaValidObservationEnvironment;
 public class VeLaObservationTransformer extends ObservationTransformerPluginBase {
 
     private VeLaInterpreter vela;
+    private CompiledProgram funCall;
     private boolean shouldInvokeDialog;
     private boolean firstInvocation;
 
@@ -97,67 +101,69 @@ public class VeLaObservationTransformer extends ObservationTransformerPluginBase
 
                     if (ok && pair.second.trim().length() != 0) {
                         vela.program(pair.second);
+                        // Parse the function call once, not once per
+                        // observation.
+                        funCall = vela.compile("do()");
                     } else {
                         break;
                     }
                     // Note: there being no unconditional break here is on purpose!
                 case REDO:
                     for (SeriesType seriesType : series) {
-                        for (ValidObservation ob : seriesInfo.getObservations(seriesType)) {
-                            // Store old magnitude for undo
-                            Magnitude magnitude = ob.getMagnitude();
+                        List<ValidObservation> obs = seriesInfo.getObservations(seriesType);
 
-                            if (mags.get(seriesType) == null) {
-                                mags.put(seriesType, new ArrayList<Double>());
-                            }
-                            mags.get(seriesType).add(magnitude.getMagValue());
-
-                            if (errs.get(seriesType) == null) {
-                                errs.put(seriesType, new ArrayList<Double>());
-                            }
-                            errs.get(seriesType).add(magnitude.getUncertainty());
-
-                            // Push an environment that makes the
-                            // observation available to VeLa code...
-                            vela.pushEnvironment(new VeLaValidObservationEnvironment(ob));
+                        // Where possible, the function is evaluated over all
+                        // observations in the series at once.
+                        Optional<List<double[]>> results = new VeLaObservationBatch(vela, obs)
+                                .listValues(doFunction());
 
-                            // ...and call the function with the current
-                            // observation's magnitude and error values.
-                            String funCall = String.format("do()", magnitude.getMagValue(), magnitude.getUncertainty());
+                        if (results.isPresent() && results.get().size() == 2) {
+                            double[] newMags = results.get().get(0);
+                            double[] newErrs = results.get().get(1);
 
-                            Optional<Operand> result = vela.program(funCall);
-
-                            if (result.isPresent() && result.get().getType() == Type.LIST) {
-                                Operand op = result.get();
-
-                                if (op.listVal().size() == 2) {
-                                    boolean bothReal = op.listVal().stream()
-                                            .allMatch(x -> x.convert(Type.REAL).getType() == Type.REAL);
-
-                                    if (bothReal) {
-                                        double mag = op.listVal().get(0).doubleVal();
-                                        double err = op.listVal().get(1).doubleVal();
-                                        ob.setMagnitude(new Magnitude(mag, err));
+                            for (int i = 0; i < obs.size(); i++) {
+                                ValidObservation ob = obs.get(i);
+                                storeMagnitude(seriesType, ob);
+                                ob.setMagnitude(new Magnitude(newMags[i], newErrs[i]));
+                            }
+                        } else {
+                            for (ValidObservation ob : obs) {
+                                storeMagnitude(seriesType, ob);
+
+                                // Call the function in an environment that makes
+                                // the observation available to VeLa code.
+                                Optional<Operand> result = funCall
+                                        .evaluate(new VeLaValidObservationEnvironment(ob));
+
+                                if (result.isPresent() && result.get().getType() == Type.LIST) {
+                                    Operand op = result.get();
+
+                                    if (op.listVal().size() == 2) {
+                                        boolean bothReal = op.listVal().stream()
+                                                .allMatch(x -> x.convert(Type.REAL).getType() == Type.REAL);
+
+                                        if (bothReal) {
+                                            double mag = op.listVal().get(0).doubleVal();
+                                            double err = op.listVal().get(1).doubleVal();
+                                            ob.setMagnitude(new Magnitude(mag, err));
+                                        } else {
+                                            // Need two real numbers
+                                            ok = false;
+                                        }
                                     } else {
                                         // Need two real numbers
                                         ok = false;
                                     }
                                 } else {
-                                    // Need two real numbers
+                                    // Need (two real numbers in) a list
                                     ok = false;
                                 }
-                            } else {
-                                // Need (two real numbers in) a list
-                                ok = false;
-                            }
 
-                            if (!ok) {
-                                ok = false;
-                                MessageBox.showErrorDialog("VeLa Error", "Expected a 2 element result list");
+                                if (!ok) {
+                                    ok = false;
+                                    MessageBox.showErrorDialog("VeLa Error", "Expected a 2 element result list");
+                                }
                             }
-
-                            // Push current observation's environment.
-                            vela.popEnvironment();
                         }
                     }
                     break;
@@ -181,9 +187,45 @@ public class VeLaObservationTransformer extends ObservationTransformerPluginBase
             public String getDisplayString() {
                 return "VeLa observation transformation";
             }
+
+            // Store old magnitude for undo
+            private void storeMagnitude(SeriesType seriesType, ValidObservation ob) {
+                Magnitude magnitude = ob.getMagnitude();
+
+                if (mags.get(seriesType) == null) {
+                    mags.put(seriesType, new ArrayList<Double>());
+                }
+                mags.get(seriesType).add(magnitude.getMagValue());
+
+                if (errs.get(seriesType) == null) {
+                    errs.put(seriesType, new ArrayList<Double>());
+                }
+                errs.get(seriesType).add(magnitude.getUncertainty());
+            }
         };
     }
 
+    /**
+     * Return the do() function called for each observation, i.e. the first
+     * function of that name that conforms to no actual parameters, if any.
+     */
+    private FunctionExecutor doFunction() {
+        FunctionExecutor function = null;
+
+        Optional<List<FunctionExecutor>> functions = vela.lookupFunctions("DO");
+
+        if (functions.isPresent()) {
+            for (FunctionExecutor candidate : functions.get()) {
+                if (candidate.conforms(FunctionExecutor.NO_ACTUALS)) {
+                    function = candidate;
+                    break;
+                }
+            }
+        }
+
+        return function;
+    }
+
     /**
      * Get the new star listener for this plugin.
      */
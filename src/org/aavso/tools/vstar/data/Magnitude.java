@@ -22,6 +22,9 @@ import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 /**
  * This class represents a magValue including uncertainty and fainter-than
  * information.
+ * 
+ * Methods read the values through the accessors, so a subclass may hold them
+ * elsewhere, as the magnitude view of a ValidObservation does.
  */
 public class Magnitude {
 
@@ -85,8 +88,8 @@ public class Magnitude {
 	 * @return the copied magnitude
 	 */
 	public Magnitude copy() {
-		return new Magnitude(this.magValue, this.magModifier,
-							 this.isUncertain, this.uncertainty);
+		return new Magnitude(getMagValue(), getMagModifier(),
+							 isUncertain(), getUncertainty());
 	}
 
 	/**
@@ -100,14 +103,14 @@ public class Magnitude {
 	 * @return whether the magValue is fainter than the specified value
 	 */
 	public boolean isFainterThan() {
-		return magModifier == MagnitudeModifier.FAINTER_THAN;
+		return getMagModifier() == MagnitudeModifier.FAINTER_THAN;
 	}
 
 	/**
 	 * @return whether the magValue is brighter than the specified value
 	 */
 	public boolean isBrighterThan() {
-		return magModifier == MagnitudeModifier.BRIGHTER_THAN;
+		return getMagModifier() == MagnitudeModifier.BRIGHTER_THAN;
 	}
 
 	/**
@@ -168,16 +171,16 @@ public class Magnitude {
 			strBuf.append(">");
 		}
 
-		strBuf.append(NumericPrecisionPrefs.formatMag(magValue));
+		strBuf.append(NumericPrecisionPrefs.formatMag(getMagValue()));
 
-		if (isUncertain) {
+		if (isUncertain()) {
 			strBuf.append(" (uncertain)");
 		}
 
-		if (uncertainty != 0) {
+		if (getUncertainty() != 0) {
 //			strBuf.append(" (\u00B1");
 			strBuf.append(" (");
-			strBuf.append(NumericPrecisionPrefs.formatMag(uncertainty));
+			strBuf.append(NumericPrecisionPrefs.formatMag(getUncertainty()));
 			strBuf.append(")");
 		}
 
@@ -193,12 +196,12 @@ public class Magnitude {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + (isUncertain ? 1231 : 1237);
-		result = prime * result + ((magModifier == null) ? 0 : magModifier.hashCode());
+		result = prime * result + (isUncertain() ? 1231 : 1237);
+		result = prime * result + ((getMagModifier() == null) ? 0 : getMagModifier().hashCode());
 		long temp;
-		temp = Double.doubleToLongBits(magValue);
+		temp = Double.doubleToLongBits(getMagValue());
 		result = prime * result + (int) (temp ^ (temp >>> 32));
-		temp = Double.doubleToLongBits(uncertainty);
+		temp = Double.doubleToLongBits(getUncertainty());
 		result = prime * result + (int) (temp ^ (temp >>> 32));
 		return result;
 	}
@@ -220,20 +223,20 @@ public class Magnitude {
 			return false;
 		}
 		Magnitude other = (Magnitude) obj;
-		if (isUncertain != other.isUncertain) {
+		if (isUncertain() != other.isUncertain()) {
 			return false;
 		}
-		if (magModifier == null) {
-			if (other.magModifier != null) {
+		if (getMagModifier() == null) {
+			if (other.getMagModifier() != null) {
 				return false;
 			}
-		} else if (!magModifier.equals(other.magModifier)) {
+		} else if (!getMagModifier().equals(other.getMagModifier())) {
 			return false;
 		}
-		if (Double.doubleToLongBits(magValue) != Double.doubleToLongBits(other.magValue)) {
+		if (Double.doubleToLongBits(getMagValue()) != Double.doubleToLongBits(other.getMagValue())) {
 			return false;
 		}
-		if (Double.doubleToLongBits(uncertainty) != Double.doubleToLongBits(other.uncertainty)) {
+		if (Double.doubleToLongBits(getUncertainty()) != Double.doubleToLongBits(other.getUncertainty())) {
 			return false;
 		}
 		return true;
@@ -17,14 +17,19 @@
  */
 package org.aavso.tools.vstar.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aavso.tools.vstar.ui.mediator.AnalysisType;
 import org.aavso.tools.vstar.ui.mediator.Mediator;
+import org.aavso.tools.vstar.util.WeakInterner;
 import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 
 /**
@@ -73,36 +78,41 @@ public class ValidObservation extends Observation {
 		}
 	}
 
-	// Julian Day, calendar date, and cache.
-	private DateInfo dateInfo = null;
-	private final static WeakHashMap<DateInfo, DateInfo> dateInfoCache;
-	static {
-		dateInfoCache = new WeakHashMap<DateInfo, DateInfo>();
-	}
+	// Time, magnitude and phase values are held as primitives, with NaN
+	// denoting an absent value, rather than as DateInfo, Magnitude and Double
+	// objects. The DateInfo and Magnitude objects returned by getDateInfo()
+	// and getMagnitude() are created on first request and then reused.
+
+	// Julian Day.
+	private double jd = Double.NaN;
 
-	// Magnitude, uncertainty, fainter/brighter-than, and cache.
+	// Magnitude, fainter/brighter-than, uncertain flag, and uncertainty.
+	private boolean hasMagnitude = false;
+	private double mag = Double.NaN;
+	private MagnitudeModifier magModifier = null;
+	private boolean magUncertain = false;
+	private double magUncertainty = 0;
+
+	// Created on demand by getDateInfo() and getMagnitude().
+	private DateInfo dateInfo = null;
 	private Magnitude magnitude = null;
-	private final static WeakHashMap<Magnitude, Magnitude> magnitudeCache;
-	static {
-		magnitudeCache = new WeakHashMap<Magnitude, Magnitude>();
-	}
 
-	private Double hqUncertainty = null;
+	private double hqUncertainty = Double.NaN;
 	private SeriesType band = null;
 	private SeriesType series = null; // series and band may differ on copy
 
 	// Comment codes and cache.
 	private CommentCodes commentCode = null;
-	private final static WeakHashMap<CommentCodes, CommentCodes> commentCodeCache;
+	private final static WeakInterner<CommentCodes> commentCodeCache;
 	static {
-		commentCodeCache = new WeakHashMap<CommentCodes, CommentCodes>();
+		commentCodeCache = new WeakInterner<CommentCodes>("Comment code");
 	}
 
 	private boolean transformed = false;
 	private ValidationType validationType = null;
 
-	// Heliocentric vs Geocentric Julian Date; uses dateInfo cache.
-	private DateInfo hJD = null;
+	// Heliocentric vs Geocentric Julian Date.
+	private double hJD = Double.NaN;
 
 	private MTypeType mType = MTypeType.STD;
 
@@ -112,15 +122,24 @@ public class ValidObservation extends Observation {
 	// They may change over the lifetime of a ValidObservation instance
 	// since different epoch determination methods will result in different
 	// phase values.
-	private Double standardPhase = null;
-	private Double previousCyclePhase = null;
+	private double standardPhase = Double.NaN;
+	private double previousCyclePhase = Double.NaN;
 
 	private boolean excluded = false;
 
 	private JDflavour jdFlavour = JDflavour.UNKNOWN;
 
-	// Optional string-based observation details.
-	private Map<String, Property> details;
+	// Optional string-based observation details, indexed by detail slot.
+	private Property[] details;
+
+	private static final Property[] NO_DETAILS = new Property[0];
+
+	// Detail slots by key and vice versa. Unlike the detail index, which
+	// orders details for display and is reset for each dataset, slots are
+	// never reused, so the details of observations from a previous dataset
+	// remain valid.
+	private static final Map<String, Integer> detailKeyToSlot = new ConcurrentHashMap<String, Integer>();
+	private static volatile String[] slotToDetailKey = new String[0];
 
 	// Optional observation detail titles, and shadow save collection.
 	private static Map<String, String> detailTitles = new HashMap<String, String>();
@@ -203,10 +222,10 @@ public class ValidObservation extends Observation {
 	}
 
 	// A cache of detail values.
-	private static final WeakHashMap<Property, Property> detailValueCache;
+	private static final WeakInterner<Property> detailValueCache;
 
 	static {
-		detailValueCache = new WeakHashMap<Property, Property>();
+		detailValueCache = new WeakInterner<Property>("Detail value");
 	}
 
 	/**
@@ -216,7 +235,7 @@ public class ValidObservation extends Observation {
 	 */
 	public ValidObservation() {
 		super(0);
-		details = new HashMap<String, Property>();
+		details = NO_DETAILS;
 	}
 
 	/**
@@ -233,7 +252,7 @@ public class ValidObservation extends Observation {
 
 		ob.setJD(this.getJD());
 		ob.setJDflavour(this.getJDflavour());
-		ob.setMagnitude(this.getMagnitude().copy());
+		ob.setMagnitude(this.getMagnitude());
 		ob.setHqUncertainty(this.getHqUncertainty());
 		ob.setBand(this.getBand());
 		if (series != null) ob.setSeries(series);
@@ -246,7 +265,7 @@ public class ValidObservation extends Observation {
 		ob.setStandardPhase(this.getStandardPhase());
 		ob.setPreviousCyclePhase(this.getPreviousCyclePhase());
 		ob.setExcluded(this.isExcluded());
-		ob.details = new HashMap<String, Property>(this.details);
+		ob.details = details.length == 0 ? NO_DETAILS : details.clone();
 
 		return ob;
 	}
@@ -264,7 +283,7 @@ public class ValidObservation extends Observation {
 	/**
 	 * Reset static non-cache maps and detail index in readiness for a new dataset.
 	 */
-	public static void reset() {
+	public static synchronized void reset() {
 		if (detailTitles != null) {
 			savedDetailTitles = new HashMap<String, String>(detailTitles);
 			detailTitles.clear();
@@ -293,7 +312,7 @@ public class ValidObservation extends Observation {
 	 * Restore static non-cache maps and detail index when a dataset load failure
 	 * occurs.
 	 */
-	public static void restore() {
+	public static synchronized void restore() {
 		// Don't restore to null values, e.g. in the case of a first observation
 		// load failure, the saved map values may still be at their default of
 		// null.
@@ -320,28 +339,45 @@ public class ValidObservation extends Observation {
 	// Getters and Setters
 
 	/**
-	 * Generic cached value getter.
+	 * Generic cached value getter. This may be called concurrently, e.g. by
+	 * observation retrievers or transformers that create or modify
+	 * observations in parallel.
 	 * 
 	 * @param <T>   The type of the cached value.
 	 * @param cache The cache in which to look for the value.
 	 * @param value The value to look up.
 	 * @return The present or future cached value.
 	 */
-	private static <T> T getCachedValue(WeakHashMap<T, T> cache, T value) {
-		if (cache.containsKey(value)) {
-			value = cache.get(value);
-		} else {
-			cache.put(value, value);
-		}
+	private static <T> T getCachedValue(WeakInterner<T> cache, T value) {
+		return cache.intern(value);
+	}
 
-		return value;
+	/**
+	 * @return the caches of comment code and detail values, e.g. for reporting
+	 *         hit and miss counts
+	 */
+	public static List<WeakInterner<?>> getValueCaches() {
+		List<WeakInterner<?>> caches = new ArrayList<WeakInterner<?>>();
+		caches.add(commentCodeCache);
+		caches.add(detailValueCache);
+		return caches;
 	}
 
 	/**
-	 * @return details map
+	 * @return a map of detail keys to values, in detail slot order; changes
+	 *         to the map do not affect this observation
 	 */
 	public Map<String, Property> getDetails() {
-		return details;
+		Map<String, Property> map = new LinkedHashMap<String, Property>();
+
+		String[] keys = slotToDetailKey;
+		for (int slot = 0; slot < details.length; slot++) {
+			if (details[slot] != null) {
+				map.put(keys[slot], details[slot]);
+			}
+		}
+
+		return map;
 	}
 
 	/**
@@ -389,13 +425,24 @@ public class ValidObservation extends Observation {
 	public void addDetail(String key, Property value, String title) {
 		if (key != null && value != null) {
 			value = getCachedValue(detailValueCache, value);
-			details.put(key, value);
-			if (!detailTitles.containsKey(key)) {
-				detailTitles.put(key, title);
-				detailTypes.put(key, value.getClazz());
-				indexToDetailKey.put(detailIndex, key);
-				detailKeyToIndex.put(key, detailIndex);
-				detailIndex++;
+
+			int slot = getDetailSlot(key);
+			if (slot >= details.length) {
+				// Make room for all slots allocated so far, since
+				// observations in a dataset usually have the same details.
+				details = Arrays.copyOf(details,
+						Math.max(slot + 1, slotToDetailKey.length));
+			}
+			details[slot] = value;
+
+			synchronized (ValidObservation.class) {
+				if (!detailTitles.containsKey(key)) {
+					detailTitles.put(key, title);
+					detailTypes.put(key, value.getClazz());
+					indexToDetailKey.put(detailIndex, key);
+					detailKeyToIndex.put(key, detailIndex);
+					detailIndex++;
+				}
 			}
 		}
 	}
@@ -453,7 +500,8 @@ public class ValidObservation extends Observation {
 	 *         string.
 	 */
 	public Property getDetail(String key) {
-		return detailExists(key) ? details.get(key) : Property.NO_VALUE;
+		Property value = detailValue(key);
+		return value != null ? value : Property.NO_VALUE;
 	}
 
 	/**
@@ -477,7 +525,7 @@ public class ValidObservation extends Observation {
 	 * @return Whether or not detail exists.
 	 */
 	public boolean detailExists(String key) {
-		return details.keySet().contains(key);
+		return detailValue(key) != null;
 	}
 
 	/**
@@ -518,9 +566,21 @@ public class ValidObservation extends Observation {
 	}
 
 	/**
-	 * @return the dateInfo
+	 * Return the date information. DateInfo is immutable, so the same object
+	 * is returned until the Julian Day changes. Use {@link #getJD()} where
+	 * only the Julian Day is needed.
+	 * 
+	 * @return the dateInfo, or null if not set
 	 */
 	public DateInfo getDateInfo() {
+		if (Double.isNaN(jd)) {
+			return null;
+		}
+
+		if (dateInfo == null) {
+			dateInfo = new DateInfo(jd);
+		}
+
 		return dateInfo;
 	}
 
@@ -528,30 +588,86 @@ public class ValidObservation extends Observation {
 	 * @param dateInfo the dateInfo to set
 	 */
 	public void setDateInfo(DateInfo dateInfo) {
-		this.dateInfo = getCachedValue(dateInfoCache, dateInfo);
+		this.jd = dateInfo == null ? Double.NaN : dateInfo.getJulianDay();
+		this.dateInfo = null;
 	}
 
 	/**
-	 * @return the magnitude
+	 * Return the magnitude. The same object is returned by each call. It is a
+	 * view of this observation's magnitude: it reflects later changes to the
+	 * observation, and changing it, e.g. via
+	 * {@link Magnitude#setUncertainty(double)}, changes the observation. Use
+	 * {@link #getMag()} or {@link #getMagUncertainty()} where only a value is
+	 * needed.
+	 * 
+	 * @return the magnitude, or null if not set
 	 */
 	public Magnitude getMagnitude() {
+		if (!hasMagnitude) {
+			return null;
+		}
+
+		if (magnitude == null) {
+			magnitude = new ObservationMagnitude();
+		}
+
 		return magnitude;
 	}
 
 	/**
+	 * Set the magnitude. The values of the magnitude are copied, so changing
+	 * the object passed afterwards does not change this observation; change
+	 * the object returned by {@link #getMagnitude()} instead.
+	 * 
 	 * @param magnitude the magnitude to set
 	 */
 	public void setMagnitude(Magnitude magnitude) {
-//		this.magnitude = getCachedValue(magnitudeCache, magnitude);
-		this.magnitude = magnitude;
+		hasMagnitude = magnitude != null;
+
+		if (hasMagnitude) {
+			mag = magnitude.getMagValue();
+			magModifier = magnitude.getMagModifier();
+			magUncertain = magnitude.isUncertain();
+			magUncertainty = magnitude.getUncertainty();
+		} else {
+			mag = Double.NaN;
+			magModifier = null;
+			magUncertain = false;
+			magUncertainty = 0;
+		}
 	}
 
 	/**
 	 * @param mag the magnitude component to set.
 	 */
 	public void setMag(double mag) {
-//		setMagnitude(new Magnitude(mag, magnitude.getUncertainty()));
-		this.magnitude.setMagValue(mag);
+		this.mag = mag;
+
+		if (!hasMagnitude) {
+			hasMagnitude = true;
+			magModifier = MagnitudeModifier.NO_DELTA;
+		}
+	}
+
+	/**
+	 * @return the magnitude's uncertainty
+	 */
+	public double getMagUncertainty() {
+		return magUncertainty;
+	}
+
+	/**
+	 * @param uncertainty the magnitude's uncertainty to set
+	 */
+	public void setMagUncertainty(double uncertainty) {
+		this.magUncertainty = uncertainty;
+	}
+
+	/**
+	 * @param magModifier the magnitude's fainter/brighter-than modifier to set
+	 */
+	public void setMagModifier(MagnitudeModifier magModifier) {
+		this.magModifier = magModifier;
 	}
 
 	/**
@@ -619,14 +735,14 @@ public class ValidObservation extends Observation {
 	 * @return the hqUncertainty
 	 */
 	public Double getHqUncertainty() {
-		return hqUncertainty;
+		return Double.isNaN(hqUncertainty) ? null : hqUncertainty;
 	}
 
 	/**
 	 * @param hqUncertainty the hqUncertainty to set
 	 */
 	public void setHqUncertainty(Double hqUncertainty) {
-		this.hqUncertainty = hqUncertainty;
+		this.hqUncertainty = hqUncertainty == null ? Double.NaN : hqUncertainty;
 	}
 
 	/**
@@ -798,14 +914,14 @@ public class ValidObservation extends Observation {
 	 * @return the hJD
 	 */
 	public DateInfo getHJD() {
-		return hJD;
+		return Double.isNaN(hJD) ? null : new DateInfo(hJD);
 	}
 
 	/**
 	 * @param hJD the hJD to set
 	 */
 	public void setHJD(DateInfo hJD) {
-		this.hJD = getCachedValue(dateInfoCache, hJD);
+		this.hJD = hJD == null ? Double.NaN : hJD.getJulianDay();
 	}
 
 	/**
@@ -910,13 +1026,20 @@ public class ValidObservation extends Observation {
 	 * @return the standardPhase
 	 */
 	public Double getStandardPhase() {
-		return standardPhase;
+		return Double.isNaN(standardPhase) ? null : standardPhase;
 	}
 
 	/**
 	 * @param standardPhase the standardPhase to set
 	 */
 	public void setStandardPhase(Double standardPhase) {
+		this.standardPhase = standardPhase == null ? Double.NaN : standardPhase;
+	}
+
+	/**
+	 * @param standardPhase the standardPhase to set
+	 */
+	public void setStandardPhase(double standardPhase) {
 		this.standardPhase = standardPhase;
 	}
 
@@ -924,13 +1047,20 @@ public class ValidObservation extends Observation {
 	 * @return the previousCyclePhase
 	 */
 	public Double getPreviousCyclePhase() {
-		return previousCyclePhase;
+		return Double.isNaN(previousCyclePhase) ? null : previousCyclePhase;
 	}
 
 	/**
 	 * @param previousCyclePhase the previousCyclePhase to set
 	 */
 	public void setPreviousCyclePhase(Double previousCyclePhase) {
+		this.previousCyclePhase = previousCyclePhase == null ? Double.NaN : previousCyclePhase;
+	}
+
+	/**
+	 * @param previousCyclePhase the previousCyclePhase to set
+	 */
+	public void setPreviousCyclePhase(double previousCyclePhase) {
 		this.previousCyclePhase = previousCyclePhase;
 	}
 
@@ -980,31 +1110,31 @@ public class ValidObservation extends Observation {
 		StringBuffer strBuf = new StringBuffer();
 
 		if (nonEmptyDetailExists(nameKey)) {
-			strBuf.append(details.get(nameKey));
+			strBuf.append(detailValue(nameKey));
 			strBuf.append("\n");
 		}
 
-		if (dateInfo != null) {
+		if (!Double.isNaN(jd)) {
 			strBuf.append(getTimeUnits());
 			strBuf.append(": ");
-			strBuf.append(NumericPrecisionPrefs.formatTime(dateInfo.getJulianDay()));
+			strBuf.append(NumericPrecisionPrefs.formatTime(jd));
 			strBuf.append("\n");
 
 			strBuf.append("Calendar Date: ");
-			strBuf.append(dateInfo.getCalendarDate());
+			strBuf.append(getDateInfo().getCalendarDate());
 			strBuf.append("\n");
 		}
 
 		// If we are not in phase plot mode, we should not represent ourselves
 		// as having a phase.
 		if (Mediator.getInstance().getAnalysisType() == AnalysisType.PHASE_PLOT) {
-			if (standardPhase != null) {
+			if (!Double.isNaN(standardPhase)) {
 				strBuf.append("Standard Phase: ");
 				strBuf.append(NumericPrecisionPrefs.formatTime(standardPhase));
 				strBuf.append("\n");
 			}
 
-			if (previousCyclePhase != null) {
+			if (!Double.isNaN(previousCyclePhase)) {
 				strBuf.append("Previous Cycle Phase: ");
 				strBuf.append(NumericPrecisionPrefs.formatTime(previousCyclePhase));
 				strBuf.append("\n");
@@ -1012,10 +1142,10 @@ public class ValidObservation extends Observation {
 		}
 
 		strBuf.append("Magnitude: ");
-		strBuf.append(magnitude.toString());
+		strBuf.append(getMagnitude());
 		strBuf.append("\n");
 
-		if (hqUncertainty != null) {
+		if (!Double.isNaN(hqUncertainty)) {
 			strBuf.append("HQ Uncertainty: ");
 			strBuf.append(NumericPrecisionPrefs.formatMag(hqUncertainty));
 			strBuf.append("\n");
@@ -1041,7 +1171,7 @@ public class ValidObservation extends Observation {
 
 		if (nonEmptyDetailExists(obsCodeKey)) {
 			strBuf.append(detailTitles.get(obsCodeKey) + ": ");
-			strBuf.append(details.get(obsCodeKey));
+			strBuf.append(detailValue(obsCodeKey));
 			strBuf.append("\n");
 		}
 
@@ -1058,25 +1188,25 @@ public class ValidObservation extends Observation {
 
 		if (nonEmptyDetailExists(compStar1Key)) {
 			strBuf.append(detailTitles.get(compStar1Key) + ": ");
-			strBuf.append(details.get(compStar1Key));
+			strBuf.append(detailValue(compStar1Key));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(compStar2Key)) {
 			strBuf.append(detailTitles.get(compStar2Key) + ": ");
-			strBuf.append(details.get(compStar2Key));
+			strBuf.append(detailValue(compStar2Key));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(chartsKey)) {
 			strBuf.append(detailTitles.get(chartsKey) + ": ");
-			strBuf.append(details.get(chartsKey));
+			strBuf.append(detailValue(chartsKey));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(commentsKey)) {
 			strBuf.append(detailTitles.get(commentsKey) + ": ");
-			strBuf.append(details.get(commentsKey));
+			strBuf.append(detailValue(commentsKey));
 			strBuf.append("\n");
 		}
 
@@ -1086,57 +1216,59 @@ public class ValidObservation extends Observation {
 
 		if (nonEmptyDetailExists(airmassKey)) {
 			strBuf.append(detailTitles.get(airmassKey) + ": ");
-			strBuf.append(details.get(airmassKey));
+			strBuf.append(detailValue(airmassKey));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(cMagKey)) {
 			strBuf.append(detailTitles.get(cMagKey) + ": ");
-			strBuf.append(details.get(cMagKey));
+			strBuf.append(detailValue(cMagKey));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(kMagKey)) {
 			strBuf.append(detailTitles.get(kMagKey) + ": ");
-			strBuf.append(details.get(kMagKey));
+			strBuf.append(detailValue(kMagKey));
 			strBuf.append("\n");
 		}
 
-		if (hJD != null) {
+		if (!Double.isNaN(hJD)) {
 			strBuf.append("Heliocentric Julian Day: ");
-			strBuf.append(NumericPrecisionPrefs.formatTime(hJD.getJulianDay()));
+			strBuf.append(NumericPrecisionPrefs.formatTime(hJD));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(groupKey)) {
 			strBuf.append(detailTitles.get(groupKey) + ": ");
-			strBuf.append(details.get(groupKey));
+			strBuf.append(detailValue(groupKey));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(pubrefKey)) {
 			strBuf.append(detailTitles.get(pubrefKey) + ": ");
-			strBuf.append(details.get(pubrefKey));
+			strBuf.append(detailValue(pubrefKey));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(digitizerKey)) {
 			strBuf.append(detailTitles.get(digitizerKey) + ": ");
-			strBuf.append(details.get(digitizerKey));
+			strBuf.append(detailValue(digitizerKey));
 			strBuf.append("\n");
 		}
 
 		if (nonEmptyDetailExists(creditKey)) {
 			strBuf.append(detailTitles.get(creditKey) + ": ");
-			strBuf.append(details.get(creditKey));
+			strBuf.append(detailValue(creditKey));
 			strBuf.append("\n");
 		}
 
 		// Add any remaining non-AAVSO details, e.g. for a plugin.
-		for (String key : details.keySet()) {
-			if (!standardDetailKeys.contains(key)) {
+		String[] keys = slotToDetailKey;
+		for (int slot = 0; slot < details.length; slot++) {
+			String key = keys[slot];
+			if (details[slot] != null && !standardDetailKeys.contains(key)) {
 				strBuf.append(detailTitles.get(key) + ": ");
-				strBuf.append(details.get(key));
+				strBuf.append(details[slot]);
 				strBuf.append("\n");
 			}
 		}
@@ -1182,7 +1314,7 @@ public class ValidObservation extends Observation {
 		buf.append(this.getMagnitude().getMagValue());
 		buf.append(delimiter);
 
-		double uncertainty = this.getMagnitude().getUncertainty();
+		double uncertainty = this.getMagUncertainty();
 		// TODO: why != here and > in next method?
 		if (uncertainty != 0.0) {
 			buf.append(uncertainty);
@@ -1190,7 +1322,7 @@ public class ValidObservation extends Observation {
 		buf.append(delimiter);
 
 		if (nonEmptyDetailExists(obsCodeKey)) {
-			buf.append(quoteForCSVifNeeded(details.get(obsCodeKey).toString(), delimiter));
+			buf.append(quoteForCSVifNeeded(detailValue(obsCodeKey).toString(), delimiter));
 		}
 		buf.append(delimiter);
 
@@ -1234,7 +1366,7 @@ public class ValidObservation extends Observation {
 		buf.append(this.getMagnitude().getMagValue());
 		buf.append(delimiter);
 
-		double uncertainty = this.getMagnitude().getUncertainty();
+		double uncertainty = this.getMagUncertainty();
 		if (uncertainty > 0.0) {
 			buf.append(uncertainty);
 		}
@@ -1252,7 +1384,7 @@ public class ValidObservation extends Observation {
 		buf.append(delimiter);
 
 		if (nonEmptyDetailExists(obsCodeKey)) {
-			buf.append(quoteForCSVifNeeded(details.get(obsCodeKey).toString(), delimiter));
+			buf.append(quoteForCSVifNeeded(detailValue(obsCodeKey).toString(), delimiter));
 		}
 		buf.append(delimiter);
 
@@ -1304,8 +1436,8 @@ public class ValidObservation extends Observation {
 		}
 		buf.append(delimiter);
 
-		if (this.getHJD() != null) {
-			buf.append(hJD.getJulianDay());
+		if (!Double.isNaN(hJD)) {
+			buf.append(hJD);
 		}
 		buf.append(delimiter);
 
@@ -1362,18 +1494,22 @@ public class ValidObservation extends Observation {
 		int result = 1;
 		result = prime * result + ((band == null) ? 0 : band.hashCode());
 		result = prime * result + ((commentCode == null) ? 0 : commentCode.hashCode());
-		result = prime * result + ((dateInfo == null) ? 0 : dateInfo.hashCode());
-		result = prime * result + ((details == null) ? 0 : details.hashCode());
+		result = prime * result + Double.hashCode(jd);
+		result = prime * result + detailsHashCode();
 		result = prime * result + (excluded ? 1231 : 1237);
-		result = prime * result + ((hJD == null) ? 0 : hJD.hashCode());
-		result = prime * result + ((hqUncertainty == null) ? 0 : hqUncertainty.hashCode());
+		result = prime * result + Double.hashCode(hJD);
+		result = prime * result + Double.hashCode(hqUncertainty);
 		result = prime * result + ((jdFlavour == null) ? 0 : jdFlavour.hashCode());
 		result = prime * result + ((mType == null) ? 0 : mType.hashCode());
-		result = prime * result + ((magnitude == null) ? 0 : magnitude.hashCode());
+		result = prime * result + (hasMagnitude ? 1231 : 1237);
+		result = prime * result + Double.hashCode(mag);
+		result = prime * result + ((magModifier == null) ? 0 : magModifier.hashCode());
+		result = prime * result + (magUncertain ? 1231 : 1237);
+		result = prime * result + Double.hashCode(magUncertainty);
 		result = prime * result + ((obsType == null) ? 0 : obsType.hashCode());
-		result = prime * result + ((previousCyclePhase == null) ? 0 : previousCyclePhase.hashCode());
+		result = prime * result + Double.hashCode(previousCyclePhase);
 		result = prime * result + ((series == null) ? 0 : series.hashCode());
-		result = prime * result + ((standardPhase == null) ? 0 : standardPhase.hashCode());
+		result = prime * result + Double.hashCode(standardPhase);
 		result = prime * result + (transformed ? 1231 : 1237);
 		result = prime * result + ((validationType == null) ? 0 : validationType.hashCode());
 		return result;
@@ -1398,56 +1534,43 @@ public class ValidObservation extends Observation {
 				return false;
 		} else if (!commentCode.equals(other.commentCode))
 			return false;
-		if (dateInfo == null) {
-			if (other.dateInfo != null)
-				return false;
-		} else if (!dateInfo.equals(other.dateInfo))
+		if (Double.doubleToLongBits(jd) != Double.doubleToLongBits(other.jd))
 			return false;
-		if (details == null) {
-			if (other.details != null)
-				return false;
-		} else if (!details.equals(other.details))
+		if (!detailsEqual(other))
 			return false;
 		if (excluded != other.excluded)
 			return false;
-		if (hJD == null) {
-			if (other.hJD != null)
-				return false;
-		} else if (!hJD.equals(other.hJD))
+		if (Double.doubleToLongBits(hJD) != Double.doubleToLongBits(other.hJD))
 			return false;
-		if (hqUncertainty == null) {
-			if (other.hqUncertainty != null)
-				return false;
-		} else if (!hqUncertainty.equals(other.hqUncertainty))
+		if (Double.doubleToLongBits(hqUncertainty) != Double.doubleToLongBits(other.hqUncertainty))
 			return false;
 		if (jdFlavour != other.jdFlavour)
 			return false;
 		if (mType != other.mType)
 			return false;
-		if (magnitude == null) {
-			if (other.magnitude != null)
-				return false;
-		} else if (!magnitude.equals(other.magnitude))
+		if (hasMagnitude != other.hasMagnitude)
+			return false;
+		if (Double.doubleToLongBits(mag) != Double.doubleToLongBits(other.mag))
+			return false;
+		if (magModifier != other.magModifier)
+			return false;
+		if (magUncertain != other.magUncertain)
+			return false;
+		if (Double.doubleToLongBits(magUncertainty) != Double.doubleToLongBits(other.magUncertainty))
 			return false;
 		if (obsType == null) {
 			if (other.obsType != null)
 				return false;
 		} else if (!obsType.equals(other.obsType))
 			return false;
-		if (previousCyclePhase == null) {
-			if (other.previousCyclePhase != null)
-				return false;
-		} else if (!previousCyclePhase.equals(other.previousCyclePhase))
+		if (Double.doubleToLongBits(previousCyclePhase) != Double.doubleToLongBits(other.previousCyclePhase))
 			return false;
 		if (series == null) {
 			if (other.series != null)
 				return false;
 		} else if (!series.equals(other.series))
 			return false;
-		if (standardPhase == null) {
-			if (other.standardPhase != null)
-				return false;
-		} else if (!standardPhase.equals(other.standardPhase))
+		if (Double.doubleToLongBits(standardPhase) != Double.doubleToLongBits(other.standardPhase))
 			return false;
 		if (transformed != other.transformed)
 			return false;
@@ -1459,19 +1582,120 @@ public class ValidObservation extends Observation {
 	// Convenience methods.
 
 	public double getJD() {
-		return this.dateInfo.getJulianDay();
+		return this.jd;
 	}
 
 	public void setJD(double jd) {
-		setDateInfo(new DateInfo(jd));
+		this.jd = jd;
+		this.dateInfo = null;
 	}
 
 	public double getMag() {
-		return this.magnitude.getMagValue();
+		return this.mag;
 	}
 
 	// Helpers
 
+	// A magnitude that reads and writes this observation's magnitude fields.
+	private class ObservationMagnitude extends Magnitude {
+
+		@Override
+		public double getMagValue() {
+			return mag;
+		}
+
+		@Override
+		public void setMagValue(double magValue) {
+			mag = magValue;
+		}
+
+		@Override
+		public MagnitudeModifier getMagModifier() {
+			return magModifier;
+		}
+
+		@Override
+		public void setMagModifier(MagnitudeModifier modifier) {
+			magModifier = modifier;
+		}
+
+		@Override
+		public boolean isUncertain() {
+			return magUncertain;
+		}
+
+		@Override
+		public void setUncertain(boolean isUncertain) {
+			magUncertain = isUncertain;
+		}
+
+		@Override
+		public double getUncertainty() {
+			return magUncertainty;
+		}
+
+		@Override
+		public void setUncertainty(double uncertainty) {
+			magUncertainty = uncertainty;
+		}
+	}
+
+	// Returns the slot for a detail key, allocating one if necessary.
+	private static int getDetailSlot(String key) {
+		Integer slot = detailKeyToSlot.get(key);
+
+		if (slot == null) {
+			synchronized (detailKeyToSlot) {
+				slot = detailKeyToSlot.get(key);
+				if (slot == null) {
+					String[] keys = Arrays.copyOf(slotToDetailKey,
+							slotToDetailKey.length + 1);
+					slot = keys.length - 1;
+					keys[slot] = key;
+					slotToDetailKey = keys;
+					detailKeyToSlot.put(key, slot);
+				}
+			}
+		}
+
+		return slot;
+	}
+
+	// Returns the value of a detail, or null if there is none.
+	private Property detailValue(String key) {
+		Integer slot = detailKeyToSlot.get(key);
+		return slot != null && slot < details.length ? details[slot] : null;
+	}
+
+	// Consistent with the hash code of the equivalent details map.
+	private int detailsHashCode() {
+		int hash = 0;
+
+		String[] keys = slotToDetailKey;
+		for (int slot = 0; slot < details.length; slot++) {
+			if (details[slot] != null) {
+				hash += keys[slot].hashCode() ^ details[slot].hashCode();
+			}
+		}
+
+		return hash;
+	}
+
+	private boolean detailsEqual(ValidObservation other) {
+		int length = Math.max(details.length, other.details.length);
+
+		for (int slot = 0; slot < length; slot++) {
+			Property value = slot < details.length ? details[slot] : null;
+			Property otherValue = slot < other.details.length ? other.details[slot]
+					: null;
+			if (value == null ? otherValue != null : !value.equals(otherValue)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
 	private boolean isEmpty(String s) {
 		return s == null || s.trim().length() == 0;
 	}
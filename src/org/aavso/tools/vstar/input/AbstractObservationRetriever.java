@@ -20,11 +20,14 @@ package org.aavso.tools.vstar.input;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.function.Predicate;
 
 import org.aavso.tools.vstar.data.InvalidObservation;
 import org.aavso.tools.vstar.data.Property;
@@ -38,8 +41,10 @@ import org.aavso.tools.vstar.ui.mediator.StarInfo;
 import org.aavso.tools.vstar.ui.mediator.message.ProgressInfo;
 import org.aavso.tools.vstar.ui.mediator.message.ProgressType;
 import org.aavso.tools.vstar.ui.mediator.message.StopRequestMessage;
+import org.aavso.tools.vstar.util.comparator.JDComparator;
 import org.aavso.tools.vstar.util.locale.LocaleProps;
 import org.aavso.tools.vstar.util.notification.Listener;
+import org.aavso.tools.vstar.vela.CompiledProgram;
 import org.aavso.tools.vstar.vela.Operand;
 import org.aavso.tools.vstar.vela.Type;
 import org.aavso.tools.vstar.vela.VeLaEvalError;
@@ -66,6 +71,10 @@ public abstract class AbstractObservationRetriever {
 
 	private VeLaInterpreter vela;
 
+	private CompiledProgram velaFilter;
+
+	private boolean velaParseErrorOccurred;
+
 	private boolean velaErrorReported;
 
 	private double minMag;
@@ -74,6 +83,12 @@ public abstract class AbstractObservationRetriever {
 	protected boolean interrupted;
 
 	protected JDflavour jdFlavour;
+
+	private boolean bufferedInsertion;
+
+	// Lists to which observations have been added out of JD order while
+	// insertion is buffered.
+	private Set<List<ValidObservation>> unsortedLists;
 	
 	/**
 	 * The list of valid observations retrieved.
@@ -112,6 +127,8 @@ public abstract class AbstractObservationRetriever {
 		}
 
 		this.velaFilterStr = velaFilterStr.trim();
+		velaFilter = null;
+		velaParseErrorOccurred = false;
 		velaErrorReported = false;
 		vela = new VeLaInterpreter(VERBOSE, ADD_VSTAR_API, Collections.emptyList());
 
@@ -146,6 +163,10 @@ public abstract class AbstractObservationRetriever {
 
 		jdFlavour = JDflavour.JD;
 
+		bufferedInsertion = false;
+		unsortedLists = Collections
+				.newSetFromMap(new IdentityHashMap<List<ValidObservation>, Boolean>());
+
 		Mediator.getInstance().getStopRequestNotifier()
 				.addListener(createStopRequestListener());
 	}
@@ -227,6 +248,7 @@ public abstract class AbstractObservationRetriever {
 	 * @return the validObservations
 	 */
 	public List<ValidObservation> getValidObservations() {
+		sortBufferedObservations();
 		return validObservations;
 	}
 
@@ -340,15 +362,73 @@ public abstract class AbstractObservationRetriever {
 	 */
 	public void setVelaFilter(String velaFilterStr) {
 		this.velaFilterStr = velaFilterStr;
+		velaFilter = null;
+		velaParseErrorOccurred = false;
 	}
 
 	/**
 	 * @return the validObservationCategoryMap
 	 */
 	public Map<SeriesType, List<ValidObservation>> getValidObservationCategoryMap() {
+		sortBufferedObservations();
 		return validObservationCategoryMap;
 	}
 
+	/**
+	 * <p>
+	 * Set whether insertion of observations is buffered.
+	 * </p>
+	 * 
+	 * <p>
+	 * When insertion is buffered, an observation whose JD is lower than that
+	 * of the last observation in a list is appended rather than inserted in
+	 * JD order, and each such list is sorted once (stably, by JD) when the
+	 * valid observation list or category map is next requested, or when
+	 * sortBufferedObservations() is invoked. This suits sources that are
+	 * expected to yield many observations out of order, e.g. multi-band or
+	 * multi-page sources.
+	 * </p>
+	 * 
+	 * <p>
+	 * A retriever that reads its own observation lists (rather than via
+	 * getValidObservations() or getValidObservationCategoryMap()) while
+	 * retrieving observations must not rely upon them being sorted while
+	 * insertion is buffered.
+	 * </p>
+	 * 
+	 * @param bufferedInsertion
+	 *            Whether insertion is buffered.
+	 */
+	public void setBufferedInsertion(boolean bufferedInsertion) {
+		if (!bufferedInsertion) {
+			sortBufferedObservations();
+		}
+		this.bufferedInsertion = bufferedInsertion;
+	}
+
+	/**
+	 * @return whether insertion of observations is buffered
+	 */
+	public boolean isBufferedInsertion() {
+		return bufferedInsertion;
+	}
+
+	/**
+	 * Sort by JD each observation list to which observations have been added
+	 * out of order while insertion was buffered, satisfying the post-condition
+	 * that the valid observation list and each category list is sorted by JD.
+	 * Observations with equal JDs remain in the order in which they were
+	 * added.
+	 */
+	public void sortBufferedObservations() {
+		if (!unsortedLists.isEmpty()) {
+			for (List<ValidObservation> obs : unsortedLists) {
+				Collections.sort(obs, JDComparator.instance);
+			}
+			unsortedLists.clear();
+		}
+	}
+
 	/**
 	 * Are there any series that should be excluded from addition in
 	 * collectAllValidObservations() and collectAllInvalidObservations()?
@@ -384,16 +464,26 @@ public abstract class AbstractObservationRetriever {
 			ob.addDetail("SOURCE", new Property(newSourceName), "Source");
 		}
 
-		// Add previously existing obs (those passed to this method).
+		// Add previously existing obs (those passed to this method). These
+		// are likely to interleave with the new obs, so buffer them and sort
+		// once at the end rather than inserting each in turn.
 		Set<SeriesType> seriesToExclude = seriesToExcludeWhenAdditive();
 
-		for (ValidObservation ob : obs) {
-			// If there are no series to exclude or the observation's band is
-			// not in the list of series to be excluded, include it.
-			if (seriesToExclude == null
-					|| !seriesToExclude.contains(ob.getBand())) {
-				collectObservation(ob);
+		boolean wasBuffered = bufferedInsertion;
+		bufferedInsertion = true;
+
+		try {
+			for (ValidObservation ob : obs) {
+				// If there are no series to exclude or the observation's band
+				// is not in the list of series to be excluded, include it.
+				if (seriesToExclude == null
+						|| !seriesToExclude.contains(ob.getBand())) {
+					collectObservation(ob);
+				}
 			}
+		} finally {
+			bufferedInsertion = wasBuffered;
+			sortBufferedObservations();
 		}
 	}
 
@@ -468,27 +558,43 @@ public abstract class AbstractObservationRetriever {
 		boolean include = true;
 
 		// If a VeLa filter string is present, apply it to each observation.
-		if (!NO_VELA_FILTER.equals(velaFilterStr)) {
-			vela.pushEnvironment(new VeLaValidObservationEnvironment(ob));
+		// The filter is compiled once, when the first observation is
+		// collected, rather than being parsed for every observation.
+		if (!NO_VELA_FILTER.equals(velaFilterStr) && !velaParseErrorOccurred) {
 			try {
-				Optional<Operand> value = vela.program(velaFilterStr);
-				if (value.isPresent()) {
-					// There may be no value present because everything
-					// is commented or because no expression has been
-					// evaluated (e.g. one or more functions or variables
-					// have been defined but no expression has been evaluated
-					// that uses them). In this case, there's nothing to do.
-					if (value.get().getType() == Type.BOOLEAN) {
-						include = value.get().booleanVal();
-					} else {
-						if (!velaErrorReported) {
-							MessageBox.showErrorDialog("Type Error",
-									"Expected a Boolean value");
-							velaErrorReported = true;
+				if (velaFilter == null) {
+					velaFilter = vela.compile(velaFilterStr);
+				}
+
+				// Where possible, the filter is compiled to a predicate.
+				Optional<Predicate<ValidObservation>> predicate = velaFilter
+						.getObservationPredicate();
+
+				if (predicate.isPresent()) {
+					include = predicate.get().test(ob);
+				} else {
+					Optional<Operand> value = velaFilter
+							.evaluate(new VeLaValidObservationEnvironment(ob));
+					if (value.isPresent()) {
+						// There may be no value present because everything
+						// is commented or because no expression has been
+						// evaluated (e.g. one or more functions or variables
+						// have been defined but no expression has been
+						// evaluated that uses them). In this case, there's
+						// nothing to do.
+						if (value.get().getType() == Type.BOOLEAN) {
+							include = value.get().booleanVal();
+						} else {
+							if (!velaErrorReported) {
+								MessageBox.showErrorDialog("Type Error",
+										"Expected a Boolean value");
+								velaErrorReported = true;
+							}
 						}
 					}
 				}
 			} catch (VeLaParseError e) {
+				velaParseErrorOccurred = true;
 				if (!velaErrorReported) {
 					MessageBox.showErrorDialog("Parse Error",
 							messageFromException(e));
@@ -500,8 +606,6 @@ public abstract class AbstractObservationRetriever {
 							messageFromException(e));
 					velaErrorReported = true;
 				}
-			} finally {
-				vela.popEnvironment();
 			}
 		}
 
@@ -572,7 +676,7 @@ public abstract class AbstractObservationRetriever {
 	public void addValidObservation(ValidObservation ob) {
 		insertObservation(ob, validObservations);
 
-		double uncert = ob.getMagnitude().getUncertainty();
+		double uncert = ob.getMagUncertainty();
 		// If uncertainty not given, get HQ uncertainty if present.
 		if (uncert == 0.0 && ob.getHqUncertainty() != null) {
 			uncert = ob.getHqUncertainty();
@@ -596,11 +700,13 @@ public abstract class AbstractObservationRetriever {
 	 * </p>
 	 * 
 	 * <p>
-	 * An observation source plug-in developer could, if so desired, completely
-	 * override this method if data is expected to be mostly out of order; in
-	 * the worst case, if all elements are out of order, the cost will be O(n^2)
-	 * due to the O(n) traversal being carried out n times for the number of
-	 * observations inserted.
+	 * An observation whose JD is at least as high as that of the last
+	 * observation in the list is appended. Otherwise, its position is found
+	 * by binary search and it is inserted before any observations with the
+	 * same JD, at the cost of shifting the remainder of the list. If data is
+	 * expected to be mostly out of order, buffered insertion should be used
+	 * instead (see setBufferedInsertion()), in which case the observation is
+	 * appended and the list sorted later.
 	 * </p>
 	 * 
 	 * @param ob
@@ -617,17 +723,49 @@ public abstract class AbstractObservationRetriever {
 			// The list is empty or the observation's JD is at least as
 			// high as that of the last observation in the list.
 			obs.add(ob);
+		} else if (bufferedInsertion) {
+			// Defer ordering until the list is next requested.
+			obs.add(ob);
+			unsortedLists.add(obs);
 		} else {
 			// The observation has a JD that is less than that of the
-			// observation at the end of the list. Incur an O(n) cost to
-			// insert the observation into the correct position in order to
-			// satisfy the post-condition.
-			int i = 0;
-			while (i < obListSize && newJD > obs.get(i).getJD()) {
-				i++;
+			// observation at the end of the list, so insert it into the
+			// correct position in order to satisfy the post-condition.
+			obs.add(findInsertionIndex(newJD, obs), ob);
+		}
+	}
+
+	/**
+	 * Return the index of the first observation in a JD-sorted list whose JD
+	 * is not less than the specified JD, or the size of the list if there is
+	 * no such observation.
+	 * 
+	 * @param jd
+	 *            The JD.
+	 * @param obs
+	 *            The JD-sorted list.
+	 * @return The index.
+	 */
+	protected int findInsertionIndex(double jd, List<ValidObservation> obs) {
+		int lo = 0;
+		int hi = obs.size();
+
+		if (obs instanceof RandomAccess) {
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (jd > obs.get(mid).getJD()) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+		} else {
+			while (lo < hi && jd > obs.get(lo).getJD()) {
+				lo++;
 			}
-			obs.add(i, ob);
 		}
+
+		return lo;
 	}
 
 	/**
@@ -38,9 +38,22 @@ public class ObservationSourceAnalyser {
 	public static final String COMMA_DELIM = ",";
 	public static final String SPACE_DELIM = " +";
 
+	/**
+	 * The line count when it is unknown, e.g. when only a prefix of a source
+	 * of unknown size has been analysed.
+	 */
+	public static final int UNKNOWN_LINE_COUNT = -1;
+
+	// The number of characters from which to estimate the mean line length
+	// when analysing a prefix, and the maximum number of characters to read
+	// in search of a line from which to determine the format.
+	private static final int ESTIMATION_PREFIX_SIZE = 64 * 1024;
+	private static final int MAX_PREFIX_SIZE = 1024 * 1024;
+
 	private LineNumberReader obsSource;
 	private String obsSourceIdentifier;
 	private int lineCount;
+	private boolean lineCountEstimated;
 	private NewStarType newStarType;
 	private String delimiter;
 
@@ -57,6 +70,7 @@ public class ObservationSourceAnalyser {
 		this.obsSource = obsSource;
 		this.obsSourceIdentifier = obsSourceIdentifier;
 		this.lineCount = 0;
+		this.lineCountEstimated = false;
 	}
 
 	/**
@@ -72,29 +86,207 @@ public class ObservationSourceAnalyser {
 			// Other than doing this once, just read all lines
 			// so we can get a line count.
 			if (!gleanedFormat) {
-				// Ignore comment or blank line.
-				if (!line.startsWith("#") && !line.matches("^\\s*$")) {
-					// Try different delimiter types to guess CSV or TSV.
-					gleanedFormat = determinedFormat(line, TAB_DELIM);
-					if (!gleanedFormat) {
-						gleanedFormat = determinedFormat(line, COMMA_DELIM);
-						if (!gleanedFormat) {
-							gleanedFormat = determinedFormat(line, SPACE_DELIM);
+				gleanedFormat = determinedFormat(line);
+			}
+
+			line = obsSource.readLine();
+		}
+
+		this.lineCount = obsSource.getLineNumber();
+		this.lineCountEstimated = false;
+		obsSource.close();
+	}
+
+	/**
+	 * <p>
+	 * Analyse a bounded prefix of the source, leaving the source positioned
+	 * at its start so that it can then be read (once) by an observation
+	 * reader, e.g. TextFormatObservationReader.
+	 * </p>
+	 * 
+	 * <p>
+	 * The format is determined from the first line that is neither a comment
+	 * nor blank. If the whole source fits within the prefix, the line count is
+	 * exact, otherwise it is estimated from the source size and the mean
+	 * length of the lines in the prefix, or is UNKNOWN_LINE_COUNT if the
+	 * source size is not known.
+	 * </p>
+	 * 
+	 * @param sourceSize
+	 *            The size of the source in bytes, or a non-positive value if
+	 *            not known.
+	 */
+	public void analysePrefix(long sourceSize) throws IOException,
+			ObservationReadError {
+
+		boolean gleanedFormat = false;
+		boolean ended = false;
+		int lines = 0;
+
+		// The prefix is read into a buffer and split into lines here rather
+		// than with readLine(), so that the characters consumed, including
+		// those of (possibly two character) line terminators, are counted
+		// exactly and never exceed the mark limit.
+		char[] prefix = new char[MAX_PREFIX_SIZE];
+		int length = 0;
+		int start = 0;
+
+		obsSource.mark(MAX_PREFIX_SIZE);
+
+		try {
+			while (!gleanedFormat || start < ESTIMATION_PREFIX_SIZE) {
+				int end = findLineEnd(prefix, start, length);
+
+				if (end < 0) {
+					// There is no complete line in the buffer, so read more.
+					if (length == MAX_PREFIX_SIZE) {
+						break;
+					}
+
+					int count = obsSource.read(prefix, length, Math.min(
+							ESTIMATION_PREFIX_SIZE, MAX_PREFIX_SIZE - length));
+
+					if (count < 0) {
+						// The last line may be unterminated, or terminated by
+						// a lone '\r'.
+						if (start < length) {
+							lines++;
 							if (!gleanedFormat) {
-								throw new ObservationReadError("'"
-										+ obsSourceIdentifier
-										+ "' is in an unknown format.");
+								int lineEnd = prefix[length - 1] == '\r' ? length - 1
+										: length;
+								gleanedFormat = determinedFormat(new String(
+										prefix, start, lineEnd - start));
 							}
+							start = length;
 						}
+						ended = true;
+						break;
+					}
+
+					length += count;
+				} else {
+					lines++;
+
+					if (!gleanedFormat) {
+						gleanedFormat = determinedFormat(new String(prefix,
+								start, end - start));
+					}
+
+					start = end + 1;
+					if (prefix[end] == '\r' && start < length
+							&& prefix[start] == '\n') {
+						start++;
 					}
 				}
 			}
+		} finally {
+			obsSource.reset();
+		}
 
-			line = obsSource.readLine();
+		if (!gleanedFormat && !ended) {
+			throw new ObservationReadError("'" + obsSourceIdentifier
+					+ "' is in an unknown format.");
 		}
 
-		this.lineCount = obsSource.getLineNumber();
-		obsSource.close();
+		long charCount = start;
+
+		if (ended) {
+			this.lineCount = lines;
+			this.lineCountEstimated = false;
+		} else if (sourceSize > 0) {
+			double estimate = Math.ceil(sourceSize * (double) lines / charCount);
+			this.lineCount = (int) Math.min(Integer.MAX_VALUE, estimate);
+			this.lineCountEstimated = true;
+		} else {
+			this.lineCount = UNKNOWN_LINE_COUNT;
+			this.lineCountEstimated = true;
+		}
+	}
+
+	/**
+	 * Find the end of the line starting at the specified index of a buffer.
+	 * 
+	 * @param buffer
+	 *            The buffer.
+	 * @param start
+	 *            The index of the start of the line.
+	 * @param length
+	 *            The number of characters in the buffer.
+	 * @return The index of the line's terminator ('\n' or the '\r' of "\r" or
+	 *         "\r\n"), or -1 if the buffer does not hold the whole line and
+	 *         terminator.
+	 */
+	private static int findLineEnd(char[] buffer, int start, int length) {
+		for (int i = start; i < length; i++) {
+			if (buffer[i] == '\n') {
+				return i;
+			} else if (buffer[i] == '\r') {
+				// A '\r' at the end of the buffer may be followed by '\n'.
+				return i + 1 < length ? i : -1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Try to determine the format of the file from a single line, ignoring
+	 * comment and blank lines.
+	 * 
+	 * @param line
+	 *            The line to be analysed.
+	 * @return Whether or not the format was determined; false for a comment
+	 *         or blank line.
+	 * @throws ObservationReadError
+	 *             If the line is in an unknown format.
+	 */
+	private boolean determinedFormat(String line) throws ObservationReadError {
+		boolean gleanedFormat = false;
+
+		// Ignore comment or blank line.
+		if (!line.startsWith("#") && !isBlank(line)) {
+			// Try different delimiter types to guess CSV or TSV.
+			gleanedFormat = determinedFormat(line, TAB_DELIM);
+			if (!gleanedFormat) {
+				gleanedFormat = determinedFormat(line, COMMA_DELIM);
+				if (!gleanedFormat) {
+					gleanedFormat = determinedFormat(line, SPACE_DELIM);
+					if (!gleanedFormat) {
+						throw new ObservationReadError("'"
+								+ obsSourceIdentifier
+								+ "' is in an unknown format.");
+					}
+				}
+			}
+		}
+
+		return gleanedFormat;
+	}
+
+	/**
+	 * Is the line empty or made up only of whitespace, as per the regular
+	 * expression "^\\s*$"?
+	 * 
+	 * @param line
+	 *            The line in question.
+	 * @return Whether or not the line is blank.
+	 */
+	public static boolean isBlank(String line) {
+		for (int i = 0; i < line.length(); i++) {
+			switch (line.charAt(i)) {
+			case ' ':
+			case '\t':
+			case '\n':
+			case '\u000B':
+			case '\f':
+			case '\r':
+				break;
+			default:
+				return false;
+			}
+		}
+
+		return true;
 	}
 
 	/**
@@ -125,12 +317,21 @@ public class ObservationSourceAnalyser {
 	}
 
 	/**
-	 * @return the lineCount
+	 * @return the lineCount; may be an estimate or UNKNOWN_LINE_COUNT after
+	 *         analysePrefix()
 	 */
 	public int getLineCount() {
 		return lineCount;
 	}
 
+	/**
+	 * @return whether the line count is an estimate (or unknown) rather than
+	 *         exact
+	 */
+	public boolean isLineCountEstimated() {
+		return lineCountEstimated;
+	}
+
 	/**
 	 * @return the newStarType
 	 */
@@ -0,0 +1,502 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.input.text;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aavso.tools.vstar.data.InvalidObservation;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.data.validation.CommonTextFormatValidator;
+import org.aavso.tools.vstar.exception.ObservationReadError;
+import org.aavso.tools.vstar.exception.ObservationValidationError;
+import org.aavso.tools.vstar.exception.ObservationValidationWarning;
+import org.aavso.tools.vstar.ui.mediator.Mediator;
+import org.aavso.tools.vstar.ui.mediator.message.ProgressInfo;
+import org.aavso.tools.vstar.ui.mediator.message.ProgressType;
+
+/**
+ * <p>
+ * This class reads a simple or AAVSO download format file by memory-mapping
+ * it, splitting it at line boundaries into chunks, and validating the chunks
+ * in parallel, each with its own validator. The observations from each chunk
+ * are then merged in line order, so that record numbers, error messages and
+ * observation order are the same as for TextFormatObservationReader.
+ * </p>
+ *
+ * <p>
+ * The file is read sequentially, via the reader, if it is no larger than a
+ * chunk, if only one thread is to be used, if a line feed may not be a single
+ * byte in the default character set, or if a quoted field spans a chunk
+ * boundary.
+ * </p>
+ *
+ * REQ_VSTAR_SIMPLE_TEXT_FILE_READ REQ_VSTAR_AAVSO_DATA_DOWNLOAD_FILE_READ
+ */
+public class ParallelTextFormatObservationReader extends
+		TextFormatObservationReader {
+
+	private static final int MAX_AVAILABLE_THREADS = Math.max(1, Runtime
+			.getRuntime().availableProcessors());
+
+	/**
+	 * The default approximate chunk size in bytes.
+	 */
+	public static final long DEFAULT_CHUNK_SIZE = 4L * 1024 * 1024;
+
+	// The number of bytes read at a time when looking for a line boundary.
+	private static final int BOUNDARY_SCAN_SIZE = 8192;
+
+	// The number of records a chunk reader validates between progress
+	// increments.
+	private static final int PROGRESS_BATCH_SIZE = 1000;
+
+	private FileChannel channel;
+
+	private int threadCount;
+
+	private long chunkSize;
+
+	// The number of records whose progress has been reported by chunk
+	// readers but not yet matched by the sequential reader, if the file
+	// turns out to need reading sequentially.
+	private AtomicInteger progressReported;
+
+	/**
+	 * Constructor
+	 *
+	 * @param channel
+	 *            A channel for the file that is the source of the
+	 *            observations.
+	 * @param reader
+	 *            A reader for the same file, used if it is to be read
+	 *            sequentially.
+	 * @param analyser
+	 *            An observation file analyser.
+	 * @param velaFilterStr
+	 *            The VeLa filter string to be applied for each observation
+	 *            before being added to the valid observation list.
+	 */
+	public ParallelTextFormatObservationReader(FileChannel channel,
+			LineNumberReader reader, ObservationSourceAnalyser analyser,
+			String velaFilterStr) {
+		super(reader, analyser, velaFilterStr);
+		this.channel = channel;
+		this.threadCount = MAX_AVAILABLE_THREADS;
+		this.chunkSize = DEFAULT_CHUNK_SIZE;
+		this.progressReported = new AtomicInteger(0);
+	}
+
+	/**
+	 * Set the number of threads with which to read the file; values are
+	 * clamped to [1, maximum available threads].
+	 *
+	 * @param threadCount
+	 *            The desired number of threads.
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			this.threadCount = 1;
+		} else if (threadCount > MAX_AVAILABLE_THREADS) {
+			this.threadCount = MAX_AVAILABLE_THREADS;
+		} else {
+			this.threadCount = threadCount;
+		}
+	}
+
+	/**
+	 * @return the configured number of threads
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * @return the recommended number of threads, reflecting machine capacity
+	 */
+	public static int getRecommendedThreadCount() {
+		return MAX_AVAILABLE_THREADS;
+	}
+
+	/**
+	 * Set the approximate size of each chunk; chunks end at line boundaries.
+	 *
+	 * @param chunkSize
+	 *            The chunk size in bytes.
+	 */
+	public void setChunkSize(long chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * @return the approximate chunk size in bytes
+	 */
+	public long getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @see org.aavso.tools.vstar.input.text.TextFormatObservationReader#retrieveObservations()
+	 */
+	@Override
+	public void retrieveObservations() throws ObservationReadError {
+		List<ChunkResult> results = null;
+
+		progressReported.set(0);
+
+		try {
+			long[] boundaries = findChunkBoundaries(channel.size());
+
+			int threads = Math.min(threadCount, boundaries.length - 1);
+
+			if (threads > 1 && isLineFeedSingleByte(Charset.defaultCharset())) {
+				results = readChunks(boundaries, threads);
+			}
+
+			if (results != null && !spansChunkBoundary(results)) {
+				mergeChunks(results);
+			}
+		} catch (Throwable t) {
+			throw new ObservationReadError(
+					"Error when attempting to read observation source.");
+		}
+
+		if ((results == null || spansChunkBoundary(results))
+				&& !wasInterrupted()) {
+			super.retrieveObservations();
+		}
+	}
+
+	/**
+	 * Increment progress for a record read sequentially, unless the record's
+	 * progress was already reported when the file was read in chunks.
+	 * 
+	 * @see org.aavso.tools.vstar.input.AbstractObservationRetriever#incrementProgress()
+	 */
+	@Override
+	public void incrementProgress() {
+		if (progressReported.getAndUpdate(n -> n > 0 ? n - 1 : 0) == 0) {
+			super.incrementProgress();
+		}
+	}
+
+	// Helpers
+
+	// Return the offsets of the start of each chunk followed by the size of
+	// the file.
+	private long[] findChunkBoundaries(long size) throws IOException {
+		List<Long> boundaries = new ArrayList<Long>();
+		boundaries.add(0L);
+
+		ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+
+		long position = chunkSize;
+		while (position < size) {
+			long boundary = findLineStart(position, size, buffer);
+			if (boundary >= size) {
+				break;
+			}
+			boundaries.add(boundary);
+			position = boundary + chunkSize;
+		}
+
+		boundaries.add(size);
+
+		long[] offsets = new long[boundaries.size()];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = boundaries.get(i);
+		}
+
+		return offsets;
+	}
+
+	// Return the offset of the start of the first line that starts at or
+	// after the specified position, or the size of the file if there is none.
+	private long findLineStart(long position, long size, ByteBuffer buffer)
+			throws IOException {
+
+		long offset = position - 1;
+
+		while (offset < size) {
+			buffer.clear();
+			int count = channel.read(buffer, offset);
+			if (count <= 0) {
+				break;
+			}
+
+			for (int i = 0; i < count; i++) {
+				if (buffer.get(i) == '\n') {
+					return offset + i + 1;
+				}
+			}
+
+			offset += count;
+		}
+
+		return size;
+	}
+
+	// Read the chunks in parallel, returning null if interrupted.
+	private List<ChunkResult> readChunks(long[] boundaries, int threads)
+			throws Exception {
+
+		List<ChunkResult> results = new ArrayList<ChunkResult>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<ChunkResult>> futures = new ArrayList<Future<ChunkResult>>();
+
+		try {
+			for (int i = 0; i < boundaries.length - 1; i++) {
+				final long start = boundaries[i];
+				final long end = boundaries[i + 1];
+				futures.add(executor.submit(new Callable<ChunkResult>() {
+					@Override
+					public ChunkResult call() throws Exception {
+						return readChunk(start, end);
+					}
+				}));
+			}
+
+			for (Future<ChunkResult> future : futures) {
+				results.add(future.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return wasInterrupted() ? null : results;
+	}
+
+	// Read and validate the records of one chunk, as per
+	// TextFormatObservationReader.retrieveObservations(), except that whether
+	// a record is a column header depends upon the preceding chunks and so is
+	// decided when the chunks are merged.
+	private ChunkResult readChunk(long start, long end) throws IOException {
+		ByteBuffer buffer = channel.map(MapMode.READ_ONLY, start, end - start);
+
+		LineNumberReader chunkReader = new LineNumberReader(
+				new InputStreamReader(new ByteBufferInputStream(buffer)));
+
+		CommonTextFormatValidator validator = analyser
+				.getTextFormatValidator(chunkReader);
+
+		ChunkResult result = new ChunkResult();
+		String line = null;
+		int unreported = 0;
+
+		while (validator.next() && !wasInterrupted()) {
+			line = validator.getRawRecord();
+			result.recordCount++;
+
+			if (++unreported == PROGRESS_BATCH_SIZE) {
+				reportProgress(unreported);
+				unreported = 0;
+			}
+
+			if (!line.startsWith("#")
+					&& !ObservationSourceAnalyser.isBlank(line)) {
+
+				ChunkRecord record = new ChunkRecord(result.recordCount,
+						looksLikeColumnHeader(line));
+
+				try {
+					record.validOb = validator.validate();
+				} catch (ObservationValidationError e) {
+					record.invalidOb = new InvalidObservation(validator
+							.getRawRecord(), e.getMessage());
+				} catch (ObservationValidationWarning e) {
+					record.invalidOb = new InvalidObservation(validator
+							.getRawRecord(), e.getMessage(), true);
+					record.validOb = e.getObservation();
+				} catch (Exception e) {
+					// Whether this is an error depends upon whether the
+					// record turns out to be a column header.
+					record.failure = e;
+				}
+
+				result.records.add(record);
+			} else if (line.startsWith("#")) {
+				String name = getNameDirective(line);
+				if (name != null) {
+					result.objName = name;
+				}
+			}
+		}
+
+		reportProgress(unreported);
+
+		// A line terminator in the last record means that a quoted field did
+		// not end in this chunk.
+		result.endsInField = line != null
+				&& (line.indexOf('\n') != -1 || line.indexOf('\r') != -1);
+
+		return result;
+	}
+
+	// Report the progress of a chunk reader; the progress notifier coalesces
+	// increments from all chunk readers.
+	private void reportProgress(int records) {
+		if (records > 0) {
+			progressReported.addAndGet(records);
+			Mediator.getInstance().getProgressNotifier().notifyListeners(
+					new ProgressInfo(ProgressType.INCREMENT_PROGRESS, records));
+		}
+	}
+
+	// Does a quoted field span a chunk boundary?
+	private boolean spansChunkBoundary(List<ChunkResult> results) {
+		for (int i = 0; i < results.size() - 1; i++) {
+			if (results.get(i).endsInField) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	// Add the observations from each chunk in line order.
+	private void mergeChunks(List<ChunkResult> results) throws Exception {
+
+		objName = null;
+
+		int recordOffset = 0;
+
+		for (ChunkResult result : results) {
+			if (wasInterrupted()) {
+				break;
+			}
+
+			for (ChunkRecord record : result.records) {
+				// A column header is only expected before any observations.
+				if (record.headerCandidate && validObservations.isEmpty()
+						&& invalidObservations.isEmpty()) {
+					continue;
+				}
+
+				if (record.failure != null) {
+					throw record.failure;
+				}
+
+				int lineNum = recordOffset + record.recordNum;
+
+				if (record.invalidOb != null) {
+					record.invalidOb.setRecordNumber(lineNum);
+					addInvalidObservation(record.invalidOb);
+				}
+
+				if (record.validOb != null) {
+					addValidObservation(record.validOb, lineNum);
+				}
+			}
+
+			if (result.objName != null) {
+				objName = result.objName;
+			}
+
+			recordOffset += result.recordCount;
+		}
+	}
+
+	// Is a line feed always encoded as the single byte '\n' in the specified
+	// character set, so that a file can be split at line feed bytes?
+	private static boolean isLineFeedSingleByte(Charset charset) {
+		boolean isSingleByte = StandardCharsets.UTF_8.equals(charset)
+				|| (charset.canEncode() && charset.newEncoder()
+						.maxBytesPerChar() == 1.0f);
+
+		return isSingleByte
+				&& Arrays.equals("\n".getBytes(charset), new byte[] { '\n' });
+	}
+
+	// The validated records of a chunk.
+	private static class ChunkResult {
+		List<ChunkRecord> records = new ArrayList<ChunkRecord>();
+		int recordCount = 0;
+		String objName = null;
+		boolean endsInField = false;
+	}
+
+	// A record that is neither a comment nor blank, with its chunk-relative
+	// record number.
+	private static class ChunkRecord {
+		final int recordNum;
+		final boolean headerCandidate;
+		ValidObservation validOb = null;
+		InvalidObservation invalidOb = null;
+		Exception failure = null;
+
+		ChunkRecord(int recordNum, boolean headerCandidate) {
+			this.recordNum = recordNum;
+			this.headerCandidate = headerCandidate;
+		}
+	}
+
+	// An input stream that reads from a byte buffer.
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
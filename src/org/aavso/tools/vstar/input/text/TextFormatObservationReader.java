@@ -37,11 +37,11 @@ import org.aavso.tools.vstar.ui.mediator.StarInfo;
  */
 public class TextFormatObservationReader extends AbstractObservationRetriever {
 
-	private LineNumberReader reader;
+	protected LineNumberReader reader;
 
-	private ObservationSourceAnalyser analyser;
+	protected ObservationSourceAnalyser analyser;
 
-	private String objName;
+	protected String objName;
 
 	/**
 	 * Constructor
@@ -60,7 +60,8 @@ public class TextFormatObservationReader extends AbstractObservationRetriever {
 	 */
 	public TextFormatObservationReader(LineNumberReader reader,
 			ObservationSourceAnalyser analyser, String velaFilterStr) {
-		super(analyser.getLineCount(), velaFilterStr);
+		super(analyser.getLineCount() >= 0 ? analyser.getLineCount()
+				: DEFAULT_CAPACITY, velaFilterStr);
 		this.reader = reader;
 		this.analyser = analyser;
 	}
@@ -84,7 +85,8 @@ public class TextFormatObservationReader extends AbstractObservationRetriever {
 				String line = validator.getRawRecord();
 				lineNum++;
 
-				if (!line.startsWith("#") && !line.matches("^\\s*$")
+				if (!line.startsWith("#")
+						&& !ObservationSourceAnalyser.isBlank(line)
 						&& !isColumnHeaderLine(line)) {
 
 					try {
@@ -107,11 +109,9 @@ public class TextFormatObservationReader extends AbstractObservationRetriever {
 					}
 				} else if (line.startsWith("#")) {
 					// Directives
-					String[] pair = line.toUpperCase().split("=");
-					if (pair.length == 2) {
-						if ("#NAME".equals(pair[0])) {
-							objName = pair[1];
-						}
+					String name = getNameDirective(line);
+					if (name != null) {
+						objName = name;
 					}
 				}
 
@@ -128,7 +128,9 @@ public class TextFormatObservationReader extends AbstractObservationRetriever {
 
 	@Override
 	public Integer getNumberOfRecords() throws ObservationReadError {
-		return analyser.getLineCount();
+		int lineCount = analyser.getLineCount();
+		return lineCount == ObservationSourceAnalyser.UNKNOWN_LINE_COUNT ? null
+				: lineCount;
 	}
 
 	@Override
@@ -158,7 +160,7 @@ public class TextFormatObservationReader extends AbstractObservationRetriever {
 
 	// Helpers
 
-	private void addValidObservation(ValidObservation validOb, int lineNum)
+	protected void addValidObservation(ValidObservation validOb, int lineNum)
 			throws ObservationReadError {
 		if (validOb.getMType() == MTypeType.STD) {
 			validOb.setRecordNumber(lineNum);
@@ -166,9 +168,63 @@ public class TextFormatObservationReader extends AbstractObservationRetriever {
 		}
 	}
 
-	// Is the specified line a column header?
+	// Is the specified line a column header, i.e. one that looks like a
+	// column header before any observations have been read?
 	private boolean isColumnHeaderLine(String line) {
 		return validObservations.isEmpty() && invalidObservations.isEmpty()
-				&& line.matches("^[A-Za-z].+$");
+				&& looksLikeColumnHeader(line);
+	}
+
+	/**
+	 * Does the specified line look like a column header (e.g.
+	 * JD,Magnitude,...), i.e. does it match "^[A-Za-z].+$"?
+	 * 
+	 * @param line
+	 *            The line in question.
+	 * @return Whether or not the line looks like a column header.
+	 */
+	protected static boolean looksLikeColumnHeader(String line) {
+		if (line.length() < 2) {
+			return false;
+		}
+
+		char first = line.charAt(0);
+		if (!(first >= 'A' && first <= 'Z') && !(first >= 'a' && first <= 'z')) {
+			return false;
+		}
+
+		// "." does not match line terminators.
+		for (int i = 1; i < line.length(); i++) {
+			switch (line.charAt(i)) {
+			case '\n':
+			case '\r':
+			case '\u0085':
+			case '\u2028':
+			case '\u2029':
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Return the object name from a #NAME=... directive line.
+	 * 
+	 * @param line
+	 *            A comment line.
+	 * @return The object name, or null if the line is not a name directive.
+	 */
+	protected static String getNameDirective(String line) {
+		String name = null;
+
+		String[] pair = line.toUpperCase().split("=");
+		if (pair.length == 2) {
+			if ("#NAME".equals(pair[0])) {
+				name = pair[1];
+			}
+		}
+
+		return name;
 	}
 }
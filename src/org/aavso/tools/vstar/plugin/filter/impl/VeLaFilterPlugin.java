@@ -26,10 +26,12 @@ import org.aavso.tools.vstar.ui.dialog.MessageBox;
 import org.aavso.tools.vstar.util.Logic;
 import org.aavso.tools.vstar.util.Pair;
 import org.aavso.tools.vstar.util.locale.LocaleProps;
+import org.aavso.tools.vstar.vela.CompiledProgram;
 import org.aavso.tools.vstar.vela.Operand;
 import org.aavso.tools.vstar.vela.Type;
 import org.aavso.tools.vstar.vela.VeLaEvalError;
 import org.aavso.tools.vstar.vela.VeLaInterpreter;
+import org.aavso.tools.vstar.vela.VeLaObservationBatch;
 import org.aavso.tools.vstar.vela.VeLaParseError;
 import org.aavso.tools.vstar.vela.VeLaValidObservationEnvironment;
 
@@ -74,14 +76,29 @@ public class VeLaFilterPlugin extends CustomFilterPluginBase {
 			velaFilterExpr = dialog.getVeLaExpression();
 
 			try {
-				for (ValidObservation ob : obs) {
-					vela.pushEnvironment(new VeLaValidObservationEnvironment(ob));
+				// Parse the filter once, not once per observation.
+				CompiledProgram program = vela.compile(velaFilterExpr);
 
-					Optional<Operand> result = vela.program(velaFilterExpr);
-					
-					boolean does_match = result.isPresent()
-							&& result.get().getType() == Type.BOOLEAN
-							&& result.get().booleanVal();
+				// Where possible, the filter is evaluated over all
+				// observations at once.
+				Optional<boolean[]> matches = new VeLaObservationBatch(vela,
+						obs).test(program.getAST());
+
+				for (int i = 0; i < obs.size(); i++) {
+					ValidObservation ob = obs.get(i);
+
+					boolean does_match;
+
+					if (matches.isPresent()) {
+						does_match = matches.get()[i];
+					} else {
+						Optional<Operand> result = program
+								.evaluate(new VeLaValidObservationEnvironment(ob));
+
+						does_match = result.isPresent()
+								&& result.get().getType() == Type.BOOLEAN
+								&& result.get().booleanVal();
+					}
 
 					if (does_match) {
 						/**
@@ -101,8 +118,6 @@ public class VeLaFilterPlugin extends CustomFilterPluginBase {
 							addToSubset(ob);
 						}
 					}
-
-					vela.popEnvironment();
 				}
 
 				repr = new Pair<String, String>(dialog.getFilterName(),
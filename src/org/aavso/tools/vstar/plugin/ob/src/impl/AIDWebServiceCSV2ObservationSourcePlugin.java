@@ -110,6 +110,9 @@ public class AIDWebServiceCSV2ObservationSourcePlugin extends
 		public VSXAIDCSVObservationRetriever() {
 			super(getVelaFilterStr());
 			info.setRetriever(this);
+			// Pages for each series are requested in turn, so observations
+			// arrive out of JD order across series.
+			setBufferedInsertion(true);
 		}
 
 		@Override
@@ -97,6 +97,9 @@ public class AIDWebServiceCSVObservationSourcePlugin extends
 		public VSXCSVObservationRetriever() {
 			super(getVelaFilterStr());
 			info.setRetriever(this);
+			// Pages for each series are requested in turn, so observations
+			// arrive out of JD order across series.
+			setBufferedInsertion(true);
 		}
 
 		@Override
@@ -17,18 +17,17 @@
  */
 package org.aavso.tools.vstar.plugin.ob.src.impl;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.aavso.tools.vstar.exception.ObservationReadError;
 import org.aavso.tools.vstar.input.AbstractObservationRetriever;
 import org.aavso.tools.vstar.input.text.ObservationSourceAnalyser;
+import org.aavso.tools.vstar.input.text.ParallelTextFormatObservationReader;
 import org.aavso.tools.vstar.input.text.TextFormatObservationReader;
 import org.aavso.tools.vstar.plugin.InputType;
 import org.aavso.tools.vstar.plugin.ObservationSourcePluginBase;
@@ -80,46 +79,42 @@ public class TextFormatObservationSourcePlugin extends
 	@Override
 	public AbstractObservationRetriever getObservationRetriever() throws IOException, ObservationReadError {
 
-		AbstractObservationRetriever retriever = null;
-
-		byte[] allBytes = null;
-		List<byte[]> byteArrayList = new ArrayList<byte[]>();
-		int total = 0;
-
 		InputStream stream = getInputStreams().get(0);
 
-		BufferedReader streamReader = new BufferedReader(
-				new InputStreamReader(stream));
-
-		// Obtain bytes from stream in order to re-use in analyser and
-		// reader.
-		String line;
-		while ((line = streamReader.readLine()) != null) {
-
-			byte[] bytes = line.getBytes();
-			byteArrayList.add(bytes);
-			total += bytes.length + 1;
+		// Analyse a prefix of the observation source to determine its format
+		// and estimate the number of lines, then read the whole source once
+		// via the same reader.
+		LineNumberReader reader = new LineNumberReader(new InputStreamReader(
+				stream));
+
+		analyser = new ObservationSourceAnalyser(reader, getInputName());
+		analyser.analysePrefix(sourceSize(stream));
+
+		// A file can be split into chunks and read in parallel.
+		AbstractObservationRetriever retriever;
+		if (stream instanceof FileInputStream) {
+			retriever = new ParallelTextFormatObservationReader(
+					((FileInputStream) stream).getChannel(), reader, analyser,
+					getVelaFilterStr());
+		} else {
+			retriever = new TextFormatObservationReader(reader, analyser,
+					getVelaFilterStr());
 		}
 
-		int i = 0;
-		allBytes = new byte[total];
-		for (byte[] bytes : byteArrayList) {
-			for (byte b : bytes) {
-				allBytes[i++] = b;
-			}
-			allBytes[i++] = '\n';
-		}
+		return retriever;
+	}
 
-		// Analyse the observation file and create an observation retriever.
-		analyser = new ObservationSourceAnalyser(new LineNumberReader(
-				new InputStreamReader(new ByteArrayInputStream(allBytes))),
-				getInputName());
-		analyser.analyse();
+	// Return the size in bytes of the source underlying the stream, or -1 if
+	// not known (e.g. for a URL).
+	private long sourceSize(InputStream stream) throws IOException {
+		long size = -1;
 
-		retriever = new TextFormatObservationReader(new LineNumberReader(
-				new InputStreamReader(new ByteArrayInputStream(allBytes))),
-				analyser, getVelaFilterStr());
+		if (stream instanceof FileInputStream) {
+			size = ((FileInputStream) stream).getChannel().size();
+		} else if (stream instanceof ByteArrayInputStream) {
+			size = stream.available();
+		}
 
-		return retriever;
+		return size;
 	}
 }
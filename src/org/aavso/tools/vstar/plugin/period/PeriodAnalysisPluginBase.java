@@ -33,6 +33,8 @@ import org.aavso.tools.vstar.ui.mediator.message.PeriodChangeMessage;
 import org.aavso.tools.vstar.ui.resources.LoginInfo;
 import org.aavso.tools.vstar.util.notification.Listener;
 import org.aavso.tools.vstar.util.notification.Notifier;
+import org.aavso.tools.vstar.util.period.PartialResultChannel;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
 
 /**
  * <p>
@@ -51,6 +53,8 @@ abstract public class PeriodAnalysisPluginBase implements IPlugin {
 	
 	protected boolean testMode = false;
 
+	private volatile PartialResultChannel partialResultChannel;
+
 	/**
 	 * Send a period change message.
 	 * 
@@ -64,6 +68,63 @@ abstract public class PeriodAnalysisPluginBase implements IPlugin {
 				new PeriodChangeMessage(this, period));
 	}
 
+	/**
+	 * Send a period change message with a suggested epoch.
+	 *
+	 * @param period
+	 *            The period to be sent in the notification.
+	 * @param epoch
+	 *            The epoch with which to populate the phase plot dialog,
+	 *            e.g. the time of an eclipse found by the period analysis.
+	 */
+	public void sendPeriodChangeMessage(double period, double epoch) {
+		Mediator.getInstance().getPeriodChangeNotifier().notifyListeners(
+				new PeriodChangeMessage(this, period, epoch));
+	}
+
+	/**
+	 * Set the channel through which the algorithm should publish partial
+	 * results while it runs, or null to publish none. Plugins that do not
+	 * support partial results ignore the channel.
+	 *
+	 * @param partialResultChannel
+	 *            The channel, or null.
+	 */
+	public void setPartialResultChannel(
+			PartialResultChannel partialResultChannel) {
+		this.partialResultChannel = partialResultChannel;
+	}
+
+	/**
+	 * @return the channel through which partial results should be published,
+	 *         or null if there is none
+	 */
+	public PartialResultChannel getPartialResultChannel() {
+		return partialResultChannel;
+	}
+
+	/**
+	 * Get the coordinate type of the values this plugin publishes as partial
+	 * results, e.g. power. This is called once results have been published,
+	 * i.e. after the algorithm has started.
+	 *
+	 * @return The coordinate type, or null (the default) if the plugin does
+	 *         not publish partial results.
+	 */
+	public PeriodAnalysisCoordinateType getPartialResultType() {
+		return null;
+	}
+
+	/**
+	 * Get the coordinate type against which partial results should be
+	 * plotted.
+	 *
+	 * @return The coordinate type; frequency by default.
+	 */
+	public PeriodAnalysisCoordinateType getPartialResultDomainType() {
+		return PeriodAnalysisCoordinateType.FREQUENCY;
+	}
+
 	// ** Methods that must be implemented by concrete plugin subclasses. **
 
 	/**
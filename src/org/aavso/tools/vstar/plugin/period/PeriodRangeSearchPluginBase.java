@@ -0,0 +1,557 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.plugin.period;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+
+import org.aavso.tools.vstar.data.SeriesType;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.exception.CancellationException;
+import org.aavso.tools.vstar.plugin.PluginComponentFactory;
+import org.aavso.tools.vstar.ui.NamedComponent;
+import org.aavso.tools.vstar.ui.dialog.DoubleField;
+import org.aavso.tools.vstar.ui.dialog.ITextComponent;
+import org.aavso.tools.vstar.ui.dialog.MessageBox;
+import org.aavso.tools.vstar.ui.dialog.MultiEntryComponentDialog;
+import org.aavso.tools.vstar.ui.dialog.period.PeriodAnalysis2DChartPane;
+import org.aavso.tools.vstar.ui.dialog.period.PeriodAnalysisDataTablePane;
+import org.aavso.tools.vstar.ui.dialog.period.PeriodAnalysisTopHitsTablePane;
+import org.aavso.tools.vstar.ui.mediator.Mediator;
+import org.aavso.tools.vstar.ui.mediator.message.NewStarMessage;
+import org.aavso.tools.vstar.ui.mediator.message.PeriodAnalysisSelectionMessage;
+import org.aavso.tools.vstar.ui.model.list.PeriodAnalysisDataTableModel;
+import org.aavso.tools.vstar.ui.model.plot.PeriodAnalysis2DPlotModel;
+import org.aavso.tools.vstar.util.model.Harmonic;
+import org.aavso.tools.vstar.util.model.PeriodAnalysisDerivedMultiPeriodicModel;
+import org.aavso.tools.vstar.util.notification.Listener;
+import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
+import org.aavso.tools.vstar.util.period.IPeriodAnalysisDatum;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.DatasetRenderingOrder;
+
+/**
+ * <p>
+ * The base class for period analysis plug-ins that search a period range and
+ * show a periodogram with full results and top hits tables, but do not
+ * create models.
+ * </p>
+ *
+ * <p>
+ * The user is asked for the period range and resolution along with any
+ * parameters added by the subclass. The subclass defines the result columns
+ * and runs the search.
+ * </p>
+ */
+abstract public class PeriodRangeSearchPluginBase extends
+		PeriodAnalysisPluginBase {
+
+	/**
+	 * The maximum number of top hits.
+	 */
+	protected final static int MAX_TOP_HITS = 20;
+
+	private String name;
+	private String paramsTitle;
+
+	private boolean firstInvocation;
+	private boolean interrupted;
+	private boolean cancelled;
+
+	protected Double minPeriod, maxPeriod, resolution;
+
+	private IPeriodAnalysisAlgorithm algorithm;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name
+	 *            The short name of the search, e.g. "BLS", used in titles.
+	 */
+	protected PeriodRangeSearchPluginBase(String name) {
+		super();
+		this.name = name;
+		paramsTitle = name + " Parameters";
+		firstInvocation = true;
+	}
+
+	/**
+	 * Create the coordinate types specific to this search. This is called
+	 * once, before the first search.
+	 */
+	abstract protected void createCoordinateTypes();
+
+	/**
+	 * @return the coordinate types of the result columns, in order
+	 */
+	abstract protected PeriodAnalysisCoordinateType[] getCoordinateTypes();
+
+	/**
+	 * @return the coordinate type plotted against period
+	 */
+	abstract protected PeriodAnalysisCoordinateType getScoreType();
+
+	/**
+	 * Create the fields for the parameters of this search, which follow the
+	 * period range and resolution fields in the parameter dialog.
+	 *
+	 * @return The fields, initialised with the current parameter values.
+	 */
+	abstract protected List<ITextComponent<?>> createParameterFields();
+
+	/**
+	 * Set the parameters of this search from the fields most recently created
+	 * by createParameterFields(), reporting any illegal values.
+	 *
+	 * @return Whether all values are present and legal.
+	 */
+	abstract protected boolean acceptParameters();
+
+	/**
+	 * Reset the parameters, including the period range and resolution, to
+	 * their defaults.
+	 */
+	abstract protected void resetParameters();
+
+	/**
+	 * Search the current period range.
+	 *
+	 * @param obs
+	 *            The observations over which to search.
+	 * @param result
+	 *            The result to which a row should be added for each trial
+	 *            period.
+	 * @param topHits
+	 *            The result to which a row should be added for each top hit,
+	 *            best first.
+	 */
+	abstract protected void search(List<ValidObservation> obs,
+			PeriodAnalysisResult result, PeriodAnalysisResult topHits)
+			throws AlgorithmError;
+
+	/**
+	 * Interrupt the search in progress, if any.
+	 */
+	abstract protected void interruptSearch();
+
+	/**
+	 * Return the epoch to be sent with the period of a selected result when a
+	 * new phase plot is requested.
+	 *
+	 * @param datum
+	 *            The selected result.
+	 * @return The epoch, or NaN to let the user choose one.
+	 */
+	protected double getEpoch(IPeriodAnalysisDatum datum) {
+		return Double.NaN;
+	}
+
+	/**
+	 * @return the title of the parameter dialog, for error messages
+	 */
+	protected String getParamsTitle() {
+		return paramsTitle;
+	}
+
+	/**
+	 * Add a row to the result for each trial, and to the top hits for each
+	 * top hit, in order.
+	 *
+	 * @param result
+	 *            The result.
+	 * @param topHits
+	 *            The top hits result.
+	 * @param hits
+	 *            The top hits, with trial indices as ordinals.
+	 * @param columns
+	 *            The value of each column for each trial.
+	 */
+	protected static void addResults(PeriodAnalysisResult result,
+			PeriodAnalysisResult topHits, TopHitsHeap hits,
+			double[]... columns) {
+		for (int i = 0; i < columns[0].length; i++) {
+			result.add(row(columns, i));
+		}
+
+		for (int rank = 0; rank < hits.size(); rank++) {
+			topHits.add(row(columns, (int) hits.getOrdinal(rank)));
+		}
+	}
+
+	@Override
+	public void executeAlgorithm(List<ValidObservation> obs)
+			throws AlgorithmError, CancellationException {
+
+		if (firstInvocation) {
+			Mediator.getInstance().getNewStarNotifier()
+					.addListener(getNewStarListener());
+
+			createCoordinateTypes();
+
+			firstInvocation = false;
+		}
+
+		cancelled = false;
+
+		while (!areParametersLegal() && !cancelled)
+			;
+
+		if (cancelled) {
+			throw new CancellationException();
+		}
+
+		algorithm = new SearchAlgorithm(obs);
+		algorithm.execute();
+	}
+
+	@Override
+	public JDialog getDialog(SeriesType sourceSeriesType) {
+		return interrupted || cancelled ? null : new PeriodAnalysisDialog(
+				sourceSeriesType);
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+
+		if (algorithm != null) {
+			algorithm.interrupt();
+		}
+	}
+
+	@Override
+	protected void newStarAction(NewStarMessage message) {
+		reset();
+	}
+
+	@Override
+	public void reset() {
+		cancelled = false;
+		interrupted = false;
+		resetParameters();
+	}
+
+	// Helpers
+
+	private static double[] row(double[][] columns, int i) {
+		double[] values = new double[columns.length];
+		for (int c = 0; c < columns.length; c++) {
+			values[c] = columns[c][i];
+		}
+		return values;
+	}
+
+	// Ask user for period range and resolution, and the parameters of the
+	// search.
+	private boolean areParametersLegal() {
+		boolean legalParams = true;
+
+		List<ITextComponent<?>> fields = new ArrayList<ITextComponent<?>>();
+
+		DoubleField minPeriodField = new DoubleField("Minimum Period", 0.0,
+				null, minPeriod);
+		fields.add(minPeriodField);
+
+		DoubleField maxPeriodField = new DoubleField("Maximum Period", 0.0,
+				null, maxPeriod);
+		fields.add(maxPeriodField);
+
+		DoubleField resolutionField = new DoubleField("Resolution", 0.0, null,
+				resolution);
+		fields.add(resolutionField);
+
+		fields.addAll(createParameterFields());
+
+		MultiEntryComponentDialog dlg = new MultiEntryComponentDialog(
+				paramsTitle, fields);
+
+		cancelled = dlg.isCancelled();
+
+		if (!cancelled) {
+			minPeriod = minPeriodField.getValue();
+			maxPeriod = maxPeriodField.getValue();
+			resolution = resolutionField.getValue();
+
+			if (minPeriod == null || maxPeriod == null || resolution == null) {
+				return false;
+			}
+
+			if (minPeriod <= 0.0 || minPeriod > maxPeriod) {
+				MessageBox.showErrorDialog(paramsTitle,
+						"Minimum period must be greater than zero and no greater than maximum period");
+				legalParams = false;
+			}
+
+			if (resolution <= 0.0) {
+				MessageBox.showErrorDialog(paramsTitle,
+						"Resolution must be greater than zero");
+				legalParams = false;
+			}
+
+			if (!acceptParameters()) {
+				legalParams = false;
+			}
+		}
+
+		return legalParams;
+	}
+
+	@SuppressWarnings("serial")
+	class PeriodAnalysisDialog extends PeriodAnalysisDialogBase implements
+			Listener<PeriodAnalysisSelectionMessage> {
+
+		private SeriesType sourceSeriesType;
+		private IPeriodAnalysisDatum selectedDataPoint;
+
+		private PeriodAnalysisDataTablePane resultsTablePane;
+		private PeriodAnalysisTopHitsTablePane topHitsTablePane;
+		private PeriodAnalysis2DChartPane plotPane;
+
+		public PeriodAnalysisDialog(SeriesType sourceSeriesType) {
+			super(name, false, true, false);
+
+			this.sourceSeriesType = sourceSeriesType;
+
+			prepareDialog();
+
+			this.setNewPhasePlotButtonState(false);
+
+			startup();
+		}
+
+		@Override
+		protected Component createContent() {
+			String title = name + " Periodogram";
+
+			PeriodAnalysis2DPlotModel dataPlotModel = new PeriodAnalysis2DPlotModel(
+					algorithm.getResultSeries(),
+					PeriodAnalysisCoordinateType.PERIOD, getScoreType(), false);
+
+			PeriodAnalysis2DChartPane linePlotPane = PeriodAnalysisComponentFactory
+					.createLinePlot(title, sourceSeriesType.getDescription(),
+							dataPlotModel, false);
+
+			PeriodAnalysis2DPlotModel topHitsPlotModel = new PeriodAnalysis2DPlotModel(
+					algorithm.getTopHits(),
+					PeriodAnalysisCoordinateType.PERIOD, getScoreType(), false);
+
+			plotPane = PeriodAnalysisComponentFactory.createScatterPlot(title,
+					sourceSeriesType.getDescription(), topHitsPlotModel, false);
+
+			// Add the above line plot's model to the scatter plot.
+			// Render the scatter plot last so the "handles" will be
+			// the first items selected by the mouse.
+			JFreeChart chart = plotPane.getChart();
+			chart.getXYPlot().setDataset(PeriodAnalysis2DChartPane.DATA_SERIES,
+					dataPlotModel);
+			chart.getXYPlot().setDataset(
+					PeriodAnalysis2DChartPane.TOP_HIT_SERIES, topHitsPlotModel);
+			chart.getXYPlot().setRenderer(
+					PeriodAnalysis2DChartPane.DATA_SERIES,
+					linePlotPane.getChart().getXYPlot().getRenderer());
+			chart.getXYPlot().setDatasetRenderingOrder(
+					DatasetRenderingOrder.REVERSE);
+
+			// Full results table
+			PeriodAnalysisCoordinateType[] columns = getCoordinateTypes();
+
+			PeriodAnalysisDataTableModel dataTableModel = new PeriodAnalysisDataTableModel(
+					columns, algorithm.getResult());
+			resultsTablePane = new NoModelPeriodAnalysisDataTablePane(
+					dataTableModel, algorithm);
+
+			PeriodAnalysisDataTableModel topHitsModel = new PeriodAnalysisDataTableModel(
+					columns, algorithm.getTopHits());
+			topHitsTablePane = new NoModelPeriodAnalysisTopHitsTablePane(
+					topHitsModel, dataTableModel, algorithm);
+
+			// Return tabbed pane of plot and table components.
+			return PluginComponentFactory.createTabs(new NamedComponent(
+					"Periodogram", plotPane), new NamedComponent("Results",
+					resultsTablePane), new NamedComponent("Top Hits",
+					topHitsTablePane));
+		}
+
+		// Send a period change message, with an epoch if the search
+		// provides one, when the new-phase-plot button is clicked.
+		@Override
+		protected void newPhasePlotButtonAction() {
+			double epoch = getEpoch(selectedDataPoint);
+
+			if (Double.isNaN(epoch)) {
+				sendPeriodChangeMessage(selectedDataPoint.getPeriod());
+			} else {
+				sendPeriodChangeMessage(selectedDataPoint.getPeriod(), epoch);
+			}
+		}
+
+		@Override
+		public void startup() {
+			Mediator.getInstance().getPeriodAnalysisSelectionNotifier()
+					.addListener(this);
+
+			resultsTablePane.startup();
+			topHitsTablePane.startup();
+			plotPane.startup();
+		}
+
+		@Override
+		public void cleanup() {
+			Mediator.getInstance().getPeriodAnalysisSelectionNotifier()
+					.removeListenerIfWilling(this);
+
+			resultsTablePane.cleanup();
+			topHitsTablePane.cleanup();
+			plotPane.cleanup();
+		}
+
+		// Next two methods are for Listener<PeriodAnalysisSelectionMessage>
+
+		@Override
+		public boolean canBeRemoved() {
+			return false;
+		}
+
+		@Override
+		public void update(PeriodAnalysisSelectionMessage info) {
+			selectedDataPoint = info.getDataPoint();
+			setNewPhasePlotButtonState(true);
+		}
+
+		// ** No model result and top-hit panes **
+
+		class NoModelPeriodAnalysisDataTablePane extends
+				PeriodAnalysisDataTablePane {
+
+			public NoModelPeriodAnalysisDataTablePane(
+					PeriodAnalysisDataTableModel model,
+					IPeriodAnalysisAlgorithm algorithm) {
+				super(model, algorithm);
+			}
+
+			@Override
+			protected JPanel createButtonPanel() {
+				return new JPanel();
+			}
+
+			@Override
+			protected void enableButtons() {
+				// Do nothing
+			}
+		}
+
+		class NoModelPeriodAnalysisTopHitsTablePane extends
+				PeriodAnalysisTopHitsTablePane {
+
+			public NoModelPeriodAnalysisTopHitsTablePane(
+					PeriodAnalysisDataTableModel topHitsModel,
+					PeriodAnalysisDataTableModel fullDataModel,
+					IPeriodAnalysisAlgorithm algorithm) {
+				super(topHitsModel, fullDataModel, algorithm);
+			}
+
+			@Override
+			protected JPanel createButtonPanel() {
+				return new JPanel();
+			}
+
+			@Override
+			protected void enableButtons() {
+				// Do nothing
+			}
+		}
+
+		@Override
+		protected void findHarmonicsButtonAction() {
+			// Do nothing since we don't include a find-harmonics button.
+		}
+	}
+
+	// The search algorithm adapter.
+	class SearchAlgorithm implements IPeriodAnalysisAlgorithm {
+
+		private List<ValidObservation> obs;
+
+		private PeriodAnalysisResult result;
+
+		private PeriodAnalysisResult topHits;
+
+		public SearchAlgorithm(List<ValidObservation> obs) {
+			this.obs = obs;
+
+			result = new PeriodAnalysisResult(getCoordinateTypes());
+			topHits = new PeriodAnalysisResult(getCoordinateTypes());
+		}
+
+		@Override
+		public String getRefineByFrequencyName() {
+			return null;
+		}
+
+		@Override
+		public PeriodAnalysisResult getResult() {
+			return result;
+		}
+
+		@Override
+		public Map<PeriodAnalysisCoordinateType, List<Double>> getResultSeries() {
+			return result.asMap();
+		}
+
+		@Override
+		public Map<PeriodAnalysisCoordinateType, List<Double>> getTopHits() {
+			return topHits.asMap();
+		}
+
+		@Override
+		public void multiPeriodicFit(List<Harmonic> harmonics,
+				PeriodAnalysisDerivedMultiPeriodicModel model)
+				throws AlgorithmError {
+			// Not applicable.
+		}
+
+		@Override
+		public List<PeriodAnalysisDataPoint> refineByFrequency(
+				List<Double> freqs, List<Double> variablePeriods,
+				List<Double> lockedPeriod) throws AlgorithmError {
+			return null;
+		}
+
+		@Override
+		public void execute() throws AlgorithmError {
+			interrupted = false;
+			search(obs, result, topHits);
+		}
+
+		@Override
+		public void interrupt() {
+			interrupted = true;
+			interruptSearch();
+		}
+	}
+}
@@ -82,6 +82,10 @@ public class DcDftFrequencyRangePeriodAnalysisPlugin extends
 			periodAnalysisAlgorithm.setLoFreqValue(currLoFreq);
 			periodAnalysisAlgorithm.setHiFreqValue(currHiFreq);
 			periodAnalysisAlgorithm.setResolutionValue(currResolution);
+			applyThreadCount();
+
+			periodAnalysisAlgorithm
+					.setPartialResultChannel(getPartialResultChannel());
 
 			periodAnalysisAlgorithm.execute();
 		} else {
@@ -104,6 +108,8 @@ public class DcDftFrequencyRangePeriodAnalysisPlugin extends
 				.get("PERIOD_ANALYSIS_PARAMETERS_RESOLUTION_TITLE"), 0.0, null, currResolution);
 		fields.add(resolutionField);
 
+		fields.add(createThreadCountField());
+
 		return new MultiEntryComponentDialog(LocaleProps
 				.get("PERIOD_ANALYSIS_PARAMETERS_DLG_TITLE"), fields);
 	}
@@ -122,5 +128,6 @@ public class DcDftFrequencyRangePeriodAnalysisPlugin extends
 		currLoFreq = null;
 		currHiFreq = null;
 		currResolution = null;
+		currThreadCount = TSDcDft.getRecommendedThreadCount();
 	}
 }
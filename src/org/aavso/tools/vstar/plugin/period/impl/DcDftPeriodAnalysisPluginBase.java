@@ -21,6 +21,7 @@ import javax.swing.JDialog;
 
 import org.aavso.tools.vstar.data.SeriesType;
 import org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase;
+import org.aavso.tools.vstar.ui.dialog.IntegerField;
 import org.aavso.tools.vstar.ui.dialog.period.PeriodAnalysis2DResultDialog;
 import org.aavso.tools.vstar.ui.mediator.Mediator;
 import org.aavso.tools.vstar.ui.mediator.message.NewStarMessage;
@@ -44,6 +45,9 @@ abstract public class DcDftPeriodAnalysisPluginBase extends
 	protected TSDcDft periodAnalysisAlgorithm;
 	protected PeriodAnalysisCoordinateType searchType;
 
+	protected Integer currThreadCount;
+	protected IntegerField threadCountField;
+
 	/**
 	 * Constructor
 	 */
@@ -85,6 +89,22 @@ abstract public class DcDftPeriodAnalysisPluginBase extends
 				periodAnalysisAlgorithm, dataCoordTypes, searchType);
 	}
 
+	/**
+	 * @see org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase#getPartialResultType()
+	 */
+	@Override
+	public PeriodAnalysisCoordinateType getPartialResultType() {
+		return PeriodAnalysisCoordinateType.POWER;
+	}
+
+	/**
+	 * @see org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase#getPartialResultDomainType()
+	 */
+	@Override
+	public PeriodAnalysisCoordinateType getPartialResultDomainType() {
+		return searchType;
+	}
+
 	/**
 	 * @see org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase#interrupt()
 	 */
@@ -95,6 +115,36 @@ abstract public class DcDftPeriodAnalysisPluginBase extends
 		}
 	}
 
+	/**
+	 * Create a thread count field for a parameter dialog, initialised to the
+	 * current thread count.
+	 * 
+	 * @return The thread count field.
+	 */
+	protected IntegerField createThreadCountField() {
+		int recommendedThreads = TSDcDft.getRecommendedThreadCount();
+		if (currThreadCount == null || currThreadCount > recommendedThreads) {
+			currThreadCount = recommendedThreads;
+		}
+		threadCountField = new IntegerField(LocaleProps
+				.get("PERIOD_ANALYSIS_PARAMETERS_THREADS_TITLE"), 1,
+				recommendedThreads, currThreadCount);
+		return threadCountField;
+	}
+
+	/**
+	 * Set the thread count of the period analysis algorithm from the thread
+	 * count field, remembering it for the next parameter dialog.
+	 */
+	protected void applyThreadCount() {
+		Integer threadCountValue = threadCountField.getValue();
+		if (threadCountValue == null) {
+			threadCountValue = TSDcDft.getRecommendedThreadCount();
+		}
+		currThreadCount = threadCountValue;
+		periodAnalysisAlgorithm.setThreadCount(currThreadCount);
+	}
+
 	// ** Mandatory message listeners. **
 
 	@Override
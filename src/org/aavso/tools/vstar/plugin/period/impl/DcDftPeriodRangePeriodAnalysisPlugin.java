@@ -74,6 +74,10 @@ public class DcDftPeriodRangePeriodAnalysisPlugin extends
 			periodAnalysisAlgorithm.setLoPeriodValue(currLoPeriod);
 			periodAnalysisAlgorithm.setHiPeriodValue(currHiPeriod);
 			periodAnalysisAlgorithm.setResolutionValue(currResolution);
+			applyThreadCount();
+
+			periodAnalysisAlgorithm
+					.setPartialResultChannel(getPartialResultChannel());
 
 			periodAnalysisAlgorithm.execute();
 		} else {
@@ -96,6 +100,8 @@ public class DcDftPeriodRangePeriodAnalysisPlugin extends
 				.get("PERIOD_ANALYSIS_PARAMETERS_RESOLUTION_TITLE"), 0.0, null, currResolution);
 		fields.add(resolutionField);
 
+		fields.add(createThreadCountField());
+
 		return new MultiEntryComponentDialog(LocaleProps
 				.get("PERIOD_ANALYSIS_PARAMETERS_DLG_TITLE"), fields);
 	}
@@ -114,5 +120,6 @@ public class DcDftPeriodRangePeriodAnalysisPlugin extends
 		currLoPeriod = null;
 		currHiPeriod = null;
 		currResolution = null;
+		currThreadCount = TSDcDft.getRecommendedThreadCount();
 	}
 }
@@ -47,6 +47,9 @@ public class DcDftStandardScanPeriodAnalysisPlugin extends
 
 		periodAnalysisAlgorithm = new TSDcDft(obs);
 
+		periodAnalysisAlgorithm
+				.setPartialResultChannel(getPartialResultChannel());
+
 		periodAnalysisAlgorithm.execute();
 	}
 
@@ -94,11 +94,23 @@ abstract public class WeightedWaveletZTransformPluginBase extends
 	 */
 	@Override
 	public void reset() {
+		disposeResults();
 		currDecay = 0.001;
 		currTimeDivisions = 50.0;
 		currThreadCount = WeightedWaveletZTransform.getRecommendedThreadCount();
 	}
 
+	/**
+	 * Release the results of the last execution, e.g. a temporary file in
+	 * which they are stored.
+	 */
+	protected void disposeResults() {
+		if (wwt != null) {
+			wwt.dispose();
+			wwt = null;
+		}
+	}
+
 	/**
 	 * @see org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase#interrupt()
 	 */
@@ -438,7 +438,25 @@ public class VStarScriptingAPI {
 	public synchronized Double[] dcdftPeriod(String seriesName, double lowPeriod, double highPeriod,
 			double resolution) {
 
-		return dcdftCommon(seriesName, DcDftAnalysisType.PERIOD_RANGE, lowPeriod, highPeriod, resolution);
+		return dcdftPeriod(seriesName, lowPeriod, highPeriod, resolution, TSDcDft.getRecommendedThreadCount());
+	}
+
+	/**
+	 * Perform DCDFT period analysis with period range.
+	 * 
+	 * @param seriesName  The short or long form of the series name, e.g. V or
+	 *                    Johnson V.
+	 * @param lowPeriod   The low value of the period range to search in.
+	 * @param highPeriod  The high value of the period range to search in.
+	 * @param resolution  The resolution of the search over the range.
+	 * @param threadCount The number of threads (cores) to use.
+	 * @return An array of top-hits periods.
+	 */
+	public synchronized Double[] dcdftPeriod(String seriesName, double lowPeriod, double highPeriod,
+			double resolution, int threadCount) {
+
+		return dcdftCommon(seriesName, DcDftAnalysisType.PERIOD_RANGE, lowPeriod, highPeriod, resolution,
+				threadCount);
 	}
 
 	/**
@@ -454,7 +472,26 @@ public class VStarScriptingAPI {
 	public synchronized Double[] dcdftFrequency(String seriesName, double lowFrequency, double highFrequency,
 			double resolution) {
 
-		return dcdftCommon(seriesName, DcDftAnalysisType.FREQUENCY_RANGE, lowFrequency, highFrequency, resolution);
+		return dcdftFrequency(seriesName, lowFrequency, highFrequency, resolution,
+				TSDcDft.getRecommendedThreadCount());
+	}
+
+	/**
+	 * Perform DCDFT period analysis with frequency range.
+	 * 
+	 * @param seriesName    The short or long form of the series name, e.g. V or
+	 *                      Johnson V.
+	 * @param lowFrequency  The low value of the frequency range to search in.
+	 * @param highFrequency The high value of the frequency range to search in.
+	 * @param resolution    The resolution of the search over the range.
+	 * @param threadCount   The number of threads (cores) to use.
+	 * @return An array of top-hits frequencies.
+	 */
+	public synchronized Double[] dcdftFrequency(String seriesName, double lowFrequency, double highFrequency,
+			double resolution, int threadCount) {
+
+		return dcdftCommon(seriesName, DcDftAnalysisType.FREQUENCY_RANGE, lowFrequency, highFrequency, resolution,
+				threadCount);
 	}
 
 	/**
@@ -466,7 +503,7 @@ public class VStarScriptingAPI {
 	 */
 	public synchronized Double[] dcdftStandardScan(String seriesName) {
 
-		return dcdftCommon(seriesName, DcDftAnalysisType.STANDARD_SCAN, 0, 0, 0);
+		return dcdftCommon(seriesName, DcDftAnalysisType.STANDARD_SCAN, 0, 0, 0, 1);
 	}
 
 	/**
@@ -882,10 +919,11 @@ public class VStarScriptingAPI {
 	 * @param lowPeriod    The low value of the period range to search in.
 	 * @param highPeriod   The high value of the period range to search in.
 	 * @param resolution   The resolution of the search over the range.
+	 * @param threadCount  The number of threads (cores) to use.
 	 * @return An array of top-hits periods or frequencies.
 	 */
 	private synchronized Double[] dcdftCommon(String seriesName, DcDftAnalysisType analysisType, double low,
-			double high, double resolution) {
+			double high, double resolution, int threadCount) {
 
 		init();
 
@@ -913,6 +951,8 @@ public class VStarScriptingAPI {
 				break;
 			}
 
+			dcdft.setThreadCount(threadCount);
+
 			try {
 				dcdft.execute();
 
@@ -160,9 +160,10 @@ public class StatusPane extends JPanel {
 	 * Increment the progress bar by N.
 	 */
 	public void incrementProgressBar(int n) {
-		if (this.progressBar.getValue() + n <= this.progressBar.getMaximum()) {
-			this.progressBar.setValue(this.progressBar.getValue() + n);
-		}
+		// Increments may be coalesced, so clamp rather than ignore an
+		// increment that would overshoot the maximum.
+		this.progressBar.setValue(Math.min(this.progressBar.getValue() + n,
+				this.progressBar.getMaximum()));
 	}
 
 	/**
@@ -22,7 +22,6 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.JTabbedPane;
 
@@ -45,6 +44,7 @@ import org.aavso.tools.vstar.util.notification.Listener;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisDatum;
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
 import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.DatasetRenderingOrder;
@@ -59,7 +59,7 @@ public class PeriodAnalysis2DResultDialog extends PeriodAnalysisDialogBase {
 	private String chartTitle;
 
 	private IPeriodAnalysisAlgorithm algorithm;
-	private Map<PeriodAnalysisCoordinateType, List<Double>> resultDataMap;
+	private PeriodAnalysisResult resultData;
 
 	private List<PeriodAnalysis2DPlotModel> plotModels;
 	private PeriodAnalysisDataTableModel dataTableModel;
@@ -112,7 +112,7 @@ public class PeriodAnalysis2DResultDialog extends PeriodAnalysisDialogBase {
 		
 		selectedDataPoint = null;
 
-		resultDataMap = algorithm.getResultSeries();
+		resultData = algorithm.getResult();
 
 		this.seriesTitle = seriesTitle;
 		this.chartTitle = title;
@@ -120,7 +120,7 @@ public class PeriodAnalysis2DResultDialog extends PeriodAnalysisDialogBase {
 		this.algorithm = algorithm;
 
 		dataTableModel = new PeriodAnalysisDataTableModel(dataCoordTypes,
-				resultDataMap);
+				resultData);
 		topHitsTableModel = new PeriodAnalysisDataTableModel(dataCoordTypes,
 				algorithm.getTopHits());
 
@@ -128,22 +128,22 @@ public class PeriodAnalysis2DResultDialog extends PeriodAnalysisDialogBase {
 
 		if (searchType == PeriodAnalysisCoordinateType.PERIOD) {
 			// Period vs Power
-			plotModels.add(new PeriodAnalysis2DPlotModel(resultDataMap,
+			plotModels.add(new PeriodAnalysis2DPlotModel(resultData,
 					PeriodAnalysisCoordinateType.PERIOD,
 					PeriodAnalysisCoordinateType.POWER, false));
 
 			// Period vs Amplitude
-			plotModels.add(new PeriodAnalysis2DPlotModel(resultDataMap,
+			plotModels.add(new PeriodAnalysis2DPlotModel(resultData,
 					PeriodAnalysisCoordinateType.PERIOD,
 					PeriodAnalysisCoordinateType.SEMI_AMPLITUDE, false));
 		} else if (searchType == PeriodAnalysisCoordinateType.FREQUENCY) {
 			// Frequency vs Power
-			plotModels.add(new PeriodAnalysis2DPlotModel(resultDataMap,
+			plotModels.add(new PeriodAnalysis2DPlotModel(resultData,
 					PeriodAnalysisCoordinateType.FREQUENCY,
 					PeriodAnalysisCoordinateType.POWER, false));
 
 			// Frequency vs Amplitude
-			plotModels.add(new PeriodAnalysis2DPlotModel(resultDataMap,
+			plotModels.add(new PeriodAnalysis2DPlotModel(resultData,
 					PeriodAnalysisCoordinateType.FREQUENCY,
 					PeriodAnalysisCoordinateType.SEMI_AMPLITUDE, false));
 		}
@@ -0,0 +1,191 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.ui.dialog.period;
+
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JPanel;
+
+import org.aavso.tools.vstar.plugin.period.PeriodAnalysisComponentFactory;
+import org.aavso.tools.vstar.ui.mediator.DocumentManager;
+import org.aavso.tools.vstar.ui.mediator.Mediator;
+import org.aavso.tools.vstar.ui.model.plot.PeriodAnalysis2DPlotModel;
+import org.aavso.tools.vstar.util.locale.LocaleProps;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
+import org.aavso.tools.vstar.util.period.PeriodogramBlock;
+
+/**
+ * <p>
+ * This dialog shows a periodogram as it grows while a period search runs,
+ * from blocks of partial results, and permits the search to be stopped once
+ * the peak of interest is clear.
+ * </p>
+ *
+ * <p>
+ * Stopping the search this way interrupts the algorithm rather than
+ * cancelling the task, so a plugin whose algorithm keeps the results computed
+ * so far (e.g. DC DFT) shows them in its usual result dialog.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class PeriodAnalysisPreviewDialog extends JDialog {
+
+	private PeriodAnalysisCoordinateType domainType;
+
+	private PeriodAnalysisResult resultData;
+	private PeriodAnalysis2DPlotModel plotModel;
+
+	private JButton stopButton;
+
+	/**
+	 * Constructor
+	 *
+	 * @param title
+	 *            The dialog and plot title.
+	 * @param domainType
+	 *            The domain coordinate type: frequency or period.
+	 * @param rangeType
+	 *            The coordinate type of the published values, e.g. power.
+	 * @param stopListener
+	 *            The listener to be notified when the stop button is clicked.
+	 */
+	public PeriodAnalysisPreviewDialog(String title,
+			PeriodAnalysisCoordinateType domainType,
+			PeriodAnalysisCoordinateType rangeType, ActionListener stopListener) {
+		super(DocumentManager.findActiveWindow());
+		this.setTitle(title);
+		this.setModal(false);
+		this.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+		this.domainType = domainType;
+
+		resultData = new PeriodAnalysisResult(
+				PeriodAnalysisCoordinateType.FREQUENCY,
+				PeriodAnalysisCoordinateType.PERIOD, rangeType);
+
+		plotModel = new PeriodAnalysis2DPlotModel(resultData, domainType,
+				rangeType, false);
+
+		JPanel topPane = new JPanel();
+		topPane.setLayout(new BoxLayout(topPane, BoxLayout.PAGE_AXIS));
+		topPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+		topPane.add(PeriodAnalysisComponentFactory.createLinePlot(title,
+				LocaleProps.get("PERIOD_ANALYSIS_PREVIEW_SUBTITLE"),
+				plotModel, false));
+
+		JPanel buttonPane = new JPanel(new FlowLayout());
+		stopButton = new JButton(LocaleProps
+				.get("PERIOD_ANALYSIS_PREVIEW_STOP_BUTTON"));
+		stopButton.addActionListener(stopListener);
+		stopButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				stopButton.setEnabled(false);
+			}
+		});
+		buttonPane.add(stopButton);
+		topPane.add(buttonPane);
+
+		this.getContentPane().add(topPane);
+		this.pack();
+		this.setLocationRelativeTo(Mediator.getUI().getContentPane());
+	}
+
+	/**
+	 * Add blocks of partial results to the plot, keeping the points in domain
+	 * order so they can be drawn as a line.
+	 *
+	 * @param blocks
+	 *            The blocks to be added.
+	 */
+	public void addBlocks(List<PeriodogramBlock> blocks) {
+		int added = 0;
+		for (PeriodogramBlock block : blocks) {
+			added += block.size();
+		}
+
+		if (added == 0) {
+			return;
+		}
+
+		double[] freqs = new double[added];
+		double[] periods = new double[added];
+		double[] values = new double[added];
+
+		int n = 0;
+		for (PeriodogramBlock block : blocks) {
+			int size = block.size();
+			System.arraycopy(block.getFrequencies(), 0, freqs, n, size);
+			System.arraycopy(block.getPeriods(), 0, periods, n, size);
+			System.arraycopy(block.getValues(), 0, values, n, size);
+			n += size;
+		}
+
+		// Sort the new points, then insert them among the existing (sorted)
+		// points, which are not copied.
+		boolean byPeriod = domainType == PeriodAnalysisCoordinateType.PERIOD;
+
+		double[] newDomain = byPeriod ? periods : freqs;
+		Integer[] order = new Integer[added];
+		for (int i = 0; i < added; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order,
+				(a, b) -> Double.compare(newDomain[a], newDomain[b]));
+
+		double[] sortedFreqs = new double[added];
+		double[] sortedPeriods = new double[added];
+		double[] sortedValues = new double[added];
+
+		for (int i = 0; i < added; i++) {
+			int k = order[i];
+			sortedFreqs[i] = freqs[k];
+			sortedPeriods[i] = periods[k];
+			sortedValues[i] = values[k];
+		}
+
+		resultData.insertSorted(domainType, sortedFreqs, sortedPeriods,
+				sortedValues);
+
+		plotModel.refresh();
+	}
+
+	/**
+	 * Indicate that the search has finished, so it can no longer be stopped.
+	 */
+	public void finished() {
+		stopButton.setEnabled(false);
+	}
+
+	/**
+	 * @return the number of points plotted so far
+	 */
+	public int getPointCount() {
+		return resultData.size();
+	}
+}
@@ -451,6 +451,16 @@ public class WeightedWaveletZTransformResultDialog extends
 		}
 	}
 
+	/**
+	 * Dispose of the dialog and release the results it shows, e.g. a
+	 * temporary file in which they are stored.
+	 */
+	@Override
+	public void dispose() {
+		super.dispose();
+		wwt.dispose();
+	}
+
 	@Override
 	public void cleanup() {
 		Mediator.getInstance().getPeriodAnalysisSelectionNotifier()
@@ -296,7 +296,7 @@ public class Mediator {
 
         this.analysisTypeChangeNotifier = new Notifier<AnalysisTypeChangeMessage>();
         this.newStarNotifier = new Notifier<NewStarMessage>();
-        this.progressNotifier = new Notifier<ProgressInfo>();
+        this.progressNotifier = new ProgressNotifier();
         this.discrepantObservationNotifier = new Notifier<DiscrepantObservationMessage>();
         this.excludedObservationNotifier = new Notifier<ExcludedObservationMessage>();
         this.observationSelectionNotifier = new Notifier<ObservationSelectionMessage>();
@@ -684,6 +684,9 @@ public class Mediator {
             public void update(PeriodChangeMessage info) {
                 PhaseParameterDialog phaseDialog = getPhaseParameterDialog();
                 phaseDialog.setPeriodField(info.getPeriod());
+                if (info.getEpoch() != null) {
+                    phaseDialog.setEpochField(info.getEpoch());
+                }
                 phaseDialog.showDialog();
 
                 if (!phaseDialog.isCancelled()) {
@@ -0,0 +1,151 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+package org.aavso.tools.vstar.ui.mediator;
+
+import org.aavso.tools.vstar.ui.mediator.message.ProgressInfo;
+import org.aavso.tools.vstar.ui.mediator.message.ProgressType;
+import org.aavso.tools.vstar.util.notification.Notifier;
+import org.aavso.tools.vstar.util.notification.ReplayPolicy;
+
+/**
+ * <p>
+ * A notifier for progress messages that retains no messages for replay and
+ * coalesces increment messages.
+ * </p>
+ * 
+ * <p>
+ * Observation retrievers and period searches may send an increment message per
+ * record or trial, i.e. millions of messages for large datasets. Rather than
+ * dispatching each one to listeners, increments are accumulated and sent as a
+ * single increment message at most once per flush interval. Pending increments
+ * are always flushed before any other kind of progress message is sent so that
+ * message order is preserved.
+ * </p>
+ */
+public class ProgressNotifier extends Notifier<ProgressInfo> {
+
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+
+	// The minimum time between dispatched increment messages.
+	private long flushIntervalNanos;
+
+	// The sum of increments not yet dispatched to listeners.
+	private int pendingIncrements;
+
+	// The time at which increments were last dispatched.
+	private long lastFlushTime;
+
+	/**
+	 * Constructor
+	 */
+	public ProgressNotifier() {
+		this(DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param flushIntervalMillis
+	 *            The minimum time in milliseconds between dispatched increment
+	 *            messages; zero means that increments are not coalesced.
+	 */
+	public ProgressNotifier(long flushIntervalMillis) {
+		super(ReplayPolicy.NONE);
+
+		flushIntervalNanos = flushIntervalMillis * 1000000L;
+		pendingIncrements = 0;
+		lastFlushTime = System.nanoTime() - flushIntervalNanos;
+	}
+
+	/**
+	 * Notify all listeners of a progress update. Increment messages are
+	 * coalesced; any other message first causes pending increments to be
+	 * flushed.
+	 * 
+	 * @param message
+	 *            The progress message.
+	 */
+	@Override
+	public void notifyListeners(ProgressInfo message) {
+		if (message.getType() == ProgressType.INCREMENT_PROGRESS) {
+			ProgressInfo increment = null;
+
+			synchronized (this) {
+				pendingIncrements += message.getNum();
+
+				long now = System.nanoTime();
+				if (now - lastFlushTime >= flushIntervalNanos) {
+					increment = takePendingIncrement(now);
+				}
+			}
+
+			if (increment != null) {
+				super.notifyListeners(increment);
+			}
+		} else {
+			flush();
+			super.notifyListeners(message);
+		}
+	}
+
+	/**
+	 * Send any pending increments to listeners as a single increment message.
+	 */
+	public void flush() {
+		ProgressInfo increment;
+
+		synchronized (this) {
+			increment = takePendingIncrement(System.nanoTime());
+		}
+
+		if (increment != null) {
+			super.notifyListeners(increment);
+		}
+	}
+
+	/**
+	 * Discard pending increments, then remove all listeners that are willing to
+	 * be removed.
+	 */
+	@Override
+	public void cleanup() {
+		synchronized (this) {
+			pendingIncrements = 0;
+		}
+
+		super.cleanup();
+	}
+
+	// Return an increment message for the pending increments, or null if there
+	// are none, resetting the pending count and flush time.
+	private ProgressInfo takePendingIncrement(long now) {
+		ProgressInfo increment = null;
+
+		if (pendingIncrements == 1) {
+			increment = ProgressInfo.INCREMENT_PROGRESS;
+		} else if (pendingIncrements != 0) {
+			increment = new ProgressInfo(ProgressType.INCREMENT_PROGRESS,
+					pendingIncrements);
+		}
+
+		pendingIncrements = 0;
+		lastFlushTime = now;
+
+		return increment;
+	}
+}
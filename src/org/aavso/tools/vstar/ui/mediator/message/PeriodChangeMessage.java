@@ -23,6 +23,7 @@ package org.aavso.tools.vstar.ui.mediator.message;
 public class PeriodChangeMessage extends MessageBase {
 
 	private double period;
+	private Double epoch;
 
 	/**
 	 * Constructor.
@@ -34,8 +35,25 @@ public class PeriodChangeMessage extends MessageBase {
 	 *            up to the receiver to decide.
 	 */
 	public PeriodChangeMessage(Object source, double period) {
+		this(source, period, null);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param source
+	 *            The source of the message.
+	 * @param period
+	 *            The new period. Note that it may not actually be new. That is
+	 *            up to the receiver to decide.
+	 * @param epoch
+	 *            The epoch suggested by the source, e.g. the time of an
+	 *            eclipse; may be null.
+	 */
+	public PeriodChangeMessage(Object source, double period, Double epoch) {
 		super(source);
 		this.period = period;
+		this.epoch = epoch;
 	}
 
 	/**
@@ -44,4 +62,11 @@ public class PeriodChangeMessage extends MessageBase {
 	public double getPeriod() {
 		return period;
 	}
+
+	/**
+	 * @return the suggested epoch, or null if there is none
+	 */
+	public Double getEpoch() {
+		return epoch;
+	}
 }
@@ -314,17 +314,17 @@ public class AAVSOFormatRawDataColumnInfoSource implements ITableColumnInfoSourc
 
 		switch (index) {
 		case TIME_COLUMN:
-			value = NumericPrecisionPrefs.formatTime(ob.getDateInfo().getJulianDay());
+			value = NumericPrecisionPrefs.formatTime(ob.getJD());
 			;
 			break;
 		case CALENDAR_DATE_COLUMN:
 			value = ob.getDateInfo().getCalendarDate();
 			break;
 		case MAGNITUDE_COLUMN:
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude().getMagValue());
+			value = NumericPrecisionPrefs.formatMag(ob.getMag());
 			break;
 		case UNCERTAINTY_COLUMN:
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude().getUncertainty());
+			value = NumericPrecisionPrefs.formatMag(ob.getMagUncertainty());
 			break;
 		case BAND_COLUMN:
 			value = ob.getBand().getDescription();
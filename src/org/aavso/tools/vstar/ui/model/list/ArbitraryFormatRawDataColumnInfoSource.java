@@ -156,16 +156,16 @@ public class ArbitraryFormatRawDataColumnInfoSource implements
 
 		switch (index) {
 		case TIME_COLUMN:
-			value = NumericPrecisionPrefs.formatTime(ob.getDateInfo().getJulianDay());
+			value = NumericPrecisionPrefs.formatTime(ob.getJD());
 			break;
 		case CALENDAR_DATE_COLUMN:
 			value = ob.getDateInfo().getCalendarDate();
 			break;
 		case MAGNITUDE_COLUMN:
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude().getMagValue());
+			value = NumericPrecisionPrefs.formatMag(ob.getMag());
 			break;
 		case UNCERTAINTY_COLUMN:
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude().getUncertainty());
+			value = NumericPrecisionPrefs.formatMag(ob.getMagUncertainty());
 			break;
 		case BAND_COLUMN:
 			value = ob.getBand() == null ? "" : ob.getBand().getDescription();
@@ -179,7 +179,7 @@ public class ArbitraryFormatRawDataColumnInfoSource implements
 		default:
 			String key = ValidObservation.getDetailKey(index
 					- DISCREPANT_COLUMN - 1);
-			value = ob.getDetails().get(key);
+			value = ob.detailExists(key) ? ob.getDetail(key) : null;
 			break;
 		}
 
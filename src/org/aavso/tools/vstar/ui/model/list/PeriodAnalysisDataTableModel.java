@@ -23,6 +23,7 @@ import java.util.Map;
 import javax.swing.table.AbstractTableModel;
 
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
 import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
 import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 
@@ -33,7 +34,8 @@ import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 
 	private PeriodAnalysisCoordinateType[] columnTypes;
-	private Map<PeriodAnalysisCoordinateType, List<Double>> data;
+	private PeriodAnalysisResult data;
+	private int[] columnIndices;
 
 	/**
 	 * Period analysis data model constructor.
@@ -47,8 +49,22 @@ public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 	public PeriodAnalysisDataTableModel(
 			PeriodAnalysisCoordinateType[] columnTypes,
 			Map<PeriodAnalysisCoordinateType, List<Double>> data) {
+		this(columnTypes, PeriodAnalysisResult.fromMap(data));
+	}
+
+	/**
+	 * Period analysis data model constructor.
+	 * 
+	 * @param columnTypes
+	 *            An array of column types as they are to appear in the table.
+	 * @param data
+	 *            The columnar result data.
+	 */
+	public PeriodAnalysisDataTableModel(
+			PeriodAnalysisCoordinateType[] columnTypes,
+			PeriodAnalysisResult data) {
 		this.columnTypes = columnTypes;
-		this.data = data;
+		setResult(data);
 	}
 
 	/**
@@ -56,6 +72,13 @@ public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 	 *         values of that type.
 	 */
 	public Map<PeriodAnalysisCoordinateType, List<Double>> getData() {
+		return data.asMap();
+	}
+
+	/**
+	 * @return the result data in columnar form
+	 */
+	public PeriodAnalysisResult getResult() {
 		return data;
 	}
 
@@ -68,16 +91,36 @@ public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 	 *            values of that type.
 	 */
 	public void setData(Map<PeriodAnalysisCoordinateType, List<Double>> data) {
-		this.data = data;
+		setData(PeriodAnalysisResult.fromMap(data));
+	}
+
+	/**
+	 * Set the data and notify listeners that it has changed. All data values
+	 * are deselected.
+	 * 
+	 * @param data
+	 *            The columnar result data.
+	 */
+	public void setData(PeriodAnalysisResult data) {
+		setResult(data);
 		fireTableDataChanged();
 	}
 
+	// Set the data and the index in it of each table column.
+	private void setResult(PeriodAnalysisResult data) {
+		this.data = data;
+		columnIndices = new int[columnTypes.length];
+		for (int i = 0; i < columnTypes.length; i++) {
+			columnIndices[i] = data.getColumnIndex(columnTypes[i]);
+		}
+	}
+
 	/**
 	 * @see javax.swing.table.TableModel#getColumnCount()
 	 */
 	public int getColumnCount() {
 		// column: coordinate type (freq, period, power, ampl[, selected])
-		return data.keySet().size();
+		return data.getCoordTypes().length;
 	}
 
 	/**
@@ -86,7 +129,7 @@ public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 	public int getRowCount() {
 		// Arbitrarily choose one coordinate and ask how many data-points
 		// it has (same for all coordinates).
-		return data.get(columnTypes[0]).size();
+		return data.size();
 	}
 
 	/**
@@ -109,8 +152,7 @@ public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 	public Object getValueAt(int rowIndex, int columnIndex) {
 		// column: coordinate type (freq, period, power, ampl[, selected])
 		// row: value within the chosen coordinate's list
-		PeriodAnalysisCoordinateType columnType = columnTypes[columnIndex];
-		double val = data.get(columnType).get(rowIndex);
+		double val = data.get(columnIndices[columnIndex], rowIndex);
 
 		return NumericPrecisionPrefs.formatOther(val);
 	}
@@ -142,7 +184,7 @@ public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 	 * @return The frequency value.
 	 */
 	public Double getFrequencyValueInRow(int rowIndex) {
-		return data.get(PeriodAnalysisCoordinateType.FREQUENCY).get(rowIndex);
+		return data.get(PeriodAnalysisCoordinateType.FREQUENCY, rowIndex);
 	}
 
 	/**
@@ -158,7 +200,7 @@ public class PeriodAnalysisDataTableModel extends AbstractTableModel {
 		
 		double[] values = new double[columnTypes.length];
 		for (int i=0;i<columnTypes.length;i++) {
-			values[i] = data.get(columnTypes[i]).get(rowIndex);
+			values[i] = data.get(columnIndices[i], rowIndex);
 		}
 				
 		return new PeriodAnalysisDataPoint(columnTypes, values);
@@ -102,13 +102,11 @@ public class PhasePlotMeanObservationTableModel extends
 			break;
 		case MEAN_COLUMN:
 			// The mean magnitude.
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude()
-					.getMagValue());
+			value = NumericPrecisionPrefs.formatMag(ob.getMag());
 			break;
 		case STDERR_COLUMN:
 			// The standard error of the average.
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude()
-					.getUncertainty());
+			value = NumericPrecisionPrefs.formatMag(ob.getMagUncertainty());
 			break;
 		}
 
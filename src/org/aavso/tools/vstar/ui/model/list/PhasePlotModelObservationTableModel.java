@@ -128,8 +128,7 @@ public class PhasePlotModelObservationTableModel extends
 			value = NumericPrecisionPrefs.formatTime(ob.getStandardPhase());
 			break;
 		case MAG_COLUMN:
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude()
-					.getMagValue());
+			value = NumericPrecisionPrefs.formatMag(ob.getMag());
 			break;
 		}
 
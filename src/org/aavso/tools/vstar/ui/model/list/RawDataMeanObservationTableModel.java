@@ -102,20 +102,18 @@ public class RawDataMeanObservationTableModel extends
 
 		switch (columnIndex) {
 		case JD_COLUMN:
-			value = NumericPrecisionPrefs.formatTime(ob.getDateInfo()
-					.getJulianDay());
+			value = NumericPrecisionPrefs.formatTime(ob.getJD());
 			break;
 		case CALDATE_COLUMN:
 			value = ob.getDateInfo().getCalendarDate();
 			break;
 		case MEAN_COLUMN:
 			// The mean magnitude.
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude()
-					.getMagValue());
+			value = NumericPrecisionPrefs.formatMag(ob.getMag());
 			break;
 		case STDERR_COLUMN:
 			// The standard error of the average.
-			value = NumericPrecisionPrefs.formatMag(ob.getMagnitude().getUncertainty());
+			value = NumericPrecisionPrefs.formatMag(ob.getMagUncertainty());
 			break;
 		}
 
@@ -22,6 +22,7 @@ import java.util.List;
 import javax.swing.table.AbstractTableModel;
 
 import org.aavso.tools.vstar.util.period.wwz.WWZCoordinateType;
+import org.aavso.tools.vstar.util.period.wwz.WWZResultStore;
 import org.aavso.tools.vstar.util.period.wwz.WWZStatistic;
 import org.aavso.tools.vstar.util.period.wwz.WeightedWaveletZTransform;
 import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
@@ -33,6 +34,8 @@ import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 public class WWZDataTableModel extends AbstractTableModel {
 
 	private List<WWZStatistic> stats;
+	// The columnar store underlying the stats, if any.
+	private WWZResultStore store;
 	private WeightedWaveletZTransform wwt;
 
 	/**
@@ -49,6 +52,9 @@ public class WWZDataTableModel extends AbstractTableModel {
 	public WWZDataTableModel(List<WWZStatistic> stats,
 			WeightedWaveletZTransform wwt) {
 		this.stats = stats;
+		this.store = stats instanceof WWZResultStore.StatisticList ? ((WWZResultStore.StatisticList) stats)
+				.getStore()
+				: null;
 		this.wwt = wwt;
 	}
 
@@ -98,8 +104,9 @@ public class WWZDataTableModel extends AbstractTableModel {
 	 * @see javax.swing.table.TableModel#getValueAt(int, int)
 	 */
 	public Object getValueAt(int rowIndex, int columnIndex) {
-		double value = stats.get(rowIndex).getValue(
-				WWZCoordinateType.getTypeFromId(columnIndex));
+		WWZCoordinateType type = WWZCoordinateType.getTypeFromId(columnIndex);
+		double value = store != null ? store.getValue(rowIndex, type) : stats
+				.get(rowIndex).getValue(type);
 		return NumericPrecisionPrefs.formatOther(value);
 	}
 
@@ -20,6 +20,8 @@ package org.aavso.tools.vstar.ui.model.plot;
 import java.util.List;
 
 import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.util.model.IBatchUnivariateRealFunction;
+import org.apache.commons.math.FunctionEvaluationException;
 import org.apache.commons.math.analysis.UnivariateRealFunction;
 
 /**
@@ -109,6 +111,31 @@ public class ContinuousModelFunction {
 		return function;
 	}
 
+	/**
+	 * Compute the value of the function for each of a number of values, in a
+	 * single call if the function supports it.
+	 * 
+	 * @param xs
+	 *            The values at which the function is to be computed.
+	 * @return The function values, in the same order.
+	 * @throws FunctionEvaluationException
+	 *             If the function cannot be computed for a value.
+	 */
+	public double[] values(double[] xs) throws FunctionEvaluationException {
+		double[] ys;
+
+		if (function instanceof IBatchUnivariateRealFunction) {
+			ys = ((IBatchUnivariateRealFunction) function).values(xs);
+		} else {
+			ys = new double[xs.length];
+			for (int i = 0; i < xs.length; i++) {
+				ys[i] = function.value(xs[i]);
+			}
+		}
+
+		return ys;
+	}
+
 	/**
 	 * @return the coordSrc
 	 */
@@ -24,6 +24,7 @@ import java.util.Map;
 import org.aavso.tools.vstar.data.SeriesType;
 import org.aavso.tools.vstar.data.ValidObservation;
 import org.apache.commons.math.FunctionEvaluationException;
+import org.apache.commons.math.analysis.UnivariateRealFunction;
 import org.jfree.data.xy.AbstractXYDataset;
 
 /**
@@ -37,6 +38,13 @@ public class ContinuousModelPlotModel extends AbstractXYDataset {
 	private double step;
 	private double nextX;
 
+	// Function values, computed once on demand, and the function and range
+	// of the fit for which they were computed.
+	private double[] ys;
+	private UnivariateRealFunction ysFunction;
+	private double ysFirstX;
+	private double ysLastX;
+
 	/**
 	 * Constructor
 	 * 
@@ -88,22 +96,68 @@ public class ContinuousModelPlotModel extends AbstractXYDataset {
 			// System.out.println("***");
 		}
 
-		try {
-			// double x = modelFunction.getCoordSrc().getXCoord(series, item,
-			// seriesNumToObSrcListMap);
+		if (areYsStale()) {
+			computeYs();
+		}
+
+		y = ys[item];
+
+		// nextX += step;
+
+		return y;
+	}
+
+	// Have the function or the fit changed since the function values were
+	// computed?
+	private boolean areYsStale() {
+		List<ValidObservation> fit = modelFunction.getFit();
 
-			// Note: The function must be computed with JD not phase since
-			// that's what was used initially.
-			double x = modelFunction.getFit().get(item).getJD()
-					- modelFunction.getZeroPoint();
+		return ys == null || ys.length != fit.size()
+				|| ysFunction != modelFunction.getFunction()
+				|| (!fit.isEmpty() && (ysFirstX != x(0) || ysLastX != x(fit
+						.size() - 1)));
+	}
+
+	// Compute the function values for all items in one batch. If that fails,
+	// compute them individually, with a value of NaN (which is not plotted)
+	// for those that fail.
+	private void computeYs() {
+		List<ValidObservation> fit = modelFunction.getFit();
+		UnivariateRealFunction function = modelFunction.getFunction();
+
+		double[] xs = new double[fit.size()];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = x(i);
+		}
+
+		double[] values;
 
-			y = modelFunction.getFunction().value(x);
+		try {
+			values = modelFunction.values(xs);
 		} catch (FunctionEvaluationException e) {
-			// TODO
+			values = new double[xs.length];
+			for (int i = 0; i < xs.length; i++) {
+				try {
+					values[i] = function.value(xs[i]);
+				} catch (FunctionEvaluationException e2) {
+					values[i] = Double.NaN;
+				}
+			}
 		}
 
-		// nextX += step;
+		ys = values;
+		ysFunction = function;
+		if (xs.length != 0) {
+			ysFirstX = xs[0];
+			ysLastX = xs[xs.length - 1];
+		}
+	}
 
-		return y;
+	// The value at which the function is computed for the specified item.
+	// Note: The function must be computed with JD not phase since that's what
+	// was used initially.
+	private double x(int item) {
+		return modelFunction.getFit().get(item).getJD()
+				- modelFunction.getZeroPoint();
 	}
 }
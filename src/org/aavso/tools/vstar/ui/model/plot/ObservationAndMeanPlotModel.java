@@ -302,7 +302,7 @@ public class ObservationAndMeanPlotModel extends ObservationPlotModel {
 			// book
 			// "Analyzing Light Curves" re: this.
 			return this.seriesNumToObSrcListMap.get(series).get(item)
-					.getMagnitude().getUncertainty() * 2;
+					.getMagUncertainty() * 2;
 		}
 	}
 
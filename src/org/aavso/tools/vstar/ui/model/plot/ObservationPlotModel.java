@@ -598,8 +598,7 @@ abstract public class ObservationPlotModel extends AbstractIntervalXYDataset
 	 * @return The magnitude value.
 	 */
 	public double getMagAsYCoord(int series, int item) {
-		return this.seriesNumToObSrcListMap.get(series).get(item)
-				.getMagnitude().getMagValue();
+		return this.seriesNumToObSrcListMap.get(series).get(item).getMag();
 	}
 
 	/**
@@ -628,7 +627,7 @@ abstract public class ObservationPlotModel extends AbstractIntervalXYDataset
 			error = hqUncertainty;
 		} else {
 			error = this.seriesNumToObSrcListMap.get(series).get(item)
-					.getMagnitude().getUncertainty();
+					.getMagUncertainty();
 		}
 
 		return error;
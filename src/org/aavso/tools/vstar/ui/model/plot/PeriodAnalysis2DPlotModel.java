@@ -22,6 +22,7 @@ import java.util.Map;
 
 import org.aavso.tools.vstar.util.locale.LocaleProps;
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
 import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
 import org.jfree.data.xy.AbstractXYDataset;
 
@@ -31,10 +32,10 @@ import org.jfree.data.xy.AbstractXYDataset;
 @SuppressWarnings("serial")
 public class PeriodAnalysis2DPlotModel extends AbstractXYDataset {
 
-	private Map<PeriodAnalysisCoordinateType, List<Double>> analysisValues;
+	private PeriodAnalysisResult analysisValues;
 	private PeriodAnalysisCoordinateType[] coordTypes;
-	private List<Double> domainValues;
-	private List<Double> rangeValues;
+	private int domainColumn;
+	private int rangeColumn;
 	private PeriodAnalysisCoordinateType domainType;
 	private PeriodAnalysisCoordinateType rangeType;
 	private boolean isLogarithmic;
@@ -56,13 +57,31 @@ public class PeriodAnalysis2DPlotModel extends AbstractXYDataset {
 			Map<PeriodAnalysisCoordinateType, List<Double>> analysisValues,
 			PeriodAnalysisCoordinateType domainType,
 			PeriodAnalysisCoordinateType rangeType, boolean isLogarithmic) {
+		this(PeriodAnalysisResult.fromMap(analysisValues), domainType,
+				rangeType, isLogarithmic);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param analysisValues
+	 *            A columnar period analysis result.
+	 * @param domainType
+	 *            The type of the domain axis.
+	 * @param rangeTypes
+	 *            The type of the range axis.
+	 * @param isLogarithmic
+	 *            Should range values be logarithmic? (e.g. power).
+	 */
+	public PeriodAnalysis2DPlotModel(PeriodAnalysisResult analysisValues,
+			PeriodAnalysisCoordinateType domainType,
+			PeriodAnalysisCoordinateType rangeType, boolean isLogarithmic) {
 		super();
 		this.analysisValues = analysisValues;
-		this.coordTypes = analysisValues.keySet().toArray(
-				new PeriodAnalysisCoordinateType[0]);
-		this.domainValues = analysisValues.get(domainType);
-		this.rangeValues = analysisValues.get(rangeType);
-		assert domainValues.size() == rangeValues.size();
+		this.coordTypes = analysisValues.getCoordTypes();
+		this.domainColumn = analysisValues.getColumnIndex(domainType);
+		this.rangeColumn = analysisValues.getColumnIndex(rangeType);
+		assert domainColumn != -1 && rangeColumn != -1;
 		this.domainType = domainType;
 		this.rangeType = rangeType;
 		this.isLogarithmic = isLogarithmic;
@@ -72,6 +91,13 @@ public class PeriodAnalysis2DPlotModel extends AbstractXYDataset {
 	 * @return the analysisValues
 	 */
 	public Map<PeriodAnalysisCoordinateType, List<Double>> getAnalysisValues() {
+		return analysisValues.asMap();
+	}
+
+	/**
+	 * @return the analysis values in columnar form
+	 */
+	public PeriodAnalysisResult getAnalysisResult() {
 		return analysisValues;
 	}
 
@@ -79,14 +105,14 @@ public class PeriodAnalysis2DPlotModel extends AbstractXYDataset {
 	 * @return the domainValues
 	 */
 	public List<Double> getDomainValues() {
-		return domainValues;
+		return analysisValues.getList(domainType);
 	}
 
 	/**
 	 * @return the rangeValues
 	 */
 	public List<Double> getRangeValues() {
-		return rangeValues;
+		return analysisValues.getList(rangeType);
 	}
 
 	/**
@@ -137,21 +163,21 @@ public class PeriodAnalysis2DPlotModel extends AbstractXYDataset {
 	 * @see org.jfree.data.xy.XYDataset#getItemCount(int)
 	 */
 	public int getItemCount(int series) {
-		return domainValues.size();
+		return analysisValues.size();
 	}
 
 	/**
 	 * @see org.jfree.data.xy.XYDataset#getX(int, int)
 	 */
 	public Number getX(int series, int item) {
-		return domainValues.get(item);
+		return analysisValues.get(domainColumn, item);
 	}
 
 	/**
 	 * @see org.jfree.data.xy.XYDataset#getY(int, int)
 	 */
 	public Number getY(int series, int item) {
-		double yValue = rangeValues.get(item);
+		double yValue = analysisValues.get(rangeColumn, item);
 		if (isLogarithmic) {
 			yValue = yValue == 0 ? 0 : Math.log10(yValue);
 		}
@@ -172,13 +198,13 @@ public class PeriodAnalysis2DPlotModel extends AbstractXYDataset {
 
 		// This may be a top-hits model and the item may be selected from the
 		// full data-set. If so, ignore.
-		if (item < domainValues.size()) {
+		if (item < analysisValues.size()) {
 			
 			// TODO: why not just use a map rather than PeriodAnalysisDataPoint?
 			
 			double[] values = new double[coordTypes.length];
 			for (int i=0;i<coordTypes.length;i++) {
-				values[i] = analysisValues.get(coordTypes[i]).get(item);
+				values[i] = analysisValues.get(i, item);
 			}
 					
 			dataPoint = new PeriodAnalysisDataPoint(coordTypes, values);
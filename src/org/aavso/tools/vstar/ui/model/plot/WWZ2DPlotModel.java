@@ -20,6 +20,7 @@ package org.aavso.tools.vstar.ui.model.plot;
 import java.util.List;
 
 import org.aavso.tools.vstar.util.period.wwz.WWZCoordinateType;
+import org.aavso.tools.vstar.util.period.wwz.WWZResultStore;
 import org.aavso.tools.vstar.util.period.wwz.WWZStatistic;
 import org.jfree.data.xy.AbstractXYDataset;
 
@@ -30,6 +31,8 @@ import org.jfree.data.xy.AbstractXYDataset;
 public class WWZ2DPlotModel extends AbstractXYDataset {
 
 	protected List<WWZStatistic> stats;
+	// The columnar store underlying the stats, if any.
+	protected WWZResultStore store;
 	protected WWZCoordinateType domainType; // e.g. tau
 	protected WWZCoordinateType rangeType; // e.g. period, frequency
 
@@ -47,6 +50,9 @@ public class WWZ2DPlotModel extends AbstractXYDataset {
 			WWZCoordinateType domainType, WWZCoordinateType rangeType) {
 		super();
 		this.stats = stats;
+		this.store = stats instanceof WWZResultStore.StatisticList ? ((WWZResultStore.StatisticList) stats)
+				.getStore()
+				: null;
 		this.domainType = domainType;
 		this.rangeType = rangeType;
 	}
@@ -105,7 +111,7 @@ public class WWZ2DPlotModel extends AbstractXYDataset {
 	 */
 	@Override
 	public Number getX(int series, int item) {
-		return stats.get(item).getValue(domainType);
+		return getValue(item, domainType);
 	}
 
 	/**
@@ -113,7 +119,7 @@ public class WWZ2DPlotModel extends AbstractXYDataset {
 	 */
 	@Override
 	public Number getY(int series, int item) {
-		return stats.get(item).getValue(rangeType);
+		return getValue(item, rangeType);
 	}
 
 	/**
@@ -121,7 +127,7 @@ public class WWZ2DPlotModel extends AbstractXYDataset {
 	 */
 	@Override
 	public double getXValue(int series, int item) {
-		return stats.get(item).getValue(domainType);
+		return getValue(item, domainType);
 	}
 
 	/**
@@ -129,6 +135,21 @@ public class WWZ2DPlotModel extends AbstractXYDataset {
 	 */
 	@Override
 	public double getYValue(int series, int item) {
-		return stats.get(item).getValue(rangeType);
+		return getValue(item, rangeType);
+	}
+
+	/**
+	 * Get a coordinate of the specified statistic, reading the columnar store
+	 * directly if there is one, rather than creating a statistic object.
+	 * 
+	 * @param item
+	 *            The index of the statistic.
+	 * @param type
+	 *            The coordinate type.
+	 * @return The value of the coordinate.
+	 */
+	protected double getValue(int item, WWZCoordinateType type) {
+		return store != null ? store.getValue(item, type) : stats.get(item)
+				.getValue(type);
 	}
 }
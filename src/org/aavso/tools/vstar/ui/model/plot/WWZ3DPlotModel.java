@@ -77,6 +77,6 @@ public class WWZ3DPlotModel extends WWZ2DPlotModel implements XYZDataset {
 
 	@Override
 	public double getZValue(int series, int item) {
-		return stats.get(item).getValue(zType);
+		return getValue(item, zType);
 	}
 }
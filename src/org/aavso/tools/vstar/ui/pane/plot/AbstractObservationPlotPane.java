@@ -664,8 +664,8 @@ abstract public class AbstractObservationPlotPane<T extends ObservationAndMeanPl
                 List<ValidObservation> obs = seriesNumToObsMap.get(seriesNum);
                 int index = 0;
                 for (ValidObservation ob : obs) {
-                    double mag = ob.getMagnitude().getMagValue();
-                    double uncert = ob.getMagnitude().getUncertainty();
+                    double mag = ob.getMag();
+                    double uncert = ob.getMagUncertainty();
                     // If uncertainty not given, get HQ uncertainty if present.
                     if (uncert == 0.0 && ob.getHqUncertainty() != null) {
                         uncert = ob.getHqUncertainty();
@@ -18,7 +18,8 @@
 package org.aavso.tools.vstar.ui.task;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 
 import javax.swing.SwingWorker;
@@ -27,7 +28,7 @@ import org.aavso.tools.vstar.data.ValidObservation;
 import org.aavso.tools.vstar.exception.ObservationReadError;
 import org.aavso.tools.vstar.input.AbstractObservationRetriever;
 import org.aavso.tools.vstar.input.text.ObservationSourceAnalyser;
-import org.aavso.tools.vstar.input.text.TextFormatObservationReader;
+import org.aavso.tools.vstar.input.text.ParallelTextFormatObservationReader;
 import org.aavso.tools.vstar.ui.dialog.MessageBox;
 import org.aavso.tools.vstar.ui.mediator.Mediator;
 import org.aavso.tools.vstar.ui.mediator.StarInfo;
@@ -92,9 +93,11 @@ public class NewStarFromFileTask extends SwingWorker<Void, Void> {
 			ObservationSourceAnalyser analyser) {
 
 		try {
-			textFormatReader = new TextFormatObservationReader(
-					new LineNumberReader(new FileReader(obsFile.getPath())),
-					analyser, AbstractObservationRetriever.NO_VELA_FILTER);
+			FileInputStream stream = new FileInputStream(obsFile);
+			textFormatReader = new ParallelTextFormatObservationReader(
+					stream.getChannel(), new LineNumberReader(
+							new InputStreamReader(stream)), analyser,
+					AbstractObservationRetriever.NO_VELA_FILTER);
 
 			ValidObservation.reset();
 
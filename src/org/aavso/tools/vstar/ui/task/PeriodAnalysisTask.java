@@ -17,28 +17,41 @@
  */
 package org.aavso.tools.vstar.ui.task;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.List;
 
 import javax.swing.JDialog;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 import org.aavso.tools.vstar.data.SeriesType;
 import org.aavso.tools.vstar.data.ValidObservation;
 import org.aavso.tools.vstar.exception.CancellationException;
 import org.aavso.tools.vstar.plugin.period.PeriodAnalysisPluginBase;
 import org.aavso.tools.vstar.ui.dialog.MessageBox;
+import org.aavso.tools.vstar.ui.dialog.period.PeriodAnalysisPreviewDialog;
 import org.aavso.tools.vstar.ui.mediator.Mediator;
 import org.aavso.tools.vstar.ui.mediator.message.ProgressInfo;
 import org.aavso.tools.vstar.ui.mediator.message.StopRequestMessage;
 import org.aavso.tools.vstar.util.locale.LocaleProps;
 import org.aavso.tools.vstar.util.notification.Listener;
+import org.aavso.tools.vstar.util.period.PartialResultChannel;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodogramBlock;
 
 /**
  * A concurrent task in which a potentially long-running period analysis plugin
  * is executed.
+ * 
+ * If the plugin publishes partial results, they are periodically drained on
+ * the event dispatching thread into a preview dialog that shows the
+ * periodogram as it grows and permits the search to be stopped early.
  */
 public class PeriodAnalysisTask extends SwingWorker<Void, Void> {
 
+	private static final int PREVIEW_UPDATE_INTERVAL_MS = 250;
+
     private String error;
 	private PeriodAnalysisPluginBase periodAnalysisPlugin;
 	private SeriesType sourceSeriesType;
@@ -46,6 +59,11 @@ public class PeriodAnalysisTask extends SwingWorker<Void, Void> {
 
 	private Listener<StopRequestMessage> stopListener;
 
+	private PartialResultChannel partialResults;
+	private Timer previewTimer;
+	private PeriodAnalysisPreviewDialog previewDialog;
+	private boolean previewCreated;
+
 	private boolean successful;
 
 	/**
@@ -68,6 +86,16 @@ public class PeriodAnalysisTask extends SwingWorker<Void, Void> {
 		this.successful = true;
 
 		stopListener = createStopRequestListener();
+
+		partialResults = new PartialResultChannel();
+		previewTimer = new Timer(PREVIEW_UPDATE_INTERVAL_MS,
+				new ActionListener() {
+					@Override
+					public void actionPerformed(ActionEvent e) {
+						updatePreview();
+					}
+				});
+		previewCreated = false;
 	}
 
 	/**
@@ -83,6 +111,9 @@ public class PeriodAnalysisTask extends SwingWorker<Void, Void> {
 
 		Mediator.getUI().getStatusPane().setMessage(
 				LocaleProps.get("STATUS_PANE_PERFORMING_PERIOD_ANALYSIS"));
+		periodAnalysisPlugin.setPartialResultChannel(partialResults);
+		previewTimer.start();
+
 		try {
 			periodAnalysisPlugin.executeAlgorithm(obs);
 		} catch (CancellationException e) {
@@ -91,6 +122,8 @@ public class PeriodAnalysisTask extends SwingWorker<Void, Void> {
 			successful = false;
 			error = t.getLocalizedMessage();
 		} finally {
+			periodAnalysisPlugin.setPartialResultChannel(null);
+
 			Mediator.getInstance().getStopRequestNotifier()
 					.removeListenerIfWilling(stopListener);
 		}
@@ -102,13 +135,35 @@ public class PeriodAnalysisTask extends SwingWorker<Void, Void> {
 	 * Executed in event dispatching thread.
 	 */
 	public void done() {
+		previewTimer.stop();
+
+		// Complete an existing preview, but do not create one now that the
+		// results are available.
+		previewCreated = true;
+		updatePreview();
+
+		JDialog dialog = null;
+
 	    if (error != null) {
 	        MessageBox.showErrorDialog("Period Analysis Error", error);
 	    } else if (!isCancelled() && successful) {
-			JDialog dialog = periodAnalysisPlugin.getDialog(sourceSeriesType);
-			if (dialog != null) {
-				dialog.setVisible(true);
+			dialog = periodAnalysisPlugin.getDialog(sourceSeriesType);
+		}
+
+		// The preview is superseded by the result dialog, if any; otherwise,
+		// e.g. if the plugin discards the results of an interrupted search,
+		// the preview remains to show what was found before it stopped.
+		if (previewDialog != null) {
+			if (dialog != null || error != null) {
+				previewDialog.dispose();
+			} else {
+				previewDialog.finished();
 			}
+			previewDialog = null;
+		}
+
+		if (dialog != null) {
+			dialog.setVisible(true);
 		}
 
 		Mediator.getInstance().getProgressNotifier().notifyListeners(
@@ -120,6 +175,49 @@ public class PeriodAnalysisTask extends SwingWorker<Void, Void> {
 		Mediator.getUI().getStatusPane().setMessage("");
 	}
 
+	// Drains partial results into the preview dialog, creating it when the
+	// first results arrive. Executed in event dispatching thread.
+	private void updatePreview() {
+		List<PeriodogramBlock> blocks = partialResults.drain();
+
+		if (blocks.isEmpty()) {
+			return;
+		}
+
+		if (!previewCreated) {
+			previewCreated = true;
+
+			PeriodAnalysisCoordinateType rangeType = periodAnalysisPlugin
+					.getPartialResultType();
+
+			if (rangeType != null) {
+				previewDialog = new PeriodAnalysisPreviewDialog(LocaleProps
+						.get("PERIOD_ANALYSIS_PREVIEW_TITLE")
+						+ " " + periodAnalysisPlugin.getDisplayName(),
+						periodAnalysisPlugin.getPartialResultDomainType(),
+						rangeType, createPreviewStopListener());
+				previewDialog.setVisible(true);
+			}
+		}
+
+		// The user may have closed the preview.
+		if (previewDialog != null && previewDialog.isDisplayable()) {
+			previewDialog.addBlocks(blocks);
+		}
+	}
+
+	// Creates a listener for the preview's stop button that interrupts the
+	// period analysis without cancelling this task, so that results computed
+	// so far can still be shown.
+	private ActionListener createPreviewStopListener() {
+		return new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				periodAnalysisPlugin.interrupt();
+			}
+		};
+	}
+
 	// Creates a stop request listener to interrupt the period analysis.
 	private Listener<StopRequestMessage> createStopRequestListener() {
 		return new Listener<StopRequestMessage>() {
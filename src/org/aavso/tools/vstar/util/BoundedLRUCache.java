@@ -0,0 +1,286 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * <p>
+ * A thread-safe cache that holds at most a given number of entries whose
+ * total weight does not exceed a given maximum, e.g. the number of nodes in
+ * cached syntax trees. When either bound would be exceeded, the least
+ * recently used entries are evicted.
+ * </p>
+ *
+ * <p>
+ * Hit, miss and eviction counts are kept for diagnostic purposes.
+ * </p>
+ *
+ * @param <K>
+ *            The key type.
+ * @param <V>
+ *            The value type.
+ */
+public class BoundedLRUCache<K, V> {
+
+	private final String name;
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final ToIntFunction<? super V> weigher;
+
+	// Guarded by this.
+	private final LinkedHashMap<K, Node<V>> map;
+	private long weight;
+
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder evictions;
+
+	/**
+	 * Constructor for a cache in which each entry has unit weight.
+	 *
+	 * @param name
+	 *            A name for the cache, e.g. for statistics reporting.
+	 * @param maxEntries
+	 *            The maximum number of entries.
+	 */
+	public BoundedLRUCache(String name, int maxEntries) {
+		this(name, maxEntries, maxEntries, value -> 1);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param name
+	 *            A name for the cache, e.g. for statistics reporting.
+	 * @param maxEntries
+	 *            The maximum number of entries.
+	 * @param maxWeight
+	 *            The maximum total weight of all entries.
+	 * @param weigher
+	 *            A function that returns the (non-negative) weight of a value.
+	 */
+	public BoundedLRUCache(String name, int maxEntries, long maxWeight,
+			ToIntFunction<? super V> weigher) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException(
+					"The maximum number of entries must be positive");
+		}
+
+		if (maxWeight < 1) {
+			throw new IllegalArgumentException(
+					"The maximum weight must be positive");
+		}
+
+		this.name = name;
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+
+		// Access ordered, so iteration starts at the least recently used.
+		map = new LinkedHashMap<K, Node<V>>(16, 0.75f, true);
+		weight = 0;
+
+		hits = new LongAdder();
+		misses = new LongAdder();
+		evictions = new LongAdder();
+	}
+
+	/**
+	 * Return the value cached for a key, making it the most recently used
+	 * entry.
+	 *
+	 * @param key
+	 *            The key.
+	 * @return The value, or null if there is none.
+	 */
+	public V get(K key) {
+		Node<V> node;
+
+		synchronized (this) {
+			node = map.get(key);
+		}
+
+		if (node == null) {
+			misses.increment();
+			return null;
+		} else {
+			hits.increment();
+			return node.value;
+		}
+	}
+
+	/**
+	 * Cache a value for a key, replacing any existing value and evicting least
+	 * recently used entries as required. A value that is heavier than the
+	 * maximum weight by itself is not cached.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param value
+	 *            The value; must not be null.
+	 */
+	public void put(K key, V value) {
+		int valueWeight = weigher.applyAsInt(value);
+
+		synchronized (this) {
+			Node<V> previous = map.remove(key);
+			if (previous != null) {
+				weight -= previous.weight;
+			}
+
+			if (valueWeight <= maxWeight) {
+				map.put(key, new Node<V>(value, valueWeight));
+				weight += valueWeight;
+				evict();
+			}
+		}
+	}
+
+	/**
+	 * Return the value cached for a key, computing and caching it if there is
+	 * none. The value is computed without holding the cache's lock, so two
+	 * threads may occasionally compute a value for the same key.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param function
+	 *            The function used to compute a missing value from the key.
+	 * @return The cached or computed value.
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+		V value = get(key);
+
+		if (value == null) {
+			value = function.apply(key);
+			if (value != null) {
+				put(key, value);
+			}
+		}
+
+		return value;
+	}
+
+	/**
+	 * @return the name of this cache
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the maximum number of entries
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * @return the maximum total weight of all entries
+	 */
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * @return the number of lookups that found a value
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that did not find a value
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries evicted to stay within bounds
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public synchronized int size() {
+		return map.size();
+	}
+
+	/**
+	 * @return the total weight of all entries
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Remove all entries and reset the hit, miss and eviction counts.
+	 */
+	public void clear() {
+		synchronized (this) {
+			map.clear();
+			weight = 0;
+		}
+
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + size() + " entries, weight " + getWeight()
+				+ ", " + getHitCount() + " hits, " + getMissCount()
+				+ " misses, " + getEvictionCount() + " evictions";
+	}
+
+	// Helpers
+
+	// Must be called while holding this cache's lock.
+	private void evict() {
+		Iterator<Map.Entry<K, Node<V>>> iter = map.entrySet().iterator();
+
+		while ((map.size() > maxEntries || weight > maxWeight)
+				&& iter.hasNext()) {
+			Node<V> eldest = iter.next().getValue();
+			iter.remove();
+			weight -= eldest.weight;
+			evictions.increment();
+		}
+	}
+
+	private static class Node<V> {
+		final V value;
+		final int weight;
+
+		Node(V value, int weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+}
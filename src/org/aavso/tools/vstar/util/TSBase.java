@@ -20,6 +20,7 @@ package org.aavso.tools.vstar.util;
 import java.util.List;
 
 import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.util.period.TrigRecurrence;
 
 /**
  * This is the base class for all AAVSO TS-based algorithms translated from the
@@ -28,7 +29,7 @@ import org.aavso.tools.vstar.data.ValidObservation;
 
 // TODO: make 51 a named constant
 
-public class TSBase {
+public class TSBase implements Cloneable {
 
 	protected final static int MAX_TOP_HITS = 101; // was 21
 
@@ -42,11 +43,6 @@ public class TSBase {
 	protected double dfouramp2;
 	protected double dfpow;
 	protected double dfre[] = new double[MAX_TOP_HITS];
-	protected double dgnu[] = new double[MAX_TOP_HITS];
-	protected double dgper[] = new double[MAX_TOP_HITS];
-	protected double dgpower[] = new double[MAX_TOP_HITS];
-	protected double dgamplitude[] = new double[MAX_TOP_HITS]; // dbenn
-	// (semi-amplitude?)
 	protected double dlamp;
 	protected double dllamp;
 	protected double dlnu;
@@ -95,7 +91,11 @@ public class TSBase {
 	protected double wvec[];
 	protected double xvec[];
 
-	protected boolean interrupted;
+	protected volatile boolean interrupted;
+
+	// When set, and a single frequency is being projected, supplies the
+	// trigonometric values for that frequency; see createTrigRecurrence().
+	protected TrigRecurrence trigRecurrence;
 
 	/**
 	 * Constructor.
@@ -118,6 +118,57 @@ public class TSBase {
 		interrupted = false;
 	}
 
+	/**
+	 * Create a copy of this object that shares the observation vectors (tvec,
+	 * xvec, wvec) and statistics but has its own projection scratch arrays
+	 * (dmat, dvec, dcoef, dfre), so that project() may be invoked on different
+	 * copies concurrently.
+	 * 
+	 * @return The copy.
+	 */
+	protected TSBase createProjectionCopy() {
+		try {
+			TSBase copy = (TSBase) super.clone();
+			copy.dmat = new double[dmat.length][dmat[0].length];
+			copy.dvec = new double[dvec.length];
+			copy.dcoef = new double[dcoef.length];
+			copy.dfre = dfre.clone();
+			copy.trigRecurrence = null;
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Create a trig recurrence over the scaled observation times for a scan of
+	 * evenly spaced frequencies, for use by project() via the trigRecurrence
+	 * field. The recurrence must be advanced after each frequency is
+	 * projected.
+	 * 
+	 * @param loFreq
+	 *            The first frequency.
+	 * @param resolution
+	 *            The frequency step.
+	 * @return The recurrence, or null if trig recurrences are disabled.
+	 */
+	protected TrigRecurrence createTrigRecurrence(double loFreq,
+			double resolution) {
+		TrigRecurrence recurrence = null;
+
+		if (TrigRecurrence.isEnabled()) {
+			double twopi = 6.283185307179586;
+			double[] times = new double[tvec.length];
+			for (int n = 0; n < tvec.length; n++) {
+				times[n] = (tvec[n] - dtzero) / dtscale;
+			}
+			recurrence = new TrigRecurrence(times, twopi * loFreq * dtscale,
+					twopi * resolution * dtscale);
+		}
+
+		return recurrence;
+	}
+
 	/**
 	 * @return the source observations used by this algorithm.
 	 */
@@ -363,6 +414,12 @@ public class TSBase {
 			}
 		}
 
+		// Use the trig recurrence only if it is for this frequency.
+		boolean useRecurrence = trigRecurrence != null
+				&& nfre == 1
+				&& Math.abs(trigRecurrence.getOmega() - drad[1]) <= 1e-9 * Math
+						.abs(drad[1]);
+
 		dpow[0] = 1.0;
 
 		// main loop for summation
@@ -383,10 +440,15 @@ public class TSBase {
 				}
 
 				// compute trig functions
-				for (nf = 1; nf <= nfre; nf++) {
-					dphase = drad[nf] * dt;
-					dcc[nf] = Math.cos(dphase);
-					dss[nf] = Math.sin(dphase);
+				if (useRecurrence) {
+					dcc[1] = trigRecurrence.cos(n);
+					dss[1] = trigRecurrence.sin(n);
+				} else {
+					for (nf = 1; nf <= nfre; nf++) {
+						dphase = drad[nf] * dt;
+						dcc[nf] = Math.cos(dphase);
+						dss[nf] = Math.sin(dphase);
+					}
 				}
 
 				if (interrupted) {
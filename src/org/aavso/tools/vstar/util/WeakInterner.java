@@ -0,0 +1,196 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * A thread-safe cache of canonical instances of values that are equal to
+ * each other, e.g. dates or observation details shared by many observations.
+ * Interned values should not be modified.
+ * </p>
+ *
+ * <p>
+ * Both keys and values are held weakly, so a canonical instance is discarded
+ * once nothing else refers to it. The cache is divided into stripes, each
+ * with its own lock, so that threads interning different values seldom
+ * contend with each other.
+ * </p>
+ *
+ * @param <T>
+ *            The type of value to be interned.
+ */
+public class WeakInterner<T> {
+
+	/**
+	 * The default number of stripes.
+	 */
+	public static final int DEFAULT_STRIPES = 16;
+
+	private final String name;
+
+	private final List<WeakHashMap<T, WeakReference<T>>> stripes;
+
+	private final LongAdder hits;
+	private final LongAdder misses;
+
+	/**
+	 * Constructor
+	 *
+	 * @param name
+	 *            A name for the cache, e.g. for statistics reporting.
+	 */
+	public WeakInterner(String name) {
+		this(name, DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param name
+	 *            A name for the cache, e.g. for statistics reporting.
+	 * @param stripeCount
+	 *            The number of stripes; rounded up to a power of two.
+	 */
+	public WeakInterner(String name, int stripeCount) {
+		if (stripeCount < 1) {
+			throw new IllegalArgumentException(
+					"The number of stripes must be positive");
+		}
+
+		int size = Integer.highestOneBit(stripeCount);
+		if (size < stripeCount) {
+			size <<= 1;
+		}
+
+		this.name = name;
+
+		stripes = new ArrayList<WeakHashMap<T, WeakReference<T>>>(size);
+		for (int i = 0; i < size; i++) {
+			stripes.add(new WeakHashMap<T, WeakReference<T>>());
+		}
+
+		hits = new LongAdder();
+		misses = new LongAdder();
+	}
+
+	/**
+	 * Return the canonical instance of a value: a previously interned value
+	 * equal to it, or the value itself, which becomes the canonical instance.
+	 *
+	 * @param value
+	 *            The value; may be null.
+	 * @return The canonical instance, or null if the value is null.
+	 */
+	public T intern(T value) {
+		if (value == null) {
+			return null;
+		}
+
+		T canonical;
+
+		WeakHashMap<T, WeakReference<T>> stripe = stripeFor(value);
+
+		synchronized (stripe) {
+			WeakReference<T> ref = stripe.get(value);
+			canonical = ref == null ? null : ref.get();
+			if (canonical == null) {
+				stripe.put(value, new WeakReference<T>(value));
+			}
+		}
+
+		if (canonical == null) {
+			misses.increment();
+			canonical = value;
+		} else {
+			hits.increment();
+		}
+
+		return canonical;
+	}
+
+	/**
+	 * @return the name of this cache
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of values interned that had a canonical instance
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of values interned that became canonical instances
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of canonical instances; excludes those already
+	 *         discarded
+	 */
+	public int size() {
+		int size = 0;
+
+		for (WeakHashMap<T, WeakReference<T>> stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Discard all canonical instances and reset the hit and miss counts.
+	 */
+	public void clear() {
+		for (WeakHashMap<T, WeakReference<T>> stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+
+		hits.reset();
+		misses.reset();
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + size() + " values, " + getHitCount() + " hits, "
+				+ getMissCount() + " misses";
+	}
+
+	// Helpers
+
+	private WeakHashMap<T, WeakReference<T>> stripeFor(T value) {
+		int hash = value.hashCode();
+		hash ^= hash >>> 16;
+		return stripes.get(hash & (stripes.size() - 1));
+	}
+}
@@ -0,0 +1,41 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.model;
+
+import org.apache.commons.math.FunctionEvaluationException;
+import org.apache.commons.math.analysis.UnivariateRealFunction;
+
+/**
+ * A univariate real function that can be applied to many values at once more
+ * efficiently than one value at a time, e.g. a model function whose setup
+ * cost per call is significant.
+ */
+public interface IBatchUnivariateRealFunction extends UnivariateRealFunction {
+
+	/**
+	 * Compute the value of the function for each of a number of values.
+	 * 
+	 * @param xs
+	 *            The values at which the function is to be computed.
+	 * @return The function values, in the same order.
+	 * @throws FunctionEvaluationException
+	 *             If the function cannot be computed for a value.
+	 */
+	abstract public double[] values(double[] xs)
+			throws FunctionEvaluationException;
+}
@@ -18,6 +18,7 @@
 package org.aavso.tools.vstar.util.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +32,7 @@ import org.aavso.tools.vstar.util.TSBase;
 import org.aavso.tools.vstar.util.locale.LocaleProps;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
 import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
 import org.aavso.tools.vstar.util.prefs.NumericPrecisionPrefs;
 import org.aavso.tools.vstar.util.stats.DescStats;
@@ -166,7 +168,7 @@ public class PeriodAnalysisDerivedMultiPeriodicModel implements IModel {
 			algorithm.multiPeriodicFit(harmonics, this);
 
 			String uncertaintyStr;
-			if (!algorithm.getResultSeries().get(PeriodAnalysisCoordinateType.FREQUENCY).isEmpty()) {
+			if (!algorithm.getResult().isEmpty()) {
 				uncertaintyStr = toUncertaintyString();
 			} else {
 				uncertaintyStr = "A period analysis must be carried out for uncertainty to be computed.";
@@ -195,7 +197,7 @@ public class PeriodAnalysisDerivedMultiPeriodicModel implements IModel {
 	public String toUncertaintyString() throws AlgorithmError {
 		String strRepr;
 
-		if (!algorithm.getResultSeries().get(PeriodAnalysisCoordinateType.FREQUENCY).isEmpty()) {
+		if (!algorithm.getResult().isEmpty()) {
 			double freq = topDataPoint.getFrequency();
 			double period = topDataPoint.getPeriod();
 			double semiAmplitude = topDataPoint.getSemiAmplitude();
@@ -215,9 +217,9 @@ public class PeriodAnalysisDerivedMultiPeriodicModel implements IModel {
 						// The top hit must be the same as the potentially user-edited value in order to
 						// determine FWHM error (Full Width Half Maximum) uncertainty value.
 						String candidateFreqStr = NumericPrecisionPrefs.formatOther(harmonics.get(0).getFrequency());
-						List<Double> frequencies = algorithm.getResultSeries()
-								.get(PeriodAnalysisCoordinateType.FREQUENCY);
-						String topHitFreqStr = NumericPrecisionPrefs.formatOther(frequencies.get(index));
+						double topHitFreq = algorithm.getResult().get(PeriodAnalysisCoordinateType.FREQUENCY,
+								index);
+						String topHitFreqStr = NumericPrecisionPrefs.formatOther(topHitFreq);
 
 						if (candidateFreqStr.equals(topHitFreqStr)) {
 							Pair<Double, Double> fwhm = fwhm(index);
@@ -387,14 +389,15 @@ public class PeriodAnalysisDerivedMultiPeriodicModel implements IModel {
 	// harmonic from the selected top-hit).
 	public Pair<Double, Double> fwhm(int topHitIndexInFullResult) throws AlgorithmError {
 		// Start with peak frequency
-		List<Double> frequencies = algorithm.getResultSeries().get(PeriodAnalysisCoordinateType.FREQUENCY);
+		PeriodAnalysisResult result = algorithm.getResult();
+		int freqColumn = result.getColumnIndex(PeriodAnalysisCoordinateType.FREQUENCY);
+		int powerColumn = result.getColumnIndex(PeriodAnalysisCoordinateType.POWER);
 
-		double fwhmLo = frequencies.get(topHitIndexInFullResult);
-		double fwhmHi = frequencies.get(topHitIndexInFullResult);
+		double fwhmLo = result.get(freqColumn, topHitIndexInFullResult);
+		double fwhmHi = result.get(freqColumn, topHitIndexInFullResult);
 
 		// Obtain the power at the top-hit frequency
-		List<Double> powers = algorithm.getResultSeries().get(PeriodAnalysisCoordinateType.POWER);
-		double peakPower = powers.get(topHitIndexInFullResult);
+		double peakPower = result.get(powerColumn, topHitIndexInFullResult);
 
 		// Descend the left and right branches starting from the model's fundamental
 		// peak frequency, returning the low (left branch) and high (right branch)
@@ -402,16 +405,17 @@ public class PeriodAnalysisDerivedMultiPeriodicModel implements IModel {
 		// model's fundamental frequency.
 
 		for (int i = topHitIndexInFullResult; i >= 0; i--) {
-			if (powers.get(i) >= peakPower / 2) {
-				fwhmLo = frequencies.get(i);
+			if (result.get(powerColumn, i) >= peakPower / 2) {
+				fwhmLo = result.get(freqColumn, i);
 			} else {
 				break;
 			}
 		}
 
-		for (int i = topHitIndexInFullResult; i < powers.size(); i++) {
-			if (powers.get(i) >= peakPower / 2) {
-				fwhmHi = frequencies.get(i);
+		int size = result.size();
+		for (int i = topHitIndexInFullResult; i < size; i++) {
+			if (result.get(powerColumn, i) >= peakPower / 2) {
+				fwhmHi = result.get(freqColumn, i);
 			} else {
 				break;
 			}
@@ -423,19 +427,28 @@ public class PeriodAnalysisDerivedMultiPeriodicModel implements IModel {
 	public int findIndexOfTopHitInFullResultData() throws AlgorithmError {
 		int index = -1;
 
-		if (topDataPoint != null) {
-			Map<PeriodAnalysisCoordinateType, List<Double>> resultDataMap = algorithm.getResultSeries();
-
-			for (int i = 0; i < resultDataMap.get(PeriodAnalysisCoordinateType.FREQUENCY).size(); i++) {
-				double candidateFreq = resultDataMap.get(PeriodAnalysisCoordinateType.FREQUENCY).get(i);
-				double candidatePeriod = resultDataMap.get(PeriodAnalysisCoordinateType.PERIOD).get(i);
-				double candidatePower = resultDataMap.get(PeriodAnalysisCoordinateType.POWER).get(i);
-				double candidateSemiAmplitude = resultDataMap.get(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE).get(i);
-
-				PeriodAnalysisDataPoint candidateDataPoint = new PeriodAnalysisDataPoint(candidateFreq, candidatePeriod,
-						candidatePower, candidateSemiAmplitude);
-
-				if (candidateDataPoint.hashCode() == topDataPoint.hashCode()) {
+		// The top hit is only found if its coordinates are exactly those of
+		// a full result data point, as for equality of data point objects.
+		if (topDataPoint != null
+				&& Arrays.equals(topDataPoint.getCoordTypes(), PeriodAnalysisDataPoint.DCDFT_COORD_TYPES)) {
+			PeriodAnalysisResult result = algorithm.getResult();
+
+			int freqColumn = result.getColumnIndex(PeriodAnalysisCoordinateType.FREQUENCY);
+			int periodColumn = result.getColumnIndex(PeriodAnalysisCoordinateType.PERIOD);
+			int powerColumn = result.getColumnIndex(PeriodAnalysisCoordinateType.POWER);
+			int semiAmplitudeColumn = result.getColumnIndex(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE);
+
+			long freqBits = Double.doubleToLongBits(topDataPoint.getFrequency());
+			long periodBits = Double.doubleToLongBits(topDataPoint.getPeriod());
+			long powerBits = Double.doubleToLongBits(topDataPoint.getPower());
+			long semiAmplitudeBits = Double.doubleToLongBits(topDataPoint.getSemiAmplitude());
+
+			int size = result.size();
+			for (int i = 0; i < size; i++) {
+				if (Double.doubleToLongBits(result.get(freqColumn, i)) == freqBits
+						&& Double.doubleToLongBits(result.get(periodColumn, i)) == periodBits
+						&& Double.doubleToLongBits(result.get(powerColumn, i)) == powerBits
+						&& Double.doubleToLongBits(result.get(semiAmplitudeColumn, i)) == semiAmplitudeBits) {
 					index = i;
 					break;
 				}
@@ -444,4 +457,4 @@ public class PeriodAnalysisDerivedMultiPeriodicModel implements IModel {
 
 		return index;
 	}
-}
\ No newline at end of file
+}
@@ -17,6 +17,10 @@
  */
 package org.aavso.tools.vstar.util.notification;
 
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -25,6 +29,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * Observer pattern than the one provided via the standard Java
  * Observer/Observable framework. A good candidate for T is an enum. Notice that
  * both notifier and listener must share the same type T.
+ * 
+ * By default, all messages are retained so that they can be replayed to new
+ * listeners. For high frequency messages (e.g. progress), a bounded or
+ * non-retaining replay policy can be specified instead.
  */
 public class Notifier<T> {
 
@@ -32,15 +40,73 @@ public class Notifier<T> {
 	// notifier's activities.
 	private CopyOnWriteArrayList<Listener<T>> listeners;
 
-	// The list of messages for this notifier's listeners.
-	private CopyOnWriteArrayList<T> messages;
-	
+	// The messages retained for replay to new listeners, oldest first.
+	private Deque<T> messages;
+
+	// The policy governing message retention.
+	private ReplayPolicy replayPolicy;
+
+	// The maximum number of messages retained.
+	private int replayCapacity;
+
 	/**
 	 * Constructor
 	 */
 	public Notifier() {
+		this(ReplayPolicy.ALL);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param replayPolicy
+	 *            The message replay policy; for LAST_N, use
+	 *            {@link #Notifier(ReplayPolicy, int)} instead.
+	 */
+	public Notifier(ReplayPolicy replayPolicy) {
+		this(replayPolicy, replayPolicy == ReplayPolicy.LATEST ? 1 : 0);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param replayPolicy
+	 *            The message replay policy.
+	 * @param lastN
+	 *            The number of messages to retain when the policy is LAST_N;
+	 *            ignored otherwise.
+	 */
+	public Notifier(ReplayPolicy replayPolicy, int lastN) {
 		this.listeners = new CopyOnWriteArrayList<Listener<T>>();
-		this.messages = new CopyOnWriteArrayList<T>();
+		this.messages = new LinkedList<T>();
+		this.replayPolicy = replayPolicy;
+
+		switch (replayPolicy) {
+		case ALL:
+			replayCapacity = Integer.MAX_VALUE;
+			break;
+		case LAST_N:
+			if (lastN < 0) {
+				throw new IllegalArgumentException(
+						"Number of messages to retain must not be negative");
+			}
+			replayCapacity = lastN;
+			break;
+		case LATEST:
+			replayCapacity = 1;
+			break;
+		case NONE:
+		default:
+			replayCapacity = 0;
+			break;
+		}
+	}
+
+	/**
+	 * @return the replay policy
+	 */
+	public ReplayPolicy getReplayPolicy() {
+		return replayPolicy;
 	}
 
 	/**
@@ -65,7 +131,7 @@ public class Notifier<T> {
 		listeners.addIfAbsent(listener);
 
 		if (immediateMessages) {
-			for (T message : messages) {
+			for (T message : getReplayMessages()) {
 				listener.update(message);
 			}
 		}
@@ -88,7 +154,9 @@ public class Notifier<T> {
 	 * Also, clear the message list.
 	 */
 	public void cleanup() {
-		messages.clear();
+		synchronized (messages) {
+			messages.clear();
+		}
 		
 		for (Listener<T> listener : listeners) {
 			removeListenerIfWilling(listener);
@@ -103,10 +171,41 @@ public class Notifier<T> {
 	 *            The message to pass to each listener.
 	 */
 	public void notifyListeners(T message) {
-		messages.add(message);
-		
+		retain(message);
+
 		for (Listener<T> listener : listeners) {
 			listener.update(message);
 		}
 	}
+
+	/**
+	 * Return a snapshot of the messages currently retained for replay, oldest
+	 * first.
+	 * 
+	 * @return The list of retained messages.
+	 */
+	public List<T> getReplayMessages() {
+		synchronized (messages) {
+			return new ArrayList<T>(messages);
+		}
+	}
+
+	/**
+	 * Retain a message for future replay according to the replay policy,
+	 * discarding the oldest retained message if the policy's bound has been
+	 * reached. This is O(1) per message.
+	 * 
+	 * @param message
+	 *            The message to be retained.
+	 */
+	protected void retain(T message) {
+		if (replayCapacity > 0) {
+			synchronized (messages) {
+				if (messages.size() == replayCapacity) {
+					messages.removeFirst();
+				}
+				messages.addLast(message);
+			}
+		}
+	}
 }
@@ -0,0 +1,45 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ */
+package org.aavso.tools.vstar.util.notification;
+
+/**
+ * The policy a notifier uses to retain messages for replay to listeners that
+ * are added with immediate notification.
+ */
+public enum ReplayPolicy {
+
+	/**
+	 * Retain every message (the default).
+	 */
+	ALL,
+
+	/**
+	 * Retain only the most recent N messages.
+	 */
+	LAST_N,
+
+	/**
+	 * Retain only the most recent message.
+	 */
+	LATEST,
+
+	/**
+	 * Retain no messages.
+	 */
+	NONE;
+}
@@ -0,0 +1,318 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.Arrays;
+
+import org.aavso.tools.vstar.exception.AlgorithmError;
+
+/**
+ * <p>
+ * A coarse-to-fine frequency grid strategy for periodograms.
+ * </p>
+ *
+ * <p>
+ * The frequency range is first scanned with a coarse step, by default 1/(5T)
+ * for a time span of T, which samples each periodogram peak (of width about
+ * 1/T) several times. The best local extrema of the coarse scan are then
+ * refined by repeatedly scanning a window around the best frequency found so
+ * far with a step REFINEMENT_FACTOR times smaller than the last, until the
+ * target resolution is reached. Only the windows around peaks are scanned
+ * finely, so the number of evaluations grows with the logarithm of the
+ * required precision rather than in proportion to it.
+ * </p>
+ *
+ * <p>
+ * The statistic is computed by an IFrequencyScorer, so the strategy can be
+ * used with any periodogram that implements that interface. The results of
+ * all scans are merged into a single set ordered by frequency.
+ * </p>
+ */
+public class AdaptiveFrequencyGrid {
+
+	/**
+	 * The default coarse step as a fraction of 1/T, for a time span T.
+	 */
+	public static final double COARSE_STEP_FACTOR = 0.2;
+
+	/**
+	 * The factor by which the step is reduced at each refinement level.
+	 */
+	public static final int REFINEMENT_FACTOR = 10;
+
+	/**
+	 * The default number of peaks to refine.
+	 */
+	public static final int DEFAULT_MAX_PEAKS = 10;
+
+	private double loFreq;
+	private double hiFreq;
+	private double coarseStep;
+	private double resolution;
+	private int maxPeaks;
+	private boolean largestFirst;
+
+	private double[] frequencies;
+	private double[] scores;
+	private TopHitsHeap peaks;
+	private int evaluations;
+
+	private volatile boolean interrupted;
+
+	/**
+	 * Constructor
+	 *
+	 * @param loFreq
+	 *            The low frequency of the range to be scanned.
+	 * @param hiFreq
+	 *            The high frequency of the range to be scanned.
+	 * @param coarseStep
+	 *            The step of the coarse scan; see coarseStep(double).
+	 * @param resolution
+	 *            The target resolution of refined peaks.
+	 * @param maxPeaks
+	 *            The number of coarse scan peaks to refine.
+	 * @param largestFirst
+	 *            Whether larger statistics are better (e.g. power), otherwise
+	 *            smaller (e.g. PDM theta).
+	 */
+	public AdaptiveFrequencyGrid(double loFreq, double hiFreq,
+			double coarseStep, double resolution, int maxPeaks,
+			boolean largestFirst) {
+		if (hiFreq < loFreq) {
+			throw new IllegalArgumentException(
+					"High frequency must not be less than low frequency");
+		}
+
+		if (coarseStep <= 0 || resolution <= 0) {
+			throw new IllegalArgumentException(
+					"Step and resolution must be greater than zero");
+		}
+
+		this.loFreq = loFreq;
+		this.hiFreq = hiFreq;
+		this.coarseStep = coarseStep;
+		this.resolution = resolution;
+		this.maxPeaks = Math.max(0, maxPeaks);
+		this.largestFirst = largestFirst;
+
+		frequencies = new double[0];
+		scores = new double[0];
+		peaks = new TopHitsHeap(this.maxPeaks, largestFirst);
+	}
+
+	/**
+	 * Return the default coarse step for observations over the specified time
+	 * span.
+	 *
+	 * @param timeSpan
+	 *            The time span (T) of the observations.
+	 * @return 1/(5T)
+	 */
+	public static double coarseStep(double timeSpan) {
+		return COARSE_STEP_FACTOR / timeSpan;
+	}
+
+	/**
+	 * Scan the frequency range, refining the best peaks.
+	 *
+	 * @param scorer
+	 *            The periodogram with which to compute the statistic.
+	 * @throws AlgorithmError
+	 *             if the scorer fails.
+	 * @throws InterruptedException
+	 *             if the scan is interrupted.
+	 */
+	public void execute(IFrequencyScorer scorer) throws AlgorithmError,
+			InterruptedException {
+		interrupted = false;
+		evaluations = 0;
+
+		Samples samples = new Samples();
+
+		// Coarse scan
+		int count = (int) ((hiFreq - loFreq) / coarseStep) + 1;
+		double[] coarse = new double[count];
+		scorer.score(loFreq, coarseStep, coarse);
+		samples.add(loFreq, coarseStep, coarse);
+		evaluations += count;
+
+		TopHitsHeap candidates = new TopHitsHeap(maxPeaks, largestFirst);
+		for (int i = 0; i < count; i++) {
+			if (isPeak(coarse, i)) {
+				candidates.offer(i, coarse[i], loFreq + i * coarseStep,
+						Double.NaN, Double.NaN);
+			}
+		}
+
+		peaks = new TopHitsHeap(maxPeaks, largestFirst);
+
+		// Refine the windows around each candidate peak.
+		for (int rank = 0; rank < candidates.size(); rank++) {
+			double center = candidates.getFrequency(rank);
+			double best = candidates.getScore(rank);
+			double step = coarseStep;
+
+			while (step > resolution) {
+				if (interrupted) {
+					throw new InterruptedException();
+				}
+
+				double halfWidth = step;
+				step = Math.max(step / REFINEMENT_FACTOR, resolution);
+
+				double lo = Math.max(loFreq, center - halfWidth);
+				double hi = Math.min(hiFreq, center + halfWidth);
+				int n = (int) ((hi - lo) / step) + 1;
+
+				double[] window = new double[n];
+				scorer.score(lo, step, window);
+				samples.add(lo, step, window);
+				evaluations += n;
+
+				for (int i = 0; i < n; i++) {
+					if (isBetter(window[i], best)) {
+						best = window[i];
+						center = lo + i * step;
+					}
+				}
+			}
+
+			peaks.offer(candidates.getOrdinal(rank), best, center,
+					center != 0 ? 1 / center : Double.NaN, Double.NaN);
+		}
+
+		samples.merge();
+	}
+
+	/**
+	 * Interrupt the scan; it stops before the next refinement level.
+	 */
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	/**
+	 * @return the frequencies of all scans, in increasing order and without
+	 *         duplicates
+	 */
+	public double[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return the statistic for each of the merged frequencies
+	 */
+	public double[] getScores() {
+		return scores;
+	}
+
+	/**
+	 * @return the refined peaks, best first, with frequencies and periods of
+	 *         the best statistic found in each peak's windows and coarse scan
+	 *         indices as ordinals
+	 */
+	public TopHitsHeap getPeaks() {
+		return peaks;
+	}
+
+	/**
+	 * @return the number of frequencies evaluated by the last scan
+	 */
+	public int getEvaluations() {
+		return evaluations;
+	}
+
+	// Helpers
+
+	private boolean isBetter(double a, double b) {
+		if (Double.isNaN(a)) {
+			return false;
+		}
+		if (Double.isNaN(b)) {
+			return true;
+		}
+		return largestFirst ? a > b : a < b;
+	}
+
+	// Is the i-th score a local extremum? At the ends of the range, only the
+	// single neighbour is compared.
+	private boolean isPeak(double[] values, int i) {
+		if (Double.isNaN(values[i])) {
+			return false;
+		}
+
+		boolean left = i == 0 || !isBetter(values[i - 1], values[i]);
+		boolean right = i == values.length - 1
+				|| isBetter(values[i], values[i + 1])
+				|| Double.isNaN(values[i + 1]);
+
+		return left && right;
+	}
+
+	// Accumulates the samples of each scan, then sorts them by frequency.
+	private class Samples {
+		private double[] freqs = new double[64];
+		private double[] values = new double[64];
+		private int size;
+
+		void add(double lo, double step, double[] scanned) {
+			ensureCapacity(size + scanned.length);
+			for (int i = 0; i < scanned.length; i++) {
+				freqs[size] = lo + i * step;
+				values[size] = scanned[i];
+				size++;
+			}
+		}
+
+		void merge() {
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+
+			// Stable, so of samples with equal frequencies, the first
+			// (coarsest) is kept.
+			Arrays.sort(order, (a, b) -> Double.compare(freqs[a], freqs[b]));
+
+			double[] mergedFreqs = new double[size];
+			double[] mergedValues = new double[size];
+			int n = 0;
+
+			for (int i = 0; i < size; i++) {
+				double f = freqs[order[i]];
+				if (n == 0 || f != mergedFreqs[n - 1]) {
+					mergedFreqs[n] = f;
+					mergedValues[n] = values[order[i]];
+					n++;
+				}
+			}
+
+			frequencies = Arrays.copyOf(mergedFreqs, n);
+			scores = Arrays.copyOf(mergedValues, n);
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > freqs.length) {
+				int newLength = Math.max(capacity, freqs.length * 2);
+				freqs = Arrays.copyOf(freqs, newLength);
+				values = Arrays.copyOf(values, newLength);
+			}
+		}
+	}
+}
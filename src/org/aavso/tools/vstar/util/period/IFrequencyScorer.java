@@ -0,0 +1,48 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import org.aavso.tools.vstar.exception.AlgorithmError;
+
+/**
+ * A periodogram that can compute its statistic (e.g. power, F-statistic) for
+ * an arbitrary run of evenly spaced frequencies, so that a grid strategy such
+ * as AdaptiveFrequencyGrid can choose which frequencies to evaluate.
+ */
+public interface IFrequencyScorer {
+
+	/**
+	 * Compute the statistic for each of a run of evenly spaced frequencies.
+	 *
+	 * @param loFreq
+	 *            The first frequency.
+	 * @param step
+	 *            The frequency step.
+	 * @param scores
+	 *            The array into which to write the statistic for frequency
+	 *            loFreq + i * step at index i; its length determines the
+	 *            number of frequencies. A statistic may be NaN where it is
+	 *            undefined.
+	 * @throws AlgorithmError
+	 *             if an error occurs while computing the statistic.
+	 * @throws InterruptedException
+	 *             if the computation is interrupted.
+	 */
+	public void score(double loFreq, double step, double[] scores)
+			throws AlgorithmError, InterruptedException;
+}
@@ -37,6 +37,17 @@ public interface IPeriodAnalysisAlgorithm extends IAlgorithm {
 	 */
 	abstract public Map<PeriodAnalysisCoordinateType, List<Double>> getResultSeries();
 
+	/**
+	 * Return the result of the period analysis in columnar form.
+	 * 
+	 * Algorithms that accumulate many results should override this to return
+	 * a result backed by primitive columns, returning its asMap() view from
+	 * getResultSeries(). By default, the result series map is adapted.
+	 */
+	default public PeriodAnalysisResult getResult() {
+		return PeriodAnalysisResult.fromMap(getResultSeries());
+	}
+
 	/**
 	 * Return the "top hits" of the period analysis.
 	 * 
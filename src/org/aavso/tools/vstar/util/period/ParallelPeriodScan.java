@@ -0,0 +1,268 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+
+/**
+ * <p>
+ * Thread count and fork-join scaffolding for period search algorithms whose
+ * trial periods or frequencies can be evaluated independently of each other.
+ * </p>
+ *
+ * <p>
+ * A scan over a range of trial indices runs on the calling thread if a single
+ * thread is configured or the workload is too small to warrant more.
+ * Otherwise the range is split in half repeatedly across a fork-join pool
+ * until the pieces are small enough to evaluate directly, and the results of
+ * the pieces are merged. Evaluators should produce results that do not
+ * depend upon how the range is partitioned, so that results do not depend
+ * upon the number of threads used.
+ * </p>
+ */
+public class ParallelPeriodScan {
+
+	/**
+	 * The number of processors available to the VM.
+	 */
+	public static final int MAX_AVAILABLE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * The workload, i.e. the number of trial periods or frequencies multiplied
+	 * by the number of observations, below which a scan is single-threaded.
+	 */
+	public static final long MIN_PARALLEL_WORK = 200000L;
+
+	private static final int TASKS_PER_THREAD = 4;
+
+	private int threadCount;
+
+	/**
+	 * Evaluates a range of trial indices.
+	 *
+	 * @param <R> The type of the result for a range.
+	 */
+	public interface RangeEvaluator<R> {
+		/**
+		 * @param from The first index (inclusive).
+		 * @param to   The last index (exclusive).
+		 * @return The result for the range.
+		 */
+		R evaluate(int from, int to);
+	}
+
+	/**
+	 * Evaluates a range of trial indices, recording results by index.
+	 */
+	public interface RangeAction {
+		/**
+		 * @param from The first index (inclusive).
+		 * @param to   The last index (exclusive).
+		 */
+		void evaluate(int from, int to);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * The thread count defaults to the number of available processors.
+	 */
+	public ParallelPeriodScan() {
+		threadCount = MAX_AVAILABLE_THREADS;
+	}
+
+	/**
+	 * Number of threads (cores) to use for a scan.
+	 * <p>
+	 * Values are clamped to [1, maxAvailableThreads]. A workload heuristic may
+	 * still run single-threaded for small jobs.
+	 * </p>
+	 *
+	 * @param threadCount desired number of threads/cores
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			this.threadCount = 1;
+		} else if (threadCount > MAX_AVAILABLE_THREADS) {
+			this.threadCount = MAX_AVAILABLE_THREADS;
+		} else {
+			this.threadCount = threadCount;
+		}
+	}
+
+	/**
+	 * @return configured number of threads (cores) for a scan.
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * Recommended thread count for UI defaults. This reflects machine capacity;
+	 * a scan applies a workload heuristic and may still choose fewer threads.
+	 */
+	public static int getRecommendedThreadCount() {
+		return MAX_AVAILABLE_THREADS;
+	}
+
+	/**
+	 * Return the number of threads warranted by a scan.
+	 *
+	 * @param count        The number of trial periods or frequencies.
+	 * @param observations The number of observations evaluated per trial.
+	 * @return The configured thread count, or 1 if the workload is too small.
+	 */
+	public int getEffectiveThreadCount(int count, int observations) {
+		if (threadCount <= 1) {
+			return 1;
+		}
+		long work = (long) count * (long) observations;
+		if (work < MIN_PARALLEL_WORK || count < threadCount) {
+			return 1;
+		}
+		return threadCount;
+	}
+
+	/**
+	 * Evaluate the trial indices [0, count) over as many threads as the
+	 * workload warrants, merging the results of each range evaluated.
+	 *
+	 * @param count        The number of trial periods or frequencies.
+	 * @param observations The number of observations evaluated per trial.
+	 * @param evaluator    Evaluates a range of trials.
+	 * @param merger       Merges the results of two adjacent ranges.
+	 * @return The result for all trials.
+	 */
+	public <R> R scan(int count, int observations, RangeEvaluator<R> evaluator, BinaryOperator<R> merger) {
+		int threads = getEffectiveThreadCount(count, observations);
+
+		if (threads <= 1) {
+			return evaluator.evaluate(0, count);
+		}
+
+		int grain = Math.max(1, count / (threads * TASKS_PER_THREAD));
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.invoke(new RangeTask<R>(0, count, grain, evaluator, merger));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Evaluate the trial indices [0, count) over as many threads as the
+	 * workload warrants.
+	 *
+	 * @param count        The number of trial periods or frequencies.
+	 * @param observations The number of observations evaluated per trial.
+	 * @param action       Evaluates a range of trials.
+	 */
+	public void scan(int count, int observations, RangeAction action) {
+		scan(count, observations, (from, to) -> {
+			action.evaluate(from, to);
+			return null;
+		}, (left, right) -> null);
+	}
+
+	/**
+	 * Create trial periods from a period range.
+	 *
+	 * @param minPeriod  The minimum period.
+	 * @param maxPeriod  The maximum period.
+	 * @param resolution The period step.
+	 * @return The trial periods.
+	 */
+	public static double[] createPeriods(double minPeriod, double maxPeriod, double resolution) {
+		// The same accumulation as a sequential period loop, so the trial
+		// periods are identical irrespective of how the range is partitioned.
+		int count = 0;
+		for (double period = minPeriod; period <= maxPeriod; period += resolution) {
+			count++;
+		}
+
+		double[] periods = new double[count];
+		int i = 0;
+		for (double period = minPeriod; period <= maxPeriod; period += resolution) {
+			periods[i++] = period;
+		}
+
+		return periods;
+	}
+
+	/**
+	 * @param obs The observations.
+	 * @return the times (JD) of the observations
+	 */
+	public static double[] times(List<ValidObservation> obs) {
+		double[] times = new double[obs.size()];
+		for (int i = 0; i < times.length; i++) {
+			times[i] = obs.get(i).getJD();
+		}
+		return times;
+	}
+
+	/**
+	 * @param obs The observations.
+	 * @return the magnitudes of the observations
+	 */
+	public static double[] mags(List<ValidObservation> obs) {
+		double[] mags = new double[obs.size()];
+		for (int i = 0; i < mags.length; i++) {
+			mags[i] = obs.get(i).getMag();
+		}
+		return mags;
+	}
+
+	// Evaluates a range of trials, splitting it in half until it is small
+	// enough to evaluate directly, then merging the results of each half.
+	@SuppressWarnings("serial")
+	private static class RangeTask<R> extends RecursiveTask<R> {
+		private final int from;
+		private final int to;
+		private final int grain;
+		private final RangeEvaluator<R> evaluator;
+		private final BinaryOperator<R> merger;
+
+		RangeTask(int from, int to, int grain, RangeEvaluator<R> evaluator, BinaryOperator<R> merger) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.evaluator = evaluator;
+			this.merger = merger;
+		}
+
+		@Override
+		protected R compute() {
+			if (to - from <= grain) {
+				return evaluator.evaluate(from, to);
+			}
+
+			int mid = (from + to) >>> 1;
+			RangeTask<R> left = new RangeTask<R>(from, mid, grain, evaluator, merger);
+			RangeTask<R> right = new RangeTask<R>(mid, to, grain, evaluator, merger);
+			left.fork();
+			R rightResult = right.compute();
+			return merger.apply(left.join(), rightResult);
+		}
+	}
+}
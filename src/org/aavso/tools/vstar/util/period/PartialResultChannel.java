@@ -0,0 +1,195 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * A bounded channel through which a running period search publishes blocks
+ * of partial results, so that a consumer (e.g. a plot on the event
+ * dispatching thread) can show the periodogram as it grows.
+ * </p>
+ *
+ * <p>
+ * Publishing never blocks the search. When the channel already holds its
+ * capacity of blocks, adjacent pending blocks are coalesced in pairs before a
+ * newly published block is added, so no results are lost while the number of
+ * pending blocks stays bounded, and each point is copied only a logarithmic
+ * number of times however slowly the consumer drains the channel. Publishers
+ * and the consumer may be on different threads.
+ * </p>
+ *
+ * <p>
+ * Partial results are only a preview: the search's final results are
+ * unaffected by whether a channel is used or by how it is consumed.
+ * </p>
+ */
+public class PartialResultChannel {
+
+	/**
+	 * The default maximum number of pending blocks.
+	 */
+	public static final int DEFAULT_CAPACITY = 32;
+
+	/**
+	 * The suggested number of points per published block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 500;
+
+	private int capacity;
+
+	private ArrayDeque<PeriodogramBlock> blocks;
+	private long publishedCount;
+
+	/**
+	 * Constructor
+	 */
+	public PartialResultChannel() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity
+	 *            The maximum number of pending blocks; must be at least one.
+	 */
+	public PartialResultChannel(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"Capacity must be at least one");
+		}
+
+		this.capacity = capacity;
+
+		blocks = new ArrayDeque<PeriodogramBlock>(capacity);
+		publishedCount = 0;
+	}
+
+	/**
+	 * @return the maximum number of pending blocks
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Publish a block of results. Empty blocks are ignored.
+	 *
+	 * @param block
+	 *            The block.
+	 */
+	public synchronized void publish(PeriodogramBlock block) {
+		if (block.size() == 0) {
+			return;
+		}
+
+		if (blocks.size() >= capacity) {
+			coalesce();
+		}
+
+		if (blocks.size() < capacity) {
+			blocks.addLast(block);
+		} else {
+			// Only possible for a capacity of one.
+			blocks.addLast(blocks.removeLast().append(block));
+		}
+
+		publishedCount += block.size();
+	}
+
+	/**
+	 * Publish the index range [from, to) of the specified arrays as a block.
+	 *
+	 * @param frequencies
+	 *            The frequencies.
+	 * @param periods
+	 *            The corresponding periods.
+	 * @param values
+	 *            The corresponding values of the statistic.
+	 * @param from
+	 *            The first index, inclusive.
+	 * @param to
+	 *            The last index, exclusive.
+	 */
+	public void publish(double[] frequencies, double[] periods,
+			double[] values, int from, int to) {
+		if (to > from) {
+			publish(PeriodogramBlock.copyOf(frequencies, periods, values, from,
+					to));
+		}
+	}
+
+	/**
+	 * Remove and return all pending blocks, oldest first.
+	 *
+	 * @return The pending blocks, possibly none.
+	 */
+	public synchronized List<PeriodogramBlock> drain() {
+		List<PeriodogramBlock> drained = new ArrayList<PeriodogramBlock>(
+				blocks);
+		blocks.clear();
+		return drained;
+	}
+
+	/**
+	 * @return the number of pending blocks
+	 */
+	public synchronized int size() {
+		return blocks.size();
+	}
+
+	/**
+	 * @return the total number of points published since construction or the
+	 *         last call to clear()
+	 */
+	public synchronized long getPublishedCount() {
+		return publishedCount;
+	}
+
+	/**
+	 * Discard all pending blocks and reset the published point count, e.g.
+	 * before a new search.
+	 */
+	public synchronized void clear() {
+		blocks.clear();
+		publishedCount = 0;
+	}
+
+	// Helpers
+
+	// Halve the number of pending blocks by appending each block at an odd
+	// position to the one before it, preserving publication order.
+	private void coalesce() {
+		ArrayDeque<PeriodogramBlock> coalesced = new ArrayDeque<PeriodogramBlock>(
+				capacity);
+
+		while (!blocks.isEmpty()) {
+			PeriodogramBlock first = blocks.removeFirst();
+			if (!blocks.isEmpty()) {
+				first = first.append(blocks.removeFirst());
+			}
+			coalesced.addLast(first);
+		}
+
+		blocks = coalesced;
+	}
+}
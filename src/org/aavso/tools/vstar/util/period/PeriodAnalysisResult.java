@@ -0,0 +1,427 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * <p>
+ * A period analysis result: a table with one column of values per period
+ * analysis coordinate type (e.g. frequency, period, power, semi-amplitude)
+ * and one row per trial frequency or period.
+ * </p>
+ *
+ * <p>
+ * Columns are growable primitive arrays, so a result with millions of rows
+ * does not require millions of boxed values. For code that expects a period
+ * analysis result to be a mapping from coordinate type to list of values (see
+ * IPeriodAnalysisAlgorithm.getResultSeries()), asMap() returns a read-only
+ * view of the columns as lists, and fromMap() adapts such a mapping to a
+ * result.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public class PeriodAnalysisResult {
+
+	private static final int INITIAL_SIZE = 64;
+
+	private final PeriodAnalysisCoordinateType[] coordTypes;
+
+	// Either columns are primitive arrays or this result adapts lists of
+	// values obtained from a map.
+	private double[][] columns;
+	private final List<List<Double>> lists;
+
+	private int size;
+
+	private Map<PeriodAnalysisCoordinateType, List<Double>> mapView;
+
+	/**
+	 * Constructor
+	 *
+	 * @param coordTypes
+	 *            The coordinate types of the columns, in column order.
+	 */
+	public PeriodAnalysisResult(PeriodAnalysisCoordinateType... coordTypes) {
+		this.coordTypes = coordTypes.clone();
+		this.columns = new double[coordTypes.length][INITIAL_SIZE];
+		this.lists = null;
+		this.size = 0;
+	}
+
+	// Adapts a mapping from coordinate type to list of values.
+	private PeriodAnalysisResult(Map<PeriodAnalysisCoordinateType, List<Double>> map) {
+		this.coordTypes = map.keySet().toArray(new PeriodAnalysisCoordinateType[0]);
+		this.columns = null;
+		this.lists = new ArrayList<List<Double>>(coordTypes.length);
+		for (int i = 0; i < coordTypes.length; i++) {
+			lists.add(map.get(coordTypes[i]));
+		}
+		this.mapView = map;
+	}
+
+	/**
+	 * Return the result corresponding to a mapping from coordinate type to
+	 * list of values. If the mapping is a view returned by asMap(), the result
+	 * it is a view of is returned, otherwise the result is an adapter that
+	 * reads through to (and adds to) the mapping's lists.
+	 *
+	 * @param map
+	 *            The mapping from coordinate type to list of values.
+	 * @return The corresponding result.
+	 */
+	public static PeriodAnalysisResult fromMap(Map<PeriodAnalysisCoordinateType, List<Double>> map) {
+		PeriodAnalysisResult result;
+
+		if (map instanceof MapView) {
+			result = ((MapView) map).getResult();
+		} else {
+			result = new PeriodAnalysisResult(map);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return the coordinate types of the columns, in column order
+	 */
+	public PeriodAnalysisCoordinateType[] getCoordTypes() {
+		return coordTypes.clone();
+	}
+
+	/**
+	 * @param type
+	 *            A coordinate type.
+	 * @return the index of the column of the specified type, or -1 if there is
+	 *         no such column
+	 */
+	public int getColumnIndex(PeriodAnalysisCoordinateType type) {
+		for (int i = 0; i < coordTypes.length; i++) {
+			if (coordTypes[i] == type) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @param type
+	 *            A coordinate type.
+	 * @return whether there is a column of the specified type
+	 */
+	public boolean hasColumn(PeriodAnalysisCoordinateType type) {
+		return getColumnIndex(type) != -1;
+	}
+
+	/**
+	 * @return the number of rows
+	 */
+	public int size() {
+		if (lists == null) {
+			return size;
+		} else {
+			return lists.isEmpty() ? 0 : lists.get(0).size();
+		}
+	}
+
+	/**
+	 * @return whether there are no rows
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Add a row.
+	 *
+	 * @param values
+	 *            The row's values, in column order.
+	 */
+	public void add(double... values) {
+		if (values.length != coordTypes.length) {
+			throw new IllegalArgumentException("Expected " + coordTypes.length + " values but got " + values.length);
+		}
+
+		if (lists == null) {
+			ensureCapacity(size + 1);
+			for (int i = 0; i < values.length; i++) {
+				columns[i][size] = values[i];
+			}
+			size++;
+		} else {
+			for (int i = 0; i < values.length; i++) {
+				lists.get(i).add(values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Insert rows into a result whose rows are in ascending order of the
+	 * values of the specified type, keeping them in that order. Inserted rows
+	 * follow existing rows with equal values. Only the existing rows that
+	 * follow the first inserted row are moved.
+	 *
+	 * @param type
+	 *            The coordinate type by which rows are ordered.
+	 * @param values
+	 *            The columns of the rows to be inserted, in column order,
+	 *            with rows in ascending order of the values of the specified
+	 *            type.
+	 */
+	public void insertSorted(PeriodAnalysisCoordinateType type, double[]... values) {
+		if (values.length != coordTypes.length) {
+			throw new IllegalArgumentException("Expected " + coordTypes.length + " columns but got " + values.length);
+		}
+
+		int key = checkedColumnIndex(type);
+		double[] keys = values[key];
+		int added = keys.length;
+
+		if (added == 0) {
+			return;
+		}
+
+		if (lists == null) {
+			int first = upperBound(key, keys[0]);
+
+			ensureCapacity(size + added);
+
+			// Merge from the end, so each moved row is moved once.
+			int i = size - 1;
+			int j = added - 1;
+			for (int k = size + added - 1; j >= 0; k--) {
+				if (i >= first && Double.compare(columns[key][i], keys[j]) > 0) {
+					for (int c = 0; c < columns.length; c++) {
+						columns[c][k] = columns[c][i];
+					}
+					i--;
+				} else {
+					for (int c = 0; c < columns.length; c++) {
+						columns[c][k] = values[c][j];
+					}
+					j--;
+				}
+			}
+
+			size += added;
+		} else {
+			for (int j = 0; j < added; j++) {
+				int row = upperBound(key, keys[j]);
+				for (int c = 0; c < lists.size(); c++) {
+					lists.get(c).add(row, values[c][j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove all rows.
+	 */
+	public void clear() {
+		if (lists == null) {
+			size = 0;
+		} else {
+			for (List<Double> list : lists) {
+				list.clear();
+			}
+		}
+	}
+
+	/**
+	 * @param column
+	 *            A column index.
+	 * @param row
+	 *            A row index.
+	 * @return the value in the specified column and row
+	 */
+	public double get(int column, int row) {
+		if (lists == null) {
+			if (row >= size) {
+				throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+			}
+			return columns[column][row];
+		} else {
+			return lists.get(column).get(row);
+		}
+	}
+
+	/**
+	 * @param type
+	 *            A coordinate type.
+	 * @param row
+	 *            A row index.
+	 * @return the value of the specified type in the specified row
+	 */
+	public double get(PeriodAnalysisCoordinateType type, int row) {
+		return get(checkedColumnIndex(type), row);
+	}
+
+	/**
+	 * @param type
+	 *            A coordinate type.
+	 * @return a copy of the values of the specified type
+	 */
+	public double[] getValues(PeriodAnalysisCoordinateType type) {
+		int column = checkedColumnIndex(type);
+		double[] values;
+
+		if (lists == null) {
+			values = Arrays.copyOf(columns[column], size);
+		} else {
+			List<Double> list = lists.get(column);
+			values = new double[list.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = list.get(i);
+			}
+		}
+
+		return values;
+	}
+
+	/**
+	 * Return a read-only list view of the values of the specified type. The
+	 * view reflects rows added subsequently.
+	 *
+	 * @param type
+	 *            A coordinate type.
+	 * @return the list view, or null if there is no column of the specified
+	 *         type
+	 */
+	public List<Double> getList(PeriodAnalysisCoordinateType type) {
+		return asMap().get(type);
+	}
+
+	/**
+	 * Return a read-only view of this result as a mapping from coordinate type
+	 * to list of values, in column order. The view reflects rows added
+	 * subsequently. If this result was obtained by fromMap() from a mapping
+	 * other than a view, that mapping is returned.
+	 *
+	 * @return the mapping
+	 */
+	public Map<PeriodAnalysisCoordinateType, List<Double>> asMap() {
+		if (mapView == null) {
+			mapView = new MapView();
+		}
+
+		return mapView;
+	}
+
+	// Helpers
+
+	private int checkedColumnIndex(PeriodAnalysisCoordinateType type) {
+		int column = getColumnIndex(type);
+		if (column == -1) {
+			throw new IllegalArgumentException("No column of type " + type);
+		}
+		return column;
+	}
+
+	// Return the index of the first row whose value in the specified column
+	// is greater than the specified value, or the number of rows if there is
+	// none, assuming rows are in ascending order of values in that column.
+	private int upperBound(int column, double value) {
+		int lo = 0;
+		int hi = size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (Double.compare(get(column, mid), value) <= 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private void ensureCapacity(int required) {
+		if (required > columns[0].length) {
+			int newSize = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, 2L * columns[0].length));
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = Arrays.copyOf(columns[i], newSize);
+			}
+		}
+	}
+
+	// A read-only list view of a column.
+	private class ColumnList extends AbstractList<Double> implements RandomAccess {
+		private final int column;
+
+		ColumnList(int column) {
+			this.column = column;
+		}
+
+		@Override
+		public Double get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+			}
+			return columns[column][index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	// A read-only map view of the columns.
+	private class MapView extends AbstractMap<PeriodAnalysisCoordinateType, List<Double>> {
+		private final Map<PeriodAnalysisCoordinateType, List<Double>> map;
+
+		MapView() {
+			Map<PeriodAnalysisCoordinateType, List<Double>> columnLists = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
+			for (int i = 0; i < coordTypes.length; i++) {
+				columnLists.put(coordTypes[i], new ColumnList(i));
+			}
+			map = Collections.unmodifiableMap(columnLists);
+		}
+
+		PeriodAnalysisResult getResult() {
+			return PeriodAnalysisResult.this;
+		}
+
+		@Override
+		public List<Double> get(Object key) {
+			return map.get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return map.containsKey(key);
+		}
+
+		@Override
+		public Set<Map.Entry<PeriodAnalysisCoordinateType, List<Double>>> entrySet() {
+			return map.entrySet();
+		}
+	}
+}
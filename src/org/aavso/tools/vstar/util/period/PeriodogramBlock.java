@@ -0,0 +1,136 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+/**
+ * A block of periodogram results published while a period search is still
+ * running: the frequencies, periods and statistic (e.g. power) of some of the
+ * trial frequencies. The points of a block are not necessarily contiguous or
+ * in order, since a block may be the coalescence of several ranges.
+ */
+public class PeriodogramBlock {
+
+	private double[] frequencies;
+	private double[] periods;
+	private double[] values;
+
+	/**
+	 * Constructor
+	 *
+	 * The block takes ownership of the arrays, which must be of equal length.
+	 *
+	 * @param frequencies
+	 *            The frequencies.
+	 * @param periods
+	 *            The corresponding periods.
+	 * @param values
+	 *            The corresponding values of the statistic.
+	 */
+	public PeriodogramBlock(double[] frequencies, double[] periods,
+			double[] values) {
+		if (frequencies.length != periods.length
+				|| frequencies.length != values.length) {
+			throw new IllegalArgumentException(
+					"Frequency, period and value arrays differ in length");
+		}
+
+		this.frequencies = frequencies;
+		this.periods = periods;
+		this.values = values;
+	}
+
+	/**
+	 * Create a block from the index range [from, to) of the specified arrays.
+	 *
+	 * @param frequencies
+	 *            The frequencies.
+	 * @param periods
+	 *            The corresponding periods.
+	 * @param values
+	 *            The corresponding values of the statistic.
+	 * @param from
+	 *            The first index, inclusive.
+	 * @param to
+	 *            The last index, exclusive.
+	 * @return A block holding copies of the values in the range.
+	 */
+	public static PeriodogramBlock copyOf(double[] frequencies,
+			double[] periods, double[] values, int from, int to) {
+		int n = to - from;
+
+		double[] f = new double[n];
+		double[] p = new double[n];
+		double[] v = new double[n];
+
+		System.arraycopy(frequencies, from, f, 0, n);
+		System.arraycopy(periods, from, p, 0, n);
+		System.arraycopy(values, from, v, 0, n);
+
+		return new PeriodogramBlock(f, p, v);
+	}
+
+	/**
+	 * Return a block containing the points of this block followed by those of
+	 * another.
+	 *
+	 * @param other
+	 *            The other block.
+	 * @return The combined block.
+	 */
+	public PeriodogramBlock append(PeriodogramBlock other) {
+		return new PeriodogramBlock(concat(frequencies, other.frequencies),
+				concat(periods, other.periods), concat(values, other.values));
+	}
+
+	/**
+	 * @return the number of points in the block
+	 */
+	public int size() {
+		return frequencies.length;
+	}
+
+	/**
+	 * @return the frequencies
+	 */
+	public double[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return the periods
+	 */
+	public double[] getPeriods() {
+		return periods;
+	}
+
+	/**
+	 * @return the values of the statistic
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	// Helpers
+
+	private static double[] concat(double[] a, double[] b) {
+		double[] c = new double[a.length + b.length];
+		System.arraycopy(a, 0, c, 0, a.length);
+		System.arraycopy(b, 0, c, a.length, b.length);
+		return c;
+	}
+}
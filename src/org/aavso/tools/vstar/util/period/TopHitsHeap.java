@@ -0,0 +1,400 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded collector of period analysis "top hits" that retains the best K
+ * results offered to it, where each result consists of a score (e.g. power,
+ * F-statistic, scatter), a frequency, a period and one further metric (e.g.
+ * semi-amplitude, p-value).
+ * </p>
+ *
+ * <p>
+ * Results are held in parallel primitive arrays organised as a binary heap
+ * whose root is the worst retained result, so offering a result costs O(log
+ * K) and memory is bounded by K irrespective of the number of results
+ * offered.
+ * </p>
+ *
+ * <p>
+ * Ranking is by score, then by ordinal: of two results with equal scores, the
+ * one with the lower ordinal (by default, the one offered first) ranks higher.
+ * NaN scores are never retained. This class is not thread-safe; threads
+ * should collect into their own instances and merge them.
+ * </p>
+ */
+public class TopHitsHeap {
+
+	private static final int INITIAL_SIZE = 16;
+
+	private final int capacity;
+	private final boolean largestFirst;
+
+	private double[] scores;
+	private double[] frequencies;
+	private double[] periods;
+	private double[] metrics;
+	private long[] ordinals;
+
+	private int size;
+	private long nextOrdinal;
+
+	// Heap slots in rank order; null when invalidated by a change.
+	private int[] ranked;
+
+	/**
+	 * Create a collector that retains the results with the largest scores,
+	 * e.g. power or F-statistic.
+	 *
+	 * @param capacity
+	 *            The maximum number of results to retain.
+	 * @return The collector.
+	 */
+	public static TopHitsHeap largest(int capacity) {
+		return new TopHitsHeap(capacity, true);
+	}
+
+	/**
+	 * Create a collector that retains the results with the smallest scores,
+	 * e.g. scatter or dispersion.
+	 *
+	 * @param capacity
+	 *            The maximum number of results to retain.
+	 * @return The collector.
+	 */
+	public static TopHitsHeap smallest(int capacity) {
+		return new TopHitsHeap(capacity, false);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity
+	 *            The maximum number of results to retain.
+	 * @param largestFirst
+	 *            Whether larger scores rank higher than smaller scores.
+	 */
+	public TopHitsHeap(int capacity, boolean largestFirst) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+
+		this.capacity = capacity;
+		this.largestFirst = largestFirst;
+
+		int initialSize = Math.min(capacity, INITIAL_SIZE);
+		scores = new double[initialSize];
+		frequencies = new double[initialSize];
+		periods = new double[initialSize];
+		metrics = new double[initialSize];
+		ordinals = new long[initialSize];
+
+		clear();
+	}
+
+	/**
+	 * Offer a result, with an ordinal one greater than that of the previously
+	 * offered result.
+	 *
+	 * @param score
+	 *            The score by which results are ranked.
+	 * @param frequency
+	 *            The frequency.
+	 * @param period
+	 *            The period.
+	 * @param metric
+	 *            A further metric to be retained with the result.
+	 * @return Whether the result was retained.
+	 */
+	public boolean offer(double score, double frequency, double period, double metric) {
+		return offer(nextOrdinal, score, frequency, period, metric);
+	}
+
+	/**
+	 * Offer a result with the specified ordinal, e.g. an index into a full
+	 * result series. Results collected by different threads over parts of a
+	 * series can be merged deterministically if ordinals are series indices.
+	 *
+	 * @param ordinal
+	 *            The ordinal used to rank results with equal scores.
+	 * @param score
+	 *            The score by which results are ranked.
+	 * @param frequency
+	 *            The frequency.
+	 * @param period
+	 *            The period.
+	 * @param metric
+	 *            A further metric to be retained with the result.
+	 * @return Whether the result was retained.
+	 */
+	public boolean offer(long ordinal, double score, double frequency, double period, double metric) {
+		nextOrdinal = Math.max(nextOrdinal, ordinal + 1);
+
+		if (Double.isNaN(score) || capacity == 0) {
+			return false;
+		}
+
+		int slot;
+
+		if (size < capacity) {
+			ensureSize(size + 1);
+			slot = size++;
+			set(slot, ordinal, score, frequency, period, metric);
+			siftUp(slot);
+		} else if (ranksAbove(score, ordinal, scores[0], ordinals[0])) {
+			set(0, ordinal, score, frequency, period, metric);
+			siftDown(0);
+		} else {
+			return false;
+		}
+
+		ranked = null;
+
+		return true;
+	}
+
+	/**
+	 * Offer all results retained by another collector to this one.
+	 *
+	 * @param other
+	 *            The other collector.
+	 */
+	public void merge(TopHitsHeap other) {
+		for (int i = 0; i < other.size; i++) {
+			offer(other.ordinals[i], other.scores[i], other.frequencies[i], other.periods[i], other.metrics[i]);
+		}
+	}
+
+	/**
+	 * Discard all retained results.
+	 */
+	public void clear() {
+		size = 0;
+		nextOrdinal = 0;
+		ranked = null;
+	}
+
+	/**
+	 * @return the number of retained results
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return whether no results are retained
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the maximum number of results to retain
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @param rank
+	 *            The rank of a retained result, where 0 is the best.
+	 * @return the score of the result
+	 */
+	public double getScore(int rank) {
+		return scores[slot(rank)];
+	}
+
+	/**
+	 * @param rank
+	 *            The rank of a retained result, where 0 is the best.
+	 * @return the frequency of the result
+	 */
+	public double getFrequency(int rank) {
+		return frequencies[slot(rank)];
+	}
+
+	/**
+	 * @param rank
+	 *            The rank of a retained result, where 0 is the best.
+	 * @return the period of the result
+	 */
+	public double getPeriod(int rank) {
+		return periods[slot(rank)];
+	}
+
+	/**
+	 * @param rank
+	 *            The rank of a retained result, where 0 is the best.
+	 * @return the further metric of the result
+	 */
+	public double getMetric(int rank) {
+		return metrics[slot(rank)];
+	}
+
+	/**
+	 * @param rank
+	 *            The rank of a retained result, where 0 is the best.
+	 * @return the ordinal of the result
+	 */
+	public long getOrdinal(int rank) {
+		return ordinals[slot(rank)];
+	}
+
+	/**
+	 * Return the retained results in rank order as a map from coordinate type
+	 * to values, in the form used by IPeriodAnalysisAlgorithm.getTopHits().
+	 *
+	 * @param scoreType
+	 *            The coordinate type of the score.
+	 * @param metricType
+	 *            The coordinate type of the further metric.
+	 * @return A map of frequency, period, score and metric lists.
+	 */
+	public Map<PeriodAnalysisCoordinateType, List<Double>> toMap(PeriodAnalysisCoordinateType scoreType,
+			PeriodAnalysisCoordinateType metricType) {
+
+		List<Double> frequencyList = new ArrayList<Double>(size);
+		List<Double> periodList = new ArrayList<Double>(size);
+		List<Double> scoreList = new ArrayList<Double>(size);
+		List<Double> metricList = new ArrayList<Double>(size);
+
+		for (int rank = 0; rank < size; rank++) {
+			int slot = slot(rank);
+			frequencyList.add(frequencies[slot]);
+			periodList.add(periods[slot]);
+			scoreList.add(scores[slot]);
+			metricList.add(metrics[slot]);
+		}
+
+		Map<PeriodAnalysisCoordinateType, List<Double>> topHits = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
+
+		topHits.put(PeriodAnalysisCoordinateType.FREQUENCY, frequencyList);
+		topHits.put(PeriodAnalysisCoordinateType.PERIOD, periodList);
+		topHits.put(scoreType, scoreList);
+		topHits.put(metricType, metricList);
+
+		return topHits;
+	}
+
+	// Helpers
+
+	// Does result a rank above result b?
+	private boolean ranksAbove(double scoreA, long ordinalA, double scoreB, long ordinalB) {
+		if (scoreA != scoreB) {
+			return largestFirst ? scoreA > scoreB : scoreA < scoreB;
+		} else {
+			return ordinalA < ordinalB;
+		}
+	}
+
+	private boolean slotRanksAbove(int a, int b) {
+		return ranksAbove(scores[a], ordinals[a], scores[b], ordinals[b]);
+	}
+
+	private int slot(int rank) {
+		if (rank < 0 || rank >= size) {
+			throw new IndexOutOfBoundsException("Rank: " + rank + ", size: " + size);
+		}
+
+		if (ranked == null) {
+			Integer[] slots = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				slots[i] = i;
+			}
+
+			Arrays.sort(slots, (a, b) -> slotRanksAbove(a, b) ? -1 : (slotRanksAbove(b, a) ? 1 : 0));
+
+			ranked = new int[size];
+			for (int i = 0; i < size; i++) {
+				ranked[i] = slots[i];
+			}
+		}
+
+		return ranked[rank];
+	}
+
+	private void set(int slot, long ordinal, double score, double frequency, double period, double metric) {
+		ordinals[slot] = ordinal;
+		scores[slot] = score;
+		frequencies[slot] = frequency;
+		periods[slot] = period;
+		metrics[slot] = metric;
+	}
+
+	private void swap(int a, int b) {
+		long ordinal = ordinals[a];
+		double score = scores[a];
+		double frequency = frequencies[a];
+		double period = periods[a];
+		double metric = metrics[a];
+
+		set(a, ordinals[b], scores[b], frequencies[b], periods[b], metrics[b]);
+		set(b, ordinal, score, frequency, period, metric);
+	}
+
+	// The root is the worst retained result, so a result moves towards the
+	// root while it ranks below its parent.
+	private void siftUp(int slot) {
+		while (slot > 0) {
+			int parent = (slot - 1) / 2;
+			if (slotRanksAbove(parent, slot)) {
+				swap(parent, slot);
+				slot = parent;
+			} else {
+				break;
+			}
+		}
+	}
+
+	private void siftDown(int slot) {
+		while (true) {
+			int left = 2 * slot + 1;
+			if (left >= size) {
+				break;
+			}
+
+			int right = left + 1;
+			int worst = right < size && slotRanksAbove(left, right) ? right : left;
+
+			if (slotRanksAbove(slot, worst)) {
+				swap(slot, worst);
+				slot = worst;
+			} else {
+				break;
+			}
+		}
+	}
+
+	private void ensureSize(int required) {
+		if (required > scores.length) {
+			int newSize = (int) Math.min(capacity, Math.max(required, 2L * scores.length));
+			scores = Arrays.copyOf(scores, newSize);
+			frequencies = Arrays.copyOf(frequencies, newSize);
+			periods = Arrays.copyOf(periods, newSize);
+			metrics = Arrays.copyOf(metrics, newSize);
+			ordinals = Arrays.copyOf(ordinals, newSize);
+		}
+	}
+}
@@ -0,0 +1,286 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+/**
+ * <p>
+ * Computes cos(&omega;t) and sin(&omega;t) for a fixed set of (possibly
+ * unevenly spaced) times t and a sequence of evenly spaced angular frequencies
+ * &omega;<sub>k</sub> = &omega;<sub>0</sub> + k&Delta;&omega;, as required by
+ * Fourier sums such as DCDFT, DFT and WWZ when scanning a frequency range.
+ * </p>
+ *
+ * <p>
+ * Rather than calling Math.cos() and Math.sin() for every time and frequency,
+ * the values for the next frequency are obtained from those for the current
+ * frequency by a rotation through &Delta;&omega;t, i.e. a few multiplications
+ * and additions per time. Rounding error accumulates with each rotation, so
+ * the values are recomputed exactly (re-seeded) every
+ * {@link #DEFAULT_RESEED_INTERVAL} frequencies, keeping the deviation from
+ * the exact values to within a small multiple of machine precision.
+ * </p>
+ *
+ * <p>
+ * Each instance holds its own values, so a separate instance must be used per
+ * thread. Algorithms should consult {@link #isEnabled()} before using this
+ * class, and fall back to computing values exactly if it returns false. In
+ * validation mode (see {@link #setValidating(boolean)}), each rotation is
+ * checked against the exact values.
+ * </p>
+ */
+public class TrigRecurrence {
+
+	/**
+	 * The default number of frequency steps after which values are recomputed
+	 * exactly.
+	 */
+	public static final int DEFAULT_RESEED_INTERVAL = 64;
+
+	/**
+	 * The largest permitted deviation from the exact values in validation
+	 * mode, in addition to that due to rounding of large angles (a small
+	 * multiple of the angle's ulp), which the exact values also suffer.
+	 */
+	public static final double VALIDATION_TOLERANCE = 1e-9;
+
+	private static volatile boolean enabled = true;
+
+	private static volatile boolean validating = false;
+
+	private final double[] times;
+	private final double omega0;
+	private final double deltaOmega;
+	private final int reseedInterval;
+
+	private final double[] cos;
+	private final double[] sin;
+
+	// cos(deltaOmega*t) and sin(deltaOmega*t) per time.
+	private final double[] stepCos;
+	private final double[] stepSin;
+
+	private int step;
+
+	/**
+	 * Constructor
+	 *
+	 * @param times
+	 *            The times; not copied, so must not be modified.
+	 * @param omega0
+	 *            The first angular frequency.
+	 * @param deltaOmega
+	 *            The angular frequency step.
+	 */
+	public TrigRecurrence(double[] times, double omega0, double deltaOmega) {
+		this(times, omega0, deltaOmega, DEFAULT_RESEED_INTERVAL);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param times
+	 *            The times; not copied, so must not be modified.
+	 * @param omega0
+	 *            The first angular frequency.
+	 * @param deltaOmega
+	 *            The angular frequency step.
+	 * @param reseedInterval
+	 *            The number of frequency steps after which values are
+	 *            recomputed exactly; must be at least 1.
+	 */
+	public TrigRecurrence(double[] times, double omega0, double deltaOmega,
+			int reseedInterval) {
+		if (reseedInterval < 1) {
+			throw new IllegalArgumentException("Re-seed interval must be >= 1");
+		}
+
+		this.times = times;
+		this.omega0 = omega0;
+		this.deltaOmega = deltaOmega;
+		this.reseedInterval = reseedInterval;
+
+		cos = new double[times.length];
+		sin = new double[times.length];
+		stepCos = new double[times.length];
+		stepSin = new double[times.length];
+
+		for (int i = 0; i < times.length; i++) {
+			double angle = deltaOmega * times[i];
+			stepCos[i] = Math.cos(angle);
+			stepSin[i] = Math.sin(angle);
+		}
+
+		step = 0;
+		seed(0, times.length - 1);
+	}
+
+	/**
+	 * @return Whether algorithms should use this class; if not, they should
+	 *         compute values exactly.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enable or disable use of this class, e.g. to compare results with those
+	 * computed exactly.
+	 *
+	 * @param enabled
+	 *            Whether use is enabled.
+	 */
+	public static void setEnabled(boolean enabled) {
+		TrigRecurrence.enabled = enabled;
+	}
+
+	/**
+	 * @return Whether each rotation is checked against the exact values.
+	 */
+	public static boolean isValidating() {
+		return validating;
+	}
+
+	/**
+	 * Enable or disable validation mode, in which each rotation is checked
+	 * against the exact values, and an IllegalStateException is thrown if any
+	 * deviates by more than {@link #VALIDATION_TOLERANCE}. This is expensive
+	 * and intended for testing.
+	 *
+	 * @param validating
+	 *            Whether validation is enabled.
+	 */
+	public static void setValidating(boolean validating) {
+		TrigRecurrence.validating = validating;
+	}
+
+	/**
+	 * @return The number of frequency steps taken from the first frequency.
+	 */
+	public int getStep() {
+		return step;
+	}
+
+	/**
+	 * @return The current angular frequency.
+	 */
+	public double getOmega() {
+		return omega0 + step * deltaOmega;
+	}
+
+	/**
+	 * @param i
+	 *            The time index.
+	 * @return cos(&omega;t) for the current angular frequency and the
+	 *         specified time.
+	 */
+	public double cos(int i) {
+		return cos[i];
+	}
+
+	/**
+	 * @param i
+	 *            The time index.
+	 * @return sin(&omega;t) for the current angular frequency and the
+	 *         specified time.
+	 */
+	public double sin(int i) {
+		return sin[i];
+	}
+
+	/**
+	 * Move to the specified number of frequency steps from the first
+	 * frequency, for all times. The values are identical to those obtained by
+	 * successive calls to advance(), so that a scan divided into ranges, e.g.
+	 * one per thread, yields the same results as a single scan.
+	 *
+	 * @param target
+	 *            The number of frequency steps; must not be negative.
+	 */
+	public void seek(int target) {
+		step = target - target % reseedInterval;
+		seed(0, times.length - 1);
+		while (step < target) {
+			advance();
+		}
+	}
+
+	/**
+	 * Advance to the next angular frequency for all times.
+	 */
+	public void advance() {
+		advance(0, times.length - 1);
+	}
+
+	/**
+	 * Advance to the next angular frequency for a range of times. Values for
+	 * times outside the range are left as they are, and are not valid for
+	 * this or any later frequency. This suits algorithms whose time window
+	 * narrows as frequency increases, such as WWZ.
+	 *
+	 * @param from
+	 *            The first time index.
+	 * @param to
+	 *            The last time index (inclusive).
+	 */
+	public void advance(int from, int to) {
+		step++;
+
+		if (step % reseedInterval == 0) {
+			seed(from, to);
+		} else {
+			for (int i = from; i <= to; i++) {
+				double c = cos[i];
+				double s = sin[i];
+				cos[i] = c * stepCos[i] - s * stepSin[i];
+				sin[i] = s * stepCos[i] + c * stepSin[i];
+			}
+
+			if (validating) {
+				validate(from, to);
+			}
+		}
+	}
+
+	// Helpers
+
+	private void seed(int from, int to) {
+		double omega = getOmega();
+		for (int i = from; i <= to; i++) {
+			double angle = omega * times[i];
+			cos[i] = Math.cos(angle);
+			sin[i] = Math.sin(angle);
+		}
+	}
+
+	private void validate(int from, int to) {
+		double omega = getOmega();
+		for (int i = from; i <= to; i++) {
+			double angle = omega * times[i];
+			double tolerance = VALIDATION_TOLERANCE + reseedInterval
+					* Math.ulp(angle);
+			double deviation = Math.max(Math.abs(cos[i] - Math.cos(angle)),
+					Math.abs(sin[i] - Math.sin(angle)));
+
+			if (deviation > tolerance) {
+				throw new IllegalStateException(String.format(
+						"Trig recurrence deviates from exact values by %g at "
+								+ "angular frequency %g", deviation, omega));
+			}
+		}
+	}
+}
@@ -0,0 +1,578 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.aov;
+
+import java.util.List;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.util.IAlgorithm;
+import org.aavso.tools.vstar.util.period.IFrequencyScorer;
+import org.aavso.tools.vstar.util.period.ParallelPeriodScan;
+import org.aavso.tools.vstar.util.period.PartialResultChannel;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+import org.aavso.tools.vstar.util.stats.PhaseCalcs;
+import org.apache.commons.math.distribution.FDistributionImpl;
+
+/**
+ * <p>
+ * Analysis of Variance (AoV) periodogram over a period range.
+ * </p>
+ *
+ * <p>
+ * For each trial period, observations are phased, sorted by phase and
+ * symmetrically binned (see
+ * DescStats.createSymmetricBinnedObservations()), then a one-way ANOVA F-test
+ * is applied to the magnitude bins. The binning and ANOVA arithmetic mirror
+ * DescStats and BinningResult (Apache Commons Math) but operate directly upon
+ * primitive arrays rather than phasing, sorting and binning copies of
+ * ValidObservation objects.
+ * </p>
+ *
+ * <p>
+ * The period range is partitioned across a fork-join pool. Each worker thread
+ * has its own phase and ordering buffers and collects its own top hits; these
+ * are merged once all trial periods have been evaluated. Results do not depend
+ * upon the number of threads used.
+ * </p>
+ *
+ * <p>
+ * Reference: Schwarzenberg-Czerny, A. (1989), "On the advantage of using
+ * analysis of variance in period search", MNRAS 241, 153
+ * </p>
+ */
+public class AoVPeriodogram implements IAlgorithm, IFrequencyScorer {
+
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	/**
+	 * The default maximum number of top hits.
+	 */
+	public static final int DEFAULT_MAX_TOP_HITS = 20;
+
+	private double[] times;
+	private double[] mags;
+	private double epoch;
+	private int bins;
+	private double binWidth;
+	private int maxTopHits;
+
+	private double[] frequencies;
+	private double[] periods;
+	private double[] fValues;
+	private double[] pValues;
+	private TopHitsHeap topHits;
+
+	private ThreadLocal<Workspace> workspaces;
+
+	private volatile PartialResultChannel partialResults;
+
+	private volatile boolean interrupted;
+	private volatile boolean cancelled;
+	private ParallelPeriodScan scan;
+
+	/**
+	 * Constructor
+	 *
+	 * @param obs        The observations over which to search, assumed to be in
+	 *                   JD order. The epoch is the mean of the first and last
+	 *                   JDs.
+	 * @param minPeriod  The minimum period to test.
+	 * @param maxPeriod  The maximum period to test.
+	 * @param resolution The period step.
+	 * @param bins       The number of phase bins.
+	 */
+	public AoVPeriodogram(List<ValidObservation> obs, double minPeriod, double maxPeriod, double resolution,
+			int bins) {
+		this(ParallelPeriodScan.times(obs), ParallelPeriodScan.mags(obs),
+				PhaseCalcs.epochStrategyMap.get("alpha").determineEpoch(obs), minPeriod, maxPeriod, resolution, bins);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param times      The observation times (JD), in increasing order.
+	 * @param mags       The corresponding magnitudes.
+	 * @param epoch      The epoch from which phases are calculated.
+	 * @param minPeriod  The minimum period to test.
+	 * @param maxPeriod  The maximum period to test.
+	 * @param resolution The period step.
+	 * @param bins       The number of phase bins.
+	 */
+	public AoVPeriodogram(double[] times, double[] mags, double epoch, double minPeriod, double maxPeriod,
+			double resolution, int bins) {
+		if (times.length != mags.length) {
+			throw new IllegalArgumentException("Time and magnitude arrays differ in length");
+		}
+
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("Resolution must be greater than zero");
+		}
+
+		if (bins <= 0) {
+			throw new IllegalArgumentException("Number of bins must be greater than zero");
+		}
+
+		this.times = times;
+		this.mags = mags;
+		this.epoch = epoch;
+		this.bins = bins;
+		// Note: 1 / bins = 1 cycle divided into N bins
+		this.binWidth = 1.0 / bins;
+
+		periods = ParallelPeriodScan.createPeriods(minPeriod, maxPeriod, resolution);
+		frequencies = new double[periods.length];
+		fValues = new double[periods.length];
+		pValues = new double[periods.length];
+
+		maxTopHits = DEFAULT_MAX_TOP_HITS;
+		topHits = TopHitsHeap.largest(maxTopHits);
+		scan = new ParallelPeriodScan();
+
+		interrupted = false;
+		cancelled = false;
+	}
+
+	/**
+	 * Execute the AoV period search over the period range.
+	 */
+	@Override
+	public void execute() throws AlgorithmError {
+		interrupted = false;
+		cancelled = false;
+
+		workspaces = ThreadLocal.withInitial(() -> new Workspace(times.length));
+
+		try {
+			topHits = scan.scan(periods.length, times.length, this::evaluateRange, (left, right) -> {
+				left.merge(right);
+				return left;
+			});
+			cancelled = interrupted;
+		} catch (RuntimeException e) {
+			throw new AlgorithmError(e.getMessage() != null ? e.getMessage() : "AoV runtime failure");
+		} finally {
+			workspaces = null;
+		}
+	}
+
+	/**
+	 * Compute the F-statistic for each of a run of evenly spaced frequencies,
+	 * i.e. for periods that are their reciprocals, independently of the
+	 * period range. Undefined F-statistics are NaN.
+	 *
+	 * @see org.aavso.tools.vstar.util.period.IFrequencyScorer#score(double,
+	 *      double, double[])
+	 */
+	@Override
+	public void score(double loFreq, double step, double[] scores) throws AlgorithmError, InterruptedException {
+		interrupted = false;
+
+		int count = scores.length;
+		ThreadLocal<Workspace> scoreWorkspaces = ThreadLocal.withInitial(() -> new Workspace(times.length));
+
+		try {
+			scan.scan(count, times.length, (from, to) -> {
+				Workspace ws = scoreWorkspaces.get();
+
+				for (int k = from; k < to; k++) {
+					if (interrupted)
+						break;
+
+					evaluate(1.0 / (loFreq + k * step), ws, false);
+					scores[k] = ws.fValue;
+				}
+			});
+		} catch (RuntimeException e) {
+			throw new AlgorithmError(e.getMessage() != null ? e.getMessage() : "AoV runtime failure");
+		}
+
+		if (interrupted) {
+			throw new InterruptedException();
+		}
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	/**
+	 * Set the channel through which blocks of frequencies, periods and
+	 * F-statistics are published while execute() runs, or null to publish
+	 * none. Published blocks do not affect the results.
+	 *
+	 * @param partialResults The channel, or null.
+	 */
+	public void setPartialResultChannel(PartialResultChannel partialResults) {
+		this.partialResults = partialResults;
+	}
+
+	/**
+	 * @return true if the last execute() call was interrupted before all trial
+	 *         periods were evaluated.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Number of threads (cores) to use for AoV execution.
+	 *
+	 * @param threadCount desired number of threads/cores
+	 * @see ParallelPeriodScan#setThreadCount(int)
+	 */
+	public void setThreadCount(int threadCount) {
+		scan.setThreadCount(threadCount);
+	}
+
+	/**
+	 * @return configured number of threads (cores) for AoV execution.
+	 */
+	public int getThreadCount() {
+		return scan.getThreadCount();
+	}
+
+	/**
+	 * @see ParallelPeriodScan#getRecommendedThreadCount()
+	 */
+	public static int getRecommendedThreadCount() {
+		return ParallelPeriodScan.getRecommendedThreadCount();
+	}
+
+	/**
+	 * @param maxTopHits the maximum number of top hits to retain
+	 */
+	public void setMaxTopHits(int maxTopHits) {
+		this.maxTopHits = Math.max(0, maxTopHits);
+	}
+
+	/**
+	 * @return the number of phase bins
+	 */
+	public int getBins() {
+		return bins;
+	}
+
+	/**
+	 * @return the trial frequencies, with an infinite frequency (period of 0)
+	 *         replaced by NaN
+	 */
+	public double[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return the trial periods
+	 */
+	public double[] getPeriods() {
+		return periods;
+	}
+
+	/**
+	 * @return the F-statistic for each trial period, NaN where undefined
+	 */
+	public double[] getFValues() {
+		return fValues;
+	}
+
+	/**
+	 * @return the p-value for each trial period, NaN where undefined
+	 */
+	public double[] getPValues() {
+		return pValues;
+	}
+
+	/**
+	 * @return the top hits in descending order of F-statistic, with p-values
+	 *         as metrics and result array indices as ordinals; trial periods
+	 *         with an undefined F-statistic are never top hits
+	 */
+	public TopHitsHeap getTopHits() {
+		return topHits;
+	}
+
+	// Helpers
+
+	// Evaluate the trial periods in the index range [from, to) on the
+	// current thread, returning the top hits for that range.
+	private TopHitsHeap evaluateRange(int from, int to) {
+		Workspace ws = workspaces.get();
+		TopHitsHeap hits = TopHitsHeap.largest(maxTopHits);
+		PartialResultChannel channel = partialResults;
+
+		int blockStart = from;
+		int end = from;
+
+		for (int k = from; k < to; k++) {
+			if (interrupted)
+				break;
+
+			evaluate(k, ws);
+			hits.offer(k, fValues[k], frequencies[k], periods[k], pValues[k]);
+			end = k + 1;
+
+			if (channel != null && end - blockStart >= PartialResultChannel.DEFAULT_BLOCK_SIZE) {
+				channel.publish(frequencies, periods, fValues, blockStart, end);
+				blockStart = end;
+			}
+		}
+
+		if (channel != null) {
+			channel.publish(frequencies, periods, fValues, blockStart, end);
+		}
+
+		return hits;
+	}
+
+	// Compute the F-statistic and p-value of the k-th trial period.
+	private void evaluate(int k, Workspace ws) {
+		double period = periods[k];
+
+		evaluate(period, ws, true);
+
+		frequencies[k] = fixInf(1.0 / period);
+		fValues[k] = ws.fValue;
+		pValues[k] = ws.pValue;
+	}
+
+	// Phase, sort and bin the observations for a trial period, then compute
+	// the ANOVA F-statistic and, optionally, p-value of the bins, leaving
+	// them in the workspace.
+	private void evaluate(double period, Workspace ws, boolean withPValue) {
+		int n = times.length;
+		double[] phases = ws.phases;
+		int[] order = ws.order;
+
+		for (int i = 0; i < n; i++) {
+			double phase = (times[i] - epoch) / period;
+			phases[i] = phase - Math.floor(phase);
+		}
+
+		sort(order, ws.scratch, phases, 0, n);
+
+		double fValue = Double.NaN;
+		double pValue = Double.NaN;
+
+		// Are there sufficient (size > 1) observations to create bins?
+		if (n > 1) {
+			int half = n / 2;
+			int binCount = 0;
+
+			// Bins from the center leftward, using previous cycle phases.
+			int maxIndex = half - 1;
+			double maxTimeElement = timeElement(phases, order, maxIndex, half);
+			int i = maxIndex - 1;
+
+			while (true) {
+				if (i >= 0 && timeElement(phases, order, i, half) + binWidth > maxTimeElement) {
+					i--;
+				} else {
+					ws.binFrom[binCount] = i + 1;
+					ws.binTo[binCount] = maxIndex;
+					binCount++;
+
+					if (i >= 0) {
+						maxIndex = i;
+						maxTimeElement = timeElement(phases, order, maxIndex, half);
+						i--;
+					} else {
+						break;
+					}
+				}
+			}
+
+			int leftBinCount = binCount;
+
+			// Bins from the center rightward, using standard phases.
+			int minIndex = half;
+			double minTimeElement = timeElement(phases, order, minIndex, half);
+			i = minIndex + 1;
+
+			while (true) {
+				if (i < n && minTimeElement + binWidth > timeElement(phases, order, i, half)) {
+					i++;
+				} else {
+					ws.binFrom[binCount] = minIndex;
+					ws.binTo[binCount] = i - 1;
+					binCount++;
+
+					if (i < n) {
+						minIndex = i;
+						minTimeElement = timeElement(phases, order, minIndex, half);
+						i++;
+					} else {
+						break;
+					}
+				}
+			}
+
+			// One-way ANOVA over the bins, from leftmost to rightmost.
+			int categories = 0;
+			int dfwg = 0;
+			double sswg = 0;
+			double totsum = 0;
+			double totsumsq = 0;
+			int totnum = 0;
+
+			for (int b = 0; b < binCount; b++) {
+				// Left bins were found from right to left.
+				int bin = b < leftBinCount ? leftBinCount - 1 - b : b;
+				int from = ws.binFrom[bin];
+				int to = ws.binTo[bin];
+
+				// Exclude bins with a NaN mean magnitude.
+				double total = 0;
+				for (int j = from; j <= to; j++) {
+					total += mags[order[j]];
+				}
+				if (Double.isNaN(total / (to - from + 1))) {
+					continue;
+				}
+
+				double sum = 0;
+				double sumsq = 0;
+				int num = 0;
+
+				for (int j = from; j <= to; j++) {
+					double val = mags[order[j]];
+					// A single value bin is treated as a pair since ANOVA
+					// requires all sample sizes to be greater than one.
+					int repeats = from == to ? 2 : 1;
+					for (int r = 0; r < repeats; r++) {
+						num++;
+						sum += val;
+						sumsq += val * val;
+						totnum++;
+						totsum += val;
+						totsumsq += val * val;
+					}
+				}
+
+				dfwg += num - 1;
+				sswg += sumsq - sum * sum / num;
+				categories++;
+			}
+
+			if (categories >= 2) {
+				double sst = totsumsq - totsum * totsum / totnum;
+				double ssbg = sst - sswg;
+				int dfbg = categories - 1;
+				fValue = (ssbg / dfbg) / (sswg / dfwg);
+
+				if (withPValue) {
+					try {
+						pValue = 1.0 - new FDistributionImpl(dfbg, dfwg).cumulativeProbability(fValue);
+					} catch (Exception e) {
+						fValue = Double.NaN;
+						pValue = Double.NaN;
+					}
+				}
+			}
+		}
+
+		// Replace +-Infinity by NaN to prevent plotting errors, e.g. when
+		// period = 0 (PMAK, Issue #152).
+		ws.fValue = fixInf(fValue);
+		ws.pValue = fixInf(pValue);
+	}
+
+	// Time element (phase) of the observation at the specified sorted
+	// position: previous cycle phase in the first half, standard phase
+	// otherwise; see PhaseTimeElementEntity.
+	private static double timeElement(double[] phases, int[] order, int index, int half) {
+		double phase = phases[order[index]];
+		return index < half ? phase - 1 : phase;
+	}
+
+	private static double fixInf(double v) {
+		return Double.isInfinite(v) ? Double.NaN : v;
+	}
+
+	// Does observation a precede observation b by phase, then by original
+	// (JD) order?
+	private static boolean precedes(double[] phases, int a, int b) {
+		int cmp = Double.compare(phases[a], phases[b]);
+		return cmp < 0 || (cmp == 0 && a < b);
+	}
+
+	// Merge sort the index range [lo, hi) of order by phase. Since the
+	// ordering is total, the result is independent of the initial order, but
+	// an ordering close to the last one (adjacent trial periods) is cheaper
+	// to sort.
+	private static void sort(int[] order, int[] scratch, double[] phases, int lo, int hi) {
+		if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+			for (int i = lo + 1; i < hi; i++) {
+				int x = order[i];
+				int j = i - 1;
+				while (j >= lo && precedes(phases, x, order[j])) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = x;
+			}
+			return;
+		}
+
+		int mid = (lo + hi) >>> 1;
+		sort(order, scratch, phases, lo, mid);
+		sort(order, scratch, phases, mid, hi);
+
+		if (!precedes(phases, order[mid], order[mid - 1])) {
+			return;
+		}
+
+		System.arraycopy(order, lo, scratch, lo, hi - lo);
+
+		int i = lo;
+		int j = mid;
+		for (int k = lo; k < hi; k++) {
+			if (i >= mid) {
+				order[k] = scratch[j++];
+			} else if (j >= hi) {
+				order[k] = scratch[i++];
+			} else if (precedes(phases, scratch[j], scratch[i])) {
+				order[k] = scratch[j++];
+			} else {
+				order[k] = scratch[i++];
+			}
+		}
+	}
+
+	// Per-thread buffers.
+	private static class Workspace {
+		final double[] phases;
+		final int[] order;
+		final int[] scratch;
+		final int[] binFrom;
+		final int[] binTo;
+		double fValue;
+		double pValue;
+
+		Workspace(int n) {
+			phases = new double[n];
+			order = new int[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			scratch = new int[n];
+			binFrom = new int[n + 1];
+			binTo = new int[n + 1];
+		}
+	}
+}
@@ -0,0 +1,483 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.bls;
+
+import java.util.List;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.util.IAlgorithm;
+import org.aavso.tools.vstar.util.period.ParallelPeriodScan;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+
+/**
+ * <p>
+ * Box Least Squares (BLS) periodogram over a period range, for transits and
+ * eclipses of short duration relative to the period, which sinusoid- and
+ * scatter-based methods detect poorly.
+ * </p>
+ *
+ * <p>
+ * For each trial period, observations are folded and their weights and
+ * weighted magnitudes accumulated into phase bins. Cumulative sums over the
+ * bins (taken twice round, so that a box may straddle phase 0) give the
+ * in-box totals for every box start bin and trial duration in constant time.
+ * The signal residue SR = sqrt(s<sup>2</sup> / (r(1 - r))) is maximised,
+ * where r is the normalised weight and s the weighted magnitude sum (relative
+ * to the mean) in the box. Only boxes in which observations are fainter than
+ * average, i.e. with positive magnitude depth, are considered.
+ * </p>
+ *
+ * <p>
+ * For each trial period, the power (SR), depth (in-box minus out-of-box mean
+ * magnitude), duration (days) and epoch (JD of mid-box) of the best box are
+ * recorded. A light curve phase plotted with that period and epoch has the
+ * transit or eclipse at phase 0.
+ * </p>
+ *
+ * <p>
+ * The period range is partitioned across a fork-join pool. Each worker thread
+ * has its own bin buffers and collects its own top hits; these are merged
+ * once all trial periods have been evaluated. Results do not depend upon the
+ * number of threads used.
+ * </p>
+ *
+ * <p>
+ * Reference: Kov&aacute;cs, G., Zucker, S. &amp; Mazeh, T. (2002), "A
+ * box-fitting algorithm in the search for periodic transits", A&amp;A 391,
+ * 369
+ * </p>
+ */
+public class BoxLeastSquares implements IAlgorithm {
+
+	/**
+	 * The default maximum number of top hits.
+	 */
+	public static final int DEFAULT_MAX_TOP_HITS = 20;
+
+	/**
+	 * The default number of phase bins.
+	 */
+	public static final int DEFAULT_BINS = 200;
+
+	/**
+	 * The minimum number of observations in a box.
+	 */
+	public static final int MIN_OBS_IN_BOX = 3;
+
+	private double[] times;
+	private double[] mags;
+	private double[] weights;
+	private double[] durations;
+	private int bins;
+	private int maxTopHits;
+
+	private double tRef;
+	private double[] w;
+	private double[] wy;
+
+	private double[] periods;
+	private double[] frequencies;
+	private double[] powers;
+	private double[] depths;
+	private double[] boxDurations;
+	private double[] epochs;
+	private TopHitsHeap topHits;
+
+	private ThreadLocal<Workspace> workspaces;
+
+	private volatile boolean interrupted;
+	private volatile boolean cancelled;
+	private ParallelPeriodScan scan;
+
+	/**
+	 * Constructor
+	 *
+	 * All observations are weighted equally.
+	 *
+	 * @param obs        The observations over which to search.
+	 * @param minPeriod  The minimum period to test.
+	 * @param maxPeriod  The maximum period to test.
+	 * @param resolution The period step.
+	 * @param durations  The trial box durations (days).
+	 * @param bins       The number of phase bins.
+	 */
+	public BoxLeastSquares(List<ValidObservation> obs, double minPeriod, double maxPeriod, double resolution,
+			double[] durations, int bins) {
+		this(ParallelPeriodScan.times(obs), ParallelPeriodScan.mags(obs), null, minPeriod, maxPeriod, resolution,
+				durations, bins);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param times      The observation times (JD).
+	 * @param mags       The corresponding magnitudes.
+	 * @param weights    The corresponding weights, e.g. inverse variances, or
+	 *                   null to weight observations equally.
+	 * @param minPeriod  The minimum period to test; must be greater than zero.
+	 * @param maxPeriod  The maximum period to test.
+	 * @param resolution The period step.
+	 * @param durations  The trial box durations (days).
+	 * @param bins       The number of phase bins.
+	 */
+	public BoxLeastSquares(double[] times, double[] mags, double[] weights, double minPeriod, double maxPeriod,
+			double resolution, double[] durations, int bins) {
+		if (times.length != mags.length || (weights != null && weights.length != times.length)) {
+			throw new IllegalArgumentException("Time, magnitude and weight arrays differ in length");
+		}
+
+		if (minPeriod <= 0) {
+			throw new IllegalArgumentException("Minimum period must be greater than zero");
+		}
+
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("Resolution must be greater than zero");
+		}
+
+		if (durations.length == 0) {
+			throw new IllegalArgumentException("At least one duration is required");
+		}
+
+		for (double duration : durations) {
+			if (duration <= 0) {
+				throw new IllegalArgumentException("Durations must be greater than zero");
+			}
+		}
+
+		if (bins < 2) {
+			throw new IllegalArgumentException("Number of bins must be at least two");
+		}
+
+		this.times = times;
+		this.mags = mags;
+		this.weights = weights;
+		this.durations = durations.clone();
+		this.bins = bins;
+
+		periods = ParallelPeriodScan.createPeriods(minPeriod, maxPeriod, resolution);
+		frequencies = new double[periods.length];
+		powers = new double[periods.length];
+		depths = new double[periods.length];
+		boxDurations = new double[periods.length];
+		epochs = new double[periods.length];
+
+		maxTopHits = DEFAULT_MAX_TOP_HITS;
+		topHits = TopHitsHeap.largest(maxTopHits);
+		scan = new ParallelPeriodScan();
+
+		interrupted = false;
+		cancelled = false;
+	}
+
+	/**
+	 * Create evenly spaced trial durations.
+	 *
+	 * @param minDuration The minimum duration.
+	 * @param maxDuration The maximum duration.
+	 * @param count       The number of durations; if 1, only the minimum
+	 *                    duration is used.
+	 * @return The durations.
+	 */
+	public static double[] createDurations(double minDuration, double maxDuration, int count) {
+		double[] durations = new double[Math.max(1, count)];
+		for (int i = 0; i < durations.length; i++) {
+			durations[i] = durations.length == 1 ? minDuration
+					: minDuration + i * (maxDuration - minDuration) / (durations.length - 1);
+		}
+		return durations;
+	}
+
+	/**
+	 * Execute the BLS search over the period range.
+	 */
+	@Override
+	public void execute() throws AlgorithmError {
+		interrupted = false;
+		cancelled = false;
+
+		if (times.length < 2 * MIN_OBS_IN_BOX) {
+			throw new AlgorithmError("Too few observations for a BLS search");
+		}
+
+		prepare();
+
+		workspaces = ThreadLocal.withInitial(() -> new Workspace(bins));
+
+		try {
+			topHits = scan.scan(periods.length, times.length, this::evaluateRange, (left, right) -> {
+				left.merge(right);
+				return left;
+			});
+			cancelled = interrupted;
+		} catch (RuntimeException e) {
+			throw new AlgorithmError(e.getMessage() != null ? e.getMessage() : "BLS runtime failure");
+		} finally {
+			workspaces = null;
+		}
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	/**
+	 * @return true if the last execute() call was interrupted before all trial
+	 *         periods were evaluated.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Number of threads (cores) to use for BLS execution.
+	 *
+	 * @param threadCount desired number of threads/cores
+	 * @see ParallelPeriodScan#setThreadCount(int)
+	 */
+	public void setThreadCount(int threadCount) {
+		scan.setThreadCount(threadCount);
+	}
+
+	/**
+	 * @return configured number of threads (cores) for BLS execution.
+	 */
+	public int getThreadCount() {
+		return scan.getThreadCount();
+	}
+
+	/**
+	 * @see ParallelPeriodScan#getRecommendedThreadCount()
+	 */
+	public static int getRecommendedThreadCount() {
+		return ParallelPeriodScan.getRecommendedThreadCount();
+	}
+
+	/**
+	 * @param maxTopHits the maximum number of top hits to retain
+	 */
+	public void setMaxTopHits(int maxTopHits) {
+		this.maxTopHits = Math.max(0, maxTopHits);
+	}
+
+	/**
+	 * @return the trial periods
+	 */
+	public double[] getPeriods() {
+		return periods;
+	}
+
+	/**
+	 * @return the trial frequencies
+	 */
+	public double[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return the signal residue of the best box for each trial period; 0 if
+	 *         there is no box with a positive depth
+	 */
+	public double[] getPowers() {
+		return powers;
+	}
+
+	/**
+	 * @return the depth (magnitudes) of the best box for each trial period
+	 */
+	public double[] getDepths() {
+		return depths;
+	}
+
+	/**
+	 * @return the duration (days) of the best box for each trial period, i.e.
+	 *         the nearest whole number of bins to the trial duration
+	 */
+	public double[] getDurations() {
+		return boxDurations;
+	}
+
+	/**
+	 * @return the epoch (JD of mid-box) of the best box for each trial period
+	 */
+	public double[] getEpochs() {
+		return epochs;
+	}
+
+	/**
+	 * @return the top hits in descending order of power, with depths as
+	 *         metrics and result array indices as ordinals
+	 */
+	public TopHitsHeap getTopHits() {
+		return topHits;
+	}
+
+	// Helpers
+
+	// Normalise weights and centre magnitudes on their weighted mean.
+	private void prepare() {
+		int n = times.length;
+
+		w = new double[n];
+		wy = new double[n];
+
+		double wsum = 0;
+		tRef = times[0];
+		for (int i = 0; i < n; i++) {
+			w[i] = weights == null ? 1 : weights[i];
+			wsum += w[i];
+			tRef = Math.min(tRef, times[i]);
+		}
+
+		double ybar = 0;
+		for (int i = 0; i < n; i++) {
+			w[i] /= wsum;
+			ybar += w[i] * mags[i];
+		}
+
+		for (int i = 0; i < n; i++) {
+			wy[i] = w[i] * (mags[i] - ybar);
+		}
+	}
+
+	// Evaluate the trial periods in the index range [from, to) on the
+	// current thread, returning the top hits for that range.
+	private TopHitsHeap evaluateRange(int from, int to) {
+		Workspace ws = workspaces.get();
+		TopHitsHeap hits = TopHitsHeap.largest(maxTopHits);
+
+		for (int k = from; k < to; k++) {
+			if (interrupted)
+				break;
+
+			evaluate(k, ws);
+			hits.offer(k, powers[k], frequencies[k], periods[k], depths[k]);
+		}
+
+		return hits;
+	}
+
+	// Fold and bin the observations for the k-th trial period, then find the
+	// box with the highest signal residue.
+	private void evaluate(int k, Workspace ws) {
+		double period = periods[k];
+
+		double[] binW = ws.binW;
+		double[] binWY = ws.binWY;
+		int[] binCount = ws.binCount;
+
+		for (int b = 0; b < bins; b++) {
+			binW[b] = 0;
+			binWY[b] = 0;
+			binCount[b] = 0;
+		}
+
+		for (int i = 0; i < times.length; i++) {
+			double phase = (times[i] - tRef) / period;
+			int b = (int) ((phase - Math.floor(phase)) * bins);
+			if (b >= bins) {
+				b = bins - 1;
+			}
+			binW[b] += w[i];
+			binWY[b] += wy[i];
+			binCount[b]++;
+		}
+
+		// Cumulative sums, twice round.
+		double[] cumW = ws.cumW;
+		double[] cumWY = ws.cumWY;
+		int[] cumCount = ws.cumCount;
+
+		for (int b = 0; b < 2 * bins; b++) {
+			int j = b < bins ? b : b - bins;
+			cumW[b + 1] = cumW[b] + binW[j];
+			cumWY[b + 1] = cumWY[b] + binWY[j];
+			cumCount[b + 1] = cumCount[b] + binCount[j];
+		}
+
+		double bestSR2 = 0;
+		double bestDepth = 0;
+		int bestStart = 0;
+		int bestWidth = 0;
+
+		for (double duration : durations) {
+			int width = Math.max(1, (int) Math.round(duration / period * bins));
+			if (width >= bins) {
+				continue;
+			}
+
+			for (int start = 0; start < bins; start++) {
+				int end = start + width;
+
+				if (cumCount[end] - cumCount[start] < MIN_OBS_IN_BOX) {
+					continue;
+				}
+
+				double r = cumW[end] - cumW[start];
+				double s = cumWY[end] - cumWY[start];
+
+				if (s <= 0 || r >= 1) {
+					continue;
+				}
+
+				double rr = r * (1 - r);
+				double sr2 = s * s / rr;
+
+				if (sr2 > bestSR2) {
+					bestSR2 = sr2;
+					bestDepth = s / rr;
+					bestStart = start;
+					bestWidth = width;
+				}
+			}
+		}
+
+		frequencies[k] = 1.0 / period;
+		powers[k] = Math.sqrt(bestSR2);
+		depths[k] = bestDepth;
+
+		if (bestWidth > 0) {
+			double midPhase = (bestStart + bestWidth / 2.0) / bins;
+			boxDurations[k] = bestWidth * period / bins;
+			epochs[k] = tRef + (midPhase - Math.floor(midPhase)) * period;
+		} else {
+			boxDurations[k] = Double.NaN;
+			epochs[k] = Double.NaN;
+		}
+	}
+
+	// Per-thread buffers.
+	private static class Workspace {
+		final double[] binW;
+		final double[] binWY;
+		final int[] binCount;
+		final double[] cumW;
+		final double[] cumWY;
+		final int[] cumCount;
+
+		Workspace(int bins) {
+			binW = new double[bins];
+			binWY = new double[bins];
+			binCount = new int[bins];
+			cumW = new double[2 * bins + 1];
+			cumWY = new double[2 * bins + 1];
+			cumCount = new int[2 * bins + 1];
+		}
+	}
+}
@@ -18,7 +18,7 @@
 package org.aavso.tools.vstar.util.period.dcdft;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -31,8 +31,14 @@ import org.aavso.tools.vstar.util.TSBase;
 import org.aavso.tools.vstar.util.model.Harmonic;
 import org.aavso.tools.vstar.util.model.PeriodAnalysisDerivedMultiPeriodicModel;
 import org.aavso.tools.vstar.util.model.PeriodFitParameters;
+import org.aavso.tools.vstar.util.period.IFrequencyScorer;
 import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
+import org.aavso.tools.vstar.util.period.ParallelPeriodScan;
+import org.aavso.tools.vstar.util.period.PartialResultChannel;
 import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
+import org.aavso.tools.vstar.util.period.PeriodogramBlock;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
 
 /**
  * This class computes a Date Compensated Discrete Fourier Transform over an
@@ -64,7 +70,8 @@ import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
 // DCDFT File=delcep.vis NUM= 3079 AVE= 3.9213 SDV=0.2235 VAR= 0.0500
 // JD 2450000.2569-2450999.7097 T.AVE=2450446.0000
 
-public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
+public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm,
+		IFrequencyScorer {
 
 	private DcDftAnalysisType analysisType;
 
@@ -79,11 +86,15 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 
 	private double dang0;
 
-	private int nbest;
-
-	private Map<PeriodAnalysisCoordinateType, List<Double>> resultSeries;
+	private PeriodAnalysisResult resultSeries;
 	private Map<PeriodAnalysisCoordinateType, List<Double>> topHits;
 	private List<PeriodAnalysisDataPoint> deltaTopHits;
+	private TopHitsHeap topHitsHeap;
+
+	private ParallelPeriodScan scan;
+
+	private volatile PartialResultChannel partialResults;
+	private int publishedRows;
 
 	// -------------------------------------------------------------------------------
 
@@ -104,12 +115,14 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 				PeriodAnalysisCoordinateType.POWER,
 				PeriodAnalysisCoordinateType.SEMI_AMPLITUDE };
 
-		resultSeries = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
-		for (PeriodAnalysisCoordinateType type : coordTypes) {
-			resultSeries.put(type, new ArrayList<Double>());
-		}
+		resultSeries = new PeriodAnalysisResult(coordTypes);
 
 		deltaTopHits = new ArrayList<PeriodAnalysisDataPoint>();
+		topHitsHeap = TopHitsHeap.largest(MAX_TOP_HITS - 1);
+
+		// Default to the maximum available cores; UI can override via
+		// setThreadCount().
+		scan = new ParallelPeriodScan();
 
 		load_raw();
 	}
@@ -167,6 +180,44 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 		interrupted = true;
 	}
 
+	/**
+	 * Number of threads (cores) to use for frequency range and period range
+	 * scans. Results are identical to those of a single-threaded scan.
+	 * 
+	 * @param threadCount
+	 *            desired number of threads/cores
+	 * @see ParallelPeriodScan#setThreadCount(int)
+	 */
+	public void setThreadCount(int threadCount) {
+		scan.setThreadCount(threadCount);
+	}
+
+	/**
+	 * @return configured number of threads (cores) for DC DFT scans.
+	 */
+	public int getThreadCount() {
+		return scan.getThreadCount();
+	}
+
+	/**
+	 * Set the channel through which blocks of frequencies, periods and powers
+	 * are published while a scan runs, or null to publish none. Published
+	 * blocks do not affect the result series.
+	 * 
+	 * @param partialResults
+	 *            The channel, or null.
+	 */
+	public void setPartialResultChannel(PartialResultChannel partialResults) {
+		this.partialResults = partialResults;
+	}
+
+	/**
+	 * @see ParallelPeriodScan#getRecommendedThreadCount()
+	 */
+	public static int getRecommendedThreadCount() {
+		return ParallelPeriodScan.getRecommendedThreadCount();
+	}
+
 	// -------------------------------------------------------------------------------
 
 	/**
@@ -269,6 +320,14 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 	 * @return the resultSeries
 	 */
 	public Map<PeriodAnalysisCoordinateType, List<Double>> getResultSeries() {
+		return resultSeries.asMap();
+	}
+
+	/**
+	 * @return the result series in columnar form
+	 */
+	@Override
+	public PeriodAnalysisResult getResult() {
 		return resultSeries;
 	}
 
@@ -282,27 +341,8 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 	 */
 	public Map<PeriodAnalysisCoordinateType, List<Double>> getTopHits() {
 
-		// Create top-hits collection.
-		topHits = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
-
-		for (PeriodAnalysisCoordinateType type : coordTypes) {
-			topHits.put(type, new ArrayList<Double>());
-		}
-
-		for (int i = 1; i <= MAX_TOP_HITS - 1; i++) {
-			if (dgnu[i] != 0) {
-				topHits.get(PeriodAnalysisCoordinateType.FREQUENCY)
-						.add(dgnu[i]);
-				topHits.get(PeriodAnalysisCoordinateType.PERIOD).add(dgper[i]);
-				topHits.get(PeriodAnalysisCoordinateType.POWER).add(dgpower[i]);
-				topHits.get(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE).add(
-						dgamplitude[i]);
-			} else {
-				// We've seen a zero frequency which indicates this is the end
-				// of line of top hits.
-				break;
-			}
-		}
+		topHits = topHitsHeap.toMap(PeriodAnalysisCoordinateType.POWER,
+				PeriodAnalysisCoordinateType.SEMI_AMPLITUDE);
 
 		return topHits;
 	}
@@ -316,6 +356,7 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 	@Override
 	public void execute() throws AlgorithmError {
 		interrupted = false;
+		publishedRows = resultSeries.size();
 
 		try {
 			dcdft();
@@ -325,6 +366,8 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 			// statcomp();
 		} catch (InterruptedException e) {
 			// Do nothing; just return.
+		} finally {
+			publish_collected(0);
 		}
 	}
 
@@ -350,7 +393,6 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 		int magres;
 		double dpolyamp2, dang00, damplit, dt, dx;
 		npoly = 0;
-		nbest = MAX_TOP_HITS - 1;
 		nbrake = 0;
 		dpolyamp2 = 0.0; // added Apr 7
 		dfouramp2 = 0.0;
@@ -420,14 +462,23 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 	protected void standard_scan() throws InterruptedException {
 		nfre = 1;
 		hifre = (double) numact * dang0;
-		for (nj = 1 + npoly; nj <= numact; nj++) {
-			ff = (double) nj * dang0;
-			fft(ff);
-			// TODO: nbrake is never set to anything other than 0!!
-			if (nbrake < 0) {
-				statcomp();
-				return;
+		trigRecurrence = createTrigRecurrence((double) (1 + npoly) * dang0,
+				dang0);
+		try {
+			for (nj = 1 + npoly; nj <= numact; nj++) {
+				ff = (double) nj * dang0;
+				fft(ff);
+				// TODO: nbrake is never set to anything other than 0!!
+				if (nbrake < 0) {
+					statcomp();
+					return;
+				}
+				if (trigRecurrence != null) {
+					trigRecurrence.advance();
+				}
 			}
+		} finally {
+			trigRecurrence = null;
 		}
 	}
 
@@ -463,18 +514,33 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 			// call lognow
 			// write(1,201)
 			iff = (int) ((hifre - xlofre) / res) + 1;
-			for (ixx = 1; ixx <= iff; ixx++) {
-				ff = xlofre + (double) (ixx - 1) * res;
-				fft(ff);
-				if (nbrake < 0) {
-					statcomp();
-					return;
+			if (scan.getEffectiveThreadCount(iff, numact) > 1) {
+				double[] freqs = new double[iff];
+				for (ixx = 1; ixx <= iff; ixx++) {
+					freqs[ixx - 1] = xlofre + (double) (ixx - 1) * res;
+				}
+				parallel_fft(freqs, res);
+			} else {
+				trigRecurrence = createTrigRecurrence(xlofre, res);
+				try {
+					for (ixx = 1; ixx <= iff; ixx++) {
+						ff = xlofre + (double) (ixx - 1) * res;
+						fft(ff);
+						if (nbrake < 0) {
+							statcomp();
+							return;
+						}
+						if (trigRecurrence != null) {
+							trigRecurrence.advance();
+						}
+					}
+				} finally {
+					trigRecurrence = null;
 				}
 			}
 		} else {
 			ff = 1.0 / xloper;
 			fft(ff);
-			dgpower[nbest] = 0.0;
 			tablit();
 		}
 
@@ -519,24 +585,40 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 
 		if (hiper >= (xloper + res)) {
 			ipp = (int) ((hiper - xloper) / res) + 1;
-			for (ixx = 1; ixx <= ipp; ixx++) {
-				pper = xloper + ((double) (ixx - 1) * res);
+			if (scan.getEffectiveThreadCount(ipp, numact) > 1) {
+				double[] freqs = new double[ipp];
+				double pff = ff;
+				for (ixx = 1; ixx <= ipp; ixx++) {
+					pper = xloper + ((double) (ixx - 1) * res);
+
+					if (pper != 0.0) {
+						pff = 1.0 / pper;
+					}
 
-				if (pper != 0.0) {
-					ff = 1.0 / pper;
+					freqs[ixx - 1] = pff;
 				}
+				// Evenly spaced periods are not evenly spaced in
+				// frequency, so no trig recurrence can be used.
+				parallel_fft(freqs, Double.NaN);
+			} else {
+				for (ixx = 1; ixx <= ipp; ixx++) {
+					pper = xloper + ((double) (ixx - 1) * res);
 
-				fft(ff);
+					if (pper != 0.0) {
+						ff = 1.0 / pper;
+					}
 
-				if (nbrake < 0) {
-					statcomp();
-					break;
+					fft(ff);
+
+					if (nbrake < 0) {
+						statcomp();
+						break;
+					}
 				}
 			}
 		} else {
 			ff = 1.0 / xloper;
 			fft(ff);
-			dgpower[nbest] = 0.0;
 			tablit();
 		}
 	}
@@ -563,20 +645,275 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 		dd = Math.sqrt(dcoef[na] * dcoef[na] + dcoef[nb] * dcoef[nb]);
 		// System.out.println(String.format("%14.9f%10.4f%10.4f%10.4f", ff, pp,
 		// dfpow, dd));
-		collect_datapoint(ff, pp, dfpow, dd);
+		collect_fft(ff, pp, dfpow, dd, damp);
 		// end of bugfix
+		publish_collected(PartialResultChannel.DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Collect the result of a FFT for one frequency, and tabulate the previous
+	 * frequency's result as a top hit if its amplitude was a local maximum.
+	 * 
+	 * @param ff
+	 *            The frequency.
+	 * @param pp
+	 *            The period.
+	 * @param fpow
+	 *            The power.
+	 * @param dd
+	 *            The semi-amplitude.
+	 * @param amp
+	 *            The amplitude.
+	 */
+	private void collect_fft(double ff, double pp, double fpow, double dd,
+			double amp) {
+		collect_datapoint(ff, pp, fpow, dd);
 		// dbenn Note: without seeing the previous revision, it's
 		// not possible to know what this fix was.
-		if (damp < dlamp && dlamp >= dllamp)
+		if (amp < dlamp && dlamp >= dllamp)
 			tablit();
 		dllamp = dlamp;
-		dlamp = damp;
+		dlamp = amp;
 		dlnu = ff;
 		dlper = pp;
-		dlpower = dfpow;
+		dlpower = fpow;
 		dlamplitude = dd;
 	}
 
+	/**
+	 * Compute FFTs for a sequence of frequencies on multiple threads.
+	 * 
+	 * Contiguous ranges of frequencies are projected concurrently, each range
+	 * using its own copy of the projection scratch arrays. The results are
+	 * then collected in frequency order, exactly as successive calls to fft()
+	 * would have collected them, and the state left by the last call to fft()
+	 * is restored, so results are identical to those of a single-threaded
+	 * scan.
+	 * 
+	 * @param freqs
+	 *            The frequencies, in scan order.
+	 * @param resolution
+	 *            The frequency step if the frequencies are evenly spaced, in
+	 *            which case each range uses its own trig recurrence, otherwise
+	 *            NaN.
+	 */
+	protected void parallel_fft(final double[] freqs, final double resolution)
+			throws InterruptedException {
+		final int count = freqs.length;
+		final double[] powers = new double[count];
+		final double[] semiAmplitudes = new double[count];
+		final double[] amplitudes = new double[count];
+		final boolean[] projected = new boolean[count];
+		final boolean[] done = new boolean[count];
+
+		project_range(freqs, resolution, powers, semiAmplitudes, amplitudes,
+				projected, done, partialResults);
+
+		// A projection that stops early, because a frequency is below the
+		// cutoff, leaves the previous frequency's amplitude and coefficients
+		// in place, so carry those forward as fft() would have.
+		int na = npoly + 1;
+		int nb = na + 1;
+		double amp = damp;
+		double dd = Math.sqrt(dcoef[na] * dcoef[na] + dcoef[nb] * dcoef[nb]);
+
+		int last = -1;
+		int lastProjected = -1;
+
+		for (int k = 0; k < count && done[k]; k++) {
+			double pp = 0;
+			if (freqs[k] != 0.0)
+				pp = 1.0 / freqs[k];
+
+			if (projected[k]) {
+				amp = amplitudes[k];
+				dd = semiAmplitudes[k];
+				lastProjected = k;
+			}
+
+			collect_fft(freqs[k], pp, powers[k], dd, amp);
+			last = k;
+		}
+
+		// The projecting tasks have already published these results.
+		publishedRows = resultSeries.size();
+
+		// Leave the projection state as the last call to fft() would have.
+		nfre = 1;
+		if (lastProjected >= 0) {
+			dfre[nfre] = freqs[lastProjected];
+			project();
+		}
+		if (last >= 0) {
+			ff = freqs[last];
+			if (last != lastProjected) {
+				dfre[nfre] = ff;
+				project();
+			}
+		}
+
+		if (last < count - 1) {
+			throw new InterruptedException();
+		}
+	}
+
+	/**
+	 * Compute the power for each of a run of evenly spaced frequencies,
+	 * without collecting results or top hits. The power of a frequency below
+	 * the cutoff is 0.
+	 * 
+	 * It is a precondition that this is a frequency range analysis, so that
+	 * the statistics upon which a projection depends have been computed.
+	 * 
+	 * @see org.aavso.tools.vstar.util.period.IFrequencyScorer#score(double,
+	 *      double, double[])
+	 */
+	@Override
+	public void score(double loFreq, double step, double[] scores)
+			throws InterruptedException {
+		interrupted = false;
+
+		int count = scores.length;
+		double[] freqs = new double[count];
+		for (int i = 0; i < count; i++) {
+			freqs[i] = loFreq + (double) i * step;
+		}
+
+		boolean[] done = new boolean[count];
+
+		project_range(freqs, step, scores, new double[count],
+				new double[count], new boolean[count], done, null);
+
+		if (count > 0 && !done[count - 1]) {
+			throw new InterruptedException();
+		}
+	}
+
+	// Project the frequencies over as many threads as the workload warrants,
+	// recording the results of each in the arrays and, if there is a channel,
+	// publishing them as they are computed.
+	private void project_range(double[] freqs, double resolution,
+			double[] powers, double[] semiAmplitudes, double[] amplitudes,
+			boolean[] projected, boolean[] done, PartialResultChannel channel) {
+		scan.scan(freqs.length, numact, (from, to) -> project_block(freqs,
+				resolution, from, to, powers, semiAmplitudes, amplitudes,
+				projected, done, channel));
+	}
+
+	// Project a contiguous range of frequencies with a single scratch copy.
+	private void project_block(double[] freqs, double resolution, int from,
+			int to, double[] powers, double[] semiAmplitudes,
+			double[] amplitudes, boolean[] projected, boolean[] done,
+			PartialResultChannel channel) {
+		TSDcDft scratch = (TSDcDft) createProjectionCopy();
+		scratch.nfre = 1;
+
+		// Start from the first frequency of the whole scan, so values
+		// are identical to those of a single-threaded scan.
+		if (!Double.isNaN(resolution) && to > from) {
+			scratch.trigRecurrence = createTrigRecurrence(freqs[0],
+					resolution);
+			if (scratch.trigRecurrence != null) {
+				scratch.trigRecurrence.seek(from);
+			}
+		}
+
+		int na = npoly + 1;
+		int nb = na + 1;
+
+		int blockStart = from;
+		int end = from;
+
+		try {
+			for (int k = from; k < to; k++) {
+				if (interrupted)
+					break;
+
+				if (freqs[k] < dangcut) {
+					// project() would return before projecting.
+					powers[k] = 0.0;
+				} else {
+					scratch.dfre[1] = freqs[k];
+					scratch.project();
+					powers[k] = scratch.dfpow;
+					amplitudes[k] = scratch.damp;
+					semiAmplitudes[k] = Math.sqrt(scratch.dcoef[na]
+							* scratch.dcoef[na] + scratch.dcoef[nb]
+							* scratch.dcoef[nb]);
+					projected[k] = true;
+				}
+
+				if (scratch.trigRecurrence != null) {
+					scratch.trigRecurrence.advance();
+				}
+
+				done[k] = true;
+				end = k + 1;
+
+				if (channel != null
+						&& end - blockStart >= PartialResultChannel.DEFAULT_BLOCK_SIZE) {
+					publish_range(channel, freqs, powers, blockStart, end);
+					blockStart = end;
+				}
+			}
+		} catch (InterruptedException e) {
+			// Leave the remaining frequencies undone.
+		}
+
+		if (channel != null) {
+			publish_range(channel, freqs, powers, blockStart, end);
+		}
+	}
+
+	/**
+	 * Publish the results collected since the last publication, if there is a
+	 * channel and there are at least the specified number of them.
+	 * 
+	 * @param minRows
+	 *            The minimum number of unpublished results to publish.
+	 */
+	private void publish_collected(int minRows) {
+		PartialResultChannel channel = partialResults;
+		int rows = resultSeries.size();
+
+		if (channel != null && rows > publishedRows
+				&& rows - publishedRows >= minRows) {
+			int n = rows - publishedRows;
+			double[] freqs = new double[n];
+			double[] periods = new double[n];
+			double[] powers = new double[n];
+
+			// Columns are in coordTypes order: frequency, period, power,
+			// semi-amplitude.
+			for (int i = 0; i < n; i++) {
+				freqs[i] = resultSeries.get(0, publishedRows + i);
+				periods[i] = resultSeries.get(1, publishedRows + i);
+				powers[i] = resultSeries.get(2, publishedRows + i);
+			}
+
+			channel.publish(new PeriodogramBlock(freqs, periods, powers));
+			publishedRows = rows;
+		}
+	}
+
+	/**
+	 * Publish the projected powers of the frequencies in the index range
+	 * [from, to), with periods calculated as fft() would.
+	 */
+	private static void publish_range(PartialResultChannel channel,
+			double[] freqs, double[] powers, int from, int to) {
+		if (to > from) {
+			double[] periods = new double[to - from];
+			for (int k = from; k < to; k++) {
+				periods[k - from] = freqs[k] != 0.0 ? 1.0 / freqs[k] : 0;
+			}
+
+			channel.publish(new PeriodogramBlock(Arrays.copyOfRange(
+					freqs, from, to), periods, Arrays.copyOfRange(
+					powers, from, to)));
+		}
+	}
+
 	/**
 	 * Collect a single <frequency, period, power, amplitude> tuple result as a
 	 * data-point.
@@ -592,11 +929,9 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 	 */
 	private void collect_datapoint(double freq, double period, double power,
 			double amplitude) {
-		this.resultSeries.get(PeriodAnalysisCoordinateType.FREQUENCY).add(freq);
-		this.resultSeries.get(PeriodAnalysisCoordinateType.PERIOD).add(period);
-		this.resultSeries.get(PeriodAnalysisCoordinateType.POWER).add(power);
-		this.resultSeries.get(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE).add(
-				amplitude);
+		// Columns are in coordTypes order: frequency, period, power,
+		// semi-amplitude.
+		this.resultSeries.add(freq, period, power, amplitude);
 	}
 
 	// -------------------------------------------------------------------------------
@@ -1025,40 +1360,16 @@ public class TSDcDft extends TSBase implements IPeriodAnalysisAlgorithm {
 
 	// -------------------------------------------------------------------------------
 
-	// TODO: I think we will also want to add as many top hits as requested
-	// straight to the topHits map in a little bit...; the key difference from
-	// deltaTopHits is that topHits isn't cleared between calls to tablit();
-	// may want a list of PeriodAnalysisDataPoints instead.
-
-	// Note: this introduces O(N^2) operation each time tablit() is called!!
-
+	// Retain the most recent local maximum as a top hit if it is among the
+	// highest powers seen so far. As with the original fixed-size table, only
+	// positive powers are retained and of equal powers, the earliest ranks
+	// highest.
 	protected void tablit() {
-		int nq = 0;
-		int nqq = 0;
-
-		for (nq = 1; nq <= MAX_TOP_HITS - 1; nq++) {
-			// We have found a higher power!
-			if (dlpower > dgpower[nq]) {
-				// Move everything below this down one.
-				// Note that with a list, we'll just be able to insert!
-				for (nqq = MAX_TOP_HITS - 2; nqq >= nq; nqq--) {
-					dgpower[nqq + 1] = dgpower[nqq];
-					dgnu[nqq + 1] = dgnu[nqq];
-					dgper[nqq + 1] = dgper[nqq];
-					dgamplitude[nqq + 1] = dgamplitude[nqq];
-				}
-				// Replace the current element with the new highest.
-				dgpower[nq] = dlpower;
-				dgnu[nq] = dlnu;
-				dgper[nq] = dlper;
-				dgamplitude[nq] = dlamplitude;
-
-				// Capture this new value.
-				deltaTopHits.add(new PeriodAnalysisDataPoint(dlnu, dlper,
-						dlpower, dlamplitude));
-
-				return;
-			}
+		if (dlpower > 0
+				&& topHitsHeap.offer(dlpower, dlnu, dlper, dlamplitude)) {
+			// Capture this new value.
+			deltaTopHits.add(new PeriodAnalysisDataPoint(dlnu, dlper,
+					dlpower, dlamplitude));
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,515 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.lombscargle;
+
+import java.util.List;
+import java.util.Map;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.util.model.Harmonic;
+import org.aavso.tools.vstar.util.model.PeriodAnalysisDerivedMultiPeriodicModel;
+import org.aavso.tools.vstar.util.period.IPeriodAnalysisAlgorithm;
+import org.aavso.tools.vstar.util.period.ParallelPeriodScan;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+import org.aavso.tools.vstar.util.period.dcdft.DcDftAnalysisType;
+import org.aavso.tools.vstar.util.period.dcdft.PeriodAnalysisDataPoint;
+import org.aavso.tools.vstar.util.period.dcdft.TSDcDft;
+
+/**
+ * <p>
+ * Generalised Lomb-Scargle periodogram over an evenly spaced frequency range,
+ * computed in O(N log N) time rather than O(N &times; frequencies).
+ * </p>
+ *
+ * <p>
+ * The trigonometric sums the periodogram requires at every frequency, i.e.
+ * &Sigma;w<sub>i</sub>e<sup>i&omega;t<sub>i</sub></sup>,
+ * &Sigma;w<sub>i</sub>y<sub>i</sub>e<sup>i&omega;t<sub>i</sub></sup> and
+ * &Sigma;w<sub>i</sub>e<sup>2i&omega;t<sub>i</sub></sup>, are obtained for all
+ * frequencies at once by "extirpolating" each observation onto a regular grid
+ * with Lagrange weights and applying an FFT to the grid, as described by Press
+ * &amp; Rybicki. The sums, and so powers, are approximations whose relative
+ * error is typically well below 10<sup>-4</sup>.
+ * </p>
+ *
+ * <p>
+ * With a floating mean (Zechmeister &amp; K&uuml;rster), a constant offset is
+ * fitted along with the sinusoid at each frequency; otherwise the weighted
+ * mean is subtracted beforehand, as for the classical Lomb-Scargle
+ * periodogram. Power is normalised to lie between 0 (no fit) and 1 (perfect
+ * fit). Top hits are local power maxima.
+ * </p>
+ *
+ * <p>
+ * References:<br/>
+ * Press, W. H. &amp; Rybicki, G. B. (1989), "Fast algorithm for spectral
+ * analysis of unevenly sampled data", ApJ 338, 277<br/>
+ * Zechmeister, M. &amp; K&uuml;rster, M. (2009), "The generalised
+ * Lomb-Scargle periodogram", A&amp;A 496, 577
+ * </p>
+ */
+public class FastLombScargle implements IPeriodAnalysisAlgorithm {
+
+	/**
+	 * The default maximum number of top hits.
+	 */
+	public static final int DEFAULT_MAX_TOP_HITS = 100;
+
+	// Number of grid points onto which each observation is extirpolated.
+	private static final int MACC = 8;
+
+	// Minimum ratio of grid points to frequencies.
+	private static final int OVERSAMPLING = 8;
+
+	private static final int MIN_GRID_SIZE = 64;
+
+	// The products of (k - l) over l != k, for k = 0..MACC-1.
+	private static final double[] LAGRANGE_DENOMINATORS = new double[MACC];
+
+	static {
+		for (int k = 0; k < MACC; k++) {
+			LAGRANGE_DENOMINATORS[k] = 1;
+			for (int l = 0; l < MACC; l++) {
+				if (l != k) {
+					LAGRANGE_DENOMINATORS[k] *= k - l;
+				}
+			}
+		}
+	}
+
+	private List<ValidObservation> obs;
+
+	private double[] times;
+	private double[] mags;
+	private double[] weights;
+
+	private double loFreq;
+	private double resolution;
+	private int count;
+
+	private boolean floatingMean;
+	private int maxTopHits;
+
+	private PeriodAnalysisResult result;
+	private TopHitsHeap topHits;
+
+	private volatile boolean interrupted;
+
+	/**
+	 * Constructor
+	 *
+	 * All observations are weighted equally.
+	 *
+	 * @param obs
+	 *            The observations over which to perform the period analysis.
+	 * @param loFreq
+	 *            The lowest frequency.
+	 * @param hiFreq
+	 *            The highest frequency.
+	 * @param resolution
+	 *            The frequency step.
+	 * @param floatingMean
+	 *            Whether to fit a constant offset at each frequency.
+	 */
+	public FastLombScargle(List<ValidObservation> obs, double loFreq,
+			double hiFreq, double resolution, boolean floatingMean) {
+		this(ParallelPeriodScan.times(obs), ParallelPeriodScan.mags(obs),
+				null, loFreq, hiFreq, resolution, floatingMean);
+		this.obs = obs;
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param times
+	 *            The observation times.
+	 * @param mags
+	 *            The corresponding magnitudes.
+	 * @param weights
+	 *            The corresponding weights, e.g. inverse variances, or null to
+	 *            weight observations equally.
+	 * @param loFreq
+	 *            The lowest frequency.
+	 * @param hiFreq
+	 *            The highest frequency.
+	 * @param resolution
+	 *            The frequency step.
+	 * @param floatingMean
+	 *            Whether to fit a constant offset at each frequency.
+	 */
+	public FastLombScargle(double[] times, double[] mags, double[] weights,
+			double loFreq, double hiFreq, double resolution,
+			boolean floatingMean) {
+		if (times.length != mags.length
+				|| (weights != null && weights.length != times.length)) {
+			throw new IllegalArgumentException(
+					"Time, magnitude and weight arrays differ in length");
+		}
+
+		if (resolution <= 0) {
+			throw new IllegalArgumentException(
+					"Resolution must be greater than zero");
+		}
+
+		if (loFreq < 0 || hiFreq < loFreq) {
+			throw new IllegalArgumentException(
+					"Frequencies must be non-negative and the low frequency no greater than the high frequency");
+		}
+
+		this.times = times;
+		this.mags = mags;
+		this.weights = weights;
+		this.loFreq = loFreq;
+		this.resolution = resolution;
+		this.count = (int) ((hiFreq - loFreq) / resolution) + 1;
+		this.floatingMean = floatingMean;
+
+		maxTopHits = DEFAULT_MAX_TOP_HITS;
+
+		result = new PeriodAnalysisResult(
+				PeriodAnalysisCoordinateType.FREQUENCY,
+				PeriodAnalysisCoordinateType.PERIOD,
+				PeriodAnalysisCoordinateType.POWER,
+				PeriodAnalysisCoordinateType.SEMI_AMPLITUDE);
+
+		topHits = TopHitsHeap.largest(maxTopHits);
+
+		interrupted = false;
+	}
+
+	/**
+	 * @param maxTopHits
+	 *            the maximum number of top hits to retain
+	 */
+	public void setMaxTopHits(int maxTopHits) {
+		this.maxTopHits = Math.max(0, maxTopHits);
+	}
+
+	/**
+	 * @return whether a constant offset is fitted at each frequency
+	 */
+	public boolean isFloatingMean() {
+		return floatingMean;
+	}
+
+	/**
+	 * @return the number of trial frequencies
+	 */
+	public int getFrequencyCount() {
+		return count;
+	}
+
+	/**
+	 * Compute the periodogram.
+	 */
+	@Override
+	public void execute() throws AlgorithmError {
+		interrupted = false;
+
+		result.clear();
+		topHits = TopHitsHeap.largest(maxTopHits);
+
+		int n = times.length;
+
+		if (n < 2) {
+			throw new AlgorithmError(
+					"At least two observations are required");
+		}
+
+		// Normalise weights and centre times and magnitudes.
+		double[] w = new double[n];
+		double wsum = 0;
+		for (int i = 0; i < n; i++) {
+			w[i] = weights == null ? 1 : weights[i];
+			wsum += w[i];
+		}
+
+		double tRef = times[0];
+		double ybar = 0;
+		for (int i = 0; i < n; i++) {
+			w[i] /= wsum;
+			ybar += w[i] * mags[i];
+		}
+
+		double[] t = new double[n];
+		double[] wy = new double[n];
+		double yy = 0;
+		for (int i = 0; i < n; i++) {
+			t[i] = times[i] - tRef;
+			double y = mags[i] - ybar;
+			wy[i] = w[i] * y;
+			yy += wy[i] * y;
+		}
+
+		// Trigonometric sums for all frequencies.
+		double[] zeros = new double[n];
+		double[][] s1 = trigSums(t, w, zeros, loFreq, resolution);
+		double[][] sy = trigSums(t, wy, zeros, loFreq, resolution);
+		double[][] s2 = trigSums(t, w, zeros, 2 * loFreq, 2 * resolution);
+
+		if (interrupted) {
+			return;
+		}
+
+		double[] powers = new double[count];
+		double[] amplitudes = new double[count];
+
+		for (int j = 0; j < count; j++) {
+			double c = s1[0][j];
+			double s = s1[1][j];
+			double yc = sy[0][j];
+			double ys = sy[1][j];
+			double cc = (1 + s2[0][j]) / 2;
+			double ss = (1 - s2[0][j]) / 2;
+			double cs = s2[1][j] / 2;
+
+			if (floatingMean) {
+				// The weighted magnitude mean is 0, so YC and YS need no
+				// correction.
+				cc -= c * c;
+				ss -= s * s;
+				cs -= c * s;
+			}
+
+			double d = cc * ss - cs * cs;
+
+			if (d > 1e-12 && yy > 0) {
+				powers[j] = (ss * yc * yc + cc * ys * ys - 2 * cs * yc * ys)
+						/ (yy * d);
+				double a = (yc * ss - ys * cs) / d;
+				double b = (ys * cc - yc * cs) / d;
+				amplitudes[j] = Math.sqrt(a * a + b * b);
+			} else {
+				// Zero frequency or degenerate sampling.
+				powers[j] = 0;
+				amplitudes[j] = 0;
+			}
+		}
+
+		for (int j = 0; j < count; j++) {
+			double frequency = loFreq + j * resolution;
+			double period = frequency != 0 ? 1 / frequency : 0;
+
+			result.add(frequency, period, powers[j], amplitudes[j]);
+
+			boolean top;
+			if (count == 1) {
+				top = true;
+			} else if (j == 0) {
+				top = powers[j] > powers[j + 1];
+			} else if (j == count - 1) {
+				top = powers[j] > powers[j - 1];
+			} else {
+				top = powers[j] > powers[j - 1] && powers[j] >= powers[j + 1];
+			}
+
+			if (top) {
+				topHits.offer(j, powers[j], frequency, period, amplitudes[j]);
+			}
+		}
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	@Override
+	public PeriodAnalysisResult getResult() {
+		return result;
+	}
+
+	@Override
+	public Map<PeriodAnalysisCoordinateType, List<Double>> getResultSeries() {
+		return result.asMap();
+	}
+
+	@Override
+	public Map<PeriodAnalysisCoordinateType, List<Double>> getTopHits() {
+		return topHits.toMap(PeriodAnalysisCoordinateType.POWER,
+				PeriodAnalysisCoordinateType.SEMI_AMPLITUDE);
+	}
+
+	@Override
+	public String getRefineByFrequencyName() {
+		return null;
+	}
+
+	@Override
+	public List<PeriodAnalysisDataPoint> refineByFrequency(List<Double> freqs,
+			List<Double> variablePeriods, List<Double> lockedPeriod)
+			throws AlgorithmError {
+		return null;
+	}
+
+	/**
+	 * Create a multi-periodic fit by least squares, as for DC DFT.
+	 */
+	@Override
+	public void multiPeriodicFit(List<Harmonic> harmonics,
+			PeriodAnalysisDerivedMultiPeriodicModel model)
+			throws AlgorithmError, InterruptedException {
+		if (obs == null) {
+			throw new AlgorithmError(
+					"A model requires the source observations");
+		}
+
+		TSDcDft dcdft = new TSDcDft(obs, DcDftAnalysisType.FREQUENCY_RANGE);
+		dcdft.multiPeriodicFit(harmonics, model);
+	}
+
+	// Helpers
+
+	/**
+	 * Approximate the sums &Sigma;c<sub>i</sub>e<sup>2&pi;i(f0 +
+	 * j&Delta;f)t<sub>i</sub></sup> for j = 0..count-1, where c is complex.
+	 *
+	 * The coefficients are rotated to the first frequency, then extirpolated
+	 * onto an N point grid at positions N&times;frac(&Delta;f t<sub>i</sub>),
+	 * so that the sums are the first elements of the grid's (inverse) DFT.
+	 *
+	 * @return The real and imaginary parts of the sums.
+	 */
+	private double[][] trigSums(double[] t, double[] cRe, double[] cIm,
+			double f0, double df) {
+		int size = MIN_GRID_SIZE;
+		while (size < OVERSAMPLING * count) {
+			size <<= 1;
+		}
+
+		double[] gridRe = new double[size];
+		double[] gridIm = new double[size];
+
+		for (int i = 0; i < t.length; i++) {
+			double re = cRe[i];
+			double im = cIm[i];
+
+			if (f0 != 0) {
+				double angle = 2 * Math.PI * f0 * t[i];
+				double cos = Math.cos(angle);
+				double sin = Math.sin(angle);
+				double rotated = re * cos - im * sin;
+				im = re * sin + im * cos;
+				re = rotated;
+			}
+
+			double phase = df * t[i];
+			double x = (phase - Math.floor(phase)) * size;
+
+			extirpolate(re, im, x, gridRe, gridIm);
+
+			if (interrupted) {
+				break;
+			}
+		}
+
+		fft(gridRe, gridIm);
+
+		double[][] sums = new double[2][count];
+		System.arraycopy(gridRe, 0, sums[0], 0, count);
+		System.arraycopy(gridIm, 0, sums[1], 0, count);
+
+		return sums;
+	}
+
+	// Add a complex value at position x to the grid (cyclically), spread over
+	// the MACC nearest grid points with Lagrange interpolation weights, so
+	// that the grid's DFT approximates that of the value at x.
+	private static void extirpolate(double re, double im, double x,
+			double[] gridRe, double[] gridIm) {
+		int size = gridRe.length;
+		int ix = (int) x;
+
+		if (x == ix) {
+			gridRe[ix % size] += re;
+			gridIm[ix % size] += im;
+		} else {
+			int lo = ix - MACC / 2 + 1;
+
+			double product = 1;
+			for (int k = 0; k < MACC; k++) {
+				product *= x - (lo + k);
+			}
+
+			for (int k = 0; k < MACC; k++) {
+				double weight = product
+						/ (LAGRANGE_DENOMINATORS[k] * (x - (lo + k)));
+				int index = Math.floorMod(lo + k, size);
+				gridRe[index] += weight * re;
+				gridIm[index] += weight * im;
+			}
+		}
+	}
+
+	// In-place radix-2 FFT computing X[j] = sum_m x[m] exp(+2 pi i j m / N),
+	// where N is a power of two.
+	private static void fft(double[] re, double[] im) {
+		int n = re.length;
+
+		// Bit reversal permutation.
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+
+			if (i < j) {
+				double tmp = re[i];
+				re[i] = re[j];
+				re[j] = tmp;
+				tmp = im[i];
+				im[i] = im[j];
+				im[j] = tmp;
+			}
+		}
+
+		// Twiddle factors for the largest stage; smaller stages stride
+		// through them.
+		int half = n / 2;
+		double[] cos = new double[half];
+		double[] sin = new double[half];
+		for (int k = 0; k < half; k++) {
+			double angle = 2 * Math.PI * k / n;
+			cos[k] = Math.cos(angle);
+			sin[k] = Math.sin(angle);
+		}
+
+		for (int len = 2; len <= n; len <<= 1) {
+			int halfLen = len >> 1;
+			int stride = n / len;
+			for (int i = 0; i < n; i += len) {
+				for (int k = 0; k < halfLen; k++) {
+					double wr = cos[k * stride];
+					double wi = sin[k * stride];
+					int a = i + k;
+					int b = a + halfLen;
+					double xr = re[b] * wr - im[b] * wi;
+					double xi = re[b] * wi + im[b] * wr;
+					re[b] = re[a] - xr;
+					im[b] = im[a] - xi;
+					re[a] += xr;
+					im[a] += xi;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,413 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.pdm;
+
+import java.util.List;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.util.IAlgorithm;
+import org.aavso.tools.vstar.util.period.ParallelPeriodScan;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+import org.aavso.tools.vstar.util.stats.PhaseBinner;
+import org.apache.commons.math.MathException;
+import org.apache.commons.math.special.Beta;
+
+/**
+ * <p>
+ * Phase Dispersion Minimisation (PDM) periodogram over a period range.
+ * </p>
+ *
+ * <p>
+ * For each trial period, observations are phased and binned into a number of
+ * equal width bins, optionally repeated for several covers, i.e. sets of bins
+ * offset from each other by a fraction of a bin width. The statistic theta is
+ * the pooled variance of the bins relative to the overall variance of the
+ * magnitudes; values much less than 1 indicate a candidate period. Binning is
+ * carried out by PhaseBinner, so no objects are created per trial period.
+ * </p>
+ *
+ * <p>
+ * As in PDM2, the significance of theta may optionally be computed from the
+ * incomplete beta function, theta being beta distributed with parameters
+ * (N-M)/2 and (M-1)/2 for N observations in M bins in the absence of a
+ * signal. Smaller values are more significant. With more than one cover, N
+ * and M are those of a single cover, since covers are not independent.
+ * </p>
+ *
+ * <p>
+ * The period range is partitioned across a fork-join pool in the same way as
+ * AoVPeriodogram. Results do not depend upon the number of threads used.
+ * </p>
+ *
+ * <p>
+ * References: Stellingwerf, R. F. (1978), "Period determination using phase
+ * dispersion minimization", ApJ 224, 953; Stellingwerf, R. F. (2011), "Period
+ * Search with PDM2"
+ * </p>
+ */
+public class PDMPeriodogram implements IAlgorithm {
+
+	/**
+	 * The default maximum number of top hits.
+	 */
+	public static final int DEFAULT_MAX_TOP_HITS = 20;
+
+	/**
+	 * The default number of bins.
+	 */
+	public static final int DEFAULT_BINS = 10;
+
+	/**
+	 * The default number of covers.
+	 */
+	public static final int DEFAULT_COVERS = 2;
+
+	private double[] times;
+	private double[] mags;
+	private double epoch;
+	private int bins;
+	private int covers;
+	private boolean significance;
+	private int maxTopHits;
+
+	private double variance;
+
+	private double[] periods;
+	private double[] frequencies;
+	private double[] thetas;
+	private double[] significances;
+	private TopHitsHeap topHits;
+
+	private ThreadLocal<Workspace> workspaces;
+
+	private volatile boolean interrupted;
+	private volatile boolean cancelled;
+	private ParallelPeriodScan scan;
+
+	/**
+	 * Constructor
+	 *
+	 * The epoch is the earliest observation time.
+	 *
+	 * @param obs          The observations over which to search.
+	 * @param minPeriod    The minimum period to test.
+	 * @param maxPeriod    The maximum period to test.
+	 * @param resolution   The period step.
+	 * @param bins         The number of bins per cover.
+	 * @param covers       The number of covers.
+	 * @param significance Whether to compute the significance of theta.
+	 */
+	public PDMPeriodogram(List<ValidObservation> obs, double minPeriod, double maxPeriod, double resolution,
+			int bins, int covers, boolean significance) {
+		this(ParallelPeriodScan.times(obs), ParallelPeriodScan.mags(obs), minPeriod, maxPeriod, resolution, bins,
+				covers, significance);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * The epoch is the earliest observation time.
+	 *
+	 * @param times        The observation times (JD).
+	 * @param mags         The corresponding magnitudes.
+	 * @param minPeriod    The minimum period to test; must be greater than
+	 *                     zero.
+	 * @param maxPeriod    The maximum period to test.
+	 * @param resolution   The period step.
+	 * @param bins         The number of bins per cover.
+	 * @param covers       The number of covers.
+	 * @param significance Whether to compute the significance of theta.
+	 */
+	public PDMPeriodogram(double[] times, double[] mags, double minPeriod, double maxPeriod, double resolution,
+			int bins, int covers, boolean significance) {
+		if (times.length != mags.length) {
+			throw new IllegalArgumentException("Time and magnitude arrays differ in length");
+		}
+
+		if (minPeriod <= 0) {
+			throw new IllegalArgumentException("Minimum period must be greater than zero");
+		}
+
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("Resolution must be greater than zero");
+		}
+
+		if (bins < 2) {
+			throw new IllegalArgumentException("Number of bins must be at least two");
+		}
+
+		if (covers < 1) {
+			throw new IllegalArgumentException("Number of covers must be at least one");
+		}
+
+		this.times = times;
+		this.mags = mags;
+		this.bins = bins;
+		this.covers = covers;
+		this.significance = significance;
+
+		epoch = Double.POSITIVE_INFINITY;
+		for (double t : times) {
+			epoch = Math.min(epoch, t);
+		}
+
+		periods = ParallelPeriodScan.createPeriods(minPeriod, maxPeriod, resolution);
+		frequencies = new double[periods.length];
+		thetas = new double[periods.length];
+		significances = new double[periods.length];
+
+		maxTopHits = DEFAULT_MAX_TOP_HITS;
+		topHits = TopHitsHeap.smallest(maxTopHits);
+		scan = new ParallelPeriodScan();
+
+		interrupted = false;
+		cancelled = false;
+	}
+
+	/**
+	 * Execute the PDM search over the period range.
+	 */
+	@Override
+	public void execute() throws AlgorithmError {
+		interrupted = false;
+		cancelled = false;
+
+		if (times.length <= bins) {
+			throw new AlgorithmError("Too few observations for the number of bins");
+		}
+
+		variance = sampleVariance(mags);
+
+		workspaces = ThreadLocal.withInitial(() -> new Workspace(times.length, bins, covers));
+
+		try {
+			topHits = scan.scan(periods.length, times.length * covers, this::evaluateRange, (left, right) -> {
+				left.merge(right);
+				return left;
+			});
+			cancelled = interrupted;
+		} catch (RuntimeException e) {
+			throw new AlgorithmError(e.getMessage() != null ? e.getMessage() : "PDM runtime failure");
+		} finally {
+			workspaces = null;
+		}
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	/**
+	 * @return true if the last execute() call was interrupted before all trial
+	 *         periods were evaluated.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Number of threads (cores) to use for PDM execution.
+	 *
+	 * @param threadCount desired number of threads/cores
+	 * @see ParallelPeriodScan#setThreadCount(int)
+	 */
+	public void setThreadCount(int threadCount) {
+		scan.setThreadCount(threadCount);
+	}
+
+	/**
+	 * @return configured number of threads (cores) for PDM execution.
+	 */
+	public int getThreadCount() {
+		return scan.getThreadCount();
+	}
+
+	/**
+	 * @see ParallelPeriodScan#getRecommendedThreadCount()
+	 */
+	public static int getRecommendedThreadCount() {
+		return ParallelPeriodScan.getRecommendedThreadCount();
+	}
+
+	/**
+	 * @param maxTopHits the maximum number of top hits to retain
+	 */
+	public void setMaxTopHits(int maxTopHits) {
+		this.maxTopHits = Math.max(0, maxTopHits);
+	}
+
+	/**
+	 * @return the epoch (time of phase zero)
+	 */
+	public double getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * @return the trial periods
+	 */
+	public double[] getPeriods() {
+		return periods;
+	}
+
+	/**
+	 * @return the trial frequencies
+	 */
+	public double[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return theta for each trial period, NaN where undefined
+	 */
+	public double[] getThetas() {
+		return thetas;
+	}
+
+	/**
+	 * @return the significance of theta for each trial period; NaN where
+	 *         undefined or if significance was not requested
+	 */
+	public double[] getSignificances() {
+		return significances;
+	}
+
+	/**
+	 * @return the top hits in ascending order of theta, with significances as
+	 *         metrics and result array indices as ordinals; trial periods with
+	 *         an undefined theta are never top hits
+	 */
+	public TopHitsHeap getTopHits() {
+		return topHits;
+	}
+
+	// Helpers
+
+	// Evaluate the trial periods in the index range [from, to) on the
+	// current thread, returning the top hits for that range.
+	private TopHitsHeap evaluateRange(int from, int to) {
+		Workspace ws = workspaces.get();
+		TopHitsHeap hits = TopHitsHeap.smallest(maxTopHits);
+
+		for (int k = from; k < to; k++) {
+			if (interrupted)
+				break;
+
+			evaluate(k, ws);
+			hits.offer(k, thetas[k], frequencies[k], periods[k], significances[k]);
+		}
+
+		return hits;
+	}
+
+	// Phase and bin the observations for each cover of the k-th trial
+	// period, then compute theta from the pooled bin variance.
+	private void evaluate(int k, Workspace ws) {
+		double period = periods[k];
+
+		int n = times.length;
+		double[] phases = ws.phases;
+
+		for (int i = 0; i < n; i++) {
+			double phase = (times[i] - epoch) / period;
+			phases[i] = phase - Math.floor(phase);
+		}
+
+		double pooled = 0;
+		long dof = 0;
+		int usableBins = 0;
+
+		for (PhaseBinner binner : ws.binners) {
+			binner.bin(phases, mags, n);
+
+			int[] counts = binner.getCounts();
+			double[] variances = binner.getVariances();
+
+			for (int b = 0; b < bins; b++) {
+				if (counts[b] > 1) {
+					pooled += (counts[b] - 1) * variances[b];
+					dof += counts[b] - 1;
+					usableBins++;
+				}
+			}
+		}
+
+		double theta = Double.NaN;
+		double p = Double.NaN;
+
+		if (dof > 0 && variance > 0) {
+			theta = (pooled / dof) / variance;
+
+			if (significance) {
+				// Degrees of freedom of a single cover.
+				double a = dof / (2.0 * covers);
+				double b = (usableBins / (double) covers - 1) / 2.0;
+
+				if (a > 0 && b > 0) {
+					try {
+						p = Beta.regularizedBeta(Math.min(theta, 1.0), a, b);
+					} catch (MathException e) {
+						p = Double.NaN;
+					}
+				}
+			}
+		}
+
+		frequencies[k] = 1.0 / period;
+		thetas[k] = theta;
+		significances[k] = p;
+	}
+
+	private static double sampleVariance(double[] values) {
+		int n = values.length;
+		if (n < 2) {
+			return Double.NaN;
+		}
+
+		double mean = 0;
+		for (double value : values) {
+			mean += value;
+		}
+		mean /= n;
+
+		double ss = 0;
+		for (double value : values) {
+			double d = value - mean;
+			ss += d * d;
+		}
+
+		return ss / (n - 1);
+	}
+
+	// Per-thread buffers: a phase array and a binner for each cover, each
+	// cover's bins being offset by a fraction of a bin width.
+	private static class Workspace {
+		final double[] phases;
+		final PhaseBinner[] binners;
+
+		Workspace(int n, int bins, int covers) {
+			phases = new double[n];
+			binners = new PhaseBinner[covers];
+			for (int c = 0; c < covers; c++) {
+				binners[c] = new PhaseBinner(bins, c / (double) (bins * covers));
+			}
+		}
+	}
+}
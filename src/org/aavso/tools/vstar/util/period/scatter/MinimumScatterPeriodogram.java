@@ -0,0 +1,469 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2018  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.scatter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.AlgorithmError;
+import org.aavso.tools.vstar.util.IAlgorithm;
+import org.aavso.tools.vstar.util.period.ParallelPeriodScan;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+
+/**
+ * <p>
+ * Minimum scatter period search, a port of Jeff Byron's Period Finder.
+ * </p>
+ *
+ * <p>
+ * For each trial period, observations are phased and sorted by phase, then
+ * the scatter (the sum of absolute magnitude differences between neighbours)
+ * and the sum of the segments joining neighbours on the phase plot are
+ * computed. Only trial periods whose scatter is lower than that of all
+ * previous (shorter) trial periods are retained, i.e. the successive best
+ * matches.
+ * </p>
+ *
+ * <p>
+ * The period range is partitioned across a fork-join pool. Each worker thread
+ * has its own phase and ordering buffers and tracks the best matches within
+ * its part of the range; these are merged in period order once all trial
+ * periods have been evaluated.
+ * </p>
+ *
+ * <p>
+ * The original code bubble sorted the observations in place for each trial
+ * period, starting from the order for the previous one, so observations with
+ * equal phases are ordered by their phases for the previous trial periods,
+ * then by original order. The same ordering is used here, so results are
+ * identical to those of the original code and do not depend upon the number
+ * of threads used.
+ * </p>
+ */
+public class MinimumScatterPeriodogram implements IAlgorithm {
+
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+
+	// Initial best match; much more than any expected scatter.
+	private static final double INITIAL_BEST_MATCH = 1000000000.0;
+
+	/**
+	 * The default maximum number of top hits.
+	 */
+	public static final int DEFAULT_MAX_TOP_HITS = 20;
+
+	private double[] times;
+	private double[] mags;
+	private double[] trialPeriods;
+	private int maxTopHits;
+
+	private BestMatches bestMatches;
+	private TopHitsHeap topHits;
+
+	private ThreadLocal<Workspace> workspaces;
+
+	private volatile boolean interrupted;
+	private volatile boolean cancelled;
+	private ParallelPeriodScan scan;
+
+	/**
+	 * Constructor
+	 *
+	 * @param obs        The observations over which to search.
+	 * @param minPeriod  The minimum period to test.
+	 * @param maxPeriod  The maximum period to test.
+	 * @param resolution The period step.
+	 */
+	public MinimumScatterPeriodogram(List<ValidObservation> obs, double minPeriod, double maxPeriod,
+			double resolution) {
+		this(ParallelPeriodScan.times(obs), ParallelPeriodScan.mags(obs), minPeriod, maxPeriod, resolution);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param times      The observation times (JD).
+	 * @param mags       The corresponding magnitudes.
+	 * @param minPeriod  The minimum period to test.
+	 * @param maxPeriod  The maximum period to test.
+	 * @param resolution The period step.
+	 */
+	public MinimumScatterPeriodogram(double[] times, double[] mags, double minPeriod, double maxPeriod,
+			double resolution) {
+		if (times.length != mags.length) {
+			throw new IllegalArgumentException("Time and magnitude arrays differ in length");
+		}
+
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("Resolution must be greater than zero");
+		}
+
+		this.times = times;
+		this.mags = mags;
+
+		trialPeriods = createPeriods(minPeriod, maxPeriod, resolution);
+
+		maxTopHits = DEFAULT_MAX_TOP_HITS;
+		bestMatches = new BestMatches();
+		topHits = TopHitsHeap.smallest(maxTopHits);
+		scan = new ParallelPeriodScan();
+
+		interrupted = false;
+		cancelled = false;
+	}
+
+	/**
+	 * Execute the minimum scatter period search over the period range.
+	 */
+	@Override
+	public void execute() throws AlgorithmError {
+		interrupted = false;
+		cancelled = false;
+
+		workspaces = ThreadLocal.withInitial(() -> new Workspace(times.length));
+
+		try {
+			BestMatches matches = scan.scan(trialPeriods.length, times.length, this::evaluateRange,
+					(preceding, following) -> {
+						preceding.merge(following);
+						return preceding;
+					});
+
+			bestMatches = matches;
+
+			topHits = TopHitsHeap.smallest(maxTopHits);
+			for (int i = 0; i < matches.size; i++) {
+				double period = trialPeriods[matches.indices[i]];
+				topHits.offer(matches.indices[i], matches.scatters[i], 1.0 / period, period,
+						matches.segmentSums[i]);
+			}
+
+			cancelled = interrupted;
+		} catch (RuntimeException e) {
+			throw new AlgorithmError(
+					e.getMessage() != null ? e.getMessage() : "Minimum scatter period search runtime failure");
+		} finally {
+			workspaces = null;
+		}
+	}
+
+	@Override
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	/**
+	 * @return true if the last execute() call was interrupted before all trial
+	 *         periods were evaluated.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Number of threads (cores) to use for execution.
+	 *
+	 * @param threadCount desired number of threads/cores
+	 * @see ParallelPeriodScan#setThreadCount(int)
+	 */
+	public void setThreadCount(int threadCount) {
+		scan.setThreadCount(threadCount);
+	}
+
+	/**
+	 * @return configured number of threads (cores) for execution.
+	 */
+	public int getThreadCount() {
+		return scan.getThreadCount();
+	}
+
+	/**
+	 * @see ParallelPeriodScan#getRecommendedThreadCount()
+	 */
+	public static int getRecommendedThreadCount() {
+		return ParallelPeriodScan.getRecommendedThreadCount();
+	}
+
+	/**
+	 * @param maxTopHits the maximum number of top hits to retain
+	 */
+	public void setMaxTopHits(int maxTopHits) {
+		this.maxTopHits = Math.max(0, maxTopHits);
+	}
+
+	/**
+	 * @return the number of trial periods
+	 */
+	public int getTrialCount() {
+		return trialPeriods.length;
+	}
+
+	/**
+	 * @return the periods of the successive best matches, in increasing order
+	 */
+	public double[] getPeriods() {
+		double[] periods = new double[bestMatches.size];
+		for (int i = 0; i < periods.length; i++) {
+			periods[i] = trialPeriods[bestMatches.indices[i]];
+		}
+		return periods;
+	}
+
+	/**
+	 * @return the frequencies of the successive best matches, in increasing
+	 *         order of period
+	 */
+	public double[] getFrequencies() {
+		double[] frequencies = getPeriods();
+		for (int i = 0; i < frequencies.length; i++) {
+			frequencies[i] = 1.0 / frequencies[i];
+		}
+		return frequencies;
+	}
+
+	/**
+	 * @return the scatter of the successive best matches, in increasing order
+	 *         of period (and so decreasing order of scatter)
+	 */
+	public double[] getScatters() {
+		return Arrays.copyOf(bestMatches.scatters, bestMatches.size);
+	}
+
+	/**
+	 * @return the sum of segments of the successive best matches, in
+	 *         increasing order of period
+	 */
+	public double[] getSegmentSums() {
+		return Arrays.copyOf(bestMatches.segmentSums, bestMatches.size);
+	}
+
+	/**
+	 * @return the best matches in increasing order of scatter, with segment
+	 *         sums as metrics and trial period indices as ordinals
+	 */
+	public TopHitsHeap getTopHits() {
+		return topHits;
+	}
+
+	// Helpers
+
+	// Evaluate the trial periods in the index range [from, to) on the
+	// current thread, returning the successive best matches in that range.
+	private BestMatches evaluateRange(int from, int to) {
+		Workspace ws = workspaces.get();
+		BestMatches matches = new BestMatches();
+
+		double bestMatch = INITIAL_BEST_MATCH;
+
+		for (int k = from; k < to; k++) {
+			if (interrupted)
+				break;
+
+			evaluate(k, ws);
+
+			if (ws.scatter < bestMatch) {
+				bestMatch = ws.scatter;
+				matches.add(k, ws.scatter, ws.segmentSum);
+			}
+		}
+
+		return matches;
+	}
+
+	// Phase and sort the observations for the k-th trial period, then
+	// compute the scatter and sum of segments.
+	private void evaluate(int k, Workspace ws) {
+		double period = trialPeriods[k];
+
+		int n = times.length;
+		double[] phases = ws.phases;
+		int[] order = ws.order;
+
+		for (int i = 0; i < n; i++) {
+			phases[i] = phase(times[i], period);
+		}
+
+		sort(order, ws.scratch, phases, k, 0, n);
+
+		double scatter = 0;
+		double seg = 0;
+
+		for (int i = 1; i < n; i++) {
+			int curr = order[i];
+			int prev = order[i - 1];
+
+			double phaseDiff = phases[curr] - phases[prev];
+			double magDiff = mags[curr] - mags[prev];
+
+			seg += Math.sqrt(phaseDiff * phaseDiff + magDiff * magDiff);
+			scatter += Math.abs(magDiff);
+		}
+
+		ws.scatter = scatter;
+		ws.segmentSum = seg;
+	}
+
+	private static double phase(double time, double period) {
+		return (time / period) - Math.floor(time / period);
+	}
+
+	// Does observation a precede observation b for the k-th trial period, i.e.
+	// by phase, then by phase for previous trial periods, then by original
+	// order?
+	private boolean precedes(double[] phases, int k, int a, int b) {
+		double phaseA = phases[a];
+		double phaseB = phases[b];
+
+		if (phaseA < phaseB) {
+			return true;
+		} else if (phaseA > phaseB) {
+			return false;
+		}
+
+		// Equal times have equal phases for every trial period. Otherwise,
+		// ties are rare, so recomputing earlier phases is cheap.
+		if (times[a] != times[b]) {
+			for (int j = k - 1; j >= 0; j--) {
+				phaseA = phase(times[a], trialPeriods[j]);
+				phaseB = phase(times[b], trialPeriods[j]);
+
+				if (phaseA < phaseB) {
+					return true;
+				} else if (phaseA > phaseB) {
+					return false;
+				}
+			}
+		}
+
+		return a < b;
+	}
+
+	// Merge sort the index range [lo, hi) of order for the k-th trial period.
+	// Since the ordering is total, the result is independent of the initial
+	// order, but an ordering close to the last one (adjacent trial periods) is
+	// cheaper to sort.
+	private void sort(int[] order, int[] scratch, double[] phases, int k, int lo, int hi) {
+		if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+			for (int i = lo + 1; i < hi; i++) {
+				int x = order[i];
+				int j = i - 1;
+				while (j >= lo && precedes(phases, k, x, order[j])) {
+					order[j + 1] = order[j];
+					j--;
+				}
+				order[j + 1] = x;
+			}
+			return;
+		}
+
+		int mid = (lo + hi) >>> 1;
+		sort(order, scratch, phases, k, lo, mid);
+		sort(order, scratch, phases, k, mid, hi);
+
+		if (!precedes(phases, k, order[mid], order[mid - 1])) {
+			return;
+		}
+
+		System.arraycopy(order, lo, scratch, lo, hi - lo);
+
+		int i = lo;
+		int j = mid;
+		for (int m = lo; m < hi; m++) {
+			if (i >= mid) {
+				order[m] = scratch[j++];
+			} else if (j >= hi) {
+				order[m] = scratch[i++];
+			} else if (precedes(phases, k, scratch[j], scratch[i])) {
+				order[m] = scratch[j++];
+			} else {
+				order[m] = scratch[i++];
+			}
+		}
+	}
+
+	private static double[] createPeriods(double minPeriod, double maxPeriod, double resolution) {
+		// The same accumulation as the original sequential period loop, so
+		// the trial periods are identical irrespective of how the range is
+		// partitioned.
+		int count = 0;
+		for (double period = minPeriod; period < maxPeriod + resolution; period += resolution) {
+			count++;
+		}
+
+		double[] periods = new double[count];
+		int i = 0;
+		for (double period = minPeriod; period < maxPeriod + resolution; period += resolution) {
+			periods[i++] = period;
+		}
+
+		return periods;
+	}
+
+	// Successive best matches (trial period index, scatter and sum of
+	// segments) over a range of trial periods, in period order.
+	private static class BestMatches {
+		int[] indices = new int[16];
+		double[] scatters = new double[16];
+		double[] segmentSums = new double[16];
+		int size = 0;
+
+		void add(int index, double scatter, double segmentSum) {
+			if (size == indices.length) {
+				indices = Arrays.copyOf(indices, size * 2);
+				scatters = Arrays.copyOf(scatters, size * 2);
+				segmentSums = Arrays.copyOf(segmentSums, size * 2);
+			}
+			indices[size] = index;
+			scatters[size] = scatter;
+			segmentSums[size] = segmentSum;
+			size++;
+		}
+
+		// Append the best matches of the following range that improve upon
+		// those of this one.
+		void merge(BestMatches following) {
+			double bestMatch = size > 0 ? scatters[size - 1] : INITIAL_BEST_MATCH;
+
+			for (int i = 0; i < following.size; i++) {
+				if (following.scatters[i] < bestMatch) {
+					bestMatch = following.scatters[i];
+					add(following.indices[i], following.scatters[i], following.segmentSums[i]);
+				}
+			}
+		}
+	}
+
+	// Per-thread buffers.
+	private static class Workspace {
+		final double[] phases;
+		final int[] order;
+		final int[] scratch;
+		double scatter;
+		double segmentSum;
+
+		Workspace(int n) {
+			phases = new double[n];
+			order = new int[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			scratch = new int[n];
+		}
+	}
+}
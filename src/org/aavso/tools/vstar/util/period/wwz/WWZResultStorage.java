@@ -0,0 +1,47 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.wwz;
+
+/**
+ * How the WWZ statistics of a tau-frequency grid are stored.
+ *
+ * @see org.aavso.tools.vstar.util.period.wwz.WWZResultStore
+ */
+public enum WWZResultStorage {
+
+	/**
+	 * Choose HEAP, COMPACT or MAPPED according to the size of the grid and
+	 * the free heap.
+	 */
+	AUTOMATIC,
+
+	/**
+	 * Double precision columns on the heap.
+	 */
+	HEAP,
+
+	/**
+	 * Single precision columns on the heap.
+	 */
+	COMPACT,
+
+	/**
+	 * Single precision columns in a memory-mapped temporary file.
+	 */
+	MAPPED;
+}
@@ -0,0 +1,427 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.wwz;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * A columnar store for the WWZ statistics of a tau-frequency grid.
+ * </p>
+ *
+ * <p>
+ * The tau and frequency of each grid point are held once per grid row and
+ * column rather than per point, and the WWZ, amplitude, mean magnitude and
+ * effective number of data are held in primitive columns, either in double or
+ * single (compact) precision on the heap, or in single precision in a
+ * memory-mapped temporary file, so that fine grids need not fit in the heap.
+ * </p>
+ *
+ * <p>
+ * Points are indexed in tau-major order, i.e. the statistic for the i-th tau
+ * and j-th frequency is at index i * (number of frequencies) + j, as for the
+ * list of statistics previously returned by the WWZ algorithm. The list
+ * returned by asList() is a read-only view that creates a WWZStatistic on
+ * demand; models that are aware of the view read the columns directly.
+ * </p>
+ *
+ * <p>
+ * Distinct points may be set concurrently by different threads provided the
+ * store is not read until the writing threads have been joined.
+ * </p>
+ */
+public class WWZResultStore {
+
+	/**
+	 * The number of grid points above which automatic storage uses single
+	 * precision columns.
+	 */
+	public static final long COMPACT_GRID_POINTS = 1000000L;
+
+	/**
+	 * The fraction of the available heap above which automatic storage maps
+	 * the columns to a temporary file.
+	 */
+	public static final double MAX_HEAP_FRACTION = 0.25;
+
+	private static final int NUM_COLUMNS = 4;
+
+	private static final int WWZ_COLUMN = 0;
+	private static final int AMP_COLUMN = 1;
+	private static final int MAVE_COLUMN = 2;
+	private static final int NEFF_COLUMN = 3;
+
+	private double[] taus;
+	private double[] freqs;
+	private int size;
+
+	private WWZResultStorage storage;
+
+	private Column[] columns;
+	private File file;
+
+	/**
+	 * Constructor
+	 *
+	 * @param taus
+	 *            The tau values of the grid; the array is copied.
+	 * @param freqs
+	 *            The frequencies of the grid; the array is copied.
+	 * @param storage
+	 *            How the statistics should be stored.
+	 * @throws IOException
+	 *             if the temporary file for mapped storage cannot be created.
+	 * @throws IllegalArgumentException
+	 *             if the grid has too many points to be indexed as a list.
+	 */
+	public WWZResultStore(double[] taus, double[] freqs,
+			WWZResultStorage storage) throws IOException {
+		long points = (long) taus.length * freqs.length;
+		if (points > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("WWZ grid has too many points: "
+					+ points);
+		}
+
+		this.taus = taus.clone();
+		this.freqs = freqs.clone();
+		size = (int) points;
+
+		this.storage = storage == WWZResultStorage.AUTOMATIC ? chooseStorage(points)
+				: storage;
+
+		columns = new Column[NUM_COLUMNS];
+
+		switch (this.storage) {
+		case HEAP:
+			for (int i = 0; i < NUM_COLUMNS; i++) {
+				columns[i] = new DoubleColumn(size);
+			}
+			break;
+		case COMPACT:
+			for (int i = 0; i < NUM_COLUMNS; i++) {
+				columns[i] = new FloatColumn(size);
+			}
+			break;
+		default:
+			mapColumns();
+			break;
+		}
+	}
+
+	/**
+	 * Choose the storage for a grid of the specified size, given the heap that
+	 * is currently available.
+	 *
+	 * @param points
+	 *            The number of grid points.
+	 * @return HEAP, COMPACT or MAPPED.
+	 */
+	public static WWZResultStorage chooseStorage(long points) {
+		Runtime runtime = Runtime.getRuntime();
+		long available = runtime.maxMemory()
+				- (runtime.totalMemory() - runtime.freeMemory());
+
+		WWZResultStorage storage = WWZResultStorage.HEAP;
+
+		if (points * NUM_COLUMNS * Float.BYTES > available * MAX_HEAP_FRACTION) {
+			storage = WWZResultStorage.MAPPED;
+		} else if (points > COMPACT_GRID_POINTS) {
+			storage = WWZResultStorage.COMPACT;
+		}
+
+		return storage;
+	}
+
+	/**
+	 * @return the storage in use; never AUTOMATIC
+	 */
+	public WWZResultStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * @return the number of grid points
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of tau values
+	 */
+	public int getTauCount() {
+		return taus.length;
+	}
+
+	/**
+	 * @return the number of frequencies
+	 */
+	public int getFrequencyCount() {
+		return freqs.length;
+	}
+
+	/**
+	 * Set the statistics for a grid point.
+	 *
+	 * @param itau
+	 *            The (zero-based) tau index.
+	 * @param ifreq
+	 *            The (zero-based) frequency index.
+	 * @param wwz
+	 *            The WWZ.
+	 * @param amp
+	 *            The semi-amplitude.
+	 * @param mave
+	 *            The mean magnitude.
+	 * @param neff
+	 *            The effective number of data.
+	 */
+	public void set(int itau, int ifreq, double wwz, double amp, double mave,
+			double neff) {
+		int index = itau * freqs.length + ifreq;
+
+		columns[WWZ_COLUMN].set(index, wwz);
+		columns[AMP_COLUMN].set(index, amp);
+		columns[MAVE_COLUMN].set(index, mave);
+		columns[NEFF_COLUMN].set(index, neff);
+	}
+
+	/**
+	 * Get a coordinate of the statistic at the specified index.
+	 *
+	 * @param index
+	 *            The (tau-major) index of the grid point.
+	 * @param type
+	 *            The coordinate type.
+	 * @return The value of the coordinate.
+	 */
+	public double getValue(int index, WWZCoordinateType type) {
+		double value = 0;
+
+		switch (type) {
+		case TAU:
+			value = taus[index / freqs.length];
+			break;
+		case FREQUENCY:
+			value = freqs[index % freqs.length];
+			break;
+		case PERIOD:
+			value = 1.0 / freqs[index % freqs.length];
+			break;
+		case WWZ:
+			value = columns[WWZ_COLUMN].get(index);
+			break;
+		case SEMI_AMPLITUDE:
+			value = columns[AMP_COLUMN].get(index);
+			break;
+		case MEAN_MAG:
+			value = columns[MAVE_COLUMN].get(index);
+			break;
+		case EFFECTIVE_NUM_DATA:
+			value = columns[NEFF_COLUMN].get(index);
+			break;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Create the statistic at the specified index.
+	 *
+	 * @param index
+	 *            The (tau-major) index of the grid point.
+	 * @return A new statistic object.
+	 */
+	public WWZStatistic get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+
+		return new WWZStatistic(taus[index / freqs.length], freqs[index
+				% freqs.length], columns[WWZ_COLUMN].get(index),
+				columns[AMP_COLUMN].get(index), columns[MAVE_COLUMN].get(index),
+				columns[NEFF_COLUMN].get(index));
+	}
+
+	/**
+	 * @return a read-only list view of the statistics
+	 */
+	public StatisticList asList() {
+		return new StatisticList(this);
+	}
+
+	/**
+	 * @return the temporary file of a mapped store, or null if there is none
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Release the columns and delete any temporary file. The store and its
+	 * list views must not be used afterwards. A mapped file that cannot be
+	 * deleted yet (e.g. on Windows, until its mapping is garbage collected) is
+	 * deleted when the VM exits.
+	 */
+	public void dispose() {
+		columns = new Column[0];
+		size = 0;
+
+		if (file != null) {
+			file.delete();
+			file = null;
+		}
+	}
+
+	/**
+	 * A read-only list view of the statistics in a store.
+	 */
+	public static class StatisticList extends AbstractList<WWZStatistic>
+			implements RandomAccess {
+
+		private WWZResultStore store;
+
+		private StatisticList(WWZResultStore store) {
+			this.store = store;
+		}
+
+		/**
+		 * @return the underlying store
+		 */
+		public WWZResultStore getStore() {
+			return store;
+		}
+
+		@Override
+		public WWZStatistic get(int index) {
+			return store.get(index);
+		}
+
+		@Override
+		public int size() {
+			return store.size();
+		}
+	}
+
+	// Helpers
+
+	// Map each column to a region of a temporary file, in chunks since a
+	// single mapping is limited to 2 GB.
+	private void mapColumns() throws IOException {
+		file = File.createTempFile("vstar-wwz-", ".dat");
+		file.deleteOnExit();
+
+		long columnBytes = (long) size * Float.BYTES;
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(columnBytes * NUM_COLUMNS);
+
+			FileChannel channel = raf.getChannel();
+
+			for (int i = 0; i < NUM_COLUMNS; i++) {
+				columns[i] = new MappedColumn(channel, i * columnBytes, size);
+			}
+		} catch (IOException e) {
+			file.delete();
+			file = null;
+			throw e;
+		}
+	}
+
+	private interface Column {
+		double get(int index);
+
+		void set(int index, double value);
+	}
+
+	private static class DoubleColumn implements Column {
+		private double[] values;
+
+		public DoubleColumn(int size) {
+			values = new double[size];
+		}
+
+		@Override
+		public double get(int index) {
+			return values[index];
+		}
+
+		@Override
+		public void set(int index, double value) {
+			values[index] = value;
+		}
+	}
+
+	private static class FloatColumn implements Column {
+		private float[] values;
+
+		public FloatColumn(int size) {
+			values = new float[size];
+		}
+
+		@Override
+		public double get(int index) {
+			return values[index];
+		}
+
+		@Override
+		public void set(int index, double value) {
+			values[index] = (float) value;
+		}
+	}
+
+	private static class MappedColumn implements Column {
+		// 2^28 floats (1 GB) per mapped chunk.
+		private static final int CHUNK_SHIFT = 28;
+		private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+		private ByteBuffer[] chunks;
+
+		public MappedColumn(FileChannel channel, long offset, int size)
+				throws IOException {
+			int numChunks = (int) (((long) size + CHUNK_MASK) >>> CHUNK_SHIFT);
+			chunks = new ByteBuffer[numChunks];
+
+			for (int i = 0; i < numChunks; i++) {
+				long first = (long) i << CHUNK_SHIFT;
+				long count = Math.min(size - first, 1L << CHUNK_SHIFT);
+				chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset
+						+ first * Float.BYTES, count * Float.BYTES);
+			}
+		}
+
+		@Override
+		public double get(int index) {
+			return chunks[index >>> CHUNK_SHIFT].getFloat((index & CHUNK_MASK)
+					* Float.BYTES);
+		}
+
+		@Override
+		public void set(int index, double value) {
+			chunks[index >>> CHUNK_SHIFT].putFloat((index & CHUNK_MASK)
+					* Float.BYTES, (float) value);
+		}
+	}
+}
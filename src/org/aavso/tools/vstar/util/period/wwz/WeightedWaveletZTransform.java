@@ -17,7 +17,10 @@
  */
 package org.aavso.tools.vstar.util.period.wwz;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -28,6 +31,7 @@ import java.util.concurrent.Future;
 import org.aavso.tools.vstar.data.ValidObservation;
 import org.aavso.tools.vstar.exception.AlgorithmError;
 import org.aavso.tools.vstar.util.IAlgorithm;
+import org.aavso.tools.vstar.util.period.TrigRecurrence;
 
 /**
  * <p>
@@ -71,10 +75,14 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 	// Observations to be analysed.
 	private List<ValidObservation> obs;
 
-	// Full stats and maximal stats (results).
+	// Full stats and maximal stats (results). The full stats are a view of
+	// the result store once the algorithm has completed.
 	private List<WWZStatistic> stats;
 	private List<WWZStatistic> maximalStats;
 
+	private WWZResultStorage resultStorage;
+	private WWZResultStore resultStore;
+
 	// Selected min/max maximal frequency and amplitude values.
 	private double minPeriod;
 	private double maxPeriod;
@@ -89,6 +97,9 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 	private double fhi;
 	private double flo;
 	private double freq[];
+	// The frequency step if frequencies are evenly spaced and ascending,
+	// otherwise NaN.
+	private double freqStep = Double.NaN;
 	private int nfreq;
 	private int ntau;
 	private int numdat;
@@ -132,6 +143,9 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 		// Default to the maximum available cores; UI can override via setThreadCount().
 		threadCount = MAX_AVAILABLE_THREADS;
 
+		resultStorage = WWZResultStorage.AUTOMATIC;
+		resultStore = null;
+
 		interrupted = false;
 		cancelled = false;
 	}
@@ -162,6 +176,8 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 	 */
 	@Override
 	public void execute() throws AlgorithmError {
+		dispose();
+
 		interrupted = false;
 		cancelled = false;
 		try {
@@ -171,9 +187,11 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 			cancelled = true;
 			stats = new ArrayList<WWZStatistic>();
 			maximalStats = new ArrayList<WWZStatistic>();
+			resultStore = null;
 		} catch (RuntimeException e) {
 			stats = new ArrayList<WWZStatistic>();
 			maximalStats = new ArrayList<WWZStatistic>();
+			resultStore = null;
 			throw new AlgorithmError(e.getMessage() != null ? e.getMessage() : "WWZ runtime failure");
 		}
 	}
@@ -182,6 +200,21 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 		interrupted = true;
 	}
 
+	/**
+	 * Release the stats of the last execution, deleting any temporary file in
+	 * which the full stats are stored. Lists of stats previously obtained must
+	 * not be used afterwards.
+	 */
+	public void dispose() {
+		if (resultStore != null) {
+			resultStore.dispose();
+			resultStore = null;
+		}
+
+		stats = new ArrayList<WWZStatistic>();
+		maximalStats = new ArrayList<WWZStatistic>();
+	}
+
 	/**
 	 * Number of threads (cores) to use for WWZ execution.
 	 * <p>
@@ -209,6 +242,34 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 		return threadCount;
 	}
 
+	/**
+	 * Set how the full stats of the next execution should be stored. By
+	 * default, small grids are stored in double precision on the heap, larger
+	 * grids in single precision, and grids too large for the available heap in
+	 * a memory-mapped temporary file.
+	 *
+	 * @param resultStorage
+	 *            The storage.
+	 */
+	public void setResultStorage(WWZResultStorage resultStorage) {
+		this.resultStorage = resultStorage;
+	}
+
+	/**
+	 * @return the storage requested for the full stats
+	 */
+	public WWZResultStorage getResultStorage() {
+		return resultStorage;
+	}
+
+	/**
+	 * @return the store holding the full stats of the last completed
+	 *         execution, or null if there is none
+	 */
+	public WWZResultStore getResultStore() {
+		return resultStore;
+	}
+
 	/**
 	 * @return true if the last execute() call was cancelled/interrupted.
 	 */
@@ -440,6 +501,8 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 		for (int i = 1; i <= nfreq; i++) {
 			freq[i] = flo + (double) (i - 1) * deltaFreq;
 		}
+
+		freqStep = deltaFreq > 0 && flo >= 0 ? deltaFreq : Double.NaN;
 	}
 
 	/**
@@ -470,6 +533,8 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 			double period = minPeriod + (double) (i - 1) * deltaPeriod;
 			freq[i] = 1 / period;
 		}
+
+		freqStep = Double.NaN;
 	}
 
 	/**
@@ -570,7 +635,23 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 	}
 
 	private void wwt() throws InterruptedException {
-		final WWZStatistic[] statsOut = new WWZStatistic[ntau * nfreq];
+		final WWZResultStore statsOut;
+		try {
+			statsOut = new WWZResultStore(Arrays.copyOfRange(tau, 1, ntau + 1),
+					Arrays.copyOfRange(freq, 1, nfreq + 1), resultStorage);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		try {
+			wwt(statsOut);
+		} catch (InterruptedException | RuntimeException e) {
+			statsOut.dispose();
+			throw e;
+		}
+	}
+
+	private void wwt(final WWZResultStore statsOut) throws InterruptedException {
 		final WWZStatistic[] maxOut = new WWZStatistic[ntau];
 		final int effectiveThreadCount = getEffectiveThreadCount();
 
@@ -614,13 +695,11 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 			}
 		}
 
-		stats = new ArrayList<WWZStatistic>(statsOut.length);
+		// Every grid point has been set, since an interruption would have
+		// ended the computation.
+		resultStore = statsOut;
+		stats = statsOut.asList();
 		maximalStats = new ArrayList<WWZStatistic>(maxOut.length);
-		for (WWZStatistic stat : statsOut) {
-			if (stat != null) {
-				stats.add(stat);
-			}
-		}
 		for (WWZStatistic maxStat : maxOut) {
 			if (maxStat != null) {
 				maximalStats.add(maxStat);
@@ -639,7 +718,7 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 		return threadCount;
 	}
 
-	private void processTauRange(int itau1, int itau2, WWZStatistic[] statsOut, WWZStatistic[] maxOut)
+	private void processTauRange(int itau1, int itau2, WWZResultStore statsOut, WWZStatistic[] maxOut)
 			throws InterruptedException {
 		double dvec[] = new double[3];
 		double dcoef[] = new double[3];
@@ -668,9 +747,23 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 		int ifreq1 = 1;
 		int ifreq2 = nfreq;
 
+		// Frequencies are evenly spaced and ascending, so the time window
+		// narrows as frequency increases and a trig recurrence need only be
+		// advanced over the current window.
+		boolean useRecurrence = !Double.isNaN(freqStep) && TrigRecurrence.isEnabled();
+		double[] dtRelative = useRecurrence ? new double[numdat + 1] : null;
+		TrigRecurrence recurrence = null;
+
 		for (itau = itau1; itau <= itau2; itau++) {
 			dtau = tau[itau];
 
+			if (useRecurrence) {
+				for (idat = 1; idat <= numdat; idat++) {
+					dtRelative[idat] = dt[idat] - dtau;
+				}
+				recurrence = new TrigRecurrence(dtRelative, twopi * freq[ifreq1], twopi * freqStep);
+			}
+
 			// TODO: added
 			// Initialise maximal stat values at the start of each tau.
 			dmfre = 0.0;
@@ -690,6 +783,9 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 					idatStart = lowerBoundDt(dtau - dtWindow);
 					idatEnd = upperBoundDt(dtau + dtWindow);
 				}
+				if (recurrence != null && ifreq > ifreq1) {
+					recurrence.advance(idatStart, idatEnd);
+				}
 				for (int i = 0; i <= ndim; i++) {
 					dvec[i] = 0.0;
 					for (int j = 0; j <= ndim; j++) {
@@ -709,9 +805,14 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 					double dz2 = dz * dz;
 					if (dz2 < dz2Cutoff) {
 						dweight = Math.exp(-1.0 * dcon * dz2);
-						dcc = Math.cos(dz);
+						if (recurrence != null) {
+							dcc = recurrence.cos(idat);
+							dss = recurrence.sin(idat);
+						} else {
+							dcc = Math.cos(dz);
+							dss = Math.sin(dz);
+						}
 						dcw = dweight * dcc;
-						dss = Math.sin(dz);
 						dsw = dweight * dss;
 						dmat[0][0] = dmat[0][0] + dweight;
 						dweight2 = dweight2 + (dweight * dweight);
@@ -813,10 +914,7 @@ public class WeightedWaveletZTransform implements IAlgorithm {
 				// Also record one WWZ statistic per tau-frequency pair for
 				// efficient retrieval in some scenarios.
 
-				WWZStatistic stat = new WWZStatistic(dtau, dfre, dpowz, damp,
-						dcoef[0], dneff);
-
-				statsOut[(itau - 1) * nfreq + (ifreq - 1)] = stat;
+				statsOut.set(itau - 1, ifreq - 1, dpowz, damp, dcoef[0], dneff);
 
 				if (dpowz > dmz) {
 					dmz = dpowz;
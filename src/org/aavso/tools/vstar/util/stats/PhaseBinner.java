@@ -0,0 +1,232 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.stats;
+
+/**
+ * <p>
+ * A primitive phase binning kernel: given phases and values, it computes the
+ * count, mean and sample variance of the values in each of a fixed number of
+ * equal width phase bins.
+ * </p>
+ *
+ * <p>
+ * Unlike DescStats.createSymmetricBinnedObservations(), which creates lists
+ * of ValidObservation objects and a mean observation per bin, this class
+ * allocates its per-bin buffers once, so that it can be called for each of
+ * a large number of trial periods. An instance is not thread-safe; each
+ * thread should have its own.
+ * </p>
+ */
+public class PhaseBinner {
+
+	private int bins;
+	private double offset;
+
+	private int[] counts;
+	private double[] means;
+	private double[] variances;
+
+	// Sums of values and squared values relative to a shift, to reduce
+	// cancellation when values are large relative to their spread, e.g.
+	// magnitudes.
+	private double[] sums;
+	private double[] sumSqs;
+
+	/**
+	 * Constructor
+	 *
+	 * @param bins
+	 *            The number of bins; must be at least one.
+	 */
+	public PhaseBinner(int bins) {
+		this(bins, 0);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param bins
+	 *            The number of bins; must be at least one.
+	 * @param offset
+	 *            The phase at which the first bin starts, e.g. to shift the
+	 *            bins of one of several overlapping covers.
+	 */
+	public PhaseBinner(int bins, double offset) {
+		if (bins < 1) {
+			throw new IllegalArgumentException(
+					"Number of bins must be at least one");
+		}
+
+		this.bins = bins;
+		this.offset = offset - Math.floor(offset);
+
+		counts = new int[bins];
+		means = new double[bins];
+		variances = new double[bins];
+		sums = new double[bins];
+		sumSqs = new double[bins];
+	}
+
+	/**
+	 * Bin all values by phase.
+	 *
+	 * @param phases
+	 *            The phases, in the range [0,1).
+	 * @param values
+	 *            The corresponding values.
+	 */
+	public void bin(double[] phases, double[] values) {
+		bin(phases, values, phases.length);
+	}
+
+	/**
+	 * Bin the first n values by phase.
+	 *
+	 * @param phases
+	 *            The phases, in the range [0,1).
+	 * @param values
+	 *            The corresponding values.
+	 * @param n
+	 *            The number of values to bin.
+	 */
+	public void bin(double[] phases, double[] values, int n) {
+		clear();
+
+		double shift = n > 0 ? values[0] : 0;
+
+		for (int i = 0; i < n; i++) {
+			accumulate(binIndex(phases[i]), values[i] - shift);
+		}
+
+		finish(shift);
+	}
+
+	/**
+	 * Bin all values by the phase of the corresponding time, given an epoch
+	 * and period, without requiring a phase array.
+	 *
+	 * @param times
+	 *            The times.
+	 * @param values
+	 *            The corresponding values.
+	 * @param epoch
+	 *            The time of phase zero.
+	 * @param period
+	 *            The period.
+	 */
+	public void bin(double[] times, double[] values, double epoch,
+			double period) {
+		clear();
+
+		int n = times.length;
+		double shift = n > 0 ? values[0] : 0;
+
+		for (int i = 0; i < n; i++) {
+			double phase = (times[i] - epoch) / period;
+			accumulate(binIndex(phase - Math.floor(phase)), values[i] - shift);
+		}
+
+		finish(shift);
+	}
+
+	/**
+	 * @return the number of bins
+	 */
+	public int getBins() {
+		return bins;
+	}
+
+	/**
+	 * @return the phase at which the first bin starts
+	 */
+	public double getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the number of values in each bin; this array is reused by
+	 *         subsequent calls to bin()
+	 */
+	public int[] getCounts() {
+		return counts;
+	}
+
+	/**
+	 * @return the mean of the values in each bin, NaN for an empty bin; this
+	 *         array is reused by subsequent calls to bin()
+	 */
+	public double[] getMeans() {
+		return means;
+	}
+
+	/**
+	 * @return the sample variance of the values in each bin, NaN for a bin
+	 *         with fewer than two values; this array is reused by subsequent
+	 *         calls to bin()
+	 */
+	public double[] getVariances() {
+		return variances;
+	}
+
+	// Helpers
+
+	private void clear() {
+		for (int b = 0; b < bins; b++) {
+			counts[b] = 0;
+			sums[b] = 0;
+			sumSqs[b] = 0;
+		}
+	}
+
+	private int binIndex(double phase) {
+		double shifted = phase - offset;
+		if (shifted < 0) {
+			shifted += 1;
+		}
+
+		int b = (int) (shifted * bins);
+		return b >= bins ? bins - 1 : b;
+	}
+
+	private void accumulate(int b, double value) {
+		counts[b]++;
+		sums[b] += value;
+		sumSqs[b] += value * value;
+	}
+
+	private void finish(double shift) {
+		for (int b = 0; b < bins; b++) {
+			int count = counts[b];
+
+			if (count == 0) {
+				means[b] = Double.NaN;
+				variances[b] = Double.NaN;
+			} else {
+				double mean = sums[b] / count;
+				means[b] = mean + shift;
+
+				if (count < 2) {
+					variances[b] = Double.NaN;
+				} else {
+					double ss = sumSqs[b] - sums[b] * mean;
+					variances[b] = ss > 0 ? ss / (count - 1) : 0;
+				}
+			}
+		}
+	}
+}
@@ -147,6 +147,21 @@ public class AST {
 		return children == null;
 	}
 
+	/**
+	 * @return the number of nodes in this AST, including this one
+	 */
+	public int size() {
+		int size = 1;
+
+		if (!isLeaf()) {
+			for (AST child : children) {
+				size += child.size();
+			}
+		}
+
+		return size;
+	}
+
 	public boolean isLiteral() {
 		return literal != null;
 	}
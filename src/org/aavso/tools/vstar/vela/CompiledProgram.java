@@ -0,0 +1,153 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.vela;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+
+/**
+ * <p>
+ * VeLa: VStar expression Language interpreter
+ * </p>
+ * <p>
+ * A VeLa program that has been parsed once and can then be evaluated many
+ * times, e.g. once per observation, without re-parsing the program text.
+ * </p>
+ * <p>
+ * A compiled program is bound to the interpreter that compiled it since
+ * evaluation makes use of that interpreter's operand and environment stacks.
+ * </p>
+ */
+public class CompiledProgram {
+
+    private VeLaInterpreter interpreter;
+
+    private String source;
+
+    private AST ast;
+
+    private Optional<Predicate<ValidObservation>> observationPredicate;
+
+    /**
+     * Constructor
+     *
+     * @param interpreter The interpreter that compiled the program.
+     * @param source      The program's source code.
+     * @param ast         The program's abstract syntax tree; may be null if the
+     *                    program contains nothing to evaluate (e.g. only
+     *                    comments).
+     */
+    protected CompiledProgram(VeLaInterpreter interpreter, String source, AST ast) {
+        this.interpreter = interpreter;
+        this.source = source;
+        this.ast = ast;
+    }
+
+    /**
+     * @return the interpreter that compiled this program
+     */
+    public VeLaInterpreter getInterpreter() {
+        return interpreter;
+    }
+
+    /**
+     * @return the program's source code
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return the program's abstract syntax tree; may be null
+     */
+    public AST getAST() {
+        return ast;
+    }
+
+    /**
+     * Return the program compiled to a predicate over observations, e.g. for
+     * filtering. This is only possible for a program consisting of a single
+     * Boolean expression that can be compiled (see {@link VeLaCompiler}), such
+     * as: magnitude < 10 and band = "Visual"<br/>
+     * Otherwise, the program should be evaluated with an observation
+     * environment. The predicate is compiled once, upon first request.
+     *
+     * @return The optional predicate.
+     */
+    public Optional<Predicate<ValidObservation>> getObservationPredicate() {
+        if (observationPredicate == null) {
+            observationPredicate = Optional.empty();
+
+            if (ast != null && VeLaCompiler.isEnabled()) {
+                VeLaCompiler<ValidObservation> compiler = new VeLaCompiler<ValidObservation>(interpreter,
+                        VeLaValidObservationEnvironment.symbolResolver());
+                observationPredicate = compiler.compilePredicate(ast);
+            }
+        }
+
+        return observationPredicate;
+    }
+
+    /**
+     * Evaluate the program in the current environment of the interpreter.
+     *
+     * @return An optional result, depending upon whether a value was left on the
+     *         stack.
+     * @throws VeLaEvalError If an evaluation error occurs.
+     */
+    public Optional<Operand> evaluate() throws VeLaEvalError {
+        Optional<Operand> result = Optional.empty();
+
+        if (ast != null) {
+            interpreter.eval(ast);
+
+            if (!interpreter.getStack().isEmpty()) {
+                result = Optional.of(interpreter.getStack().pop());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Evaluate the program with the specified environment pushed onto the
+     * interpreter's environment stack for the duration of the evaluation.
+     *
+     * @param environment The environment in which to evaluate the program, e.g.
+     *                    an observation environment.
+     * @return An optional result, depending upon whether a value was left on the
+     *         stack.
+     * @throws VeLaEvalError If an evaluation error occurs.
+     */
+    public Optional<Operand> evaluate(VeLaEnvironment<Operand> environment) throws VeLaEvalError {
+        interpreter.pushEnvironment(environment);
+
+        try {
+            return evaluate();
+        } finally {
+            interpreter.popEnvironment();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -125,6 +125,13 @@ public abstract class FunctionExecutor {
         return funcName;
     }
 
+    /**
+     * @return the parameterNames
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
     /**
      * @return the parameterTypes
      */
@@ -59,6 +59,21 @@ public class JavaMethodExecutor extends FunctionExecutor {
         }
     }
 
+    /**
+     * @return the instance on which the method is invoked; null for static
+     *         methods or if the first operand is the instance
+     */
+    public Object getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return the Java method
+     */
+    public Method getMethod() {
+        return method;
+    }
+
     @Override
     public Optional<Operand> apply(List<Operand> operands) throws VeLaEvalError {
         return invokeJavaMethod(method, operands, getReturnType());
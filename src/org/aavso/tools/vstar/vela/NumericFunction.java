@@ -0,0 +1,142 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.vela;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * <p>
+ * VeLa: VStar expression Language interpreter
+ * </p>
+ * <p>
+ * A VeLa function of one real parameter that has been resolved once and can
+ * then be called many times with a primitive value, e.g. a model function
+ * f(t:real):real evaluated at each time value, without constructing and
+ * parsing a function call string per value.
+ * </p>
+ * <p>
+ * Where possible, the function is compiled (see {@link VeLaCompiler}) and
+ * calls do not involve the interpreter. Otherwise, a numeric function is bound
+ * to the interpreter that resolved it since calls make use of that
+ * interpreter's operand and environment stacks.
+ * </p>
+ */
+public class NumericFunction {
+
+    private VeLaInterpreter interpreter;
+
+    private String name;
+
+    private FunctionExecutor function;
+
+    private Optional<DoubleUnaryOperator> compiled;
+
+    /**
+     * Constructor
+     *
+     * @param interpreter The interpreter that resolved the function.
+     * @param name        The function's name.
+     * @param function    The function executor to be called.
+     */
+    protected NumericFunction(VeLaInterpreter interpreter, String name, FunctionExecutor function) {
+        this.interpreter = interpreter;
+        this.name = name;
+        this.function = function;
+
+        compiled = VeLaCompiler.isEnabled() ? VeLaCompiler.compileNumericFunction(interpreter, function)
+                : Optional.empty();
+    }
+
+    /**
+     * @return the interpreter that resolved the function
+     */
+    public VeLaInterpreter getInterpreter() {
+        return interpreter;
+    }
+
+    /**
+     * @return the function's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return whether the function has been compiled
+     */
+    public boolean isCompiled() {
+        return compiled.isPresent();
+    }
+
+    /**
+     * Call the function in the current environment of the interpreter.
+     *
+     * @param x The function's actual parameter.
+     * @return The function's numeric result.
+     * @throws VeLaEvalError If an evaluation error occurs or the result is not
+     *                       numeric.
+     */
+    public double value(double x) throws VeLaEvalError {
+        if (compiled.isPresent()) {
+            return compiled.get().applyAsDouble(x);
+        }
+
+        // The list may be modified by parameter type conversion.
+        List<Operand> params = new ArrayList<Operand>(1);
+        params.add(new Operand(Type.REAL, x));
+
+        Optional<Operand> result = interpreter.callFunction(function, params);
+
+        if (result.isPresent()) {
+            Operand operand = result.get();
+            if (operand.getType() == Type.REAL) {
+                return operand.doubleVal();
+            } else if (operand.getType() == Type.INTEGER) {
+                return operand.intVal();
+            }
+        }
+
+        throw new VeLaEvalError("Numeric value expected as result of \"" + name + "\"");
+    }
+
+    /**
+     * Call the function for each of a number of values.
+     *
+     * @param xs The function's actual parameters.
+     * @return The function's numeric results, in parameter order.
+     * @throws VeLaEvalError If an evaluation error occurs or a result is not
+     *                       numeric.
+     */
+    public double[] values(double[] xs) throws VeLaEvalError {
+        double[] ys = new double[xs.length];
+
+        for (int i = 0; i < xs.length; i++) {
+            ys[i] = value(xs[i]);
+        }
+
+        return ys;
+    }
+
+    @Override
+    public String toString() {
+        return function.toString();
+    }
+}
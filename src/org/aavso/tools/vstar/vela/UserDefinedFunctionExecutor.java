@@ -74,6 +74,21 @@ public class UserDefinedFunctionExecutor extends FunctionExecutor {
         this(vela, Optional.empty(), parameterNames, parameterTypes, returnType, ast, helpString);
     }
 
+    /**
+     * @return the AST corresponding to the body of the function, if any
+     */
+    public Optional<AST> getBody() {
+        return ast;
+    }
+
+    /**
+     * Did this function capture any bindings or functions from the scopes
+     * (other than the global scope) in which it was defined?
+     */
+    public boolean hasCapturedEnvironment() {
+        return !env.isEmpty();
+    }
+
     @Override
     public Optional<Operand> apply(List<Operand> operands) throws VeLaEvalError {
         // If the function has a body, push a new scope and the environment if
@@ -0,0 +1,877 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.vela;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * VeLa: VStar expression Language compiler
+ * </p>
+ * <p>
+ * Compiles an AST whose types can be inferred ahead of evaluation into a tree
+ * of Java closures. Integer, real and Boolean valued expressions are then
+ * evaluated without operand allocation, operand stack traffic or run-time
+ * type dispatch.
+ * </p>
+ * <p>
+ * Only a subset of VeLa is compiled: scalar literals, symbols bound by the
+ * evaluation context or bound to constants, unary and binary operations on
+ * scalars, if expressions with both consequents, and calls to static
+ * intrinsic functions of one or two real parameters (e.g. sin, sqrt, pow).
+ * Anything else, e.g. lists, variable binding, user defined function calls or
+ * when expressions, is not compiled, leaving the caller to fall back to the
+ * interpreter. Constants and intrinsic functions are resolved at compile
+ * time.
+ * </p>
+ * <p>
+ * Compiled code does not use the interpreter's stacks, so it may be evaluated
+ * by more than one thread at a time.
+ * </p>
+ *
+ * @param <C> The type of context in which compiled code is evaluated, e.g. an
+ *            observation.
+ */
+public class VeLaCompiler<C> {
+
+    private static volatile boolean enabled = true;
+
+    private VeLaInterpreter interpreter;
+
+    private SymbolResolver<C> resolver;
+
+    /**
+     * Constructor
+     *
+     * @param interpreter The interpreter used to resolve constants and
+     *                    functions.
+     * @param resolver    Resolves symbols bound by the evaluation context.
+     */
+    public VeLaCompiler(VeLaInterpreter interpreter, SymbolResolver<C> resolver) {
+        this.interpreter = interpreter;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @return Whether compilation is enabled; if not, callers should use the
+     *         interpreter.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable compilation, e.g. to compare compiled and interpreted
+     * results.
+     *
+     * @param enabled Whether compilation is enabled.
+     */
+    public static void setEnabled(boolean enabled) {
+        VeLaCompiler.enabled = enabled;
+    }
+
+    /**
+     * Compile an AST.
+     *
+     * @param ast The AST to be compiled.
+     * @return The compiled closure, or an empty value if the AST could not be
+     *         compiled.
+     */
+    public Optional<Closure<C>> compile(AST ast) {
+        return Optional.ofNullable(ast == null ? null : closure(ast));
+    }
+
+    /**
+     * Compile an AST that yields a Boolean value.
+     *
+     * @param ast The AST to be compiled.
+     * @return The compiled predicate, or an empty value if the AST could not be
+     *         compiled or does not yield a Boolean value.
+     */
+    public Optional<Predicate<C>> compilePredicate(AST ast) {
+        Optional<Predicate<C>> predicate = Optional.empty();
+
+        Optional<Closure<C>> closure = compile(ast);
+        if (closure.isPresent() && closure.get().getType() == Type.BOOLEAN) {
+            predicate = Optional.of(closure.get().bool());
+        }
+
+        return predicate;
+    }
+
+    /**
+     * Compile an AST that yields a numeric value.
+     *
+     * @param ast The AST to be compiled.
+     * @return The compiled function, or an empty value if the AST could not be
+     *         compiled or does not yield a numeric value.
+     */
+    public Optional<ToDoubleFunction<C>> compileNumeric(AST ast) {
+        Optional<ToDoubleFunction<C>> function = Optional.empty();
+
+        Optional<Closure<C>> closure = compile(ast);
+        if (closure.isPresent() && closure.get().isNumeric()) {
+            function = Optional.of(closure.get().real());
+        }
+
+        return function;
+    }
+
+    /**
+     * Compile a function of one real parameter with a numeric return type, e.g.
+     * a model function f(t:real):real.
+     *
+     * @param interpreter The interpreter used to resolve constants and
+     *                    functions.
+     * @param function    The function to be compiled.
+     * @return The compiled function, or an empty value if the function could
+     *         not be compiled.
+     */
+    public static Optional<DoubleUnaryOperator> compileNumericFunction(VeLaInterpreter interpreter,
+            FunctionExecutor function) {
+        DoubleUnaryOperator operator = null;
+
+        List<Type> parameterTypes = function.getParameterTypes();
+        Optional<Type> returnType = function.getReturnType();
+
+        if (parameterTypes != FunctionExecutor.ANY_FORMAL_TYPES && parameterTypes.size() == 1
+                && parameterTypes.get(0) == Type.REAL && returnType.isPresent()) {
+
+            if (function instanceof JavaMethodExecutor && returnType.get() == Type.REAL) {
+                MethodHandle handle = intrinsicHandle((JavaMethodExecutor) function, 1);
+                if (handle != null) {
+                    String name = function.getFuncName().orElse("");
+                    operator = x -> invoke(handle, name, x);
+                }
+            } else if (function instanceof UserDefinedFunctionExecutor) {
+                UserDefinedFunctionExecutor userFunction = (UserDefinedFunctionExecutor) function;
+
+                if (userFunction.getBody().isPresent() && !userFunction.hasCapturedEnvironment()) {
+                    String paramName = userFunction.getParameterNames().get(0).toUpperCase();
+
+                    // The actual parameter is passed in a one element frame.
+                    VeLaCompiler<double[]> compiler = new VeLaCompiler<double[]>(interpreter,
+                            new SymbolResolver<double[]>() {
+                                @Override
+                                public boolean binds(String name) {
+                                    return paramName.equals(name);
+                                }
+
+                                @Override
+                                public Optional<Closure<double[]>> resolve(String name) {
+                                    return Optional.of(Closure.real(frame -> frame[0]));
+                                }
+                            });
+
+                    Closure<double[]> body = compiler.closure(userFunction.getBody().get());
+
+                    // The result is converted to the return type as for the
+                    // interpreter: integer to real, but not vice versa.
+                    if (body != null && body.isNumeric() && (body.getType() == returnType.get()
+                            || (body.getType() == Type.INTEGER && returnType.get() == Type.REAL))) {
+                        ToDoubleFunction<double[]> real = body.real();
+                        operator = x -> real.applyAsDouble(new double[] { x });
+                    }
+                }
+            }
+        }
+
+        return Optional.ofNullable(operator);
+    }
+
+    // Compilation
+
+    // Returns null if the AST cannot be compiled.
+    private Closure<C> closure(AST ast) {
+        Closure<C> closure = null;
+
+        if (ast.isLiteral()) {
+            closure = literal(ast.getOperand());
+        } else {
+            Operation op = ast.getOp();
+
+            if (op.arity() == 2) {
+                Closure<C> left = closure(ast.left());
+                if (left != null) {
+                    Closure<C> right = closure(ast.right());
+                    if (right != null) {
+                        closure = binary(op, left, right, ast.right());
+                    }
+                }
+            } else if (op.arity() == 1) {
+                Closure<C> operand = closure(ast.head());
+                if (operand != null) {
+                    closure = unary(op, operand);
+                }
+            } else {
+                switch (op) {
+                case SYMBOL:
+                    closure = symbol(ast.getToken().toUpperCase());
+                    break;
+                case SEQUENCE:
+                    if (ast.hasChildren() && ast.getChildren().size() == 1) {
+                        closure = closure(ast.head());
+                    }
+                    break;
+                case IF:
+                    if (ast.getChildren().size() == 3) {
+                        closure = selection(ast);
+                    }
+                    break;
+                case FUNCALL:
+                    if (ast.head().getOp() == Operation.SYMBOL) {
+                        closure = intrinsicCall(ast);
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+
+        return closure;
+    }
+
+    private Closure<C> literal(Operand operand) {
+        Closure<C> closure = null;
+
+        switch (operand.getType()) {
+        case INTEGER:
+            long intVal = operand.intVal();
+            closure = Closure.integer(ctx -> intVal);
+            break;
+        case REAL:
+            double doubleVal = operand.doubleVal();
+            closure = Closure.real(ctx -> doubleVal);
+            break;
+        case BOOLEAN:
+            boolean booleanVal = operand.booleanVal();
+            closure = Closure.bool(ctx -> booleanVal);
+            break;
+        case STRING:
+            String stringVal = operand.stringVal();
+            closure = Closure.string(ctx -> stringVal);
+            break;
+        default:
+            break;
+        }
+
+        return closure;
+    }
+
+    private Closure<C> symbol(String name) {
+        Closure<C> closure = null;
+
+        if (resolver.binds(name)) {
+            closure = resolver.resolve(name).orElse(null);
+        } else {
+            // Variables may be rebound between evaluations, but constants
+            // may not.
+            Optional<Operand> constant = interpreter.lookupConstantBinding(name);
+            if (constant.isPresent()) {
+                closure = literal(constant.get());
+            }
+        }
+
+        return closure;
+    }
+
+    private Closure<C> unary(Operation op, Closure<C> operand) {
+        Closure<C> closure = null;
+
+        switch (op) {
+        case NEG:
+            if (operand.getType() == Type.INTEGER) {
+                ToLongFunction<C> f = operand.integer();
+                closure = Closure.integer(ctx -> -f.applyAsLong(ctx));
+            } else if (operand.getType() == Type.REAL) {
+                ToDoubleFunction<C> f = operand.real();
+                closure = Closure.real(ctx -> -f.applyAsDouble(ctx));
+            }
+            break;
+        case NOT:
+            if (operand.getType() == Type.BOOLEAN) {
+                Predicate<C> f = operand.bool();
+                closure = Closure.bool(ctx -> !f.test(ctx));
+            } else if (operand.getType() == Type.INTEGER) {
+                ToLongFunction<C> f = operand.integer();
+                closure = Closure.integer(ctx -> ~f.applyAsLong(ctx));
+            }
+            break;
+        default:
+            break;
+        }
+
+        return closure;
+    }
+
+    private Closure<C> binary(Operation op, Closure<C> left, Closure<C> right, AST rightAST) {
+        Closure<C> closure = null;
+
+        // Unify the operand types as the interpreter does, except that
+        // conversion of numbers to strings is left to the interpreter.
+        Type type = null;
+
+        if (left.getType() == right.getType()) {
+            type = left.getType();
+        } else if (left.isNumeric() && right.isNumeric()) {
+            type = Type.REAL;
+        }
+
+        if (type != null) {
+            switch (type) {
+            case INTEGER:
+                closure = integerOp(op, left.integer(), right.integer());
+                break;
+            case REAL:
+                closure = realOp(op, left.real(), right.real());
+                break;
+            case BOOLEAN:
+                closure = booleanOp(op, left.bool(), right.bool());
+                break;
+            case STRING:
+                closure = stringOp(op, left.string(), right.string(), rightAST);
+                break;
+            default:
+                break;
+            }
+        }
+
+        return closure;
+    }
+
+    private Closure<C> integerOp(Operation op, ToLongFunction<C> a, ToLongFunction<C> b) {
+        Closure<C> closure = null;
+
+        // Both operands are always evaluated, left then right, as for the
+        // interpreter.
+        switch (op) {
+        case ADD:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) + b.applyAsLong(ctx));
+            break;
+        case SUB:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) - b.applyAsLong(ctx));
+            break;
+        case MUL:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) * b.applyAsLong(ctx));
+            break;
+        case DIV:
+            closure = Closure.integer(ctx -> {
+                long x = a.applyAsLong(ctx);
+                long y = b.applyAsLong(ctx);
+                if (y == 0) {
+                    throw new VeLaEvalError(String.format("%s/%s: division by zero error", x, y));
+                }
+                return x / y;
+            });
+            break;
+        case POW:
+            closure = Closure.integer(ctx -> {
+                long base = a.applyAsLong(ctx);
+                long exponent = b.applyAsLong(ctx);
+                long result = base;
+                if (exponent == 0) {
+                    result = 1;
+                } else {
+                    // multiply base by itself n-1 times
+                    for (int i = 1; i <= exponent - 1; i++) {
+                        result *= base;
+                    }
+                }
+                return result;
+            });
+            break;
+        case AND:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) & b.applyAsLong(ctx));
+            break;
+        case XOR:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) ^ b.applyAsLong(ctx));
+            break;
+        case OR:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) | b.applyAsLong(ctx));
+            break;
+        case SHL:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) << b.applyAsLong(ctx));
+            break;
+        case SHR:
+            closure = Closure.integer(ctx -> a.applyAsLong(ctx) >> b.applyAsLong(ctx));
+            break;
+        case EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsLong(ctx) == b.applyAsLong(ctx));
+            break;
+        case NOT_EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsLong(ctx) != b.applyAsLong(ctx));
+            break;
+        case GREATER_THAN:
+            closure = Closure.bool(ctx -> a.applyAsLong(ctx) > b.applyAsLong(ctx));
+            break;
+        case LESS_THAN:
+            closure = Closure.bool(ctx -> a.applyAsLong(ctx) < b.applyAsLong(ctx));
+            break;
+        case GREATER_THAN_OR_EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsLong(ctx) >= b.applyAsLong(ctx));
+            break;
+        case LESS_THAN_OR_EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsLong(ctx) <= b.applyAsLong(ctx));
+            break;
+        default:
+            break;
+        }
+
+        return closure;
+    }
+
+    private Closure<C> realOp(Operation op, ToDoubleFunction<C> a, ToDoubleFunction<C> b) {
+        Closure<C> closure = null;
+
+        switch (op) {
+        case ADD:
+            closure = Closure.real(ctx -> a.applyAsDouble(ctx) + b.applyAsDouble(ctx));
+            break;
+        case SUB:
+            closure = Closure.real(ctx -> a.applyAsDouble(ctx) - b.applyAsDouble(ctx));
+            break;
+        case MUL:
+            closure = Closure.real(ctx -> a.applyAsDouble(ctx) * b.applyAsDouble(ctx));
+            break;
+        case DIV:
+            closure = Closure.real(ctx -> {
+                double x = a.applyAsDouble(ctx);
+                double y = b.applyAsDouble(ctx);
+                double result = x / y;
+                if (Double.isInfinite(result)) {
+                    throw new VeLaEvalError(String.format("%s/%s: division by zero error", x, y));
+                }
+                return result;
+            });
+            break;
+        case POW:
+            closure = Closure.real(ctx -> Math.pow(a.applyAsDouble(ctx), b.applyAsDouble(ctx)));
+            break;
+        case EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsDouble(ctx) == b.applyAsDouble(ctx));
+            break;
+        case NOT_EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsDouble(ctx) != b.applyAsDouble(ctx));
+            break;
+        case GREATER_THAN:
+            closure = Closure.bool(ctx -> a.applyAsDouble(ctx) > b.applyAsDouble(ctx));
+            break;
+        case LESS_THAN:
+            closure = Closure.bool(ctx -> a.applyAsDouble(ctx) < b.applyAsDouble(ctx));
+            break;
+        case GREATER_THAN_OR_EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsDouble(ctx) >= b.applyAsDouble(ctx));
+            break;
+        case LESS_THAN_OR_EQUAL:
+            closure = Closure.bool(ctx -> a.applyAsDouble(ctx) <= b.applyAsDouble(ctx));
+            break;
+        default:
+            break;
+        }
+
+        return closure;
+    }
+
+    private Closure<C> booleanOp(Operation op, Predicate<C> a, Predicate<C> b) {
+        Closure<C> closure = null;
+
+        // Non-short-circuit operators, as for the interpreter.
+        switch (op) {
+        case AND:
+            closure = Closure.bool(ctx -> a.test(ctx) & b.test(ctx));
+            break;
+        case XOR:
+            closure = Closure.bool(ctx -> a.test(ctx) ^ b.test(ctx));
+            break;
+        case OR:
+            closure = Closure.bool(ctx -> a.test(ctx) | b.test(ctx));
+            break;
+        case EQUAL:
+            closure = Closure.bool(ctx -> a.test(ctx) == b.test(ctx));
+            break;
+        case NOT_EQUAL:
+            closure = Closure.bool(ctx -> a.test(ctx) != b.test(ctx));
+            break;
+        default:
+            break;
+        }
+
+        return closure;
+    }
+
+    private Closure<C> stringOp(Operation op, Function<C, String> a, Function<C, String> b, AST rightAST) {
+        Closure<C> closure = null;
+
+        switch (op) {
+        case ADD:
+            closure = Closure.string(ctx -> a.apply(ctx) + b.apply(ctx));
+            break;
+        case EQUAL:
+            closure = Closure.bool(ctx -> a.apply(ctx).equals(b.apply(ctx)));
+            break;
+        case NOT_EQUAL:
+            closure = Closure.bool(ctx -> !a.apply(ctx).equals(b.apply(ctx)));
+            break;
+        case GREATER_THAN:
+            closure = Closure.bool(ctx -> a.apply(ctx).compareTo(b.apply(ctx)) > 0);
+            break;
+        case LESS_THAN:
+            closure = Closure.bool(ctx -> a.apply(ctx).compareTo(b.apply(ctx)) < 0);
+            break;
+        case GREATER_THAN_OR_EQUAL:
+            closure = Closure.bool(ctx -> a.apply(ctx).compareTo(b.apply(ctx)) >= 0);
+            break;
+        case LESS_THAN_OR_EQUAL:
+            closure = Closure.bool(ctx -> a.apply(ctx).compareTo(b.apply(ctx)) <= 0);
+            break;
+        case APPROXIMATELY_EQUAL:
+            if (rightAST.isLiteral()) {
+                // Compile a literal regular expression once.
+                Pattern pattern = VeLaInterpreter.getRegexPatternCache()
+                        .computeIfAbsent(rightAST.getOperand().stringVal(), Pattern::compile);
+                closure = Closure.bool(ctx -> pattern.matcher(a.apply(ctx)).matches());
+            } else {
+                closure = Closure.bool(ctx -> {
+                    String str = a.apply(ctx);
+                    return VeLaInterpreter.getRegexPatternCache().computeIfAbsent(b.apply(ctx), Pattern::compile)
+                            .matcher(str).matches();
+                });
+            }
+            break;
+        case IN:
+            closure = Closure.bool(ctx -> {
+                String str = a.apply(ctx);
+                return b.apply(ctx).contains(str);
+            });
+            break;
+        default:
+            break;
+        }
+
+        return closure;
+    }
+
+    private Closure<C> selection(AST ast) {
+        Closure<C> closure = null;
+
+        Closure<C> condition = closure(ast.head());
+        Closure<C> consequent = closure(ast.getChildren().get(1));
+        Closure<C> alternative = closure(ast.getChildren().get(2));
+
+        if (condition != null && consequent != null && alternative != null
+                && condition.getType() == Type.BOOLEAN && consequent.getType() == alternative.getType()) {
+            Predicate<C> p = condition.bool();
+
+            switch (consequent.getType()) {
+            case INTEGER:
+                ToLongFunction<C> i1 = consequent.integer();
+                ToLongFunction<C> i2 = alternative.integer();
+                closure = Closure.integer(ctx -> p.test(ctx) ? i1.applyAsLong(ctx) : i2.applyAsLong(ctx));
+                break;
+            case REAL:
+                ToDoubleFunction<C> r1 = consequent.real();
+                ToDoubleFunction<C> r2 = alternative.real();
+                closure = Closure.real(ctx -> p.test(ctx) ? r1.applyAsDouble(ctx) : r2.applyAsDouble(ctx));
+                break;
+            case BOOLEAN:
+                Predicate<C> b1 = consequent.bool();
+                Predicate<C> b2 = alternative.bool();
+                closure = Closure.bool(ctx -> p.test(ctx) ? b1.test(ctx) : b2.test(ctx));
+                break;
+            case STRING:
+                Function<C, String> s1 = consequent.string();
+                Function<C, String> s2 = alternative.string();
+                closure = Closure.string(ctx -> p.test(ctx) ? s1.apply(ctx) : s2.apply(ctx));
+                break;
+            default:
+                break;
+            }
+        }
+
+        return closure;
+    }
+
+    private Closure<C> intrinsicCall(AST ast) {
+        Closure<C> closure = null;
+
+        List<AST> children = ast.getChildren();
+        int arity = children.size() - 1;
+
+        if (arity == 1 || arity == 2) {
+            Closure<C> arg1 = closure(children.get(1));
+            Closure<C> arg2 = arity == 2 ? closure(children.get(2)) : null;
+
+            if (arg1 != null && (arity == 1 || arg2 != null)) {
+                Type[] argTypes = arity == 1 ? new Type[] { arg1.getType() }
+                        : new Type[] { arg1.getType(), arg2.getType() };
+
+                FunctionExecutor function = conformingFunction(ast.head().getToken().toUpperCase(), argTypes);
+
+                if (function instanceof JavaMethodExecutor && function.getReturnType().isPresent()
+                        && function.getReturnType().get() == Type.REAL) {
+                    MethodHandle handle = intrinsicHandle((JavaMethodExecutor) function, arity);
+
+                    if (handle != null) {
+                        String name = function.getFuncName().orElse("");
+                        ToDoubleFunction<C> x = arg1.real();
+
+                        if (arity == 1) {
+                            closure = Closure.real(ctx -> invoke(handle, name, x.applyAsDouble(ctx)));
+                        } else {
+                            // Actual parameters are evaluated last to first,
+                            // as for the interpreter.
+                            ToDoubleFunction<C> y = arg2.real();
+                            closure = Closure.real(ctx -> {
+                                double b = y.applyAsDouble(ctx);
+                                double a = x.applyAsDouble(ctx);
+                                return invoke(handle, name, a, b);
+                            });
+                        }
+                    }
+                }
+            }
+        }
+
+        return closure;
+    }
+
+    /**
+     * Return the function the interpreter would apply to actual parameters of
+     * the specified types, i.e. the first conforming function of the specified
+     * name, or null if there is no such function or parameter conversion to
+     * string would be required.
+     */
+    private FunctionExecutor conformingFunction(String name, Type[] argTypes) {
+        FunctionExecutor conforming = null;
+
+        Optional<List<FunctionExecutor>> functions = interpreter.lookupFunctions(name);
+
+        if (functions.isPresent()) {
+            for (FunctionExecutor function : functions.get()) {
+                List<Type> paramTypes = function.getParameterTypes();
+
+                if (paramTypes == FunctionExecutor.ANY_FORMAL_TYPES) {
+                    // Conforms, but with no type information.
+                    break;
+                }
+
+                if (paramTypes.size() == argTypes.length) {
+                    boolean conforms = true;
+                    boolean toString = false;
+
+                    for (int i = 0; i < argTypes.length && conforms; i++) {
+                        Type required = paramTypes.get(i);
+                        if (argTypes[i] == required) {
+                            continue;
+                        } else if (argTypes[i] == Type.INTEGER && required == Type.REAL) {
+                            continue;
+                        } else if (required == Type.STRING) {
+                            toString = true;
+                        } else {
+                            conforms = false;
+                        }
+                    }
+
+                    if (conforms) {
+                        if (!toString) {
+                            conforming = function;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        return conforming;
+    }
+
+    // Returns a handle for a static intrinsic function with real parameters
+    // and result, or null if there is no such handle.
+    private static MethodHandle intrinsicHandle(JavaMethodExecutor function, int arity) {
+        MethodHandle handle = null;
+
+        Method method = function.getMethod();
+
+        if (Modifier.isStatic(method.getModifiers()) && method.getReturnType() == double.class
+                && method.getParameterCount() == arity) {
+            boolean realParams = true;
+            for (Class<?> paramType : method.getParameterTypes()) {
+                realParams &= paramType == double.class;
+            }
+
+            if (realParams) {
+                try {
+                    handle = MethodHandles.publicLookup().unreflect(method);
+                } catch (IllegalAccessException e) {
+                    // Leave it to the interpreter.
+                }
+            }
+        }
+
+        return handle;
+    }
+
+    private static double invoke(MethodHandle handle, String name, double x) {
+        try {
+            return (double) handle.invokeExact(x);
+        } catch (Throwable t) {
+            throw invocationError(t, name);
+        }
+    }
+
+    private static double invoke(MethodHandle handle, String name, double x, double y) {
+        try {
+            return (double) handle.invokeExact(x, y);
+        } catch (Throwable t) {
+            throw invocationError(t, name);
+        }
+    }
+
+    private static VeLaEvalError invocationError(Throwable t, String name) {
+        String msg = t.getLocalizedMessage();
+        if (msg == null) {
+            msg = "Intrinsic function invocation error: " + name;
+        }
+        return new VeLaEvalError(msg);
+    }
+
+    /**
+     * Resolves symbols bound by the context in which compiled code is
+     * evaluated, e.g. a function's parameters or an observation's properties.
+     * Such symbols take precedence over those bound by the interpreter.
+     *
+     * @param <C> The type of context.
+     */
+    public interface SymbolResolver<C> {
+
+        /**
+         * Does the context bind the named symbol?
+         *
+         * @param name The symbol's name, in upper case.
+         * @return Whether the context binds the symbol, whether or not it can be
+         *         compiled.
+         */
+        boolean binds(String name);
+
+        /**
+         * Return the compiled form of a symbol bound by the context.
+         *
+         * @param name The symbol's name, in upper case.
+         * @return The compiled symbol, or an empty value if the symbol cannot be
+         *         compiled, e.g. because its type is not known in advance.
+         */
+        Optional<Closure<C>> resolve(String name);
+    }
+
+    /**
+     * A compiled expression of a known scalar type.
+     *
+     * @param <C> The type of context in which the expression is evaluated.
+     */
+    public static final class Closure<C> {
+
+        private Type type;
+        private ToLongFunction<C> integer;
+        private ToDoubleFunction<C> real;
+        private Predicate<C> bool;
+        private Function<C, String> string;
+
+        private Closure(Type type) {
+            this.type = type;
+        }
+
+        public static <C> Closure<C> integer(ToLongFunction<C> function) {
+            Closure<C> closure = new Closure<C>(Type.INTEGER);
+            closure.integer = function;
+            closure.real = ctx -> function.applyAsLong(ctx);
+            return closure;
+        }
+
+        public static <C> Closure<C> real(ToDoubleFunction<C> function) {
+            Closure<C> closure = new Closure<C>(Type.REAL);
+            closure.real = function;
+            return closure;
+        }
+
+        public static <C> Closure<C> bool(Predicate<C> predicate) {
+            Closure<C> closure = new Closure<C>(Type.BOOLEAN);
+            closure.bool = predicate;
+            return closure;
+        }
+
+        public static <C> Closure<C> string(Function<C, String> function) {
+            Closure<C> closure = new Closure<C>(Type.STRING);
+            closure.string = function;
+            return closure;
+        }
+
+        /**
+         * @return the type of the expression's value
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return whether the expression's value is an integer or real
+         */
+        public boolean isNumeric() {
+            return type == Type.INTEGER || type == Type.REAL;
+        }
+
+        /**
+         * @return the integer valued function; null unless of integer type
+         */
+        public ToLongFunction<C> integer() {
+            return integer;
+        }
+
+        /**
+         * @return the real valued function; null unless of integer or real type
+         */
+        public ToDoubleFunction<C> real() {
+            return real;
+        }
+
+        /**
+         * @return the predicate; null unless of Boolean type
+         */
+        public Predicate<C> bool() {
+            return bool;
+        }
+
+        /**
+         * @return the string valued function; null unless of string type
+         */
+        public Function<C, String> string() {
+            return string;
+        }
+    }
+}
@@ -71,6 +71,16 @@ public class VeLaEnvironment<T> {
         return Optional.ofNullable(cache.get(name.toUpperCase()));
     }
 
+    /**
+     * Is the named symbol bound to a constant in this environment?
+     * 
+     * @param name The symbol's name.
+     * @return Whether the name is bound to a constant.
+     */
+    public boolean isConstant(String name) {
+        return constants.contains(name.toUpperCase());
+    }
+
     /**
      * Does this environment contain the named binding?
      * 
@@ -28,7 +28,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +42,7 @@ import java.util.stream.Stream;
 import org.aavso.tools.vstar.scripting.VStarScriptingAPI;
 import org.aavso.tools.vstar.ui.VStar;
 import org.aavso.tools.vstar.ui.resources.ResourceAccessor;
+import org.aavso.tools.vstar.util.BoundedLRUCache;
 import org.aavso.tools.vstar.util.Pair;
 import org.aavso.tools.vstar.util.date.AbstractDateUtil;
 import org.antlr.v4.runtime.ANTLRInputStream;
@@ -64,11 +64,28 @@ public class VeLaInterpreter {
 
     private Stack<VeLaEnvironment<Operand>> environments;
 
-    // AST and result caches.
-    private static Map<String, AST> exprToAST = new HashMap<String, AST>();
+    /**
+     * The maximum number of programs whose ASTs are cached.
+     */
+    public static final int MAX_CACHED_ASTS = 1000;
+
+    /**
+     * The maximum total number of nodes in all cached ASTs.
+     */
+    public static final long MAX_CACHED_AST_NODES = 250000;
+
+    /**
+     * The maximum number of cached regular expression patterns.
+     */
+    public static final int MAX_CACHED_REGEX_PATTERNS = 250;
+
+    // AST cache, keyed by program text.
+    private static BoundedLRUCache<String, AST> exprToAST = new BoundedLRUCache<String, AST>("VeLa AST",
+            MAX_CACHED_ASTS, MAX_CACHED_AST_NODES, ast -> ast.size());
 
     // Regular expression pattern cache.
-    private static Map<String, Pattern> regexPatterns = new HashMap<String, Pattern>();
+    private static BoundedLRUCache<String, Pattern> regexPatterns = new BoundedLRUCache<String, Pattern>(
+            "VeLa regex pattern", MAX_CACHED_REGEX_PATTERNS);
 
     private static List<FunctionExecutor> javaClassFunctionExecutors = null;
 
@@ -284,6 +301,88 @@ public class VeLaInterpreter {
         return commonInterpreter(prog, tree);
     }
 
+    /**
+     * Compile a VeLa program for repeated evaluation. The program is parsed at
+     * most once, after which the returned object can be evaluated any number of
+     * times (e.g. once per observation) without further parsing.
+     * 
+     * @param prog The VeLa program string to be compiled.
+     * @return The compiled program, bound to this interpreter.
+     * @throws VeLaParseError If a parse error occurs.
+     */
+    public CompiledProgram compile(String prog) throws VeLaParseError {
+        // Avoid lexing and parsing the program if we have already seen it.
+        AST ast = exprToAST.get(prog);
+
+        if (ast == null) {
+            VeLaParser.SequenceContext tree = getParser(prog).sequence();
+            ast = createAST(prog, tree);
+        }
+
+        return new CompiledProgram(this, prog, ast);
+    }
+
+    /**
+     * Resolve a function of one real parameter for repeated calls with
+     * primitive values, e.g. a model function f(t:real):real. The function
+     * is looked up once, after which it can be called any number of times
+     * without a function call string being constructed and parsed.
+     * 
+     * @param funcName The name of the function.
+     * @return The resolved function, bound to this interpreter.
+     * @throws VeLaEvalError If there is no function of the specified name that
+     *                       accepts a single real parameter.
+     */
+    public NumericFunction numericFunction(String funcName) throws VeLaEvalError {
+        String canonicalFuncName = funcName.toUpperCase();
+
+        List<Operand> params = new ArrayList<Operand>(1);
+        params.add(new Operand(Type.REAL, 0.0));
+
+        FunctionExecutor function = null;
+
+        Optional<List<FunctionExecutor>> functions = lookupFunctions(canonicalFuncName);
+
+        if (functions.isPresent()) {
+            for (FunctionExecutor candidate : functions.get()) {
+                if (candidate.conforms(params)) {
+                    function = candidate;
+                    break;
+                }
+            }
+
+            if (function == null) {
+                throw new VeLaEvalError("Invalid parameters for function \"" + funcName + "\"");
+            }
+        } else {
+            // The function may have been bound to a symbol.
+            Optional<Operand> value = lookupBinding(canonicalFuncName);
+
+            if (value.isPresent() && value.get().getType() == Type.FUNCTION) {
+                function = value.get().functionVal();
+            } else {
+                throw new VeLaEvalError("Unknown function \"" + funcName + "\"");
+            }
+        }
+
+        return new NumericFunction(this, funcName, function);
+    }
+
+    /**
+     * @return the AST cache shared by all interpreters, e.g. for diagnostics
+     */
+    public static BoundedLRUCache<String, AST> getASTCache() {
+        return exprToAST;
+    }
+
+    /**
+     * @return the regular expression pattern cache shared by all interpreters,
+     *         e.g. for diagnostics
+     */
+    public static BoundedLRUCache<String, Pattern> getRegexPatternCache() {
+        return regexPatterns;
+    }
+
     /**
      * Expression interpreter entry point.
      * 
@@ -421,26 +520,13 @@ public class VeLaInterpreter {
      */
     protected AST commonParseTreeWalker(String prog, ParserRuleContext tree) throws VeLaParseError {
 
-        AST ast = null;
-
-        // Remove whitespace and change to uppercase to ensure a canonical
-        // expression string for caching purposes.
-        prog = prog.replace(" ", "").replace("\t", "").toUpperCase();
-
         // We cache abstract syntax trees by top-level program string
-        // to improve performance.
-        // boolean astCached = false;
-        if (exprToAST.containsKey(prog)) {
-            ast = exprToAST.get(prog);
-            // astCached = true;
-        } else {
-            ExpressionVisitor visitor = new ExpressionVisitor(this);
-            ast = visitor.visit(tree);
+        // to improve performance. The program text is used as is since
+        // whitespace and case are significant in string literals.
+        AST ast = exprToAST.get(prog);
 
-            if (ast != null) {
-                // This relates a VeLa program or expression to an AST.
-                exprToAST.put(prog, ast);
-            }
+        if (ast == null) {
+            ast = createAST(prog, tree);
         }
 
 //		if (verbose && ast != null) {
@@ -454,6 +540,28 @@ public class VeLaInterpreter {
         return ast;
     }
 
+    /**
+     * Create an AST by walking a parse tree and cache it, without first
+     * looking it up in the cache, so that a caller that has already done so
+     * does not count a second cache miss.
+     * 
+     * @param prog The VeLa program to be interpreted.
+     * @param tree The parse tree resulting from parsing the VeLa expression.
+     * @return The abstract syntax tree created by walking the parse tree.
+     * @throws VeLaParseError If a parse error occurs.
+     */
+    private AST createAST(String prog, ParserRuleContext tree) throws VeLaParseError {
+        ExpressionVisitor visitor = new ExpressionVisitor(this);
+        AST ast = visitor.visit(tree);
+
+        if (ast != null) {
+            // This relates a VeLa program or expression to an AST.
+            exprToAST.put(prog, ast);
+        }
+
+        return ast;
+    }
+
     /**
      * <p>
      * Given an AST representing a VeLa program, interpret this via a depth first
@@ -1011,13 +1119,7 @@ public class VeLaInterpreter {
                 break;
             case APPROXIMATELY_EQUAL:
                 if (type == Type.STRING) {
-                    Pattern pattern;
-                    String regex = operand2.stringVal();
-                    if (!regexPatterns.containsKey(regex)) {
-                        pattern = Pattern.compile(regex);
-                        regexPatterns.put(regex, pattern);
-                    }
-                    pattern = regexPatterns.get(regex);
+                    Pattern pattern = regexPatterns.computeIfAbsent(operand2.stringVal(), Pattern::compile);
                     stack.push(new Operand(Type.BOOLEAN, pattern.matcher(operand1.stringVal()).matches()));
                 } else {
                     binaryOpError(op, Type.STRING);
@@ -1243,6 +1345,31 @@ public class VeLaInterpreter {
         return result;
     }
 
+    /**
+     * Given a variable name, search for it in the stack of environments as per
+     * {@link #lookupBinding(String)}, returning an optional Operand instance only
+     * if the binding found is a constant.
+     * 
+     * @param name The name of the variable to look up.
+     * @return The optional constant operand.
+     */
+    public Optional<Operand> lookupConstantBinding(String name) {
+        Optional<Operand> result = Optional.empty();
+
+        for (int i = environments.size() - 1; i >= 0; i--) {
+            VeLaEnvironment<Operand> environment = environments.get(i);
+            Optional<Operand> binding = environment.lookup(name);
+            if (binding.isPresent()) {
+                if (environment.isConstant(name)) {
+                    result = binding;
+                }
+                break;
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Read and interpret the VeLa standard library code.<br/>
      * A VeLa error should not bring VStar down.<br/>
@@ -1357,6 +1484,28 @@ public class VeLaInterpreter {
         }
     }
 
+    /**
+     * Apply the function to the supplied parameter list, returning the result
+     * rather than leaving it on the stack.
+     * 
+     * @param function The function executor to be applied to the supplied
+     *                 parameters.
+     * @param params   The actual parameter list.
+     * @return An optional result, depending upon whether the function returned
+     *         a value.
+     * @throws VeLaEvalError If the function does not conform to the parameters
+     *                       or a function evaluation error occurs.
+     */
+    protected Optional<Operand> callFunction(FunctionExecutor function, List<Operand> params) throws VeLaEvalError {
+        int depth = stack.size();
+
+        if (!applyFunction(function, params)) {
+            throw new VeLaEvalError("Invalid parameters for function \"" + function + "\"");
+        }
+
+        return stack.size() > depth ? Optional.of(stack.pop()) : Optional.empty();
+    }
+
     /**
      * Apply the function to the supplied parameter list if it conforms to them,
      * leaving the result on the stack.
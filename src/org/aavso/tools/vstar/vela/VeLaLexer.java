@@ -0,0 +1,286 @@
+// Generated from /root/project/src/org/aavso/tools/vstar/vela/VeLa.g4 by ANTLR 4.5.3
+package org.aavso.tools.vstar.vela;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.*;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.*;
+
+@SuppressWarnings({"all", "warnings", "unchecked", "unused", "cast"})
+public class VeLaLexer extends Lexer {
+	static { RuntimeMetaData.checkVersion("4.5.3", RuntimeMetaData.VERSION); }
+
+	protected static final DFA[] _decisionToDFA;
+	protected static final PredictionContextCache _sharedContextCache =
+		new PredictionContextCache();
+	public static final int
+		BACK_ARROW=1, IS=2, COLON=3, ARROW=4, IF=5, THEN=6, ELSE=7, WHEN=8, WHILE=9, 
+		FUN=10, LAMBDA=11, INT_T=12, REAL_T=13, BOOL_T=14, STR_T=15, LIST_T=16, 
+		MINUS=17, PLUS=18, MULT=19, DIV=20, POW=21, EQUAL=22, NOT_EQUAL=23, GREATER_THAN=24, 
+		LESS_THAN=25, GREATER_THAN_OR_EQUAL=26, LESS_THAN_OR_EQUAL=27, APPROXIMATELY_EQUAL=28, 
+		SHIFT_LEFT=29, SHIFT_RIGHT=30, IN=31, LPAREN=32, RPAREN=33, LBRACKET=34, 
+		RBRACKET=35, LBRACE=36, RBRACE=37, PERIOD=38, COMMA=39, AND=40, XOR=41, 
+		OR=42, NOT=43, INTEGER=44, REAL=45, BOOLEAN=46, IDENT=47, STRING=48, WS=49, 
+		HELP_COMMENT=50, COMMENT=51;
+	public static String[] modeNames = {
+		"DEFAULT_MODE"
+	};
+
+	public static final String[] ruleNames = {
+		"BACK_ARROW", "IS", "COLON", "ARROW", "IF", "THEN", "ELSE", "WHEN", "WHILE", 
+		"FUN", "LAMBDA", "INT_T", "REAL_T", "BOOL_T", "STR_T", "LIST_T", "MINUS", 
+		"PLUS", "MULT", "DIV", "POW", "EQUAL", "NOT_EQUAL", "GREATER_THAN", "LESS_THAN", 
+		"GREATER_THAN_OR_EQUAL", "LESS_THAN_OR_EQUAL", "APPROXIMATELY_EQUAL", 
+		"SHIFT_LEFT", "SHIFT_RIGHT", "IN", "LPAREN", "RPAREN", "LBRACKET", "RBRACKET", 
+		"LBRACE", "RBRACE", "PERIOD", "COMMA", "AND", "XOR", "OR", "NOT", "INTEGER", 
+		"REAL", "BOOLEAN", "TRUE", "FALSE", "DEC_DIGIT", "HEX_DIGIT", "BIN_DIGIT", 
+		"POINT", "EXPONENT_INDICATOR", "IDENT", "LETTER", "UNDERSCORE", "SYMBOL", 
+		"STRING", "WS", "HELP_COMMENT", "COMMENT"
+	};
+
+	private static final String[] _LITERAL_NAMES = {
+		null, "'<-'", null, "':'", "'->'", null, null, null, null, null, null, 
+		null, null, null, null, null, null, "'-'", "'+'", "'*'", "'/'", "'^'", 
+		"'='", "'<>'", "'>'", "'<'", "'>='", "'<='", "'=~'", "'<<'", "'>>'", null, 
+		"'('", "')'", "'['", "']'", "'{'", "'}'", "'.'", "','"
+	};
+	private static final String[] _SYMBOLIC_NAMES = {
+		null, "BACK_ARROW", "IS", "COLON", "ARROW", "IF", "THEN", "ELSE", "WHEN", 
+		"WHILE", "FUN", "LAMBDA", "INT_T", "REAL_T", "BOOL_T", "STR_T", "LIST_T", 
+		"MINUS", "PLUS", "MULT", "DIV", "POW", "EQUAL", "NOT_EQUAL", "GREATER_THAN", 
+		"LESS_THAN", "GREATER_THAN_OR_EQUAL", "LESS_THAN_OR_EQUAL", "APPROXIMATELY_EQUAL", 
+		"SHIFT_LEFT", "SHIFT_RIGHT", "IN", "LPAREN", "RPAREN", "LBRACKET", "RBRACKET", 
+		"LBRACE", "RBRACE", "PERIOD", "COMMA", "AND", "XOR", "OR", "NOT", "INTEGER", 
+		"REAL", "BOOLEAN", "IDENT", "STRING", "WS", "HELP_COMMENT", "COMMENT"
+	};
+	public static final Vocabulary VOCABULARY = new VocabularyImpl(_LITERAL_NAMES, _SYMBOLIC_NAMES);
+
+	/**
+	 * @deprecated Use {@link #VOCABULARY} instead.
+	 */
+	@Deprecated
+	public static final String[] tokenNames;
+	static {
+		tokenNames = new String[_SYMBOLIC_NAMES.length];
+		for (int i = 0; i < tokenNames.length; i++) {
+			tokenNames[i] = VOCABULARY.getLiteralName(i);
+			if (tokenNames[i] == null) {
+				tokenNames[i] = VOCABULARY.getSymbolicName(i);
+			}
+
+			if (tokenNames[i] == null) {
+				tokenNames[i] = "<INVALID>";
+			}
+		}
+	}
+
+	@Override
+	@Deprecated
+	public String[] getTokenNames() {
+		return tokenNames;
+	}
+
+	@Override
+
+	public Vocabulary getVocabulary() {
+		return VOCABULARY;
+	}
+
+
+	public VeLaLexer(CharStream input) {
+		super(input);
+		_interp = new LexerATNSimulator(this,_ATN,_decisionToDFA,_sharedContextCache);
+	}
+
+	@Override
+	public String getGrammarFileName() { return "VeLa.g4"; }
+
+	@Override
+	public String[] getRuleNames() { return ruleNames; }
+
+	@Override
+	public String getSerializedATN() { return _serializedATN; }
+
+	@Override
+	public String[] getModeNames() { return modeNames; }
+
+	@Override
+	public ATN getATN() { return _ATN; }
+
+	public static final String _serializedATN =
+		"\3\u0430\ud6d1\u8206\uad2d\u4417\uaef1\u8d80\uaadd\2\65\u01c8\b\1\4\2"+
+		"\t\2\4\3\t\3\4\4\t\4\4\5\t\5\4\6\t\6\4\7\t\7\4\b\t\b\4\t\t\t\4\n\t\n\4"+
+		"\13\t\13\4\f\t\f\4\r\t\r\4\16\t\16\4\17\t\17\4\20\t\20\4\21\t\21\4\22"+
+		"\t\22\4\23\t\23\4\24\t\24\4\25\t\25\4\26\t\26\4\27\t\27\4\30\t\30\4\31"+
+		"\t\31\4\32\t\32\4\33\t\33\4\34\t\34\4\35\t\35\4\36\t\36\4\37\t\37\4 \t"+
+		" \4!\t!\4\"\t\"\4#\t#\4$\t$\4%\t%\4&\t&\4\'\t\'\4(\t(\4)\t)\4*\t*\4+\t"+
+		"+\4,\t,\4-\t-\4.\t.\4/\t/\4\60\t\60\4\61\t\61\4\62\t\62\4\63\t\63\4\64"+
+		"\t\64\4\65\t\65\4\66\t\66\4\67\t\67\48\t8\49\t9\4:\t:\4;\t;\4<\t<\4=\t"+
+		"=\4>\t>\3\2\3\2\3\2\3\3\3\3\3\3\3\4\3\4\3\5\3\5\3\5\3\6\3\6\3\6\3\7\3"+
+		"\7\3\7\3\7\3\7\3\b\3\b\3\b\3\b\3\b\3\t\3\t\3\t\3\t\3\t\3\n\3\n\3\n\3\n"+
+		"\3\n\3\n\3\13\3\13\3\13\3\13\3\13\3\13\3\13\3\13\3\13\3\13\3\13\5\13\u00ac"+
+		"\n\13\3\f\3\f\3\r\3\r\3\r\3\r\3\r\3\r\3\r\3\r\3\r\3\r\3\r\5\r\u00bb\n"+
+		"\r\3\16\3\16\3\16\3\16\3\16\5\16\u00c2\n\16\3\17\3\17\3\17\3\17\3\17\3"+
+		"\17\3\17\3\17\3\17\3\17\3\17\3\17\3\17\5\17\u00d1\n\17\3\20\3\20\3\20"+
+		"\3\20\3\20\3\20\3\20\3\20\3\20\5\20\u00dc\n\20\3\21\3\21\3\21\3\21\3\21"+
+		"\3\22\3\22\3\23\3\23\3\24\3\24\3\25\3\25\3\26\3\26\3\27\3\27\3\30\3\30"+
+		"\3\30\3\31\3\31\3\32\3\32\3\33\3\33\3\33\3\34\3\34\3\34\3\35\3\35\3\35"+
+		"\3\36\3\36\3\36\3\37\3\37\3\37\3 \3 \3 \3!\3!\3\"\3\"\3#\3#\3$\3$\3%\3"+
+		"%\3&\3&\3\'\3\'\3(\3(\3)\3)\3)\3)\3*\3*\3*\3*\3+\3+\3+\3,\3,\3,\3,\3-"+
+		"\6-\u0128\n-\r-\16-\u0129\3-\3-\3-\6-\u012f\n-\r-\16-\u0130\3-\3-\3-\6"+
+		"-\u0136\n-\r-\16-\u0137\5-\u013a\n-\3.\6.\u013d\n.\r.\16.\u013e\3.\3."+
+		"\6.\u0143\n.\r.\16.\u0144\5.\u0147\n.\3.\3.\5.\u014b\n.\3.\6.\u014e\n"+
+		".\r.\16.\u014f\5.\u0152\n.\3.\3.\6.\u0156\n.\r.\16.\u0157\3.\3.\5.\u015c"+
+		"\n.\3.\6.\u015f\n.\r.\16.\u0160\5.\u0163\n.\5.\u0165\n.\3/\3/\5/\u0169"+
+		"\n/\3\60\3\60\3\60\3\60\3\60\3\61\3\61\3\61\3\61\3\61\3\61\3\62\3\62\3"+
+		"\63\3\63\5\63\u017a\n\63\3\64\3\64\3\65\3\65\5\65\u0180\n\65\3\66\3\66"+
+		"\3\67\3\67\5\67\u0186\n\67\3\67\3\67\3\67\7\67\u018b\n\67\f\67\16\67\u018e"+
+		"\13\67\38\58\u0191\n8\39\39\3:\3:\5:\u0197\n:\3;\3;\7;\u019b\n;\f;\16"+
+		";\u019e\13;\3;\3;\3<\6<\u01a3\n<\r<\16<\u01a4\3<\3<\3=\3=\3=\7=\u01ac"+
+		"\n=\f=\16=\u01af\13=\3=\7=\u01b2\n=\f=\16=\u01b5\13=\3=\7=\u01b8\n=\f"+
+		"=\16=\u01bb\13=\3=\3=\3=\3>\3>\7>\u01c2\n>\f>\16>\u01c5\13>\3>\3>\2\2"+
+		"?\3\3\5\4\7\5\t\6\13\7\r\b\17\t\21\n\23\13\25\f\27\r\31\16\33\17\35\20"+
+		"\37\21!\22#\23%\24\'\25)\26+\27-\30/\31\61\32\63\33\65\34\67\359\36;\37"+
+		"= ?!A\"C#E$G%I&K\'M(O)Q*S+U,W-Y.[/]\60_\2a\2c\2e\2g\2i\2k\2m\61o\2q\2"+
+		"s\2u\62w\63y\64{\65\3\2\36\4\2KKkk\4\2UUuu\4\2HHhh\4\2VVvv\4\2JJjj\4\2"+
+		"GGgg\4\2PPpp\4\2NNnn\4\2YYyy\4\2WWww\4\2EEee\4\2QQqq\4\2\u039d\u039d\u03bd"+
+		"\u03bd\4\2IIii\4\2TTtt\4\2CCcc\4\2DDdd\4\2FFff\4\2ZZzz\3\2\62\62\3\2\62"+
+		";\4\2C\\c|\3\2\62\63\5\2C\\c|\u0082\1\5\2##%(AA\3\2$$\5\2\13\f\17\17\""+
+		"\"\4\2\f\f\17\17\u01e2\2\3\3\2\2\2\2\5\3\2\2\2\2\7\3\2\2\2\2\t\3\2\2\2"+
+		"\2\13\3\2\2\2\2\r\3\2\2\2\2\17\3\2\2\2\2\21\3\2\2\2\2\23\3\2\2\2\2\25"+
+		"\3\2\2\2\2\27\3\2\2\2\2\31\3\2\2\2\2\33\3\2\2\2\2\35\3\2\2\2\2\37\3\2"+
+		"\2\2\2!\3\2\2\2\2#\3\2\2\2\2%\3\2\2\2\2\'\3\2\2\2\2)\3\2\2\2\2+\3\2\2"+
+		"\2\2-\3\2\2\2\2/\3\2\2\2\2\61\3\2\2\2\2\63\3\2\2\2\2\65\3\2\2\2\2\67\3"+
+		"\2\2\2\29\3\2\2\2\2;\3\2\2\2\2=\3\2\2\2\2?\3\2\2\2\2A\3\2\2\2\2C\3\2\2"+
+		"\2\2E\3\2\2\2\2G\3\2\2\2\2I\3\2\2\2\2K\3\2\2\2\2M\3\2\2\2\2O\3\2\2\2\2"+
+		"Q\3\2\2\2\2S\3\2\2\2\2U\3\2\2\2\2W\3\2\2\2\2Y\3\2\2\2\2[\3\2\2\2\2]\3"+
+		"\2\2\2\2m\3\2\2\2\2u\3\2\2\2\2w\3\2\2\2\2y\3\2\2\2\2{\3\2\2\2\3}\3\2\2"+
+		"\2\5\u0080\3\2\2\2\7\u0083\3\2\2\2\t\u0085\3\2\2\2\13\u0088\3\2\2\2\r"+
+		"\u008b\3\2\2\2\17\u0090\3\2\2\2\21\u0095\3\2\2\2\23\u009a\3\2\2\2\25\u00ab"+
+		"\3\2\2\2\27\u00ad\3\2\2\2\31\u00ba\3\2\2\2\33\u00c1\3\2\2\2\35\u00d0\3"+
+		"\2\2\2\37\u00db\3\2\2\2!\u00dd\3\2\2\2#\u00e2\3\2\2\2%\u00e4\3\2\2\2\'"+
+		"\u00e6\3\2\2\2)\u00e8\3\2\2\2+\u00ea\3\2\2\2-\u00ec\3\2\2\2/\u00ee\3\2"+
+		"\2\2\61\u00f1\3\2\2\2\63\u00f3\3\2\2\2\65\u00f5\3\2\2\2\67\u00f8\3\2\2"+
+		"\29\u00fb\3\2\2\2;\u00fe\3\2\2\2=\u0101\3\2\2\2?\u0104\3\2\2\2A\u0107"+
+		"\3\2\2\2C\u0109\3\2\2\2E\u010b\3\2\2\2G\u010d\3\2\2\2I\u010f\3\2\2\2K"+
+		"\u0111\3\2\2\2M\u0113\3\2\2\2O\u0115\3\2\2\2Q\u0117\3\2\2\2S\u011b\3\2"+
+		"\2\2U\u011f\3\2\2\2W\u0122\3\2\2\2Y\u0139\3\2\2\2[\u0164\3\2\2\2]\u0168"+
+		"\3\2\2\2_\u016a\3\2\2\2a\u016f\3\2\2\2c\u0175\3\2\2\2e\u0179\3\2\2\2g"+
+		"\u017b\3\2\2\2i\u017f\3\2\2\2k\u0181\3\2\2\2m\u0185\3\2\2\2o\u0190\3\2"+
+		"\2\2q\u0192\3\2\2\2s\u0196\3\2\2\2u\u0198\3\2\2\2w\u01a2\3\2\2\2y\u01a8"+
+		"\3\2\2\2{\u01bf\3\2\2\2}~\7>\2\2~\177\7/\2\2\177\4\3\2\2\2\u0080\u0081"+
+		"\t\2\2\2\u0081\u0082\t\3\2\2\u0082\6\3\2\2\2\u0083\u0084\7<\2\2\u0084"+
+		"\b\3\2\2\2\u0085\u0086\7/\2\2\u0086\u0087\7@\2\2\u0087\n\3\2\2\2\u0088"+
+		"\u0089\t\2\2\2\u0089\u008a\t\4\2\2\u008a\f\3\2\2\2\u008b\u008c\t\5\2\2"+
+		"\u008c\u008d\t\6\2\2\u008d\u008e\t\7\2\2\u008e\u008f\t\b\2\2\u008f\16"+
+		"\3\2\2\2\u0090\u0091\t\7\2\2\u0091\u0092\t\t\2\2\u0092\u0093\t\3\2\2\u0093"+
+		"\u0094\t\7\2\2\u0094\20\3\2\2\2\u0095\u0096\t\n\2\2\u0096\u0097\t\6\2"+
+		"\2\u0097\u0098\t\7\2\2\u0098\u0099\t\b\2\2\u0099\22\3\2\2\2\u009a\u009b"+
+		"\t\n\2\2\u009b\u009c\t\6\2\2\u009c\u009d\t\2\2\2\u009d\u009e\t\t\2\2\u009e"+
+		"\u009f\t\7\2\2\u009f\24\3\2\2\2\u00a0\u00a1\t\4\2\2\u00a1\u00a2\t\13\2"+
+		"\2\u00a2\u00a3\t\b\2\2\u00a3\u00a4\t\f\2\2\u00a4\u00a5\t\5\2\2\u00a5\u00a6"+
+		"\t\2\2\2\u00a6\u00a7\t\r\2\2\u00a7\u00ac\t\b\2\2\u00a8\u00a9\t\4\2\2\u00a9"+
+		"\u00aa\t\13\2\2\u00aa\u00ac\t\b\2\2\u00ab\u00a0\3\2\2\2\u00ab\u00a8\3"+
+		"\2\2\2\u00ac\26\3\2\2\2\u00ad\u00ae\t\16\2\2\u00ae\30\3\2\2\2\u00af\u00b0"+
+		"\t\2\2\2\u00b0\u00b1\t\b\2\2\u00b1\u00b2\t\5\2\2\u00b2\u00b3\t\7\2\2\u00b3"+
+		"\u00b4\t\17\2\2\u00b4\u00b5\t\7\2\2\u00b5\u00bb\t\20\2\2\u00b6\u00b7\t"+
+		"\2\2\2\u00b7\u00b8\t\b\2\2\u00b8\u00bb\t\5\2\2\u00b9\u00bb\7\u2126\2\2"+
+		"\u00ba\u00af\3\2\2\2\u00ba\u00b6\3\2\2\2\u00ba\u00b9\3\2\2\2\u00bb\32"+
+		"\3\2\2\2\u00bc\u00bd\t\20\2\2\u00bd\u00be\t\7\2\2\u00be\u00bf\t\21\2\2"+
+		"\u00bf\u00c2\t\t\2\2\u00c0\u00c2\7\u211f\2\2\u00c1\u00bc\3\2\2\2\u00c1"+
+		"\u00c0\3\2\2\2\u00c2\34\3\2\2\2\u00c3\u00c4\t\22\2\2\u00c4\u00c5\t\r\2"+
+		"\2\u00c5\u00c6\t\r\2\2\u00c6\u00c7\t\t\2\2\u00c7\u00c8\t\7\2\2\u00c8\u00c9"+
+		"\t\21\2\2\u00c9\u00d1\t\b\2\2\u00ca\u00cb\t\22\2\2\u00cb\u00cc\t\r\2\2"+
+		"\u00cc\u00cd\t\r\2\2\u00cd\u00d1\t\t\2\2\u00ce\u00cf\7\ud837\2\2\u00cf"+
+		"\u00d1\7\udd3b\2\2\u00d0\u00c3\3\2\2\2\u00d0\u00ca\3\2\2\2\u00d0\u00ce"+
+		"\3\2\2\2\u00d1\36\3\2\2\2\u00d2\u00d3\t\3\2\2\u00d3\u00d4\t\5\2\2\u00d4"+
+		"\u00d5\t\20\2\2\u00d5\u00d6\t\2\2\2\u00d6\u00d7\t\b\2\2\u00d7\u00dc\t"+
+		"\17\2\2\u00d8\u00d9\t\3\2\2\u00d9\u00da\t\5\2\2\u00da\u00dc\t\20\2\2\u00db"+
+		"\u00d2\3\2\2\2\u00db\u00d8\3\2\2\2\u00dc \3\2\2\2\u00dd\u00de\t\t\2\2"+
+		"\u00de\u00df\t\2\2\2\u00df\u00e0\t\3\2\2\u00e0\u00e1\t\5\2\2\u00e1\"\3"+
+		"\2\2\2\u00e2\u00e3\7/\2\2\u00e3$\3\2\2\2\u00e4\u00e5\7-\2\2\u00e5&\3\2"+
+		"\2\2\u00e6\u00e7\7,\2\2\u00e7(\3\2\2\2\u00e8\u00e9\7\61\2\2\u00e9*\3\2"+
+		"\2\2\u00ea\u00eb\7`\2\2\u00eb,\3\2\2\2\u00ec\u00ed\7?\2\2\u00ed.\3\2\2"+
+		"\2\u00ee\u00ef\7>\2\2\u00ef\u00f0\7@\2\2\u00f0\60\3\2\2\2\u00f1\u00f2"+
+		"\7@\2\2\u00f2\62\3\2\2\2\u00f3\u00f4\7>\2\2\u00f4\64\3\2\2\2\u00f5\u00f6"+
+		"\7@\2\2\u00f6\u00f7\7?\2\2\u00f7\66\3\2\2\2\u00f8\u00f9\7>\2\2\u00f9\u00fa"+
+		"\7?\2\2\u00fa8\3\2\2\2\u00fb\u00fc\7?\2\2\u00fc\u00fd\7\u0080\2\2\u00fd"+
+		":\3\2\2\2\u00fe\u00ff\7>\2\2\u00ff\u0100\7>\2\2\u0100<\3\2\2\2\u0101\u0102"+
+		"\7@\2\2\u0102\u0103\7@\2\2\u0103>\3\2\2\2\u0104\u0105\t\2\2\2\u0105\u0106"+
+		"\t\b\2\2\u0106@\3\2\2\2\u0107\u0108\7*\2\2\u0108B\3\2\2\2\u0109\u010a"+
+		"\7+\2\2\u010aD\3\2\2\2\u010b\u010c\7]\2\2\u010cF\3\2\2\2\u010d\u010e\7"+
+		"_\2\2\u010eH\3\2\2\2\u010f\u0110\7}\2\2\u0110J\3\2\2\2\u0111\u0112\7\177"+
+		"\2\2\u0112L\3\2\2\2\u0113\u0114\7\60\2\2\u0114N\3\2\2\2\u0115\u0116\7"+
+		".\2\2\u0116P\3\2\2\2\u0117\u0118\t\21\2\2\u0118\u0119\t\b\2\2\u0119\u011a"+
+		"\t\23\2\2\u011aR\3\2\2\2\u011b\u011c\t\24\2\2\u011c\u011d\t\r\2\2\u011d"+
+		"\u011e\t\20\2\2\u011eT\3\2\2\2\u011f\u0120\t\r\2\2\u0120\u0121\t\20\2"+
+		"\2\u0121V\3\2\2\2\u0122\u0123\t\b\2\2\u0123\u0124\t\r\2\2\u0124\u0125"+
+		"\t\5\2\2\u0125X\3\2\2\2\u0126\u0128\5c\62\2\u0127\u0126\3\2\2\2\u0128"+
+		"\u0129\3\2\2\2\u0129\u0127\3\2\2\2\u0129\u012a\3\2\2\2\u012a\u013a\3\2"+
+		"\2\2\u012b\u012c\t\25\2\2\u012c\u012e\t\24\2\2\u012d\u012f\5e\63\2\u012e"+
+		"\u012d\3\2\2\2\u012f\u0130\3\2\2\2\u0130\u012e\3\2\2\2\u0130\u0131\3\2"+
+		"\2\2\u0131\u013a\3\2\2\2\u0132\u0133\t\25\2\2\u0133\u0135\t\22\2\2\u0134"+
+		"\u0136\5g\64\2\u0135\u0134\3\2\2\2\u0136\u0137\3\2\2\2\u0137\u0135\3\2"+
+		"\2\2\u0137\u0138\3\2\2\2\u0138\u013a\3\2\2\2\u0139\u0127\3\2\2\2\u0139"+
+		"\u012b\3\2\2\2\u0139\u0132\3\2\2\2\u013aZ\3\2\2\2\u013b\u013d\5c\62\2"+
+		"\u013c\u013b\3\2\2\2\u013d\u013e\3\2\2\2\u013e\u013c\3\2\2\2\u013e\u013f"+
+		"\3\2\2\2\u013f\u0146\3\2\2\2\u0140\u0142\5i\65\2\u0141\u0143\5c\62\2\u0142"+
+		"\u0141\3\2\2\2\u0143\u0144\3\2\2\2\u0144\u0142\3\2\2\2\u0144\u0145\3\2"+
+		"\2\2\u0145\u0147\3\2\2\2\u0146\u0140\3\2\2\2\u0146\u0147\3\2\2\2\u0147"+
+		"\u0151\3\2\2\2\u0148\u014a\5k\66\2\u0149\u014b\5#\22\2\u014a\u0149\3\2"+
+		"\2\2\u014a\u014b\3\2\2\2\u014b\u014d\3\2\2\2\u014c\u014e\5c\62\2\u014d"+
+		"\u014c\3\2\2\2\u014e\u014f\3\2\2\2\u014f\u014d\3\2\2\2\u014f\u0150\3\2"+
+		"\2\2\u0150\u0152\3\2\2\2\u0151\u0148\3\2\2\2\u0151\u0152\3\2\2\2\u0152"+
+		"\u0165\3\2\2\2\u0153\u0155\5i\65\2\u0154\u0156\5c\62\2\u0155\u0154\3\2"+
+		"\2\2\u0156\u0157\3\2\2\2\u0157\u0155\3\2\2\2\u0157\u0158\3\2\2\2\u0158"+
+		"\u0162\3\2\2\2\u0159\u015b\5k\66\2\u015a\u015c\5#\22\2\u015b\u015a\3\2"+
+		"\2\2\u015b\u015c\3\2\2\2\u015c\u015e\3\2\2\2\u015d\u015f\5c\62\2\u015e"+
+		"\u015d\3\2\2\2\u015f\u0160\3\2\2\2\u0160\u015e\3\2\2\2\u0160\u0161\3\2"+
+		"\2\2\u0161\u0163\3\2\2\2\u0162\u0159\3\2\2\2\u0162\u0163\3\2\2\2\u0163"+
+		"\u0165\3\2\2\2\u0164\u013c\3\2\2\2\u0164\u0153\3\2\2\2\u0165\\\3\2\2\2"+
+		"\u0166\u0169\5_\60\2\u0167\u0169\5a\61\2\u0168\u0166\3\2\2\2\u0168\u0167"+
+		"\3\2\2\2\u0169^\3\2\2\2\u016a\u016b\t\5\2\2\u016b\u016c\t\20\2\2\u016c"+
+		"\u016d\t\13\2\2\u016d\u016e\t\7\2\2\u016e`\3\2\2\2\u016f\u0170\t\4\2\2"+
+		"\u0170\u0171\t\21\2\2\u0171\u0172\t\t\2\2\u0172\u0173\t\3\2\2\u0173\u0174"+
+		"\t\7\2\2\u0174b\3\2\2\2\u0175\u0176\t\26\2\2\u0176d\3\2\2\2\u0177\u017a"+
+		"\5c\62\2\u0178\u017a\t\27\2\2\u0179\u0177\3\2\2\2\u0179\u0178\3\2\2\2"+
+		"\u017af\3\2\2\2\u017b\u017c\t\30\2\2\u017ch\3\2\2\2\u017d\u0180\5M\'\2"+
+		"\u017e\u0180\5O(\2\u017f\u017d\3\2\2\2\u017f\u017e\3\2\2\2\u0180j\3\2"+
+		"\2\2\u0181\u0182\t\7\2\2\u0182l\3\2\2\2\u0183\u0186\5o8\2\u0184\u0186"+
+		"\5q9\2\u0185\u0183\3\2\2\2\u0185\u0184\3\2\2\2\u0186\u018c\3\2\2\2\u0187"+
+		"\u018b\5o8\2\u0188\u018b\5c\62\2\u0189\u018b\5s:\2\u018a\u0187\3\2\2\2"+
+		"\u018a\u0188\3\2\2\2\u018a\u0189\3\2\2\2\u018b\u018e\3\2\2\2\u018c\u018a"+
+		"\3\2\2\2\u018c\u018d\3\2\2\2\u018dn\3\2\2\2\u018e\u018c\3\2\2\2\u018f"+
+		"\u0191\t\31\2\2\u0190\u018f\3\2\2\2\u0191p\3\2\2\2\u0192\u0193\7a\2\2"+
+		"\u0193r\3\2\2\2\u0194\u0197\5q9\2\u0195\u0197\t\32\2\2\u0196\u0194\3\2"+
+		"\2\2\u0196\u0195\3\2\2\2\u0197t\3\2\2\2\u0198\u019c\7$\2\2\u0199\u019b"+
+		"\n\33\2\2\u019a\u0199\3\2\2\2\u019b\u019e\3\2\2\2\u019c\u019a\3\2\2\2"+
+		"\u019c\u019d\3\2\2\2\u019d\u019f\3\2\2\2\u019e\u019c\3\2\2\2\u019f\u01a0"+
+		"\7$\2\2\u01a0v\3\2\2\2\u01a1\u01a3\t\34\2\2\u01a2\u01a1\3\2\2\2\u01a3"+
+		"\u01a4\3\2\2\2\u01a4\u01a2\3\2\2\2\u01a4\u01a5\3\2\2\2\u01a5\u01a6\3\2"+
+		"\2\2\u01a6\u01a7\b<\2\2\u01a7x\3\2\2\2\u01a8\u01a9\5\63\32\2\u01a9\u01ad"+
+		"\5\63\32\2\u01aa\u01ac\t\34\2\2\u01ab\u01aa\3\2\2\2\u01ac\u01af\3\2\2"+
+		"\2\u01ad\u01ab\3\2\2\2\u01ad\u01ae\3\2\2\2\u01ae\u01b3\3\2\2\2\u01af\u01ad"+
+		"\3\2\2\2\u01b0\u01b2\n\35\2\2\u01b1\u01b0\3\2\2\2\u01b2\u01b5\3\2\2\2"+
+		"\u01b3\u01b1\3\2\2\2\u01b3\u01b4\3\2\2\2\u01b4\u01b9\3\2\2\2\u01b5\u01b3"+
+		"\3\2\2\2\u01b6\u01b8\t\34\2\2\u01b7\u01b6\3\2\2\2\u01b8\u01bb\3\2\2\2"+
+		"\u01b9\u01b7\3\2\2\2\u01b9\u01ba\3\2\2\2\u01ba\u01bc\3\2\2\2\u01bb\u01b9"+
+		"\3\2\2\2\u01bc\u01bd\5\61\31\2\u01bd\u01be\5\61\31\2\u01bez\3\2\2\2\u01bf"+
+		"\u01c3\7%\2\2\u01c0\u01c2\n\35\2\2\u01c1\u01c0\3\2\2\2\u01c2\u01c5\3\2"+
+		"\2\2\u01c3\u01c1\3\2\2\2\u01c3\u01c4\3\2\2\2\u01c4\u01c6\3\2\2\2\u01c5"+
+		"\u01c3\3\2\2\2\u01c6\u01c7\b>\2\2\u01c7|\3\2\2\2%\2\u00ab\u00ba\u00c1"+
+		"\u00d0\u00db\u0129\u0130\u0137\u0139\u013e\u0144\u0146\u014a\u014f\u0151"+
+		"\u0157\u015b\u0160\u0162\u0164\u0168\u0179\u017f\u0185\u018a\u018c\u0190"+
+		"\u0196\u019c\u01a4\u01ad\u01b3\u01b9\u01c3\3\b\2\2";
+	public static final ATN _ATN =
+		new ATNDeserializer().deserialize(_serializedATN.toCharArray());
+	static {
+		_decisionToDFA = new DFA[_ATN.getNumberOfDecisions()];
+		for (int i = 0; i < _ATN.getNumberOfDecisions(); i++) {
+			_decisionToDFA[i] = new DFA(_ATN.getDecisionState(i), i);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,327 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.vela;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+
+/**
+ * <p>
+ * A batch of observations against which VeLa code is evaluated as a whole,
+ * e.g. a filter or transformation applied to all observations in a series.
+ * </p>
+ * <p>
+ * Observation properties (time, magnitude, uncertainty, band, series and,
+ * where every observation has one, phase) are extracted into columns once,
+ * when first needed. Symbols are bound to those columns when the code is
+ * compiled (see {@link VeLaCompiler}) rather than being looked up by name in
+ * a new environment for each observation.
+ * </p>
+ * <p>
+ * Only code that can be compiled is evaluated in batch. Otherwise, an empty
+ * result is returned and the caller should evaluate the code for each
+ * observation in a {@link VeLaValidObservationEnvironment}.
+ * </p>
+ */
+public class VeLaObservationBatch {
+
+    private VeLaInterpreter interpreter;
+
+    private List<ValidObservation> obs;
+
+    // Property columns by canonical symbol name.
+    private Map<String, double[]> realColumns;
+    private Map<String, String[]> stringColumns;
+
+    /**
+     * Constructor
+     *
+     * @param interpreter The interpreter used to resolve constants and
+     *                    functions.
+     * @param obs         The observations.
+     */
+    public VeLaObservationBatch(VeLaInterpreter interpreter, List<ValidObservation> obs) {
+        this.interpreter = interpreter;
+        this.obs = obs;
+
+        realColumns = new HashMap<String, double[]>();
+        stringColumns = new HashMap<String, String[]>();
+    }
+
+    /**
+     * @return the observations
+     */
+    public List<ValidObservation> getObservations() {
+        return obs;
+    }
+
+    /**
+     * @return the number of observations
+     */
+    public int size() {
+        return obs.size();
+    }
+
+    /**
+     * Evaluate a Boolean expression, e.g. a filter, for each observation.
+     *
+     * @param ast The expression's AST.
+     * @return The results in observation order, or an empty value if the
+     *         expression could not be compiled or does not yield a Boolean
+     *         value.
+     * @throws VeLaEvalError If an evaluation error occurs.
+     */
+    public Optional<boolean[]> test(AST ast) throws VeLaEvalError {
+        Optional<boolean[]> results = Optional.empty();
+
+        if (ast != null && VeLaCompiler.isEnabled()) {
+            Optional<Predicate<Row>> predicate = compiler().compilePredicate(ast);
+
+            if (predicate.isPresent()) {
+                boolean[] values = new boolean[obs.size()];
+
+                Row row = new Row();
+                for (row.index = 0; row.index < values.length; row.index++) {
+                    values[row.index] = predicate.get().test(row);
+                }
+
+                results = Optional.of(values);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Evaluate a numeric expression for each observation.
+     *
+     * @param ast The expression's AST.
+     * @return The results in observation order, or an empty value if the
+     *         expression could not be compiled or does not yield a numeric
+     *         value.
+     * @throws VeLaEvalError If an evaluation error occurs.
+     */
+    public Optional<double[]> values(AST ast) throws VeLaEvalError {
+        Optional<double[]> results = Optional.empty();
+
+        if (ast != null && VeLaCompiler.isEnabled()) {
+            Optional<ToDoubleFunction<Row>> function = compiler().compileNumeric(ast);
+
+            if (function.isPresent()) {
+                double[] values = new double[obs.size()];
+
+                Row row = new Row();
+                for (row.index = 0; row.index < values.length; row.index++) {
+                    values[row.index] = function.get().applyAsDouble(row);
+                }
+
+                results = Optional.of(values);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Evaluate a list expression whose elements are numeric expressions, e.g.
+     * [magnitude+1 uncertainty], for each observation.
+     *
+     * @param ast The expression's AST.
+     * @return One column of results per list element, each in observation
+     *         order, or an empty value if the expression is not a list or its
+     *         elements could not be compiled or do not yield numeric values.
+     * @throws VeLaEvalError If an evaluation error occurs.
+     */
+    public Optional<List<double[]>> listValues(AST ast) throws VeLaEvalError {
+        Optional<List<double[]>> results = Optional.empty();
+
+        // A list may be the only expression in a sequence, e.g. a function
+        // body.
+        while (ast != null && ast.getOp() == Operation.SEQUENCE && ast.hasChildren()
+                && ast.getChildren().size() == 1) {
+            ast = ast.head();
+        }
+
+        if (ast != null && ast.getOp() == Operation.LIST && ast.hasChildren() && VeLaCompiler.isEnabled()) {
+            VeLaCompiler<Row> compiler = compiler();
+
+            List<ToDoubleFunction<Row>> elements = new ArrayList<ToDoubleFunction<Row>>();
+
+            for (AST child : ast.getChildren()) {
+                Optional<ToDoubleFunction<Row>> element = compiler.compileNumeric(child);
+                if (element.isPresent()) {
+                    elements.add(element.get());
+                } else {
+                    elements = null;
+                    break;
+                }
+            }
+
+            if (elements != null) {
+                double[][] values = new double[elements.size()][obs.size()];
+
+                // Elements are evaluated last to first, as for the
+                // interpreter.
+                Row row = new Row();
+                for (row.index = 0; row.index < obs.size(); row.index++) {
+                    for (int i = elements.size() - 1; i >= 0; i--) {
+                        values[i][row.index] = elements.get(i).applyAsDouble(row);
+                    }
+                }
+
+                List<double[]> columns = new ArrayList<double[]>();
+                for (double[] column : values) {
+                    columns.add(column);
+                }
+
+                results = Optional.of(columns);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Call a function of no parameters that returns a list of numeric values,
+     * e.g. an observation transformation function do():list, for each
+     * observation.
+     *
+     * @param function The function.
+     * @return One column of results per list element, or an empty value if the
+     *         function could not be compiled.
+     * @throws VeLaEvalError If an evaluation error occurs.
+     * @see #listValues(AST)
+     */
+    public Optional<List<double[]>> listValues(FunctionExecutor function) throws VeLaEvalError {
+        Optional<List<double[]>> results = Optional.empty();
+
+        if (function instanceof UserDefinedFunctionExecutor && function.getParameterTypes().isEmpty()
+                && function.getParameterTypes() != FunctionExecutor.ANY_FORMAL_TYPES
+                && function.getReturnType().isPresent() && function.getReturnType().get() == Type.LIST) {
+            UserDefinedFunctionExecutor userFunction = (UserDefinedFunctionExecutor) function;
+
+            if (userFunction.getBody().isPresent() && !userFunction.hasCapturedEnvironment()) {
+                results = listValues(userFunction.getBody().get());
+            }
+        }
+
+        return results;
+    }
+
+    // Helpers
+
+    private VeLaCompiler<Row> compiler() {
+        return new VeLaCompiler<Row>(interpreter, VeLaValidObservationEnvironment.symbolResolver(this::property));
+    }
+
+    private Optional<VeLaCompiler.Closure<Row>> property(String canonicalName) {
+        VeLaCompiler.Closure<Row> closure = null;
+
+        switch (canonicalName) {
+        case "TIME":
+            closure = real(realColumn(canonicalName, ob -> ob.getJD()));
+            break;
+        case "MAGNITUDE":
+            closure = real(realColumn(canonicalName, ob -> ob.getMag()));
+            break;
+        case "UNCERTAINTY":
+            closure = real(realColumn(canonicalName, ob -> ob.getMagUncertainty()));
+            break;
+        case "BAND":
+            closure = string(stringColumn(canonicalName, ob -> ob.getBand().getDescription()));
+            break;
+        case "SHORTBAND":
+            closure = string(stringColumn(canonicalName, ob -> ob.getBand().getShortName()));
+            break;
+        case "SERIES":
+            closure = string(stringColumn(canonicalName, ob -> ob.getSeries().getDescription()));
+            break;
+        case "STANDARDPHASE":
+            closure = real(phaseColumn(canonicalName, ob -> ob.getStandardPhase()));
+            break;
+        case "PREVIOUSCYCLEPHASE":
+            closure = real(phaseColumn(canonicalName, ob -> ob.getPreviousCyclePhase()));
+            break;
+        default:
+            break;
+        }
+
+        return Optional.ofNullable(closure);
+    }
+
+    private double[] realColumn(String name, ToDoubleFunction<ValidObservation> property) {
+        return realColumns.computeIfAbsent(name, key -> {
+            double[] column = new double[obs.size()];
+            for (int i = 0; i < column.length; i++) {
+                column[i] = property.applyAsDouble(obs.get(i));
+            }
+            return column;
+        });
+    }
+
+    // Phase is only bound for an observation that has one, so the column
+    // will be null unless every observation does.
+    private double[] phaseColumn(String name, Function<ValidObservation, Double> phase) {
+        double[] column = realColumns.get(name);
+
+        if (column == null) {
+            column = new double[obs.size()];
+            for (int i = 0; i < column.length; i++) {
+                Double value = phase.apply(obs.get(i));
+                if (value == null) {
+                    return null;
+                }
+                column[i] = value;
+            }
+            realColumns.put(name, column);
+        }
+
+        return column;
+    }
+
+    private String[] stringColumn(String name, Function<ValidObservation, String> property) {
+        return stringColumns.computeIfAbsent(name, key -> {
+            String[] column = new String[obs.size()];
+            for (int i = 0; i < column.length; i++) {
+                column[i] = property.apply(obs.get(i));
+            }
+            return column;
+        });
+    }
+
+    private static VeLaCompiler.Closure<Row> real(double[] column) {
+        return column == null ? null : VeLaCompiler.Closure.real(row -> column[row.index]);
+    }
+
+    private static VeLaCompiler.Closure<Row> string(String[] column) {
+        return VeLaCompiler.Closure.string(row -> column[row.index]);
+    }
+
+    // The position of the observation being evaluated.
+    private static class Row {
+        int index;
+    }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.function.Function;
 
 import org.aavso.tools.vstar.data.Property;
 import org.aavso.tools.vstar.data.ValidObservation;
@@ -70,7 +71,7 @@ public class VeLaValidObservationEnvironment extends VeLaEnvironment<Operand> {
         } else if ("MAGNITUDE".equals(name)) {
             operand = operand(name, ob.getMag());
         } else if ("UNCERTAINTY".equals(name)) {
-            operand = operand(name, ob.getMagnitude().getUncertainty());
+            operand = operand(name, ob.getMagUncertainty());
         } else if ("BAND".equals(name)) {
             operand = operand(name, ob.getBand().getDescription());
         } else if ("SHORTBAND".equals(name)) {
@@ -206,6 +207,74 @@ public class VeLaValidObservationEnvironment extends VeLaEnvironment<Operand> {
         return symbols;
     }
 
+    /**
+     * Return a symbol resolver with which to compile VeLa code to be evaluated
+     * against observations, e.g. filters (see {@link VeLaCompiler}). Time,
+     * magnitude, uncertainty, band and series symbols are compiled to direct
+     * observation accessors. Other symbols that may be bound to observation
+     * properties are not compiled since their types are not known in advance.
+     * 
+     * @return The symbol resolver.
+     */
+    public static VeLaCompiler.SymbolResolver<ValidObservation> symbolResolver() {
+        return symbolResolver(canonicalName -> {
+            VeLaCompiler.Closure<ValidObservation> closure = null;
+
+            if ("TIME".equals(canonicalName)) {
+                closure = VeLaCompiler.Closure.real(ob -> ob.getJD());
+            } else if ("MAGNITUDE".equals(canonicalName)) {
+                closure = VeLaCompiler.Closure.real(ob -> ob.getMag());
+            } else if ("UNCERTAINTY".equals(canonicalName)) {
+                closure = VeLaCompiler.Closure.real(ob -> ob.getMagUncertainty());
+            } else if ("BAND".equals(canonicalName)) {
+                closure = VeLaCompiler.Closure.string(ob -> ob.getBand().getDescription());
+            } else if ("SHORTBAND".equals(canonicalName)) {
+                closure = VeLaCompiler.Closure.string(ob -> ob.getBand().getShortName());
+            } else if ("SERIES".equals(canonicalName)) {
+                closure = VeLaCompiler.Closure.string(ob -> ob.getSeries().getDescription());
+            }
+
+            return Optional.ofNullable(closure);
+        });
+    }
+
+    /**
+     * Return a symbol resolver with which to compile VeLa code to be evaluated
+     * against observations in some context, e.g. a batch of observations. The
+     * symbols that are bound by an observation environment are mapped to their
+     * canonical names (e.g. T, JD and TIME are all mapped to TIME), which are
+     * then resolved by the supplied function.
+     * 
+     * @param properties A function that returns the compiled form of the
+     *                   observation property with the specified canonical
+     *                   name, if possible.
+     * @return The symbol resolver.
+     */
+    public static <C> VeLaCompiler.SymbolResolver<C> symbolResolver(
+            Function<String, Optional<VeLaCompiler.Closure<C>>> properties) {
+        reset();
+
+        return new VeLaCompiler.SymbolResolver<C>() {
+            @Override
+            public boolean binds(String name) {
+                // Any symbol may name a column.
+                return symbol2CanonicalSymbol.containsKey(name) || columnInfoSource != null;
+            }
+
+            @Override
+            public Optional<VeLaCompiler.Closure<C>> resolve(String name) {
+                Optional<VeLaCompiler.Closure<C>> closure = Optional.empty();
+
+                // Other names can only be looked up as columns.
+                if (symbol2CanonicalSymbol.containsKey(name)) {
+                    closure = properties.apply(symbol2CanonicalSymbol.get(name));
+                }
+
+                return closure;
+            }
+        };
+    }
+
     /**
      * Clear the canonical symbol map.
      */
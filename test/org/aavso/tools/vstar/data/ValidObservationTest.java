@@ -45,13 +45,21 @@ public class ValidObservationTest extends TestCase {
 		// SeriesType, ... have no instance setter methods
 	}
 
-	// copying an observation should lead to different magnitude and details map
-	// references
+	// copying an observation should lead to different magnitude references and
+	// independent details
 	public void testObCopyNotSameRefs() {
 		ValidObservation obCopy = ob.copy();
 		assertEquals(ob.getMagnitude(), obCopy.getMagnitude());
 		assertNotSame(ob.getMagnitude(), obCopy.getMagnitude());
-		assertNotSame(ob.getDetails(), obCopy.getDetails());
+
+		assertEquals("FooStar", obCopy.getName());
+		obCopy.setName("BarStar");
+		assertEquals("FooStar", ob.getName());
+		assertEquals("BarStar", obCopy.getName());
+
+		obCopy.addDetail("FOO", "foo", "Foo");
+		assertSame(Property.NO_VALUE, ob.getDetail("FOO"));
+		assertEquals("foo", obCopy.getDetail("FOO").getStrVal());
 	}
 
 	// copying an observation should lead to different magnitude and details map
@@ -71,4 +79,112 @@ public class ValidObservationTest extends TestCase {
 		obCopy.setMagnitude(new Magnitude(3, 0.03));
 		assertFalse(ob.getMagnitude() == obCopy.getMagnitude());
 	}
+
+	// unset time, magnitude and phase values should be reported as absent
+	public void testAbsentValues() {
+		ValidObservation newOb = new ValidObservation();
+		assertNull(newOb.getDateInfo());
+		assertNull(newOb.getMagnitude());
+		assertNull(newOb.getHJD());
+		assertNull(newOb.getHqUncertainty());
+		assertNull(newOb.getStandardPhase());
+		assertNull(newOb.getPreviousCyclePhase());
+
+		newOb.setStandardPhase(0.25);
+		newOb.setPreviousCyclePhase(-0.75);
+		assertEquals(0.25, newOb.getStandardPhase(), 0.0);
+		assertEquals(-0.75, newOb.getPreviousCyclePhase(), 0.0);
+
+		newOb.setStandardPhase((Double) null);
+		assertNull(newOb.getStandardPhase());
+	}
+
+	// changing a magnitude obtained from an observation should change the
+	// observation, and the observation's setters should show in that magnitude
+	public void testMagnitudeWritesThrough() {
+		Magnitude mag = ob.getMagnitude();
+		assertSame(mag, ob.getMagnitude());
+
+		mag.setUncertainty(0.5);
+		assertEquals(0.5, ob.getMagUncertainty(), 0.0);
+		mag.setMagValue(2.5);
+		assertEquals(2.5, ob.getMag(), 0.0);
+		mag.setMagModifier(MagnitudeModifier.BRIGHTER_THAN);
+		mag.setUncertain(true);
+		assertEquals(new Magnitude(2.5, MagnitudeModifier.BRIGHTER_THAN, true,
+				0.5), ob.copy().getMagnitude());
+
+		ob.setMagUncertainty(0.05);
+		ob.setMagModifier(MagnitudeModifier.FAINTER_THAN);
+		assertEquals(new Magnitude(2.5, MagnitudeModifier.FAINTER_THAN, true,
+				0.05), mag);
+
+		ob.setMag(3);
+		assertEquals(3.0, mag.getMagValue(), 0.0);
+		assertTrue(mag.isFainterThan());
+	}
+
+	// a magnitude passed to an observation should be copied
+	public void testSetMagnitudeCopies() {
+		Magnitude mag = new Magnitude(4, 0.04);
+		ob.setMagnitude(mag);
+		mag.setUncertainty(0.5);
+		assertEquals(0.04, ob.getMagUncertainty(), 0.0);
+	}
+
+	// the date should be reused until the JD changes
+	public void testDateInfoReused() {
+		DateInfo date = ob.getDateInfo();
+		assertSame(date, ob.getDateInfo());
+
+		ob.setJD(2459685.0);
+		assertEquals(2459685.0, ob.getDateInfo().getJulianDay(), 0.0);
+		assertEquals(2459684.50764, date.getJulianDay(), 0.0);
+	}
+
+	// details should be available via the same key after they are added
+	public void testDetails() {
+		ob.setObsCode("ABC");
+		ob.addDetail("TEST_DETAIL", 42, "Test Detail");
+
+		assertEquals("FooStar", ob.getName());
+		assertEquals("ABC", ob.getObsCode());
+		assertEquals(42, ob.getDetail("TEST_DETAIL").getIntVal());
+		assertTrue(ob.detailExists("TEST_DETAIL"));
+
+		assertFalse(ob.detailExists("NO_SUCH_DETAIL"));
+		assertSame(Property.NO_VALUE, ob.getDetail("NO_SUCH_DETAIL"));
+
+		assertEquals(3, ob.getDetails().size());
+		assertEquals("ABC", ob.getDetails().get("OBS_CODE").getStrVal());
+	}
+
+	// changing a copy's details should not change the original's
+	public void testCopyDetailsIndependent() {
+		ValidObservation obCopy = ob.copy();
+		assertEquals(ob, obCopy);
+		assertEquals(ob.hashCode(), obCopy.hashCode());
+
+		obCopy.setName("BarStar");
+		assertEquals("FooStar", ob.getName());
+		assertEquals("BarStar", obCopy.getName());
+		assertFalse(ob.equals(obCopy));
+	}
+
+	// details of observations created before a new dataset is loaded should
+	// be unaffected by the details of the new dataset
+	public void testDetailsSurviveReset() {
+		ValidObservation.reset();
+		try {
+			ValidObservation newOb = new ValidObservation();
+			newOb.addDetail("ANOTHER_DETAIL", "xyz", "Another Detail");
+			newOb.setName("BazStar");
+
+			assertEquals("FooStar", ob.getName());
+			assertFalse(ob.detailExists("ANOTHER_DETAIL"));
+			assertEquals("xyz", newOb.getDetail("ANOTHER_DETAIL").getStrVal());
+		} finally {
+			ValidObservation.restore();
+		}
+	}
 }
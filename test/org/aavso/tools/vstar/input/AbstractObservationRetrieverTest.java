@@ -0,0 +1,152 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.input;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.DateInfo;
+import org.aavso.tools.vstar.data.Magnitude;
+import org.aavso.tools.vstar.data.SeriesType;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.exception.ObservationReadError;
+
+/**
+ * Unit tests for observation insertion in AbstractObservationRetriever.
+ */
+public class AbstractObservationRetrieverTest extends TestCase {
+
+	public AbstractObservationRetrieverTest(String name) {
+		super(name);
+	}
+
+	public void testInsertionOutOfOrder() throws ObservationReadError {
+		TestRetriever retriever = new TestRetriever();
+
+		double[] jds = { 5, 1, 3, 3, 9, 0, 7 };
+		List<ValidObservation> obs = createObs(jds, SeriesType.Visual);
+		for (ValidObservation ob : obs) {
+			retriever.collectObservation(ob);
+		}
+
+		assertSorted(retriever.validObservations);
+		assertSorted(retriever.validObservationCategoryMap
+				.get(SeriesType.Visual));
+
+		// An out of order observation is inserted before those with the
+		// same JD.
+		assertSame(obs.get(3), retriever.validObservations.get(2));
+		assertSame(obs.get(2), retriever.validObservations.get(3));
+	}
+
+	public void testBufferedInsertion() throws ObservationReadError {
+		TestRetriever retriever = new TestRetriever();
+		retriever.setBufferedInsertion(true);
+
+		Random random = new Random(1);
+		double[] jds = new double[1000];
+		for (int i = 0; i < jds.length; i++) {
+			jds[i] = random.nextInt(200);
+		}
+
+		List<ValidObservation> visObs = createObs(jds, SeriesType.Visual);
+		List<ValidObservation> vObs = createObs(jds, SeriesType.Johnson_V);
+		for (int i = 0; i < jds.length; i++) {
+			retriever.collectObservation(visObs.get(i));
+			retriever.collectObservation(vObs.get(i));
+		}
+
+		List<ValidObservation> obs = retriever.getValidObservations();
+		assertEquals(2 * jds.length, obs.size());
+		assertSorted(obs);
+		assertSorted(retriever.getValidObservationCategoryMap().get(
+				SeriesType.Visual));
+		assertSorted(retriever.getValidObservationCategoryMap().get(
+				SeriesType.Johnson_V));
+
+		// Observations with equal JDs remain in the order they were added.
+		for (int i = 1; i < obs.size(); i++) {
+			if (obs.get(i - 1).getJD() == obs.get(i).getJD()) {
+				assertTrue(obs.get(i - 1).getRecordNumber() <= obs.get(i)
+						.getRecordNumber());
+			}
+		}
+	}
+
+	public void testCollectAllObservations() throws ObservationReadError {
+		TestRetriever retriever = new TestRetriever();
+
+		for (ValidObservation ob : createObs(new double[] { 2, 4, 6, 8 },
+				SeriesType.Visual)) {
+			retriever.collectObservation(ob);
+		}
+
+		List<ValidObservation> previousObs = createObs(new double[] { 1, 3,
+				5, 7, 9 }, SeriesType.Visual);
+
+		retriever.collectAllObservations(previousObs, "new");
+
+		assertFalse(retriever.isBufferedInsertion());
+		assertEquals(9, retriever.validObservations.size());
+		assertSorted(retriever.validObservations);
+		assertSorted(retriever.validObservationCategoryMap
+				.get(SeriesType.Visual));
+	}
+
+	// Helpers
+
+	private List<ValidObservation> createObs(double[] jds, SeriesType band) {
+		List<ValidObservation> obs = new ArrayList<ValidObservation>();
+
+		for (int i = 0; i < jds.length; i++) {
+			ValidObservation ob = new ValidObservation();
+			ob.setDateInfo(new DateInfo(jds[i]));
+			ob.setMagnitude(new Magnitude(10, 0));
+			ob.setBand(band);
+			ob.setRecordNumber(i);
+			obs.add(ob);
+		}
+
+		return obs;
+	}
+
+	private void assertSorted(List<ValidObservation> obs) {
+		for (int i = 1; i < obs.size(); i++) {
+			assertTrue(obs.get(i - 1).getJD() <= obs.get(i).getJD());
+		}
+	}
+
+	private static class TestRetriever extends AbstractObservationRetriever {
+		@Override
+		public void retrieveObservations() {
+		}
+
+		@Override
+		public String getSourceType() {
+			return null;
+		}
+
+		@Override
+		public String getSourceName() {
+			return null;
+		}
+	}
+}
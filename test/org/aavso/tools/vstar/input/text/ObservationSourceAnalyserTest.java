@@ -135,4 +135,132 @@ public class ObservationSourceAnalyserTest extends TestCase {
 		a.analyse();
 		assertEquals(2, a.getLineCount());
 	}
+
+	public void testAnalysePrefixExactForSmallSource() throws Exception {
+		String data = "# comment\n2450001.5\t10.0\n2450002.5\t10.1\n";
+		LineNumberReader reader = new LineNumberReader(new StringReader(data));
+		ObservationSourceAnalyser a = new ObservationSourceAnalyser(reader,
+				"prefix1");
+		a.analysePrefix(data.length());
+		assertEquals(NewStarType.NEW_STAR_FROM_SIMPLE_FILE, a.getNewStarType());
+		assertEquals(ObservationSourceAnalyser.TAB_DELIM, a.getDelimiter());
+		assertEquals(3, a.getLineCount());
+		assertFalse(a.isLineCountEstimated());
+
+		// The reader is left at the start of the source.
+		assertEquals(0, reader.getLineNumber());
+		assertEquals("# comment", reader.readLine());
+	}
+
+	public void testAnalysePrefixEstimatesLargeSource() throws Exception {
+		String line = "2450001.5,10.0\n";
+		int lines = 20000;
+		StringBuilder data = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			data.append(line);
+		}
+
+		ObservationSourceAnalyser a = new ObservationSourceAnalyser(
+				new LineNumberReader(new StringReader(data.toString())),
+				"prefix2");
+		a.analysePrefix(data.length());
+		assertEquals(ObservationSourceAnalyser.COMMA_DELIM, a.getDelimiter());
+		assertTrue(a.isLineCountEstimated());
+		assertEquals(lines, a.getLineCount());
+	}
+
+	public void testAnalysePrefixUnknownSize() throws Exception {
+		StringBuilder data = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			data.append("2450001.5 10.0\n");
+		}
+
+		ObservationSourceAnalyser a = new ObservationSourceAnalyser(
+				new LineNumberReader(new StringReader(data.toString())),
+				"prefix3");
+		a.analysePrefix(-1);
+		assertEquals(ObservationSourceAnalyser.SPACE_DELIM, a.getDelimiter());
+		assertEquals(ObservationSourceAnalyser.UNKNOWN_LINE_COUNT,
+				a.getLineCount());
+	}
+
+	public void testAnalysePrefixUnknownFormatThrows() throws Exception {
+		String data = "\n# only comments\nonlyonefield\n";
+		ObservationSourceAnalyser a = new ObservationSourceAnalyser(
+				new LineNumberReader(new StringReader(data)), "badprefix");
+		try {
+			a.analysePrefix(data.length());
+			fail("expected ObservationReadError");
+		} catch (ObservationReadError e) {
+			assertTrue(e.getMessage().contains("badprefix"));
+		}
+	}
+
+	public void testAnalysePrefixCRLF() throws Exception {
+		String data = "# comment\r\n2450001.5\t10.0\r\n2450002.5\t10.1\r";
+		LineNumberReader reader = new LineNumberReader(new StringReader(data));
+		ObservationSourceAnalyser a = new ObservationSourceAnalyser(reader,
+				"crlf1");
+		a.analysePrefix(data.length());
+		assertEquals(ObservationSourceAnalyser.TAB_DELIM, a.getDelimiter());
+		assertEquals(3, a.getLineCount());
+		assertFalse(a.isLineCountEstimated());
+		assertEquals("# comment", reader.readLine());
+	}
+
+	// CRLF comment lines fill the 1 MB prefix up to a few characters before
+	// the first data line, which must still be found and the reader reset.
+	public void testAnalysePrefixCRLFNearLimit() throws Exception {
+		String dataLine = "2450001.5,10.0\r\n";
+		int limit = 1024 * 1024;
+
+		StringBuilder data = new StringBuilder();
+		while (data.length() + 3 + dataLine.length() <= limit) {
+			data.append("#\r\n");
+		}
+		for (int i = 0; i < 1000; i++) {
+			data.append(dataLine);
+		}
+
+		LineNumberReader reader = new LineNumberReader(new StringReader(
+				data.toString()));
+		ObservationSourceAnalyser a = new ObservationSourceAnalyser(reader,
+				"crlf2");
+		a.analysePrefix(data.length());
+		assertEquals(ObservationSourceAnalyser.COMMA_DELIM, a.getDelimiter());
+		assertTrue(a.isLineCountEstimated());
+		assertEquals("#", reader.readLine());
+	}
+
+	// A data line beyond the 1 MB prefix is not found, even though counting
+	// one character per line terminator would place it within the prefix.
+	public void testAnalysePrefixCRLFBeyondLimit() throws Exception {
+		int limit = 1024 * 1024;
+
+		StringBuilder data = new StringBuilder();
+		while (data.length() < limit * 5 / 4) {
+			data.append("#\r\n");
+		}
+		data.append("2450001.5,10.0\r\n");
+
+		LineNumberReader reader = new LineNumberReader(new StringReader(
+				data.toString()));
+		ObservationSourceAnalyser a = new ObservationSourceAnalyser(reader,
+				"crlf3");
+		try {
+			a.analysePrefix(data.length());
+			fail("expected ObservationReadError");
+		} catch (ObservationReadError e) {
+			assertTrue(e.getMessage().contains("crlf3"));
+		}
+
+		assertEquals("#", reader.readLine());
+	}
+
+	public void testIsBlank() {
+		assertTrue(ObservationSourceAnalyser.isBlank(""));
+		assertTrue(ObservationSourceAnalyser.isBlank(" \t\f\r\u000B"));
+		assertFalse(ObservationSourceAnalyser.isBlank(" x "));
+		assertFalse(ObservationSourceAnalyser.isBlank("\u00A0"));
+	}
 }
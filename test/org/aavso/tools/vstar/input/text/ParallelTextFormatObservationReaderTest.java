@@ -0,0 +1,336 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.input.text;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.InvalidObservation;
+import org.aavso.tools.vstar.data.SeriesType;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.input.AbstractObservationRetriever;
+import org.aavso.tools.vstar.ui.mediator.Mediator;
+import org.aavso.tools.vstar.ui.mediator.ProgressNotifier;
+import org.aavso.tools.vstar.ui.mediator.message.ProgressInfo;
+import org.aavso.tools.vstar.ui.mediator.message.ProgressType;
+import org.aavso.tools.vstar.util.notification.Listener;
+
+/**
+ * Tests that reading a file in parallel chunks yields the same observations,
+ * record numbers and error messages as reading it sequentially.
+ */
+public class ParallelTextFormatObservationReaderTest extends TestCase {
+
+	private static final long CHUNK_SIZE = 16 * 1024;
+
+	public ParallelTextFormatObservationReaderTest(String name) {
+		super(name);
+	}
+
+	public void testDownloadFormatFile() throws Exception {
+		commonSameAsSequentialTest(new File("data/eta_car_all.tsv"));
+	}
+
+	public void testDownloadFormatCSVFile() throws Exception {
+		commonSameAsSequentialTest(new File("data/ss_cyg_dec_1_63_to_09_with_mtype_affiliation_group.csv"));
+	}
+
+	public void testSimpleFormatFile() throws Exception {
+		commonSameAsSequentialTest(new File("data/simple_format1.tsv"));
+	}
+
+	public void testHeaderCommentsAndInvalidLines() throws Exception {
+		StringBuilder content = new StringBuilder();
+		content.append("# a comment\n");
+		content.append("\n");
+		content.append("JD\tMagnitude\n");
+		for (int i = 0; i < 5000; i++) {
+			if (i == 2500) {
+				content.append("#NAME=foo\n");
+			}
+			if (i % 97 == 0) {
+				content.append("2450000.5\tnot a magnitude\n");
+			} else if (i % 131 == 0) {
+				content.append("JD\tMagnitude\n");
+			} else if (i % 113 == 0) {
+				content.append("   \n");
+			} else {
+				content.append(2450000.5 + i);
+				content.append("\t");
+				content.append(10 + (i % 10) / 10.0);
+				content.append("\t0.01\tABC\n");
+			}
+		}
+
+		commonSameAsSequentialTest(createFile(content.toString()));
+	}
+
+	public void testQuotedFieldSpanningChunks() throws Exception {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			content.append(2450000.5 + i);
+			content.append(",10.0,0.01,");
+			// A quoted observer code containing line feeds, one of which is
+			// longer than a chunk.
+			if (i % 500 == 0) {
+				content.append("\"A\nB\nC\"");
+			} else if (i == 1234) {
+				content.append("\"");
+				for (int j = 0; j < 2 * CHUNK_SIZE / 10; j++) {
+					content.append("ABCDEFGHI\n");
+				}
+				content.append("\"");
+			} else {
+				content.append("ABC");
+			}
+			content.append("\n");
+		}
+
+		commonSameAsSequentialTest(createFile(content.toString()));
+	}
+
+	public void testChunkSizeMustBePositive() throws Exception {
+		File file = new File("data/simple_format1.tsv");
+		ParallelTextFormatObservationReader reader = createParallelReader(
+				file, analyse(file));
+		try {
+			reader.setChunkSize(0);
+			fail("expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
+	public void testThreadCountClamped() throws Exception {
+		File file = new File("data/simple_format1.tsv");
+		ParallelTextFormatObservationReader reader = createParallelReader(
+				file, analyse(file));
+
+		reader.setThreadCount(0);
+		assertEquals(1, reader.getThreadCount());
+
+		reader.setThreadCount(Integer.MAX_VALUE);
+		assertEquals(ParallelTextFormatObservationReader
+				.getRecommendedThreadCount(), reader.getThreadCount());
+	}
+
+	// Progress is reported by the chunk readers as they validate records,
+	// rather than only once all chunks have been read, and totals one
+	// increment per record.
+	public void testProgressReportedByChunkReaders() throws Exception {
+		commonProgressTest(new File("data/eta_car_all.tsv"), 1.0);
+	}
+
+	// A file that must be read sequentially after all (because a quoted
+	// field spans chunks) does not report progress twice. The chunk readers
+	// see the lines of the quoted field as records, so may report more
+	// progress than the sequential reader, but it only reports progress
+	// beyond that.
+	public void testProgressNotRepeatedOnSequentialFallback() throws Exception {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			content.append(2450000.5 + i);
+			content.append(",10.0,0.01,");
+			if (i == 1234) {
+				content.append("\"");
+				for (int j = 0; j < CHUNK_SIZE / 10 + 100; j++) {
+					content.append("ABCDEFGHI\n");
+				}
+				content.append("\"");
+			} else {
+				content.append("ABC");
+			}
+			content.append("\n");
+		}
+
+		commonProgressTest(createFile(content.toString()), 2.0);
+	}
+
+	// Helpers
+
+	// Read a file sequentially then in chunks, checking that the progress
+	// reported for the latter is at least that for the former but less than
+	// the specified multiple of it (or equal, for a multiple of 1).
+	private void commonProgressTest(File file, double maxRatio)
+			throws Exception {
+		ObservationSourceAnalyser analyser = analyse(file);
+
+		ValidObservation.reset();
+		TextFormatObservationReader sequential = new TextFormatObservationReader(
+				new LineNumberReader(new FileReader(file)), analyser,
+				AbstractObservationRetriever.NO_VELA_FILTER);
+
+		ProgressNotifier notifier = (ProgressNotifier) Mediator.getInstance()
+				.getProgressNotifier();
+
+		final AtomicInteger increments = new AtomicInteger(0);
+		final AtomicBoolean fromOtherThread = new AtomicBoolean(false);
+		final Thread testThread = Thread.currentThread();
+
+		Listener<ProgressInfo> listener = new Listener<ProgressInfo>() {
+			@Override
+			public void update(ProgressInfo info) {
+				if (info.getType() == ProgressType.INCREMENT_PROGRESS) {
+					increments.addAndGet(info.getNum());
+					if (Thread.currentThread() != testThread) {
+						fromOtherThread.set(true);
+					}
+				}
+			}
+
+			@Override
+			public boolean canBeRemoved() {
+				return true;
+			}
+		};
+
+		// Discard increments pending from previous reads.
+		notifier.flush();
+		notifier.addListener(listener);
+
+		try {
+			sequential.retrieveObservations();
+			notifier.flush();
+			int expected = increments.getAndSet(0);
+			assertTrue(expected > 0);
+			assertFalse(fromOtherThread.get());
+
+			// Ensure that the first increment is dispatched immediately.
+			Thread.sleep(2 * ProgressNotifier.DEFAULT_FLUSH_INTERVAL_MILLIS);
+
+			ValidObservation.reset();
+			ParallelTextFormatObservationReader parallel = createParallelReader(
+					file, analyser);
+			parallel.setThreadCount(Math.max(2,
+					ParallelTextFormatObservationReader
+							.getRecommendedThreadCount()));
+			parallel.setChunkSize(CHUNK_SIZE);
+			parallel.retrieveObservations();
+			notifier.flush();
+
+			if (maxRatio == 1.0) {
+				assertEquals(expected, increments.get());
+			} else {
+				assertTrue(increments.get() >= expected);
+				assertTrue(increments.get() < maxRatio * expected);
+			}
+
+			// Only a file read in chunks is read by other threads.
+			if (parallel.getThreadCount() > 1
+					&& file.length() > 2 * CHUNK_SIZE) {
+				assertTrue(fromOtherThread.get());
+			}
+		} finally {
+			notifier.removeListenerIfWilling(listener);
+		}
+	}
+
+	private void commonSameAsSequentialTest(File file) throws Exception {
+		ObservationSourceAnalyser analyser = analyse(file);
+
+		ValidObservation.reset();
+		TextFormatObservationReader sequential = new TextFormatObservationReader(
+				new LineNumberReader(new FileReader(file)), analyser,
+				AbstractObservationRetriever.NO_VELA_FILTER);
+		sequential.retrieveObservations();
+
+		ValidObservation.reset();
+		ParallelTextFormatObservationReader parallel = createParallelReader(
+				file, analyser);
+		parallel.setThreadCount(Math.max(2,
+				ParallelTextFormatObservationReader.getRecommendedThreadCount()));
+		parallel.setChunkSize(CHUNK_SIZE);
+		parallel.retrieveObservations();
+
+		assertEquals(sequential.objName, parallel.objName);
+
+		List<ValidObservation> expectedObs = sequential.getValidObservations();
+		List<ValidObservation> actualObs = parallel.getValidObservations();
+		assertFalse(expectedObs.isEmpty());
+		assertEquals(expectedObs.size(), actualObs.size());
+		for (int i = 0; i < expectedObs.size(); i++) {
+			ValidObservation expected = expectedObs.get(i);
+			ValidObservation actual = actualObs.get(i);
+			assertEquals(expected.getRecordNumber(), actual.getRecordNumber());
+			assertEquals(expected.getJD(), actual.getJD());
+			assertEquals(expected.getMagnitude(), actual.getMagnitude());
+			assertEquals(expected.getBand(), actual.getBand());
+			assertEquals(expected.getObsCode(), actual.getObsCode());
+		}
+
+		List<InvalidObservation> expectedInvalidObs = sequential
+				.getInvalidObservations();
+		List<InvalidObservation> actualInvalidObs = parallel
+				.getInvalidObservations();
+		assertEquals(expectedInvalidObs.size(), actualInvalidObs.size());
+		for (int i = 0; i < expectedInvalidObs.size(); i++) {
+			InvalidObservation expected = expectedInvalidObs.get(i);
+			InvalidObservation actual = actualInvalidObs.get(i);
+			assertEquals(expected.getRecordNumber(), actual.getRecordNumber());
+			assertEquals(expected.getInputLine(), actual.getInputLine());
+			assertEquals(expected.getError(), actual.getError());
+			assertEquals(expected.isWarning(), actual.isWarning());
+		}
+
+		for (SeriesType series : sequential.getValidObservationCategoryMap()
+				.keySet()) {
+			assertEquals(sequential.getValidObservationCategoryMap()
+					.get(series).size(), parallel
+					.getValidObservationCategoryMap().get(series).size());
+		}
+	}
+
+	private ObservationSourceAnalyser analyse(File file) throws Exception {
+		ObservationSourceAnalyser analyser = new ObservationSourceAnalyser(
+				new LineNumberReader(new FileReader(file)), file.getName());
+		analyser.analyse();
+		return analyser;
+	}
+
+	private ParallelTextFormatObservationReader createParallelReader(
+			File file, ObservationSourceAnalyser analyser) throws IOException {
+		FileInputStream stream = new FileInputStream(file);
+		return new ParallelTextFormatObservationReader(stream.getChannel(),
+				new LineNumberReader(new InputStreamReader(stream)), analyser,
+				AbstractObservationRetriever.NO_VELA_FILTER);
+	}
+
+	private File createFile(String content) throws IOException {
+		File file = File.createTempFile("vstar", ".txt");
+		file.deleteOnExit();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file));
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+}
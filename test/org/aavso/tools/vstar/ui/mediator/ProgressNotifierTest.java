@@ -0,0 +1,114 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.ui.mediator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.aavso.tools.vstar.ui.mediator.message.ProgressInfo;
+import org.aavso.tools.vstar.ui.mediator.message.ProgressType;
+import org.aavso.tools.vstar.util.notification.Listener;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for {@link ProgressNotifier}.
+ */
+public class ProgressNotifierTest extends TestCase {
+
+	private static class TestListener implements Listener<ProgressInfo> {
+		final List<ProgressInfo> received = new ArrayList<ProgressInfo>();
+
+		public void update(ProgressInfo info) {
+			received.add(info);
+		}
+
+		public boolean canBeRemoved() {
+			return true;
+		}
+
+		int totalIncrements() {
+			int total = 0;
+			for (ProgressInfo info : received) {
+				if (info.getType() == ProgressType.INCREMENT_PROGRESS) {
+					total += info.getNum();
+				}
+			}
+			return total;
+		}
+	}
+
+	public void testIncrementsAreCoalesced() {
+		ProgressNotifier n = new ProgressNotifier(60000);
+		TestListener L = new TestListener();
+		n.addListener(L);
+
+		for (int i = 0; i < 100000; i++) {
+			n.notifyListeners(ProgressInfo.INCREMENT_PROGRESS);
+		}
+		n.notifyListeners(ProgressInfo.COMPLETE_PROGRESS);
+
+		// The first increment is dispatched immediately, the remainder when
+		// the completion message flushes them.
+		assertEquals(3, L.received.size());
+		assertEquals(100000, L.totalIncrements());
+		assertEquals(ProgressType.COMPLETE_PROGRESS,
+				L.received.get(2).getType());
+	}
+
+	public void testNoCoalescingWithZeroInterval() {
+		ProgressNotifier n = new ProgressNotifier(0);
+		TestListener L = new TestListener();
+		n.addListener(L);
+
+		for (int i = 0; i < 10; i++) {
+			n.notifyListeners(ProgressInfo.INCREMENT_PROGRESS);
+		}
+
+		assertEquals(10, L.received.size());
+		assertEquals(10, L.totalIncrements());
+	}
+
+	public void testFlush() {
+		ProgressNotifier n = new ProgressNotifier(60000);
+		TestListener L = new TestListener();
+		n.addListener(L);
+
+		n.notifyListeners(new ProgressInfo(ProgressType.INCREMENT_PROGRESS, 5));
+		n.notifyListeners(new ProgressInfo(ProgressType.INCREMENT_PROGRESS, 7));
+		assertEquals(5, L.totalIncrements());
+
+		n.flush();
+		assertEquals(12, L.totalIncrements());
+
+		// Nothing pending.
+		n.flush();
+		assertEquals(2, L.received.size());
+	}
+
+	public void testNoMessagesRetained() {
+		ProgressNotifier n = new ProgressNotifier();
+		n.notifyListeners(ProgressInfo.START_PROGRESS);
+		n.notifyListeners(ProgressInfo.INCREMENT_PROGRESS);
+		n.notifyListeners(ProgressInfo.COMPLETE_PROGRESS);
+
+		TestListener L = new TestListener();
+		n.addListener(L, true);
+		assertTrue(L.received.isEmpty());
+	}
+}
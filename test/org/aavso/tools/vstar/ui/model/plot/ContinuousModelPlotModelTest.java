@@ -0,0 +1,113 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.ui.model.plot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.DateInfo;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.apache.commons.math.FunctionEvaluationException;
+import org.apache.commons.math.analysis.UnivariateRealFunction;
+
+/**
+ * Unit tests for {@link ContinuousModelPlotModel}.
+ */
+public class ContinuousModelPlotModelTest extends TestCase {
+
+	private static final double ZERO_POINT = 2451545.0;
+
+	private List<ValidObservation> fit;
+
+	public ContinuousModelPlotModelTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fit = new ArrayList<ValidObservation>();
+		for (int i = 0; i < 5; i++) {
+			fit.add(createOb(ZERO_POINT + i));
+		}
+	}
+
+	public void testValues() {
+		ContinuousModelPlotModel model = new ContinuousModelPlotModel(
+				new ContinuousModelFunction(new Line(), fit, ZERO_POINT));
+
+		assertEquals(5, model.getItemCount(0));
+		for (int i = 0; i < 5; i++) {
+			assertEquals(2.0 * i + 1, model.getY(0, i).doubleValue());
+		}
+	}
+
+	// A value that cannot be computed is NaN, so it is not plotted, rather
+	// than a spurious 0.
+	public void testFailedValueIsNaN() {
+		ContinuousModelPlotModel model = new ContinuousModelPlotModel(
+				new ContinuousModelFunction(new Line(2.5), fit, ZERO_POINT));
+
+		assertEquals(5.0, model.getY(0, 2).doubleValue());
+		assertTrue(Double.isNaN(model.getY(0, 3).doubleValue()));
+		assertTrue(Double.isNaN(model.getY(0, 4).doubleValue()));
+	}
+
+	// Values are recomputed when the range of the fit changes, even if its
+	// size does not.
+	public void testRangeChange() {
+		ContinuousModelPlotModel model = new ContinuousModelPlotModel(
+				new ContinuousModelFunction(new Line(), fit, ZERO_POINT));
+
+		assertEquals(9.0, model.getY(0, 4).doubleValue());
+
+		fit.set(4, createOb(ZERO_POINT + 10));
+
+		assertEquals(21.0, model.getY(0, 4).doubleValue());
+	}
+
+	// Helpers
+
+	private ValidObservation createOb(double jd) {
+		ValidObservation ob = new ValidObservation();
+		ob.setDateInfo(new DateInfo(jd));
+		return ob;
+	}
+
+	// The function 2x+1, which cannot be computed above a limit.
+	private static class Line implements UnivariateRealFunction {
+		private double limit;
+
+		Line() {
+			this(Double.POSITIVE_INFINITY);
+		}
+
+		Line(double limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public double value(double x) throws FunctionEvaluationException {
+			if (x > limit) {
+				throw new FunctionEvaluationException(x);
+			}
+			return 2 * x + 1;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+/**
+ * Bounded LRU cache unit tests.
+ */
+public class BoundedLRUCacheTest extends TestCase {
+
+	public BoundedLRUCacheTest(String name) {
+		super(name);
+	}
+
+	public void testHitsAndMisses() {
+		BoundedLRUCache<String, Integer> cache = new BoundedLRUCache<String, Integer>(
+				"test", 10);
+
+		assertNull(cache.get("a"));
+		cache.put("a", 1);
+		assertEquals(Integer.valueOf(1), cache.get("a"));
+
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+		assertEquals(1, cache.size());
+	}
+
+	public void testLeastRecentlyUsedEvicted() {
+		BoundedLRUCache<String, Integer> cache = new BoundedLRUCache<String, Integer>(
+				"test", 2);
+
+		cache.put("a", 1);
+		cache.put("b", 2);
+		// Make "a" the most recently used.
+		cache.get("a");
+		cache.put("c", 3);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+	}
+
+	public void testWeightBound() {
+		BoundedLRUCache<String, String> cache = new BoundedLRUCache<String, String>(
+				"test", 100, 10, value -> value.length());
+
+		cache.put("a", "1234");
+		cache.put("b", "1234");
+		assertEquals(8, cache.getWeight());
+
+		cache.put("c", "1234");
+		assertEquals(2, cache.size());
+		assertEquals(8, cache.getWeight());
+		assertNull(cache.get("a"));
+
+		// Too heavy to be cached at all.
+		cache.put("d", "12345678901");
+		assertNull(cache.get("d"));
+		assertEquals(2, cache.size());
+	}
+
+	public void testReplace() {
+		BoundedLRUCache<String, String> cache = new BoundedLRUCache<String, String>(
+				"test", 100, 10, value -> value.length());
+
+		cache.put("a", "1234");
+		cache.put("a", "12");
+
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getWeight());
+		assertEquals("12", cache.get("a"));
+	}
+
+	public void testComputeIfAbsent() {
+		BoundedLRUCache<String, Integer> cache = new BoundedLRUCache<String, Integer>(
+				"test", 10);
+
+		assertEquals(Integer.valueOf(3), cache.computeIfAbsent("abc",
+				key -> key.length()));
+		assertEquals(Integer.valueOf(3), cache.computeIfAbsent("abc", key -> {
+			fail("value should have been cached");
+			return null;
+		}));
+	}
+
+	public void testClear() {
+		BoundedLRUCache<String, Integer> cache = new BoundedLRUCache<String, Integer>(
+				"test", 1);
+
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.get("b");
+		cache.clear();
+
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(0, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+	}
+
+	public void testConcurrentUseStaysBounded() throws Exception {
+		final BoundedLRUCache<Integer, Integer> cache = new BoundedLRUCache<Integer, Integer>(
+				"test", 50);
+		int threads = 4;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+
+		try {
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						boolean ok = true;
+						for (int i = 0; i < 10000; i++) {
+							int key = i % 200;
+							Integer value = cache.computeIfAbsent(key,
+									k -> k * 2);
+							ok &= value == key * 2;
+						}
+						return ok;
+					}
+				}));
+			}
+
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertTrue(cache.size() <= 50);
+		assertEquals(4 * 10000, cache.getHitCount() + cache.getMissCount());
+	}
+}
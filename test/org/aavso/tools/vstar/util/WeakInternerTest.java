@@ -0,0 +1,140 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.DateInfo;
+import org.aavso.tools.vstar.data.ValidObservation;
+
+/**
+ * Weak interner unit tests.
+ */
+public class WeakInternerTest extends TestCase {
+
+	public WeakInternerTest(String name) {
+		super(name);
+	}
+
+	public void testEqualValuesShareInstance() {
+		WeakInterner<DateInfo> interner = new WeakInterner<DateInfo>("test");
+
+		DateInfo first = new DateInfo(2450000.5);
+		DateInfo second = new DateInfo(2450000.5);
+		DateInfo third = new DateInfo(2450001.5);
+
+		assertSame(first, interner.intern(first));
+		assertSame(first, interner.intern(second));
+		assertSame(third, interner.intern(third));
+
+		assertEquals(1, interner.getHitCount());
+		assertEquals(2, interner.getMissCount());
+		assertEquals(2, interner.size());
+	}
+
+	public void testNull() {
+		WeakInterner<String> interner = new WeakInterner<String>("test");
+
+		assertNull(interner.intern(null));
+		assertEquals(0, interner.getHitCount());
+		assertEquals(0, interner.getMissCount());
+	}
+
+	public void testClear() {
+		WeakInterner<String> interner = new WeakInterner<String>("test", 3);
+
+		interner.intern(new String("a"));
+		interner.intern(new String("a"));
+		interner.clear();
+
+		assertEquals(0, interner.size());
+		assertEquals(0, interner.getHitCount());
+		assertEquals(0, interner.getMissCount());
+	}
+
+	public void testConcurrentInterningYieldsOneInstance() throws Exception {
+		final WeakInterner<DateInfo> interner = new WeakInterner<DateInfo>(
+				"test");
+		final int values = 1000;
+		int threads = 4;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<DateInfo[]>> futures = new ArrayList<Future<DateInfo[]>>();
+
+		try {
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(new Callable<DateInfo[]>() {
+					@Override
+					public DateInfo[] call() {
+						DateInfo[] canonical = new DateInfo[values];
+						for (int i = 0; i < values; i++) {
+							canonical[i] = interner
+									.intern(new DateInfo(2450000 + i));
+						}
+						return canonical;
+					}
+				}));
+			}
+
+			DateInfo[] expected = futures.get(0).get();
+			for (Future<DateInfo[]> future : futures) {
+				DateInfo[] actual = future.get();
+				for (int i = 0; i < values; i++) {
+					assertSame(expected[i], actual[i]);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(values, interner.getMissCount());
+		assertEquals((threads - 1) * values, interner.getHitCount());
+	}
+
+	public void testUnreferencedValuesDiscarded() throws Exception {
+		WeakInterner<String> interner = new WeakInterner<String>("test");
+
+		for (int i = 0; i < 100; i++) {
+			interner.intern(new String("value " + i));
+		}
+
+		for (int i = 0; i < 50 && interner.size() != 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+
+		assertEquals(0, interner.size());
+	}
+
+	public void testObservationsShareCommentCodes() {
+		ValidObservation ob1 = new ValidObservation();
+		ob1.setCommentCode("BZ");
+
+		ValidObservation ob2 = new ValidObservation();
+		ob2.setCommentCode("BZ");
+
+		assertSame(ob1.getCommentCode(), ob2.getCommentCode());
+	}
+}
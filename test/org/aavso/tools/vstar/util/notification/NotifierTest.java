@@ -107,4 +107,56 @@ public class NotifierTest extends TestCase {
 		assertEquals(1, L.received.size());
 		assertEquals("once", L.received.get(0));
 	}
+
+	public void testNoReplayPolicy() {
+		Notifier<String> n = new Notifier<String>(ReplayPolicy.NONE);
+		n.notifyListeners("A");
+		n.notifyListeners("B");
+		TestListener L = new TestListener();
+		n.addListener(L, true);
+		assertTrue(L.received.isEmpty());
+		assertTrue(n.getReplayMessages().isEmpty());
+	}
+
+	public void testLatestReplayPolicy() {
+		Notifier<String> n = new Notifier<String>(ReplayPolicy.LATEST);
+		n.notifyListeners("A");
+		n.notifyListeners("B");
+		TestListener L = new TestListener();
+		n.addListener(L, true);
+		assertEquals(1, L.received.size());
+		assertEquals("B", L.received.get(0));
+	}
+
+	public void testLastNReplayPolicy() {
+		Notifier<String> n = new Notifier<String>(ReplayPolicy.LAST_N, 2);
+		n.notifyListeners("A");
+		n.notifyListeners("B");
+		n.notifyListeners("C");
+		TestListener L = new TestListener();
+		n.addListener(L, true);
+		assertEquals(2, L.received.size());
+		assertEquals("B", L.received.get(0));
+		assertEquals("C", L.received.get(1));
+	}
+
+	public void testBoundedReplayStillNotifiesListeners() {
+		Notifier<String> n = new Notifier<String>(ReplayPolicy.NONE);
+		TestListener L = new TestListener();
+		n.addListener(L);
+		for (int i = 0; i < 1000; i++) {
+			n.notifyListeners("m" + i);
+		}
+		assertEquals(1000, L.received.size());
+		assertTrue(n.getReplayMessages().isEmpty());
+	}
+
+	public void testNegativeLastN() {
+		try {
+			new Notifier<String>(ReplayPolicy.LAST_N, -1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// We expect to end up here
+		}
+	}
 }
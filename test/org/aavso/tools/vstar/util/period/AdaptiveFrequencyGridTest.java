@@ -0,0 +1,212 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.LineNumberReader;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.input.AbstractObservationRetriever;
+import org.aavso.tools.vstar.input.text.ObservationSourceAnalyser;
+import org.aavso.tools.vstar.input.text.TextFormatObservationReader;
+import org.aavso.tools.vstar.util.IAlgorithm;
+import org.aavso.tools.vstar.util.period.aov.AoVPeriodogram;
+import org.aavso.tools.vstar.util.period.dcdft.TSDcDft;
+
+/**
+ * Coarse-to-fine frequency grid tests: the strongest peak found must be that
+ * found by an exhaustive scan.
+ */
+public class AdaptiveFrequencyGridTest extends TestCase {
+
+	public AdaptiveFrequencyGridTest(String name) {
+		super(name);
+	}
+
+	// Two narrow peaks, the second stronger, on a constant background.
+	public void testRefinesStrongestPeak() throws Exception {
+		IFrequencyScorer scorer = (loFreq, step, scores) -> {
+			for (int i = 0; i < scores.length; i++) {
+				double f = loFreq + i * step;
+				scores[i] = 0.1 + peak(f, 0.123456, 0.01, 1.0)
+						+ peak(f, 0.654321, 0.01, 2.0);
+			}
+		};
+
+		AdaptiveFrequencyGrid grid = new AdaptiveFrequencyGrid(0, 1, 0.002,
+				1e-7, 5, true);
+		grid.execute(scorer);
+
+		TopHitsHeap peaks = grid.getPeaks();
+		assertEquals(0.654321, peaks.getFrequency(0), 1e-6);
+		assertEquals(0.123456, peaks.getFrequency(1), 1e-6);
+
+		// An exhaustive scan would require 10 million evaluations.
+		assertTrue(grid.getEvaluations() < 2000);
+
+		double[] freqs = grid.getFrequencies();
+		double[] scores = grid.getScores();
+		assertEquals(freqs.length, scores.length);
+		for (int i = 1; i < freqs.length; i++) {
+			assertTrue(freqs[i] > freqs[i - 1]);
+		}
+		assertEquals(0.0, freqs[0]);
+		assertEquals(1.0, freqs[freqs.length - 1], 0.002);
+	}
+
+	public void testSmallestFirst() throws Exception {
+		IFrequencyScorer scorer = (loFreq, step, scores) -> {
+			for (int i = 0; i < scores.length; i++) {
+				double f = loFreq + i * step;
+				scores[i] = 1 - peak(f, 0.3141592, 0.005, 0.9);
+			}
+		};
+
+		AdaptiveFrequencyGrid grid = new AdaptiveFrequencyGrid(0.1, 0.9,
+				0.001, 1e-8, 3, false);
+		grid.execute(scorer);
+
+		assertEquals(0.3141592, grid.getPeaks().getFrequency(0), 1e-7);
+		assertEquals(0.1, grid.getPeaks().getScore(0), 1e-6);
+	}
+
+	// Period: 5.366 days
+	public void testDcDftDeltaCep() throws Exception {
+		commonDcDftTest(new File("data/delcep_jd_mag.vis"), 0.15, 0.25, 1e-5);
+	}
+
+	// Period: around 310 days before its decline began
+	public void testDcDftTUmi() throws Exception {
+		commonDcDftTest(new File("data/TUmi_2420000_2455000.tsv"), 0.002,
+				0.006, 1e-6);
+	}
+
+	public void testAoVDeltaCep() throws Exception {
+		List<ValidObservation> obs = readObservations(new File(
+				"data/delcep_jd_mag.vis"));
+
+		double minPeriod = 4;
+		double maxPeriod = 7;
+		double periodResolution = 0.0005;
+
+		AoVPeriodogram exhaustive = new AoVPeriodogram(obs, minPeriod,
+				maxPeriod, periodResolution, 10);
+		exhaustive.execute();
+		double exhaustivePeriod = exhaustive.getTopHits().getPeriod(0);
+
+		// A frequency resolution finer than the period resolution.
+		AoVPeriodogram scorer = new AoVPeriodogram(obs, minPeriod, maxPeriod,
+				periodResolution, 10);
+		AdaptiveFrequencyGrid grid = new AdaptiveFrequencyGrid(1 / maxPeriod,
+				1 / minPeriod, AdaptiveFrequencyGrid
+						.coarseStep(timeSpan(obs)), 1e-5, 5, true);
+		grid.execute(scorer);
+		double gridPeriod = grid.getPeaks().getPeriod(0);
+
+		assertEquals(exhaustivePeriod, gridPeriod, periodResolution * 2);
+		assertTrue(grid.getEvaluations() < exhaustive.getPeriods().length);
+	}
+
+	// A scorer that was interrupted, e.g. during an earlier scan, can be
+	// used for a later scan.
+	public void testScorersResetInterrupt() throws Exception {
+		List<ValidObservation> obs = readObservations(new File(
+				"data/delcep_jd_mag.vis"));
+
+		double loFreq = 0.15;
+		double hiFreq = 0.25;
+		double coarseStep = AdaptiveFrequencyGrid.coarseStep(timeSpan(obs));
+
+		TSDcDft dcdft = new TSDcDft(obs, loFreq, hiFreq, 1e-5);
+		AoVPeriodogram aov = new AoVPeriodogram(obs, 1 / hiFreq, 1 / loFreq,
+				0.0005, 10);
+
+		for (IFrequencyScorer scorer : new IFrequencyScorer[] { dcdft, aov }) {
+			AdaptiveFrequencyGrid expected = new AdaptiveFrequencyGrid(loFreq,
+					hiFreq, coarseStep, 1e-5, 5, true);
+			expected.execute(scorer);
+
+			((IAlgorithm) scorer).interrupt();
+
+			AdaptiveFrequencyGrid actual = new AdaptiveFrequencyGrid(loFreq,
+					hiFreq, coarseStep, 1e-5, 5, true);
+			actual.execute(scorer);
+
+			ParallelPeriodScanTest.assertSameHits(expected.getPeaks(), actual
+					.getPeaks());
+		}
+	}
+
+	// Helpers
+
+	private void commonDcDftTest(File file, double loFreq, double hiFreq,
+			double resolution) throws Exception {
+		List<ValidObservation> obs = readObservations(file);
+
+		TSDcDft exhaustive = new TSDcDft(obs, loFreq, hiFreq, resolution);
+		exhaustive.execute();
+		double exhaustiveFrequency = exhaustive.getTopHits().get(
+				PeriodAnalysisCoordinateType.FREQUENCY).get(0);
+
+		TSDcDft scorer = new TSDcDft(obs, loFreq, hiFreq, resolution);
+		AdaptiveFrequencyGrid grid = new AdaptiveFrequencyGrid(loFreq, hiFreq,
+				AdaptiveFrequencyGrid.coarseStep(timeSpan(obs)), resolution,
+				AdaptiveFrequencyGrid.DEFAULT_MAX_PEAKS, true);
+		grid.execute(scorer);
+		double gridFrequency = grid.getPeaks().getFrequency(0);
+
+		int exhaustiveCount = (int) ((hiFreq - loFreq) / resolution) + 1;
+
+		assertEquals(exhaustiveFrequency, gridFrequency, resolution);
+		assertTrue(grid.getEvaluations() < exhaustiveCount / 2);
+	}
+
+	private static double peak(double f, double center, double width,
+			double height) {
+		double x = (f - center) / width;
+		return height / (1 + x * x);
+	}
+
+	private static double timeSpan(List<ValidObservation> obs) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (ValidObservation ob : obs) {
+			min = Math.min(min, ob.getJD());
+			max = Math.max(max, ob.getJD());
+		}
+		return max - min;
+	}
+
+	private List<ValidObservation> readObservations(File file)
+			throws Exception {
+		ObservationSourceAnalyser analyser = new ObservationSourceAnalyser(
+				new LineNumberReader(new FileReader(file)), file.getName());
+		analyser.analyse();
+
+		TextFormatObservationReader reader = new TextFormatObservationReader(
+				new LineNumberReader(new FileReader(file)), analyser,
+				AbstractObservationRetriever.NO_VELA_FILTER);
+		reader.retrieveObservations();
+
+		return reader.getValidObservations();
+	}
+}
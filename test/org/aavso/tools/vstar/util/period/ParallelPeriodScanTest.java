@@ -0,0 +1,124 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Parallel period scan unit tests.
+ */
+public class ParallelPeriodScanTest extends TestCase {
+
+	private static final int COUNT = 10000;
+	private static final int OBSERVATIONS = 100;
+
+	public ParallelPeriodScanTest(String name) {
+		super(name);
+	}
+
+	public void testThreadCountClamped() {
+		ParallelPeriodScan scan = new ParallelPeriodScan();
+		assertEquals(ParallelPeriodScan.getRecommendedThreadCount(), scan.getThreadCount());
+
+		scan.setThreadCount(0);
+		assertEquals(1, scan.getThreadCount());
+
+		scan.setThreadCount(Integer.MAX_VALUE);
+		assertEquals(ParallelPeriodScan.getRecommendedThreadCount(), scan.getThreadCount());
+	}
+
+	public void testEffectiveThreadCount() {
+		ParallelPeriodScan scan = new ParallelPeriodScan();
+
+		assertEquals(1, scan.getEffectiveThreadCount(10, OBSERVATIONS));
+		assertEquals(scan.getThreadCount(), scan.getEffectiveThreadCount(COUNT, OBSERVATIONS));
+
+		scan.setThreadCount(1);
+		assertEquals(1, scan.getEffectiveThreadCount(COUNT, OBSERVATIONS));
+	}
+
+	// Merged range results are those of a single range, whatever the number
+	// of threads.
+	public void testScanMergesRangesInOrder() {
+		for (int threads : new int[] { 1, ParallelPeriodScan.getRecommendedThreadCount() }) {
+			ParallelPeriodScan scan = new ParallelPeriodScan();
+			scan.setThreadCount(threads);
+
+			List<Integer> indices = scan.scan(COUNT, OBSERVATIONS, (from, to) -> {
+				List<Integer> range = new ArrayList<Integer>();
+				for (int i = from; i < to; i++) {
+					range.add(i);
+				}
+				return range;
+			}, (left, right) -> {
+				left.addAll(right);
+				return left;
+			});
+
+			assertEquals(COUNT, indices.size());
+			for (int i = 0; i < COUNT; i++) {
+				assertEquals(i, indices.get(i).intValue());
+			}
+		}
+	}
+
+	public void testScanEvaluatesEachIndexOnce() {
+		ParallelPeriodScan scan = new ParallelPeriodScan();
+		int[] counts = new int[COUNT];
+
+		scan.scan(COUNT, OBSERVATIONS, (from, to) -> {
+			for (int i = from; i < to; i++) {
+				counts[i]++;
+			}
+		});
+
+		for (int i = 0; i < COUNT; i++) {
+			assertEquals(1, counts[i]);
+		}
+	}
+
+	public void testCreatePeriods() {
+		double[] periods = ParallelPeriodScan.createPeriods(1, 2, 0.1);
+
+		assertEquals(10, periods.length);
+		assertEquals(1.0, periods[0]);
+
+		double period = 1;
+		for (int i = 1; i < periods.length; i++) {
+			period += 0.1;
+			assertEquals(period, periods[i]);
+		}
+	}
+
+	// Helpers
+
+	/**
+	 * Assert that two sets of top hits are for the same results in the same
+	 * order, e.g. those of single and multi-threaded scans.
+	 */
+	public static void assertSameHits(TopHitsHeap expected, TopHitsHeap actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.getOrdinal(i), actual.getOrdinal(i));
+			assertEquals(expected.getScore(i), actual.getScore(i));
+		}
+	}
+}
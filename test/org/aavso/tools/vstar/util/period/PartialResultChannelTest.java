@@ -0,0 +1,208 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Partial result channel tests.
+ */
+public class PartialResultChannelTest extends TestCase {
+
+	public PartialResultChannelTest(String name) {
+		super(name);
+	}
+
+	public void testPublishAndDrain() {
+		PartialResultChannel channel = new PartialResultChannel();
+
+		channel.publish(block(0, 3));
+		channel.publish(block(3, 5));
+
+		assertEquals(2, channel.size());
+		assertEquals(5, channel.getPublishedCount());
+
+		List<PeriodogramBlock> blocks = channel.drain();
+		assertEquals(2, blocks.size());
+		assertEquals(3, blocks.get(0).size());
+		assertEquals(2, blocks.get(1).size());
+		assertEquals(3.0, blocks.get(1).getFrequencies()[0]);
+
+		assertEquals(0, channel.size());
+		assertTrue(channel.drain().isEmpty());
+		assertEquals(5, channel.getPublishedCount());
+	}
+
+	public void testPublishRange() {
+		PartialResultChannel channel = new PartialResultChannel();
+
+		double[] freqs = { 1, 2, 3, 4 };
+		double[] periods = { 1, 0.5, 1.0 / 3, 0.25 };
+		double[] values = { 10, 20, 30, 40 };
+
+		channel.publish(freqs, periods, values, 1, 3);
+		channel.publish(freqs, periods, values, 3, 3);
+
+		List<PeriodogramBlock> blocks = channel.drain();
+		assertEquals(1, blocks.size());
+		assertTrue(Arrays.equals(new double[] { 2, 3 }, blocks.get(0)
+				.getFrequencies()));
+		assertTrue(Arrays.equals(new double[] { 0.5, 1.0 / 3 }, blocks.get(0)
+				.getPeriods()));
+		assertTrue(Arrays.equals(new double[] { 20, 30 }, blocks.get(0)
+				.getValues()));
+
+		// The block is a copy.
+		values[1] = 0;
+		channel.publish(freqs, periods, values, 1, 2);
+		assertEquals(0.0, channel.drain().get(0).getValues()[0]);
+	}
+
+	// When the channel is full, blocks are coalesced rather than lost, and
+	// publication order is preserved.
+	public void testCoalescesWhenFull() {
+		PartialResultChannel channel = new PartialResultChannel(4);
+
+		for (int i = 0; i < 100; i++) {
+			channel.publish(block(i * 10, i * 10 + 10));
+			assertTrue(channel.size() <= 4);
+		}
+
+		assertEquals(1000, channel.getPublishedCount());
+		assertSequence(channel.drain(), 0, 1000);
+	}
+
+	public void testCapacityOfOne() {
+		PartialResultChannel channel = new PartialResultChannel(1);
+
+		for (int i = 0; i < 10; i++) {
+			channel.publish(block(i, i + 1));
+			assertEquals(1, channel.size());
+		}
+
+		assertSequence(channel.drain(), 0, 10);
+	}
+
+	public void testEmptyBlockIgnored() {
+		PartialResultChannel channel = new PartialResultChannel();
+
+		channel.publish(block(0, 0));
+
+		assertEquals(0, channel.size());
+		assertEquals(0, channel.getPublishedCount());
+	}
+
+	public void testClear() {
+		PartialResultChannel channel = new PartialResultChannel();
+
+		channel.publish(block(0, 10));
+		channel.clear();
+
+		assertEquals(0, channel.size());
+		assertEquals(0, channel.getPublishedCount());
+	}
+
+	public void testIllegalCapacity() {
+		try {
+			new PartialResultChannel(0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	// Publishing from several threads while draining loses nothing.
+	public void testConcurrentPublication() throws Exception {
+		final PartialResultChannel channel = new PartialResultChannel(8);
+		final int threads = 4;
+		final int blocksPerThread = 500;
+
+		Thread[] publishers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int base = t * blocksPerThread * 5;
+			publishers[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < blocksPerThread; i++) {
+						channel.publish(block(base + i * 5, base + i * 5 + 5));
+					}
+				}
+			};
+			publishers[t].start();
+		}
+
+		boolean[] seen = new boolean[threads * blocksPerThread * 5];
+		int drained = 0;
+
+		boolean alive = true;
+		while (alive || channel.size() > 0) {
+			alive = false;
+			for (Thread publisher : publishers) {
+				alive |= publisher.isAlive();
+			}
+
+			for (PeriodogramBlock block : channel.drain()) {
+				for (double f : block.getFrequencies()) {
+					assertFalse(seen[(int) f]);
+					seen[(int) f] = true;
+					drained++;
+				}
+			}
+		}
+
+		assertEquals(seen.length, drained);
+		assertEquals(seen.length, channel.getPublishedCount());
+	}
+
+	// Helpers
+
+	// A block of the points with frequencies from, from+1, ... to-1.
+	private static PeriodogramBlock block(int from, int to) {
+		int n = to - from;
+		double[] freqs = new double[n];
+		double[] periods = new double[n];
+		double[] values = new double[n];
+
+		for (int i = 0; i < n; i++) {
+			freqs[i] = from + i;
+			periods[i] = freqs[i] != 0 ? 1 / freqs[i] : 0;
+			values[i] = 2 * freqs[i];
+		}
+
+		return new PeriodogramBlock(freqs, periods, values);
+	}
+
+	// Assert that the blocks contain exactly the points with frequencies
+	// from, from+1, ... to-1, in order.
+	private static void assertSequence(List<PeriodogramBlock> blocks,
+			int from, int to) {
+		int expected = from;
+
+		for (PeriodogramBlock block : blocks) {
+			for (int i = 0; i < block.size(); i++) {
+				assertEquals((double) expected, block.getFrequencies()[i]);
+				assertEquals(2.0 * expected, block.getValues()[i]);
+				expected++;
+			}
+		}
+
+		assertEquals(to, expected);
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Columnar period analysis result unit tests.
+ */
+public class PeriodAnalysisResultTest extends TestCase {
+
+	private static final PeriodAnalysisCoordinateType[] TYPES = { PeriodAnalysisCoordinateType.FREQUENCY,
+			PeriodAnalysisCoordinateType.PERIOD, PeriodAnalysisCoordinateType.POWER };
+
+	public PeriodAnalysisResultTest(String name) {
+		super(name);
+	}
+
+	public void testAddAndGet() {
+		PeriodAnalysisResult result = new PeriodAnalysisResult(TYPES);
+
+		// Enough rows to grow the columns.
+		for (int i = 1; i <= 1000; i++) {
+			result.add(i, 1.0 / i, i * 2);
+		}
+
+		assertEquals(1000, result.size());
+		assertEquals(1, result.getColumnIndex(PeriodAnalysisCoordinateType.PERIOD));
+		assertEquals(-1, result.getColumnIndex(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE));
+		assertEquals(500.0, result.get(PeriodAnalysisCoordinateType.FREQUENCY, 499));
+		assertEquals(1.0 / 500, result.get(1, 499));
+		assertEquals(2000.0, result.getValues(PeriodAnalysisCoordinateType.POWER)[999]);
+	}
+
+	public void testMapViewIsLive() {
+		PeriodAnalysisResult result = new PeriodAnalysisResult(TYPES);
+		Map<PeriodAnalysisCoordinateType, List<Double>> map = result.asMap();
+
+		PeriodAnalysisCoordinateType[] keys = map.keySet().toArray(new PeriodAnalysisCoordinateType[0]);
+		assertEquals(TYPES.length, keys.length);
+		for (int i = 0; i < TYPES.length; i++) {
+			assertSame(TYPES[i], keys[i]);
+		}
+
+		List<Double> powers = map.get(PeriodAnalysisCoordinateType.POWER);
+		assertTrue(powers.isEmpty());
+
+		result.add(1, 2, 3);
+		result.add(4, 5, 6);
+
+		assertEquals(2, powers.size());
+		assertEquals(6.0, powers.get(1));
+
+		try {
+			powers.add(7.0);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// Expected
+		}
+
+		try {
+			map.remove(PeriodAnalysisCoordinateType.POWER);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// Expected
+		}
+	}
+
+	public void testFromMapView() {
+		PeriodAnalysisResult result = new PeriodAnalysisResult(TYPES);
+		assertSame(result, PeriodAnalysisResult.fromMap(result.asMap()));
+	}
+
+	public void testFromMapAdaptsLists() {
+		Map<PeriodAnalysisCoordinateType, List<Double>> map = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
+		for (PeriodAnalysisCoordinateType type : TYPES) {
+			map.put(type, new ArrayList<Double>());
+		}
+
+		PeriodAnalysisResult result = PeriodAnalysisResult.fromMap(map);
+		assertTrue(result.isEmpty());
+
+		map.get(PeriodAnalysisCoordinateType.FREQUENCY).add(0.5);
+		map.get(PeriodAnalysisCoordinateType.PERIOD).add(2.0);
+		map.get(PeriodAnalysisCoordinateType.POWER).add(10.0);
+
+		assertEquals(1, result.size());
+		assertEquals(2.0, result.get(PeriodAnalysisCoordinateType.PERIOD, 0));
+
+		result.add(0.25, 4.0, 20.0);
+		assertEquals(20.0, map.get(PeriodAnalysisCoordinateType.POWER).get(1));
+
+		assertSame(map, result.asMap());
+	}
+
+	public void testInsertSorted() {
+		PeriodAnalysisResult result = new PeriodAnalysisResult(TYPES);
+		result.add(1, 10, 100);
+		result.add(3, 30, 300);
+
+		// Before, between, equal to and after existing rows, enough to grow
+		// the columns.
+		double[] freqs = new double[100];
+		freqs[0] = 0;
+		freqs[1] = 2;
+		freqs[2] = 3;
+		for (int i = 3; i < freqs.length; i++) {
+			freqs[i] = i + 1;
+		}
+		double[] periods = new double[freqs.length];
+		double[] powers = new double[freqs.length];
+		for (int i = 0; i < freqs.length; i++) {
+			periods[i] = freqs[i] * 10;
+			powers[i] = -freqs[i];
+		}
+
+		result.insertSorted(PeriodAnalysisCoordinateType.FREQUENCY, freqs, periods, powers);
+
+		assertEquals(102, result.size());
+
+		double[] expected = { 0, 1, 2, 3, 3, 4 };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], result.get(PeriodAnalysisCoordinateType.FREQUENCY, i));
+			assertEquals(expected[i] * 10, result.get(PeriodAnalysisCoordinateType.PERIOD, i));
+		}
+
+		// The inserted row follows the existing row of equal frequency.
+		assertEquals(300.0, result.get(PeriodAnalysisCoordinateType.POWER, 3));
+		assertEquals(-3.0, result.get(PeriodAnalysisCoordinateType.POWER, 4));
+		assertEquals(100.0, result.get(PeriodAnalysisCoordinateType.FREQUENCY, 101));
+	}
+
+	public void testInsertSortedIntoLists() {
+		Map<PeriodAnalysisCoordinateType, List<Double>> map = new LinkedHashMap<PeriodAnalysisCoordinateType, List<Double>>();
+		for (PeriodAnalysisCoordinateType type : TYPES) {
+			map.put(type, new ArrayList<Double>());
+		}
+
+		PeriodAnalysisResult result = PeriodAnalysisResult.fromMap(map);
+		result.add(0.5, 2, 10);
+		result.add(0.25, 4, 20);
+
+		result.insertSorted(PeriodAnalysisCoordinateType.PERIOD, new double[] { 1.0 / 3, 0.2 },
+				new double[] { 3, 5 }, new double[] { 30, 40 });
+
+		List<Double> powers = map.get(PeriodAnalysisCoordinateType.POWER);
+		assertEquals(4, powers.size());
+		assertEquals(10.0, powers.get(0));
+		assertEquals(30.0, powers.get(1));
+		assertEquals(20.0, powers.get(2));
+		assertEquals(40.0, powers.get(3));
+	}
+
+	public void testClear() {
+		PeriodAnalysisResult result = new PeriodAnalysisResult(TYPES);
+		result.add(1, 2, 3);
+		result.clear();
+
+		assertTrue(result.isEmpty());
+		assertTrue(result.asMap().get(PeriodAnalysisCoordinateType.FREQUENCY).isEmpty());
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Top hits heap unit tests.
+ */
+public class TopHitsHeapTest extends TestCase {
+
+	public TopHitsHeapTest(String name) {
+		super(name);
+	}
+
+	public void testLargestRetainsBest() {
+		TopHitsHeap heap = TopHitsHeap.largest(3);
+
+		double[] scores = { 5, 1, 9, 3, 7, 2 };
+		for (int i = 0; i < scores.length; i++) {
+			heap.offer(scores[i], i, 1.0 / (i + 1), -i);
+		}
+
+		assertEquals(3, heap.size());
+		assertEquals(9.0, heap.getScore(0));
+		assertEquals(7.0, heap.getScore(1));
+		assertEquals(5.0, heap.getScore(2));
+		assertEquals(2.0, heap.getFrequency(0));
+		assertEquals(-4.0, heap.getMetric(1));
+		assertEquals(0L, heap.getOrdinal(2));
+	}
+
+	public void testSmallestRetainsBest() {
+		TopHitsHeap heap = TopHitsHeap.smallest(2);
+
+		heap.offer(0.5, 1, 1, 0);
+		heap.offer(0.2, 2, 0.5, 0);
+		heap.offer(0.9, 3, 0.33, 0);
+		heap.offer(0.1, 4, 0.25, 0);
+
+		assertEquals(2, heap.size());
+		assertEquals(0.1, heap.getScore(0));
+		assertEquals(0.2, heap.getScore(1));
+	}
+
+	public void testEqualScoresRankByOrdinal() {
+		TopHitsHeap heap = TopHitsHeap.largest(2);
+
+		heap.offer(1.0, 10, 0, 0);
+		heap.offer(1.0, 20, 0, 0);
+		heap.offer(1.0, 30, 0, 0);
+
+		assertEquals(2, heap.size());
+		assertEquals(10.0, heap.getFrequency(0));
+		assertEquals(20.0, heap.getFrequency(1));
+	}
+
+	public void testNaNScoresNotRetained() {
+		TopHitsHeap heap = TopHitsHeap.largest(5);
+
+		assertFalse(heap.offer(Double.NaN, 1, 1, 1));
+		assertTrue(heap.offer(1, 1, 1, 1));
+		assertEquals(1, heap.size());
+	}
+
+	public void testZeroCapacity() {
+		TopHitsHeap heap = TopHitsHeap.largest(0);
+
+		assertFalse(heap.offer(1, 1, 1, 1));
+		assertTrue(heap.isEmpty());
+	}
+
+	public void testMergeMatchesSingleCollector() {
+		Random random = new Random(42);
+		double[] scores = new double[10000];
+		for (int i = 0; i < scores.length; i++) {
+			// Coarse values to exercise ties.
+			scores[i] = random.nextInt(500);
+		}
+
+		TopHitsHeap single = TopHitsHeap.largest(50);
+		for (int i = 0; i < scores.length; i++) {
+			single.offer(i, scores[i], i, i, i);
+		}
+
+		TopHitsHeap merged = TopHitsHeap.largest(50);
+		for (int part = 3; part >= 0; part--) {
+			TopHitsHeap partial = TopHitsHeap.largest(50);
+			for (int i = part * 2500; i < (part + 1) * 2500; i++) {
+				partial.offer(i, scores[i], i, i, i);
+			}
+			merged.merge(partial);
+		}
+
+		assertEquals(single.size(), merged.size());
+		for (int rank = 0; rank < single.size(); rank++) {
+			assertEquals(single.getOrdinal(rank), merged.getOrdinal(rank));
+			assertEquals(single.getScore(rank), merged.getScore(rank));
+		}
+	}
+
+	public void testUnboundedCapacityGrows() {
+		TopHitsHeap heap = TopHitsHeap.largest(Integer.MAX_VALUE);
+
+		for (int i = 0; i < 1000; i++) {
+			heap.offer(i, i, i, i);
+		}
+
+		assertEquals(1000, heap.size());
+		assertEquals(999.0, heap.getScore(0));
+		assertEquals(0.0, heap.getScore(999));
+	}
+
+	public void testToMap() {
+		TopHitsHeap heap = TopHitsHeap.largest(10);
+		heap.offer(2, 0.1, 10, 0.5);
+		heap.offer(4, 0.2, 5, 0.25);
+
+		Map<PeriodAnalysisCoordinateType, List<Double>> map = heap.toMap(PeriodAnalysisCoordinateType.POWER,
+				PeriodAnalysisCoordinateType.SEMI_AMPLITUDE);
+
+		PeriodAnalysisCoordinateType[] types = map.keySet().toArray(new PeriodAnalysisCoordinateType[0]);
+		assertEquals(PeriodAnalysisCoordinateType.FREQUENCY, types[0]);
+		assertEquals(PeriodAnalysisCoordinateType.PERIOD, types[1]);
+		assertEquals(PeriodAnalysisCoordinateType.POWER, types[2]);
+		assertEquals(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE, types[3]);
+
+		assertEquals(0.2, map.get(PeriodAnalysisCoordinateType.FREQUENCY).get(0));
+		assertEquals(10.0, map.get(PeriodAnalysisCoordinateType.PERIOD).get(1));
+		assertEquals(4.0, map.get(PeriodAnalysisCoordinateType.POWER).get(0));
+		assertEquals(0.5, map.get(PeriodAnalysisCoordinateType.SEMI_AMPLITUDE).get(1));
+	}
+}
@@ -0,0 +1,204 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.DateInfo;
+import org.aavso.tools.vstar.data.Magnitude;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.util.TCasData;
+import org.aavso.tools.vstar.util.period.dcdft.TSDcDft;
+import org.aavso.tools.vstar.util.period.wwz.WWZStatistic;
+import org.aavso.tools.vstar.util.period.wwz.WeightedWaveletZTransform;
+
+/**
+ * Trig recurrence unit tests, comparing values and period analysis results
+ * with those computed exactly.
+ */
+public class TrigRecurrenceTest extends TestCase {
+
+	// Unevenly spaced times.
+	private static final double[] TIMES = { 0, -1234.567, 0.001, 3.5, 17.25,
+			250.125, 1000.0, 4321.9876 };
+
+	private List<ValidObservation> obs;
+
+	public TrigRecurrenceTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		obs = new ArrayList<ValidObservation>();
+		for (double[] jdAndMag : TCasData.data) {
+			ValidObservation ob = new ValidObservation();
+			ob.setDateInfo(new DateInfo(jdAndMag[0]));
+			ob.setMagnitude(new Magnitude(jdAndMag[1], 0));
+			obs.add(ob);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TrigRecurrence.setEnabled(true);
+		TrigRecurrence.setValidating(false);
+	}
+
+	public void testMatchesExactValues() {
+		double omega0 = 2 * Math.PI * 0.001;
+		double deltaOmega = 2 * Math.PI * 0.0001;
+
+		TrigRecurrence recurrence = new TrigRecurrence(TIMES, omega0,
+				deltaOmega);
+
+		for (int step = 0; step < 1000; step++) {
+			double omega = omega0 + step * deltaOmega;
+			assertEquals(omega, recurrence.getOmega(), 1e-15);
+
+			for (int i = 0; i < TIMES.length; i++) {
+				assertEquals(Math.cos(omega * TIMES[i]), recurrence.cos(i),
+						1e-11);
+				assertEquals(Math.sin(omega * TIMES[i]), recurrence.sin(i),
+						1e-11);
+			}
+
+			recurrence.advance();
+		}
+	}
+
+	public void testValidation() {
+		TrigRecurrence.setValidating(true);
+
+		TrigRecurrence recurrence = new TrigRecurrence(TIMES, 0, 0.05);
+		for (int step = 0; step < 1000; step++) {
+			recurrence.advance();
+		}
+
+		assertEquals(1000, recurrence.getStep());
+	}
+
+	public void testSeekMatchesAdvance() {
+		TrigRecurrence advanced = new TrigRecurrence(TIMES, 0.1, 0.01);
+		for (int step = 0; step < 150; step++) {
+			advanced.advance();
+		}
+
+		TrigRecurrence sought = new TrigRecurrence(TIMES, 0.1, 0.01);
+		sought.seek(150);
+
+		assertEquals(150, sought.getStep());
+		for (int i = 0; i < TIMES.length; i++) {
+			assertEquals(advanced.cos(i), sought.cos(i), 0.0);
+			assertEquals(advanced.sin(i), sought.sin(i), 0.0);
+		}
+	}
+
+	public void testAdvanceRange() {
+		TrigRecurrence recurrence = new TrigRecurrence(TIMES, 0.1, 0.01);
+		recurrence.advance(2, 4);
+
+		double omega = 0.11;
+		for (int i = 2; i <= 4; i++) {
+			assertEquals(Math.cos(omega * TIMES[i]), recurrence.cos(i), 1e-12);
+			assertEquals(Math.sin(omega * TIMES[i]), recurrence.sin(i), 1e-12);
+		}
+
+		// Values outside the range are not advanced.
+		assertEquals(Math.cos(0.1 * TIMES[5]), recurrence.cos(5), 0.0);
+	}
+
+	public void testDcDftFrequencyRange() throws Exception {
+		TrigRecurrence.setValidating(true);
+		TSDcDft recurrent = new TSDcDft(obs, 0.0, 0.025, 0.00001);
+		recurrent.setThreadCount(1);
+		recurrent.execute();
+
+		TrigRecurrence.setEnabled(false);
+		TSDcDft exact = new TSDcDft(obs, 0.0, 0.025, 0.00001);
+		exact.setThreadCount(1);
+		exact.execute();
+
+		assertSameSeries(exact.getResultSeries(),
+				recurrent.getResultSeries());
+	}
+
+	public void testDcDftStandardScan() throws Exception {
+		TrigRecurrence.setValidating(true);
+		TSDcDft recurrent = new TSDcDft(obs);
+		recurrent.execute();
+
+		TrigRecurrence.setEnabled(false);
+		TSDcDft exact = new TSDcDft(obs);
+		exact.execute();
+
+		assertSameSeries(exact.getResultSeries(),
+				recurrent.getResultSeries());
+	}
+
+	public void testWWZFrequencyRange() throws Exception {
+		TrigRecurrence.setValidating(true);
+		List<WWZStatistic> recurrent = wwz();
+
+		TrigRecurrence.setEnabled(false);
+		List<WWZStatistic> exact = wwz();
+
+		assertEquals(exact.size(), recurrent.size());
+		for (int i = 0; i < exact.size(); i++) {
+			assertEquals(exact.get(i).getWwz(), recurrent.get(i).getWwz(),
+					1e-8);
+			assertEquals(exact.get(i).getSemiAmplitude(), recurrent.get(i)
+					.getSemiAmplitude(), 1e-8);
+			assertEquals(exact.get(i).getNeff(), recurrent.get(i).getNeff(),
+					1e-8);
+		}
+	}
+
+	// Helpers
+
+	private List<WWZStatistic> wwz() throws Exception {
+		WeightedWaveletZTransform wwz = new WeightedWaveletZTransform(obs,
+				0.001, 50);
+		wwz.make_freqs_from_freq_range(0.001, 0.01, 0.0001);
+		wwz.execute();
+		return wwz.getStats();
+	}
+
+	private void assertSameSeries(
+			Map<PeriodAnalysisCoordinateType, List<Double>> expected,
+			Map<PeriodAnalysisCoordinateType, List<Double>> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+
+		for (PeriodAnalysisCoordinateType type : expected.keySet()) {
+			List<Double> expectedValues = expected.get(type);
+			List<Double> actualValues = actual.get(type);
+
+			assertEquals(expectedValues.size(), actualValues.size());
+
+			for (int i = 0; i < expectedValues.size(); i++) {
+				double value = expectedValues.get(i);
+				assertEquals(type + "[" + i + "]", value, actualValues.get(i),
+						1e-8 * Math.max(1, Math.abs(value)));
+			}
+		}
+	}
+}
@@ -0,0 +1,203 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.aov;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.aavso.tools.vstar.data.DateInfo;
+import org.aavso.tools.vstar.data.Magnitude;
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.ui.model.plot.PhaseTimeElementEntity;
+import org.aavso.tools.vstar.util.TCasData;
+import org.aavso.tools.vstar.util.comparator.StandardPhaseComparator;
+import org.aavso.tools.vstar.util.period.ParallelPeriodScanTest;
+import org.aavso.tools.vstar.util.period.PartialResultChannel;
+import org.aavso.tools.vstar.util.period.PeriodogramBlock;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+import org.aavso.tools.vstar.util.period.dcdft.DataTestBase;
+import org.aavso.tools.vstar.util.stats.BinningResult;
+import org.aavso.tools.vstar.util.stats.DescStats;
+import org.aavso.tools.vstar.util.stats.PhaseCalcs;
+
+/**
+ * AoV periodogram tests.
+ */
+public class AoVPeriodogramTest extends DataTestBase {
+
+	private static final double MIN_PERIOD = 200.0;
+	private static final double MAX_PERIOD = 600.0;
+	private static final double RESOLUTION = 0.5;
+	private static final int BINS = 10;
+
+	public AoVPeriodogramTest() {
+		super("AoV periodogram test", TCasData.data);
+	}
+
+	// Compare against phasing, sorting and binning observation objects, as
+	// the AoV plug-in originally did.
+	public void testMatchesObservationBinning() throws Exception {
+		AoVPeriodogram aov = new AoVPeriodogram(obs, MIN_PERIOD, MAX_PERIOD, RESOLUTION, BINS);
+		aov.setThreadCount(1);
+		aov.execute();
+
+		List<ValidObservation> phObs = copyObs(obs);
+		double epoch = PhaseCalcs.epochStrategyMap.get("alpha").determineEpoch(phObs);
+
+		int i = 0;
+		for (double period = MIN_PERIOD; period <= MAX_PERIOD; period += RESOLUTION) {
+			PhaseCalcs.setPhases(phObs, epoch, period);
+			Collections.sort(phObs, StandardPhaseComparator.instance);
+			BinningResult result = DescStats.createSymmetricBinnedObservations(phObs,
+					PhaseTimeElementEntity.instance, 1.0 / BINS);
+
+			assertEquals(period, aov.getPeriods()[i]);
+			assertEquals(1.0 / period, aov.getFrequencies()[i]);
+			assertEquals(result.getFValue(), aov.getFValues()[i], 0.0);
+			assertEquals(result.getPValue(), aov.getPValues()[i], 0.0);
+			i++;
+		}
+
+		assertEquals(i, aov.getPeriods().length);
+	}
+
+	public void testThreadedMatchesSingleThread() throws Exception {
+		double[][] data = buildLargeData();
+		double[] times = new double[data.length];
+		double[] mags = new double[data.length];
+		for (int i = 0; i < data.length; i++) {
+			times[i] = data[i][0];
+			mags[i] = data[i][1];
+		}
+		double epoch = (times[0] + times[times.length - 1]) / 2;
+
+		AoVPeriodogram oneThread = new AoVPeriodogram(times, mags, epoch, MIN_PERIOD, MAX_PERIOD, RESOLUTION, BINS);
+		oneThread.setThreadCount(1);
+		oneThread.execute();
+
+		AoVPeriodogram manyThreads = new AoVPeriodogram(times, mags, epoch, MIN_PERIOD, MAX_PERIOD, RESOLUTION,
+				BINS);
+		manyThreads.setThreadCount(Math.max(2, AoVPeriodogram.getRecommendedThreadCount()));
+		manyThreads.execute();
+
+		assertEquals(oneThread.getPeriods().length, manyThreads.getPeriods().length);
+		for (int i = 0; i < oneThread.getPeriods().length; i++) {
+			assertEquals(oneThread.getPeriods()[i], manyThreads.getPeriods()[i]);
+			assertEquals(oneThread.getFValues()[i], manyThreads.getFValues()[i]);
+			assertEquals(oneThread.getPValues()[i], manyThreads.getPValues()[i]);
+		}
+
+		assertEquals(AoVPeriodogram.DEFAULT_MAX_TOP_HITS, oneThread.getTopHits().size());
+		ParallelPeriodScanTest.assertSameHits(oneThread.getTopHits(), manyThreads.getTopHits());
+	}
+
+	// The published partial results must, taken together, be exactly the
+	// final results.
+	public void testPartialResults() throws Exception {
+		for (int threads : new int[] { 1, Math.max(2, AoVPeriodogram.getRecommendedThreadCount()) }) {
+			PartialResultChannel channel = new PartialResultChannel(4);
+
+			AoVPeriodogram aov = new AoVPeriodogram(obs, MIN_PERIOD, MAX_PERIOD, RESOLUTION, BINS);
+			aov.setThreadCount(threads);
+			aov.setPartialResultChannel(channel);
+			aov.execute();
+
+			int n = aov.getPeriods().length;
+			boolean[] seen = new boolean[n];
+
+			for (PeriodogramBlock block : channel.drain()) {
+				for (int i = 0; i < block.size(); i++) {
+					int k = (int) Math.round((block.getPeriods()[i] - MIN_PERIOD) / RESOLUTION);
+					assertFalse(seen[k]);
+					seen[k] = true;
+					assertEquals(aov.getPeriods()[k], block.getPeriods()[i]);
+					assertEquals(aov.getFrequencies()[k], block.getFrequencies()[i]);
+					assertEquals(aov.getFValues()[k], block.getValues()[i]);
+				}
+			}
+
+			for (int k = 0; k < n; k++) {
+				assertTrue(seen[k]);
+			}
+		}
+	}
+
+	public void testTopHitsDescending() throws Exception {
+		AoVPeriodogram aov = new AoVPeriodogram(obs, MIN_PERIOD, MAX_PERIOD, RESOLUTION, BINS);
+		aov.execute();
+
+		double[] fValues = aov.getFValues();
+		TopHitsHeap topHits = aov.getTopHits();
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (double f : fValues) {
+			if (!Double.isNaN(f)) {
+				max = Math.max(max, f);
+			}
+		}
+
+		assertEquals(max, topHits.getScore(0));
+
+		for (int i = 1; i < topHits.size(); i++) {
+			assertTrue(topHits.getScore(i - 1) >= topHits.getScore(i));
+			assertEquals(fValues[(int) topHits.getOrdinal(i)], topHits.getScore(i));
+		}
+	}
+
+	public void testPeriodOfZero() throws Exception {
+		AoVPeriodogram aov = new AoVPeriodogram(obs, 0, 1, 0.5, BINS);
+		aov.execute();
+
+		assertEquals(3, aov.getPeriods().length);
+		assertTrue(Double.isNaN(aov.getFrequencies()[0]));
+		assertTrue(Double.isNaN(aov.getFValues()[0]));
+		assertTrue(Double.isNaN(aov.getPValues()[0]));
+	}
+
+	// Helpers
+
+	private static List<ValidObservation> copyObs(List<ValidObservation> obs) {
+		List<ValidObservation> copiedObs = new ArrayList<ValidObservation>();
+
+		for (ValidObservation ob : obs) {
+			ValidObservation copiedOb = new ValidObservation();
+			copiedOb.setDateInfo(new DateInfo(ob.getJD()));
+			copiedOb.setMagnitude(new Magnitude(ob.getMag(), ob.getMagnitude().getUncertainty()));
+			copiedObs.add(copiedOb);
+		}
+
+		return copiedObs;
+	}
+
+	private static double[][] buildLargeData() {
+		double[][] base = TCasData.data;
+		int repeats = 20;
+		double[][] out = new double[base.length * repeats][2];
+		double span = base[base.length - 1][0] - base[0][0] + 1;
+		int p = 0;
+		for (int r = 0; r < repeats; r++) {
+			for (int i = 0; i < base.length; i++) {
+				out[p][0] = base[i][0] + r * span;
+				out[p][1] = base[i][1];
+				p++;
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.bls;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Benchmark BLS on a synthetic TESS-like light curve: 2 minute cadence over
+ * several sectors with gaps, white noise and a shallow transit.
+ */
+public class BoxLeastSquaresBenchmarkTest extends TestCase {
+
+	private static final int N = 200000;
+	private static final double CADENCE = 2.0 / (24 * 60);
+	private static final double SECTOR_DAYS = 27.4;
+	private static final double ORBIT_GAP_DAYS = 1.0;
+	private static final double SECTOR_GAP_DAYS = 2.0;
+
+	private static final double PERIOD = 3.1415;
+	private static final double EPOCH = 2458325.7;
+	private static final double DURATION = 0.12;
+	private static final double DEPTH = 0.004;
+	private static final double NOISE = 0.002;
+
+	public BoxLeastSquaresBenchmarkTest(String name) {
+		super(name);
+	}
+
+	public void testTESSLikeSeries() throws Exception {
+		double[][] data = createTESSLikeData(42);
+		double[] durations = BoxLeastSquares.createDurations(0.04, 0.2, 5);
+
+		long t0 = System.nanoTime();
+		BoxLeastSquares serial = new BoxLeastSquares(data[0], data[1], null,
+				1.0, 5.0, 0.002, durations, BoxLeastSquares.DEFAULT_BINS);
+		serial.setThreadCount(1);
+		serial.execute();
+		double serialMs = (System.nanoTime() - t0) / 1_000_000.0;
+
+		int threads = BoxLeastSquares.getRecommendedThreadCount();
+
+		t0 = System.nanoTime();
+		BoxLeastSquares threaded = new BoxLeastSquares(data[0], data[1],
+				null, 1.0, 5.0, 0.002, durations,
+				BoxLeastSquares.DEFAULT_BINS);
+		threaded.setThreadCount(threads);
+		threaded.execute();
+		double threadedMs = (System.nanoTime() - t0) / 1_000_000.0;
+
+		System.out.println("BLS benchmark (" + N + " obs, "
+				+ serial.getPeriods().length + " periods, "
+				+ durations.length + " durations): 1 thread="
+				+ String.format("%.2f", serialMs) + " ms, " + threads
+				+ " threads=" + String.format("%.2f", threadedMs)
+				+ " ms, speedup="
+				+ String.format("%.2fx", serialMs / threadedMs));
+
+		int best = (int) threaded.getTopHits().getOrdinal(0);
+		assertEquals(serial.getTopHits().getOrdinal(0), best);
+		assertEquals(PERIOD, threaded.getPeriods()[best], 0.002);
+		assertEquals(DEPTH, threaded.getDepths()[best], 0.001);
+	}
+
+	// Helpers
+
+	// Each sector consists of two orbits separated by a data downlink gap;
+	// sectors are separated by a further gap.
+	private static double[][] createTESSLikeData(long seed) {
+		Random random = new Random(seed);
+
+		double[] times = new double[N];
+		double[] mags = new double[N];
+
+		double orbitDays = (SECTOR_DAYS - ORBIT_GAP_DAYS) / 2;
+		double t = 2458325.0;
+		double orbitStart = t;
+		boolean secondOrbit = false;
+
+		for (int i = 0; i < N; i++) {
+			if (t - orbitStart >= orbitDays) {
+				t += secondOrbit ? SECTOR_GAP_DAYS : ORBIT_GAP_DAYS;
+				orbitStart = t;
+				secondOrbit = !secondOrbit;
+			}
+
+			times[i] = t;
+			mags[i] = 11 + NOISE * random.nextGaussian();
+
+			double phase = (t - EPOCH) / PERIOD;
+			phase -= Math.round(phase);
+			if (Math.abs(phase * PERIOD) < DURATION / 2) {
+				mags[i] += DEPTH;
+			}
+
+			t += CADENCE;
+		}
+
+		return new double[][] { times, mags };
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.bls;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.util.period.ParallelPeriodScanTest;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+
+/**
+ * Box Least Squares tests.
+ */
+public class BoxLeastSquaresTest extends TestCase {
+
+	private static final double PERIOD = 2.75;
+	private static final double EPOCH = 2459000.6;
+	private static final double DURATION = 0.15;
+	private static final double DEPTH = 0.02;
+
+	private static final double[] DURATIONS = BoxLeastSquares.createDurations(
+			0.05, 0.25, 5);
+
+	public BoxLeastSquaresTest(String name) {
+		super(name);
+	}
+
+	public void testRecoversTransit() throws Exception {
+		double[][] data = createTransitData(3000, 60, 0.002, 1);
+
+		BoxLeastSquares bls = new BoxLeastSquares(data[0], data[1], null,
+				1.0, 5.0, 0.001, DURATIONS, BoxLeastSquares.DEFAULT_BINS);
+		bls.execute();
+
+		TopHitsHeap hits = bls.getTopHits();
+		int best = (int) hits.getOrdinal(0);
+
+		assertEquals(PERIOD, bls.getPeriods()[best], 0.002);
+		assertEquals(DEPTH, bls.getDepths()[best], 0.003);
+		assertEquals(DURATION, bls.getDurations()[best], 0.05);
+
+		double offset = (bls.getEpochs()[best] - EPOCH) / PERIOD;
+		offset -= Math.round(offset);
+		assertEquals(0, offset * PERIOD, 0.03);
+	}
+
+	public void testThreadedMatchesSingleThreaded() throws Exception {
+		double[][] data = createTransitData(3000, 60, 0.002, 2);
+
+		BoxLeastSquares serial = new BoxLeastSquares(data[0], data[1], null,
+				1.0, 5.0, 0.001, DURATIONS, BoxLeastSquares.DEFAULT_BINS);
+		serial.setThreadCount(1);
+		serial.execute();
+
+		BoxLeastSquares threaded = new BoxLeastSquares(data[0], data[1],
+				null, 1.0, 5.0, 0.001, DURATIONS,
+				BoxLeastSquares.DEFAULT_BINS);
+		threaded.setThreadCount(Math.max(2,
+				BoxLeastSquares.getRecommendedThreadCount()));
+		threaded.execute();
+
+		assertTrue(Arrays.equals(serial.getPeriods(), threaded.getPeriods()));
+		assertTrue(Arrays.equals(serial.getPowers(), threaded.getPowers()));
+		assertTrue(Arrays.equals(serial.getDepths(), threaded.getDepths()));
+		assertTrue(Arrays.equals(serial.getDurations(),
+				threaded.getDurations()));
+		assertTrue(Arrays.equals(serial.getEpochs(), threaded.getEpochs()));
+
+		ParallelPeriodScanTest.assertSameHits(serial.getTopHits(),
+				threaded.getTopHits());
+	}
+
+	public void testTopHitsDescending() throws Exception {
+		double[][] data = createTransitData(1000, 30, 0.002, 3);
+
+		BoxLeastSquares bls = new BoxLeastSquares(data[0], data[1], null,
+				1.0, 5.0, 0.005, DURATIONS, BoxLeastSquares.DEFAULT_BINS);
+		bls.setMaxTopHits(10);
+		bls.execute();
+
+		double[] powers = bls.getPowers();
+		TopHitsHeap hits = bls.getTopHits();
+		assertEquals(10, hits.size());
+
+		double max = 0;
+		for (double power : powers) {
+			max = Math.max(max, power);
+		}
+		assertEquals(max, hits.getScore(0), 0);
+
+		for (int i = 1; i < hits.size(); i++) {
+			assertTrue(hits.getScore(i - 1) >= hits.getScore(i));
+			assertEquals(powers[(int) hits.getOrdinal(i)], hits.getScore(i),
+					0);
+		}
+	}
+
+	public void testInvalidParameters() {
+		double[] times = { 1, 2, 3, 4, 5, 6 };
+		double[] mags = { 1, 2, 3, 4, 5, 6 };
+
+		try {
+			new BoxLeastSquares(times, mags, null, 0, 5, 0.1, DURATIONS, 100);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			new BoxLeastSquares(times, mags, null, 1, 5, 0.1, new double[0],
+					100);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			new BoxLeastSquares(times, mags, null, 1, 5, 0.1, DURATIONS, 1);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	// Helpers
+
+	// Create a noisy light curve with evenly spaced observations over the
+	// specified number of days and a periodic box-shaped dimming.
+	static double[][] createTransitData(int n, double days, double noise,
+			long seed) {
+		Random random = new Random(seed);
+
+		double[] times = new double[n];
+		double[] mags = new double[n];
+
+		for (int i = 0; i < n; i++) {
+			times[i] = 2459000 + i * days / n;
+			mags[i] = 10 + noise * random.nextGaussian();
+
+			double phase = (times[i] - EPOCH) / PERIOD;
+			phase -= Math.round(phase);
+			if (Math.abs(phase * PERIOD) < DURATION / 2) {
+				mags[i] += DEPTH;
+			}
+		}
+
+		return new double[][] { times, mags };
+	}
+}
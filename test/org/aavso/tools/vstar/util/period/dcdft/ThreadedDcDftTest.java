@@ -0,0 +1,181 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.dcdft;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.aavso.tools.vstar.util.TCasData;
+import org.aavso.tools.vstar.util.period.PartialResultChannel;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodogramBlock;
+
+/**
+ * DC DFT test cases comparing multi-threaded frequency and period range scans
+ * against single-threaded scans.
+ */
+public class ThreadedDcDftTest extends DataTestBase {
+
+	public ThreadedDcDftTest(String name) {
+		super(name, TCasData.data);
+	}
+
+	// The low frequency is below the cutoff below which no projection is
+	// performed, so the carry forward of amplitudes is also exercised.
+	public void testFrequencyRange() throws Exception {
+		TSDcDft serial = new TSDcDft(obs, 0.0, 0.025, 0.00001);
+		serial.setThreadCount(1);
+		serial.execute();
+
+		TSDcDft parallel = new TSDcDft(obs, 0.0, 0.025, 0.00001);
+		parallel.setThreadCount(Math.max(2,
+				TSDcDft.getRecommendedThreadCount()));
+		parallel.execute();
+
+		assertSameResults(serial, parallel);
+	}
+
+	// A low period of zero exercises the frequency carried over from the
+	// previous period.
+	public void testPeriodRange() throws Exception {
+		TSDcDft serial = createPeriodRangeDcDft(0.0, 1000.0, 0.25);
+		serial.setThreadCount(1);
+		serial.execute();
+
+		TSDcDft parallel = createPeriodRangeDcDft(0.0, 1000.0, 0.25);
+		parallel.setThreadCount(Math.max(2,
+				TSDcDft.getRecommendedThreadCount()));
+		parallel.execute();
+
+		assertSameResults(serial, parallel);
+	}
+
+	// Partial results published during serial and parallel scans must, taken
+	// together, be exactly the final results, which must not be affected.
+	public void testPartialResults() throws Exception {
+		TSDcDft reference = new TSDcDft(obs, 0.0, 0.025, 0.00001);
+		reference.setThreadCount(1);
+		reference.execute();
+
+		for (int threads : new int[] { 1,
+				Math.max(2, TSDcDft.getRecommendedThreadCount()) }) {
+			PartialResultChannel channel = new PartialResultChannel(4);
+
+			TSDcDft dcdft = new TSDcDft(obs, 0.0, 0.025, 0.00001);
+			dcdft.setThreadCount(threads);
+			dcdft.setPartialResultChannel(channel);
+			dcdft.execute();
+
+			assertSameResults(reference, dcdft);
+			assertPublished(dcdft, channel.drain());
+		}
+	}
+
+	public void testPartialResultsStandardScan() throws Exception {
+		PartialResultChannel channel = new PartialResultChannel();
+
+		TSDcDft dcdft = new TSDcDft(obs);
+		dcdft.setPartialResultChannel(channel);
+		dcdft.execute();
+
+		// Results are published in blocks as they are collected.
+		int n = dcdft.getResultSeries().get(
+				PeriodAnalysisCoordinateType.FREQUENCY).size();
+		int blockSize = PartialResultChannel.DEFAULT_BLOCK_SIZE;
+
+		List<PeriodogramBlock> blocks = channel.drain();
+		assertEquals((n + blockSize - 1) / blockSize, blocks.size());
+		assertPublished(dcdft, blocks);
+	}
+
+	public void testThreadCountClamped() {
+		TSDcDft dcdft = new TSDcDft(obs);
+
+		dcdft.setThreadCount(0);
+		assertEquals(1, dcdft.getThreadCount());
+
+		dcdft.setThreadCount(Integer.MAX_VALUE);
+		assertEquals(TSDcDft.getRecommendedThreadCount(), dcdft
+				.getThreadCount());
+	}
+
+	// Helpers
+
+	private TSDcDft createPeriodRangeDcDft(double loPeriod, double hiPeriod,
+			double resolution) {
+		TSDcDft dcdft = new TSDcDft(obs, DcDftAnalysisType.PERIOD_RANGE);
+		dcdft.setLoPeriodValue(loPeriod);
+		dcdft.setHiPeriodValue(hiPeriod);
+		dcdft.setResolutionValue(resolution);
+		return dcdft;
+	}
+
+	// Assert that the published points are the result series' frequencies,
+	// periods and powers, in some order.
+	private void assertPublished(TSDcDft dcdft, List<PeriodogramBlock> blocks) {
+		Map<PeriodAnalysisCoordinateType, List<Double>> series = dcdft
+				.getResultSeries();
+
+		List<String> expected = new ArrayList<String>();
+		List<Double> freqs = series.get(PeriodAnalysisCoordinateType.FREQUENCY);
+		List<Double> periods = series.get(PeriodAnalysisCoordinateType.PERIOD);
+		List<Double> powers = series.get(PeriodAnalysisCoordinateType.POWER);
+		for (int i = 0; i < freqs.size(); i++) {
+			expected.add(freqs.get(i) + "," + periods.get(i) + ","
+					+ powers.get(i));
+		}
+
+		List<String> actual = new ArrayList<String>();
+		for (PeriodogramBlock block : blocks) {
+			for (int i = 0; i < block.size(); i++) {
+				actual.add(block.getFrequencies()[i] + ","
+						+ block.getPeriods()[i] + "," + block.getValues()[i]);
+			}
+		}
+
+		Collections.sort(expected);
+		Collections.sort(actual);
+		assertEquals(expected, actual);
+	}
+
+	private void assertSameResults(TSDcDft expected, TSDcDft actual) {
+		assertSameSeries(expected.getResultSeries(), actual.getResultSeries());
+		assertSameSeries(expected.getTopHits(), actual.getTopHits());
+	}
+
+	private void assertSameSeries(
+			Map<PeriodAnalysisCoordinateType, List<Double>> expected,
+			Map<PeriodAnalysisCoordinateType, List<Double>> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+
+		for (PeriodAnalysisCoordinateType type : expected.keySet()) {
+			List<Double> expectedValues = expected.get(type);
+			List<Double> actualValues = actual.get(type);
+
+			assertFalse(expectedValues.isEmpty());
+			assertEquals(expectedValues.size(), actualValues.size());
+
+			for (int i = 0; i < expectedValues.size(); i++) {
+				assertEquals(type + "[" + i + "]", expectedValues.get(i),
+						actualValues.get(i));
+			}
+		}
+	}
+}
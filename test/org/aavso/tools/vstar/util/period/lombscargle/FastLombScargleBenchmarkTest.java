@@ -0,0 +1,101 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.lombscargle;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.LineNumberReader;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.input.AbstractObservationRetriever;
+import org.aavso.tools.vstar.input.text.ObservationSourceAnalyser;
+import org.aavso.tools.vstar.input.text.TextFormatObservationReader;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.dcdft.TSDcDft;
+
+/**
+ * Benchmark the fast Lomb-Scargle periodogram against DC DFT on bundled data
+ * files, checking that both find the same strongest frequency.
+ */
+public class FastLombScargleBenchmarkTest extends TestCase {
+
+	public FastLombScargleBenchmarkTest(String name) {
+		super(name);
+	}
+
+	public void testDeltaCep() throws Exception {
+		// Period: 5.366 days
+		commonBenchmarkTest(new File("data/delcep_jd_mag.vis"), 0.01, 0.5,
+				0.0001, 1 / 5.366);
+	}
+
+	public void testTUmi() throws Exception {
+		// Period: around 310 days before its decline began
+		commonBenchmarkTest(new File("data/TUmi_2420000_2455000.tsv"), 0.001,
+				0.05, 0.00001, 1 / 310.0);
+	}
+
+	// Helpers
+
+	private void commonBenchmarkTest(File file, double loFreq, double hiFreq,
+			double resolution, double expectedFrequency) throws Exception {
+		List<ValidObservation> obs = readObservations(file);
+
+		long t0 = System.nanoTime();
+		TSDcDft dcdft = new TSDcDft(obs, loFreq, hiFreq, resolution);
+		dcdft.execute();
+		double dcdftMs = (System.nanoTime() - t0) / 1_000_000.0;
+
+		t0 = System.nanoTime();
+		FastLombScargle ls = new FastLombScargle(obs, loFreq, hiFreq,
+				resolution, true);
+		ls.execute();
+		double lsMs = (System.nanoTime() - t0) / 1_000_000.0;
+
+		System.out.println("Fast Lomb-Scargle benchmark (" + file.getName()
+				+ ", " + obs.size() + " obs, " + ls.getFrequencyCount()
+				+ " frequencies): DC DFT=" + String.format("%.2f", dcdftMs)
+				+ " ms, Lomb-Scargle=" + String.format("%.2f", lsMs)
+				+ " ms, speedup=" + String.format("%.2fx", dcdftMs / lsMs));
+
+		double dcdftFrequency = dcdft.getTopHits().get(
+				PeriodAnalysisCoordinateType.FREQUENCY).get(0);
+		double lsFrequency = ls.getTopHits().get(
+				PeriodAnalysisCoordinateType.FREQUENCY).get(0);
+
+		assertEquals(dcdftFrequency, lsFrequency, resolution / 2);
+		assertEquals(expectedFrequency, lsFrequency, expectedFrequency / 20);
+	}
+
+	private List<ValidObservation> readObservations(File file)
+			throws Exception {
+		ObservationSourceAnalyser analyser = new ObservationSourceAnalyser(
+				new LineNumberReader(new FileReader(file)), file.getName());
+		analyser.analyse();
+
+		TextFormatObservationReader reader = new TextFormatObservationReader(
+				new LineNumberReader(new FileReader(file)), analyser,
+				AbstractObservationRetriever.NO_VELA_FILTER);
+		reader.retrieveObservations();
+
+		return reader.getValidObservations();
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.lombscargle;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.util.period.PeriodAnalysisCoordinateType;
+import org.aavso.tools.vstar.util.period.PeriodAnalysisResult;
+
+/**
+ * Fast Lomb-Scargle periodogram tests, comparing results with those of a
+ * direct computation.
+ */
+public class FastLombScargleTest extends TestCase {
+
+	private static final double LO_FREQ = 0.001;
+	private static final double HI_FREQ = 0.5;
+	private static final double RESOLUTION = 0.0005;
+
+	// A noisy sinusoid, unevenly sampled.
+	private static final double FREQUENCY = 0.1234;
+	private static final double AMPLITUDE = 0.75;
+
+	private double[] times;
+	private double[] mags;
+	private double[] weights;
+
+	public FastLombScargleTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		Random random = new Random(42);
+
+		int n = 500;
+		times = new double[n];
+		mags = new double[n];
+		weights = new double[n];
+
+		double t = 2450000;
+		for (int i = 0; i < n; i++) {
+			t += random.nextDouble() * 5;
+			times[i] = t;
+			mags[i] = 10 + AMPLITUDE
+					* Math.sin(2 * Math.PI * FREQUENCY * t + 1)
+					+ 0.2 * random.nextGaussian();
+			weights[i] = 1 / (0.05 + random.nextDouble() * 0.1);
+		}
+	}
+
+	public void testFloatingMeanMatchesDirect() throws Exception {
+		commonMatchesDirectTest(null, true);
+	}
+
+	public void testFixedMeanMatchesDirect() throws Exception {
+		commonMatchesDirectTest(null, false);
+	}
+
+	public void testWeightedMatchesDirect() throws Exception {
+		commonMatchesDirectTest(weights, true);
+	}
+
+	public void testNonZeroLowFrequencyMatchesDirect() throws Exception {
+		FastLombScargle ls = new FastLombScargle(times, mags, null, 0.1, 0.15,
+				0.00001, true);
+		ls.execute();
+
+		double[] expected = directPowers(null, 0.1, 0.00001,
+				ls.getFrequencyCount(), true);
+		assertPowers(expected, ls.getResult());
+	}
+
+	public void testTopHit() throws Exception {
+		FastLombScargle ls = new FastLombScargle(times, mags, null, LO_FREQ,
+				HI_FREQ, RESOLUTION, true);
+		ls.execute();
+
+		Map<PeriodAnalysisCoordinateType, List<Double>> topHits = ls
+				.getTopHits();
+
+		double frequency = topHits.get(PeriodAnalysisCoordinateType.FREQUENCY)
+				.get(0);
+		assertEquals(FREQUENCY, frequency, RESOLUTION);
+		assertEquals(1 / frequency, topHits.get(
+				PeriodAnalysisCoordinateType.PERIOD).get(0), 1e-9);
+		assertEquals(AMPLITUDE, topHits.get(
+				PeriodAnalysisCoordinateType.SEMI_AMPLITUDE).get(0), 0.1);
+
+		// Top hits are in descending order of power.
+		List<Double> powers = topHits.get(PeriodAnalysisCoordinateType.POWER);
+		for (int i = 1; i < powers.size(); i++) {
+			assertTrue(powers.get(i - 1) >= powers.get(i));
+		}
+	}
+
+	public void testZeroFrequency() throws Exception {
+		FastLombScargle ls = new FastLombScargle(times, mags, null, 0, 0.01,
+				0.001, true);
+		ls.execute();
+
+		PeriodAnalysisResult result = ls.getResult();
+		assertEquals(11, result.size());
+		assertEquals(0.0, result.get(PeriodAnalysisCoordinateType.PERIOD, 0));
+		assertEquals(0.0, result.get(PeriodAnalysisCoordinateType.POWER, 0));
+	}
+
+	public void testIllegalResolution() {
+		try {
+			new FastLombScargle(times, mags, null, 0, 1, 0, true);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+	}
+
+	// Helpers
+
+	private void commonMatchesDirectTest(double[] weights, boolean floatingMean)
+			throws Exception {
+		FastLombScargle ls = new FastLombScargle(times, mags, weights,
+				LO_FREQ, HI_FREQ, RESOLUTION, floatingMean);
+		ls.execute();
+
+		double[] expected = directPowers(weights, LO_FREQ, RESOLUTION, ls
+				.getFrequencyCount(), floatingMean);
+		assertPowers(expected, ls.getResult());
+	}
+
+	private void assertPowers(double[] expected, PeriodAnalysisResult result) {
+		assertEquals(expected.length, result.size());
+		for (int j = 0; j < expected.length; j++) {
+			assertEquals("power[" + j + "]", expected[j], result.get(
+					PeriodAnalysisCoordinateType.POWER, j), 1e-4);
+		}
+	}
+
+	// The generalised Lomb-Scargle periodogram, computed directly.
+	private double[] directPowers(double[] weights, double loFreq,
+			double resolution, int count, boolean floatingMean) {
+		int n = times.length;
+
+		double[] w = new double[n];
+		double wsum = 0;
+		for (int i = 0; i < n; i++) {
+			w[i] = weights == null ? 1 : weights[i];
+			wsum += w[i];
+		}
+		double ybar = 0;
+		for (int i = 0; i < n; i++) {
+			w[i] /= wsum;
+			ybar += w[i] * mags[i];
+		}
+		double yy = 0;
+		for (int i = 0; i < n; i++) {
+			yy += w[i] * (mags[i] - ybar) * (mags[i] - ybar);
+		}
+
+		double[] powers = new double[count];
+		for (int j = 0; j < count; j++) {
+			double omega = 2 * Math.PI * (loFreq + j * resolution);
+			double c = 0, s = 0, yc = 0, ys = 0, cc = 0, ss = 0, cs = 0;
+			for (int i = 0; i < n; i++) {
+				double cos = Math.cos(omega * (times[i] - times[0]));
+				double sin = Math.sin(omega * (times[i] - times[0]));
+				double y = mags[i] - ybar;
+				c += w[i] * cos;
+				s += w[i] * sin;
+				yc += w[i] * y * cos;
+				ys += w[i] * y * sin;
+				cc += w[i] * cos * cos;
+				ss += w[i] * sin * sin;
+				cs += w[i] * cos * sin;
+			}
+			if (floatingMean) {
+				cc -= c * c;
+				ss -= s * s;
+				cs -= c * s;
+			}
+			double d = cc * ss - cs * cs;
+			powers[j] = (ss * yc * yc + cc * ys * ys - 2 * cs * yc * ys)
+					/ (yy * d);
+		}
+
+		return powers;
+	}
+}
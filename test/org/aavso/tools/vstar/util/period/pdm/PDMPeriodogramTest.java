@@ -0,0 +1,223 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.pdm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.util.period.ParallelPeriodScanTest;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+
+/**
+ * Phase Dispersion Minimisation periodogram tests.
+ */
+public class PDMPeriodogramTest extends TestCase {
+
+	private static final double PERIOD = 4.3;
+
+	public PDMPeriodogramTest(String name) {
+		super(name);
+	}
+
+	public void testRecoversPeriod() throws Exception {
+		double[][] data = createData(600, 0.1, 1);
+
+		PDMPeriodogram pdm = new PDMPeriodogram(data[0], data[1], 2, 10,
+				0.001, PDMPeriodogram.DEFAULT_BINS,
+				PDMPeriodogram.DEFAULT_COVERS, true);
+		pdm.execute();
+
+		TopHitsHeap hits = pdm.getTopHits();
+		int best = (int) hits.getOrdinal(0);
+
+		assertEquals(PERIOD, pdm.getPeriods()[best], 0.01);
+		assertTrue(pdm.getThetas()[best] < 0.2);
+		assertTrue(pdm.getSignificances()[best] < 1e-10);
+	}
+
+	// Compare theta against a direct computation from Stellingwerf's
+	// definition.
+	public void testMatchesDirectComputation() throws Exception {
+		double[][] data = createData(200, 0.3, 2);
+		int bins = 8;
+		int covers = 3;
+
+		PDMPeriodogram pdm = new PDMPeriodogram(data[0], data[1], 3, 6, 0.05,
+				bins, covers, false);
+		pdm.execute();
+
+		double[] periods = pdm.getPeriods();
+		double[] thetas = pdm.getThetas();
+
+		for (int k = 0; k < periods.length; k++) {
+			double expected = directTheta(data[0], data[1], pdm.getEpoch(),
+					periods[k], bins, covers);
+			assertEquals(expected, thetas[k], 1e-9);
+			assertTrue(Double.isNaN(pdm.getSignificances()[k]));
+		}
+	}
+
+	public void testThreadedMatchesSingleThreaded() throws Exception {
+		double[][] data = createData(1000, 0.2, 3);
+
+		PDMPeriodogram serial = new PDMPeriodogram(data[0], data[1], 1, 10,
+				0.005, 10, 2, true);
+		serial.setThreadCount(1);
+		serial.execute();
+
+		PDMPeriodogram threaded = new PDMPeriodogram(data[0], data[1], 1, 10,
+				0.005, 10, 2, true);
+		threaded.setThreadCount(Math.max(2,
+				PDMPeriodogram.getRecommendedThreadCount()));
+		threaded.execute();
+
+		assertTrue(Arrays.equals(serial.getThetas(), threaded.getThetas()));
+		assertTrue(Arrays.equals(serial.getSignificances(),
+				threaded.getSignificances()));
+
+		ParallelPeriodScanTest.assertSameHits(serial.getTopHits(), threaded
+				.getTopHits());
+	}
+
+	public void testNoiseIsNotSignificant() throws Exception {
+		Random random = new Random(4);
+		int n = 500;
+		double[] times = new double[n];
+		double[] mags = new double[n];
+		for (int i = 0; i < n; i++) {
+			times[i] = 2450000 + random.nextDouble() * 500;
+			mags[i] = 10 + random.nextGaussian();
+		}
+
+		PDMPeriodogram pdm = new PDMPeriodogram(times, mags, 2, 3, 0.1, 10, 1,
+				true);
+		pdm.execute();
+
+		for (int k = 0; k < pdm.getPeriods().length; k++) {
+			assertEquals(1, pdm.getThetas()[k], 0.1);
+			assertTrue(pdm.getSignificances()[k] > 1e-3);
+		}
+	}
+
+	public void testInvalidParameters() {
+		double[] times = { 1, 2, 3 };
+		double[] mags = { 1, 2, 3 };
+
+		try {
+			new PDMPeriodogram(times, mags, 0, 5, 0.1, 10, 1, false);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			new PDMPeriodogram(times, mags, 1, 5, 0.1, 1, 1, false);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		try {
+			new PDMPeriodogram(times, mags, 1, 5, 0.1, 10, 0, false);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	// Helpers
+
+	private static double[][] createData(int n, double noise, long seed) {
+		Random random = new Random(seed);
+
+		double[] times = new double[n];
+		double[] mags = new double[n];
+
+		for (int i = 0; i < n; i++) {
+			times[i] = 2450000 + random.nextDouble() * 300;
+			mags[i] = 10 + 0.5 * Math.sin(2 * Math.PI * times[i] / PERIOD)
+					+ noise * random.nextGaussian();
+		}
+
+		return new double[][] { times, mags };
+	}
+
+	private static double directTheta(double[] times, double[] mags,
+			double epoch, double period, int bins, int covers) {
+		int n = times.length;
+
+		double mean = 0;
+		for (double mag : mags) {
+			mean += mag;
+		}
+		mean /= n;
+
+		double variance = 0;
+		for (double mag : mags) {
+			variance += (mag - mean) * (mag - mean);
+		}
+		variance /= n - 1;
+
+		double numerator = 0;
+		int denominator = 0;
+
+		for (int c = 0; c < covers; c++) {
+			double start = c / (double) (bins * covers);
+
+			for (int b = 0; b < bins; b++) {
+				double lo = start + b / (double) bins;
+				double hi = lo + 1.0 / bins;
+
+				double sum = 0;
+				int count = 0;
+				for (int i = 0; i < n; i++) {
+					double phase = inBin(times[i], epoch, period, lo, hi);
+					if (!Double.isNaN(phase)) {
+						sum += mags[i];
+						count++;
+					}
+				}
+
+				if (count > 1) {
+					double binMean = sum / count;
+					for (int i = 0; i < n; i++) {
+						double phase = inBin(times[i], epoch, period, lo, hi);
+						if (!Double.isNaN(phase)) {
+							numerator += (mags[i] - binMean)
+									* (mags[i] - binMean);
+						}
+					}
+					denominator += count - 1;
+				}
+			}
+		}
+
+		return (numerator / denominator) / variance;
+	}
+
+	// Returns the phase if it is in the bin [lo, hi) modulo 1, else NaN.
+	private static double inBin(double time, double epoch, double period,
+			double lo, double hi) {
+		double phase = (time - epoch) / period;
+		phase -= Math.floor(phase);
+		double p = phase < lo ? phase + 1 : phase;
+		return p < hi ? phase : Double.NaN;
+	}
+}
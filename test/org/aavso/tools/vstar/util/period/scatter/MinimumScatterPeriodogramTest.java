@@ -0,0 +1,210 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2018  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.scatter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.util.TCasData;
+import org.aavso.tools.vstar.util.period.TopHitsHeap;
+
+/**
+ * Minimum scatter periodogram tests.
+ */
+public class MinimumScatterPeriodogramTest extends TestCase {
+
+	private static final double MIN_PERIOD = 200.0;
+	private static final double MAX_PERIOD = 600.0;
+	private static final double RESOLUTION = 0.5;
+
+	public MinimumScatterPeriodogramTest(String name) {
+		super(name);
+	}
+
+	// Compare against the original serial code.
+	public void testMatchesSerial() throws Exception {
+		double[][] data = TCasData.data;
+		commonMatchesSerialTest(times(data), mags(data), MIN_PERIOD,
+				MAX_PERIOD, RESOLUTION, 1);
+	}
+
+	public void testThreadedMatchesSerial() throws Exception {
+		double[][] data = TCasData.data;
+		commonMatchesSerialTest(times(data), mags(data), MIN_PERIOD,
+				MAX_PERIOD, RESOLUTION, Math.max(2,
+						MinimumScatterPeriodogram.getRecommendedThreadCount()));
+	}
+
+	// Integer times, duplicate times and exactly representable periods
+	// result in many observations with equal phases, whose order (and so
+	// scatter) depends upon that for previous trial periods.
+	public void testEqualPhasesMatchSerial() throws Exception {
+		int n = 300;
+		double[] times = new double[n];
+		double[] mags = new double[n];
+		for (int i = 0; i < n; i++) {
+			times[i] = 2450000 + (i * 7) % 200 + (i % 3 == 0 ? 0 : i / 2);
+			mags[i] = 10 + Math.sin(times[i] / 3.0) + (i % 5) * 0.1;
+		}
+
+		commonMatchesSerialTest(times, mags, 2, 50, 0.25, 1);
+		commonMatchesSerialTest(times, mags, 2, 50, 0.25, Math.max(2,
+				MinimumScatterPeriodogram.getRecommendedThreadCount()));
+	}
+
+	public void testTopHitsAscending() throws Exception {
+		double[][] data = TCasData.data;
+		MinimumScatterPeriodogram periodogram = new MinimumScatterPeriodogram(
+				times(data), mags(data), MIN_PERIOD, MAX_PERIOD, RESOLUTION);
+		periodogram.execute();
+
+		double[] scatters = periodogram.getScatters();
+		TopHitsHeap topHits = periodogram.getTopHits();
+
+		assertEquals(Math.min(scatters.length,
+				MinimumScatterPeriodogram.DEFAULT_MAX_TOP_HITS), topHits
+				.size());
+		assertEquals(scatters[scatters.length - 1], topHits.getScore(0));
+
+		for (int i = 1; i < topHits.size(); i++) {
+			assertTrue(topHits.getScore(i - 1) <= topHits.getScore(i));
+		}
+	}
+
+	// Helpers
+
+	private void commonMatchesSerialTest(double[] times, double[] mags,
+			double minPeriod, double maxPeriod, double resolution,
+			int threadCount) throws Exception {
+		SerialPeriodFinder serial = new SerialPeriodFinder(times, mags);
+		serial.stepThroughPeriods(minPeriod, maxPeriod, resolution);
+
+		MinimumScatterPeriodogram periodogram = new MinimumScatterPeriodogram(
+				times, mags, minPeriod, maxPeriod, resolution);
+		periodogram.setThreadCount(threadCount);
+		periodogram.execute();
+
+		double[] periods = periodogram.getPeriods();
+		double[] scatters = periodogram.getScatters();
+		double[] segmentSums = periodogram.getSegmentSums();
+
+		assertEquals(serial.periods.size(), periods.length);
+		for (int i = 0; i < periods.length; i++) {
+			assertEquals(serial.periods.get(i), periods[i], 0.0);
+			assertEquals(serial.scatters.get(i), scatters[i], 0.0);
+			assertEquals(serial.segmentSums.get(i), segmentSums[i], 0.0);
+		}
+	}
+
+	private static double[] times(double[][] data) {
+		double[] times = new double[data.length];
+		for (int i = 0; i < data.length; i++) {
+			times[i] = data[i][0];
+		}
+		return times;
+	}
+
+	private static double[] mags(double[][] data) {
+		double[] mags = new double[data.length];
+		for (int i = 0; i < data.length; i++) {
+			mags[i] = data[i][1];
+		}
+		return mags;
+	}
+
+	// The original single-threaded Period Finder code, which bubble sorts the
+	// observations in place for each trial period, recording the successive
+	// best matches.
+	private static class SerialPeriodFinder {
+		int observations;
+		double[] obsTime, mag, phase;
+
+		List<Double> periods = new ArrayList<Double>();
+		List<Double> scatters = new ArrayList<Double>();
+		List<Double> segmentSums = new ArrayList<Double>();
+
+		SerialPeriodFinder(double[] times, double[] mags) {
+			observations = times.length;
+			obsTime = times.clone();
+			mag = mags.clone();
+			phase = new double[observations];
+		}
+
+		void stepThroughPeriods(double minPeriod, double maxPeriod,
+				double periodStep) {
+			double bestMatch = 1000000000.0;
+			for (double trialPeriod = minPeriod; trialPeriod < maxPeriod
+					+ periodStep; trialPeriod += periodStep) {
+				double[] scatterPair = scatterCalc(trialPeriod);
+				double sumSegs = scatterPair[0];
+				double scatter = scatterPair[1];
+
+				if (scatter < bestMatch) {
+					bestMatch = scatter;
+					periods.add(trialPeriod);
+					scatters.add(scatter);
+					segmentSums.add(sumSegs);
+				}
+			}
+		}
+
+		double[] scatterCalc(double period) {
+			for (int i = 0; i < observations; i++) {
+				phase[i] = (obsTime[i] / period)
+						- Math.floor(obsTime[i] / period);
+			}
+
+			sort();
+
+			double scatter = 0;
+			double seg = 0;
+			for (int i = 1; i < observations; i++) {
+				seg += Math.sqrt((phase[i] - phase[i - 1])
+						* (phase[i] - phase[i - 1]) + (mag[i] - mag[i - 1])
+						* (mag[i] - mag[i - 1]));
+
+				scatter += Math.abs(mag[i] - mag[i - 1]);
+			}
+
+			return new double[] { seg, scatter };
+		}
+
+		void sort() {
+			int changes;
+			do {
+				changes = 0;
+				for (int i = 0; i < observations - 1; i++) {
+					if (phase[i] > phase[i + 1]) {
+						double tempPhase = phase[i + 1];
+						double tempTime = obsTime[i + 1];
+						double tempMag = mag[i + 1];
+						phase[i + 1] = phase[i];
+						obsTime[i + 1] = obsTime[i];
+						mag[i + 1] = mag[i];
+						phase[i] = tempPhase;
+						obsTime[i] = tempTime;
+						mag[i] = tempMag;
+						changes++;
+					}
+				}
+			} while (changes > 0);
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.period.wwz;
+
+import java.io.File;
+import java.util.List;
+
+import org.aavso.tools.vstar.ui.model.list.WWZDataTableModel;
+import org.aavso.tools.vstar.ui.model.plot.WWZ3DPlotModel;
+import org.aavso.tools.vstar.util.period.dcdft.DataTestBase;
+
+/**
+ * WWZ columnar result store tests.
+ */
+public class WWZResultStoreTest extends DataTestBase {
+
+	private static final double[] TAUS = { 2420000, 2420100, 2420200 };
+	private static final double[] FREQS = { 0.01, 0.02 };
+
+	public WWZResultStoreTest() {
+		super("WWZ result store test", TUmi2420000To2425000Data.data);
+	}
+
+	public void testHeapStore() throws Exception {
+		WWZResultStore store = createStore(WWZResultStorage.HEAP);
+
+		assertEquals(WWZResultStorage.HEAP, store.getStorage());
+		assertEquals(6, store.size());
+		assertEquals(3, store.getTauCount());
+		assertEquals(2, store.getFrequencyCount());
+
+		// Tau-major order.
+		WWZStatistic stat = store.get(3);
+		assertEquals(2420100.0, stat.getTau());
+		assertEquals(0.02, stat.getFrequency());
+		assertEquals(50.0, stat.getPeriod(), 1e-12);
+		assertEquals(3 / 10.0 + 0.8, stat.getWwz());
+		assertEquals(3 / 10.0 + 0.9, stat.getSemiAmplitude());
+		assertEquals(3 / 10.0 + 1.0, stat.getMave());
+		assertEquals(3 / 10.0 + 1.1, stat.getNeff());
+
+		assertEquals(stat, store.asList().get(3));
+
+		for (WWZCoordinateType type : WWZCoordinateType.values()) {
+			assertEquals(stat.getValue(type), store.getValue(3, type));
+		}
+	}
+
+	public void testCompactStore() throws Exception {
+		WWZResultStore store = createStore(WWZResultStorage.COMPACT);
+
+		assertEquals(WWZResultStorage.COMPACT, store.getStorage());
+		checkStore(store);
+	}
+
+	public void testMappedStore() throws Exception {
+		WWZResultStore store = createStore(WWZResultStorage.MAPPED);
+
+		assertEquals(WWZResultStorage.MAPPED, store.getStorage());
+		checkStore(store);
+
+		store.dispose();
+		assertEquals(0, store.size());
+	}
+
+	public void testListView() throws Exception {
+		WWZResultStore store = createStore(WWZResultStorage.HEAP);
+		List<WWZStatistic> list = store.asList();
+
+		assertEquals(6, list.size());
+		assertSame(store, ((WWZResultStore.StatisticList) list).getStore());
+
+		int i = 0;
+		for (WWZStatistic stat : list) {
+			assertEquals(store.get(i), stat);
+			i++;
+		}
+
+		try {
+			list.get(6);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+
+		try {
+			list.add(store.get(0));
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testAutomaticStorage() throws Exception {
+		assertEquals(WWZResultStorage.HEAP, WWZResultStore.chooseStorage(1000));
+		assertEquals(WWZResultStorage.MAPPED, WWZResultStore
+				.chooseStorage(Runtime.getRuntime().maxMemory()));
+
+		assertEquals(WWZResultStorage.HEAP, createStore(
+				WWZResultStorage.AUTOMATIC).getStorage());
+	}
+
+	public void testTooManyPoints() throws Exception {
+		try {
+			new WWZResultStore(new double[1 << 16], new double[1 << 16],
+					WWZResultStorage.COMPACT);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	// Compact and mapped results of the WWZ algorithm match the double
+	// precision results to single precision.
+	public void testWWZStorage() throws Exception {
+		WeightedWaveletZTransform heap = execute(WWZResultStorage.HEAP);
+		assertEquals(WWZResultStorage.HEAP, heap.getResultStore()
+				.getStorage());
+
+		for (WWZResultStorage storage : new WWZResultStorage[] {
+				WWZResultStorage.COMPACT, WWZResultStorage.MAPPED }) {
+			WeightedWaveletZTransform wwt = execute(storage);
+			assertEquals(storage, wwt.getResultStore().getStorage());
+
+			List<WWZStatistic> expected = heap.getStats();
+			List<WWZStatistic> actual = wwt.getStats();
+			assertEquals(expected.size(), actual.size());
+
+			for (int i = 0; i < expected.size(); i++) {
+				for (WWZCoordinateType type : WWZCoordinateType.values()) {
+					double value = expected.get(i).getValue(type);
+					assertEquals(value, actual.get(i).getValue(type),
+							Math.ulp((float) value));
+				}
+			}
+
+			assertEquals(heap.getMaximalStats(), wwt.getMaximalStats());
+
+			wwt.getResultStore().dispose();
+		}
+	}
+
+	// Executing again releases the stats of the previous execution, and with
+	// them any temporary file.
+	public void testExecuteDisposesPreviousStore() throws Exception {
+		WeightedWaveletZTransform wwt = execute(WWZResultStorage.MAPPED);
+
+		File file = wwt.getResultStore().getFile();
+		assertTrue(file.exists());
+
+		wwt.execute();
+
+		assertFalse(file.exists());
+		assertNotSame(file, wwt.getResultStore().getFile());
+		assertTrue(wwt.getResultStore().getFile().exists());
+
+		wwt.dispose();
+
+		assertNull(wwt.getResultStore());
+		assertTrue(wwt.getStats().isEmpty());
+	}
+
+	// Models backed by a store read its columns rather than statistic
+	// objects, with the same results.
+	public void testModelAdapters() throws Exception {
+		WeightedWaveletZTransform wwt = execute(WWZResultStorage.COMPACT);
+		List<WWZStatistic> stats = wwt.getStats();
+
+		WWZ3DPlotModel plotModel = new WWZ3DPlotModel(stats,
+				WWZCoordinateType.TAU, WWZCoordinateType.PERIOD,
+				WWZCoordinateType.WWZ);
+
+		WWZDataTableModel tableModel = new WWZDataTableModel(stats, wwt);
+
+		assertEquals(stats.size(), plotModel.getItemCount(0));
+		assertEquals(stats.size(), tableModel.getRowCount());
+
+		for (int i = 0; i < stats.size(); i++) {
+			WWZStatistic stat = stats.get(i);
+			assertEquals(stat.getTau(), plotModel.getXValue(0, i));
+			assertEquals(stat.getPeriod(), plotModel.getYValue(0, i));
+			assertEquals(stat.getWwz(), plotModel.getZValue(0, i));
+			assertEquals(stat, tableModel.getDataPointFromRow(i));
+		}
+	}
+
+	// Helpers
+
+	private WWZResultStore createStore(WWZResultStorage storage)
+			throws Exception {
+		WWZResultStore store = new WWZResultStore(TAUS, FREQS, storage);
+
+		for (int itau = 0; itau < TAUS.length; itau++) {
+			for (int ifreq = 0; ifreq < FREQS.length; ifreq++) {
+				double base = itau * FREQS.length + ifreq;
+				store.set(itau, ifreq, base / 10 + 0.8, base / 10 + 0.9,
+						base / 10 + 1.0, base / 10 + 1.1);
+			}
+		}
+
+		return store;
+	}
+
+	private void checkStore(WWZResultStore store) {
+		assertEquals(6, store.size());
+
+		for (int i = 0; i < store.size(); i++) {
+			WWZStatistic stat = store.get(i);
+			assertEquals(TAUS[i / FREQS.length], stat.getTau());
+			assertEquals(FREQS[i % FREQS.length], stat.getFrequency());
+			assertEquals((float) (i / 10.0 + 0.8), (float) stat.getWwz());
+			assertEquals((float) (i / 10.0 + 0.9), (float) stat
+					.getSemiAmplitude());
+			assertEquals((float) (i / 10.0 + 1.0), (float) stat.getMave());
+			assertEquals((float) (i / 10.0 + 1.1), (float) stat.getNeff());
+		}
+	}
+
+	private WeightedWaveletZTransform execute(WWZResultStorage storage)
+			throws Exception {
+		WeightedWaveletZTransform wwt = new WeightedWaveletZTransform(obs,
+				0.01, 50.0);
+		wwt.setResultStorage(storage);
+		wwt.make_freqs_from_freq_range(0.01, 0.02, 0.001);
+		wwt.execute();
+		return wwt;
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2009  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.util.stats;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * PhaseBinner tests.
+ */
+public class PhaseBinnerTest extends TestCase {
+
+	private static final double DELTA = 1e-9;
+
+	public PhaseBinnerTest(String name) {
+		super(name);
+	}
+
+	public void testCountsMeansAndVariances() {
+		double[] phases = { 0.05, 0.1, 0.2, 0.55, 0.6, 0.65, 0.99 };
+		double[] values = { 10.0, 10.2, 10.4, 11.0, 11.5, 12.0, 9.0 };
+
+		PhaseBinner binner = new PhaseBinner(4);
+		binner.bin(phases, values);
+
+		assertEquals(3, binner.getCounts()[0]);
+		assertEquals(10.2, binner.getMeans()[0], DELTA);
+		assertEquals(0.04, binner.getVariances()[0], DELTA);
+
+		// Empty bin
+		assertEquals(0, binner.getCounts()[1]);
+		assertTrue(Double.isNaN(binner.getMeans()[1]));
+		assertTrue(Double.isNaN(binner.getVariances()[1]));
+
+		assertEquals(3, binner.getCounts()[2]);
+		assertEquals(11.5, binner.getMeans()[2], DELTA);
+		assertEquals(0.25, binner.getVariances()[2], DELTA);
+
+		// Single value bin
+		assertEquals(1, binner.getCounts()[3]);
+		assertEquals(9.0, binner.getMeans()[3], DELTA);
+		assertTrue(Double.isNaN(binner.getVariances()[3]));
+	}
+
+	public void testOffsetWrapsAround() {
+		double[] phases = { 0.0, 0.1, 0.2, 0.95 };
+		double[] values = { 1, 2, 3, 4 };
+
+		// Bins start at phases 0.15 and 0.65, so the last bin spans phase 0.
+		PhaseBinner binner = new PhaseBinner(2, 0.15);
+		binner.bin(phases, values);
+
+		assertEquals(1, binner.getCounts()[0]);
+		assertEquals(3, binner.getMeans()[0], DELTA);
+		assertEquals(3, binner.getCounts()[1]);
+		assertEquals(7 / 3.0, binner.getMeans()[1], DELTA);
+	}
+
+	public void testTimesMatchPhases() {
+		Random random = new Random(1);
+		int n = 500;
+		double epoch = 2450000.3;
+		double period = 3.7;
+
+		double[] times = new double[n];
+		double[] phases = new double[n];
+		double[] values = new double[n];
+		for (int i = 0; i < n; i++) {
+			times[i] = 2450000 + random.nextDouble() * 1000;
+			double phase = (times[i] - epoch) / period;
+			phases[i] = phase - Math.floor(phase);
+			values[i] = 12 + random.nextGaussian();
+		}
+
+		PhaseBinner fromPhases = new PhaseBinner(10, 0.05);
+		fromPhases.bin(phases, values);
+
+		PhaseBinner fromTimes = new PhaseBinner(10, 0.05);
+		fromTimes.bin(times, values, epoch, period);
+
+		for (int b = 0; b < 10; b++) {
+			assertEquals(fromPhases.getCounts()[b], fromTimes.getCounts()[b]);
+			assertEquals(fromPhases.getMeans()[b], fromTimes.getMeans()[b],
+					DELTA);
+			assertEquals(fromPhases.getVariances()[b],
+					fromTimes.getVariances()[b], DELTA);
+		}
+	}
+
+	public void testReuseClearsPreviousResults() {
+		PhaseBinner binner = new PhaseBinner(2);
+
+		binner.bin(new double[] { 0.1, 0.2, 0.7 }, new double[] { 1, 2, 3 });
+		binner.bin(new double[] { 0.6, 0.8 }, new double[] { 5, 7 });
+
+		assertEquals(0, binner.getCounts()[0]);
+		assertEquals(2, binner.getCounts()[1]);
+		assertEquals(6, binner.getMeans()[1], DELTA);
+		assertEquals(2, binner.getVariances()[1], DELTA);
+	}
+
+	public void testFirstValuesOnly() {
+		PhaseBinner binner = new PhaseBinner(1);
+		binner.bin(new double[] { 0.1, 0.2, 0.3 }, new double[] { 1, 3, 100 },
+				2);
+
+		assertEquals(2, binner.getCounts()[0]);
+		assertEquals(2, binner.getMeans()[0], DELTA);
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.vela;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for VeLa functions called with primitive numeric values.
+ */
+public class NumericFunctionTest extends TestCase {
+
+    private VeLaInterpreter vela;
+
+    public NumericFunctionTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        Locale.setDefault(Locale.ENGLISH);
+        vela = new VeLaInterpreter(false, false, Collections.emptyList());
+    }
+
+    public void testValue() {
+        vela.program("f(t:real):real { 2*t + 1 }");
+        NumericFunction f = vela.numericFunction("f");
+        assertEquals(7.0, f.value(3.0));
+        assertEquals(-1.0, f.value(-1.0));
+    }
+
+    public void testValueFullPrecision() {
+        // A time value with more significant digits than the time output
+        // format must not be rounded on the way into the function.
+        vela.program("f(t:real):real { t - 2459000 }");
+        NumericFunction f = vela.numericFunction("F");
+        double t = 2459000.123456789;
+        assertEquals(t - 2459000, f.value(t));
+    }
+
+    public void testValues() {
+        vela.program("f(t:real):real { t*t }");
+        NumericFunction f = vela.numericFunction("f");
+        double[] ys = f.values(new double[] { 1, 2, 3, 4 });
+        assertEquals(4, ys.length);
+        for (int i = 0; i < ys.length; i++) {
+            assertEquals((double) (i + 1) * (i + 1), ys[i]);
+        }
+    }
+
+    public void testIntrinsicFunction() {
+        NumericFunction sqrt = vela.numericFunction("sqrt");
+        assertEquals(3.0, sqrt.value(9.0));
+    }
+
+    public void testFunctionUsesBindings() {
+        vela.program("a <- 10\nf(t:real):real { a*t }");
+        NumericFunction f = vela.numericFunction("f");
+        assertEquals(20.0, f.value(2.0));
+        vela.program("a <- 100");
+        assertEquals(200.0, f.value(2.0));
+    }
+
+    public void testNonNumericResult() {
+        vela.program("f(t:real):string { \"t\" }");
+        NumericFunction f = vela.numericFunction("f");
+        try {
+            f.value(1.0);
+            fail("expected VeLaEvalError");
+        } catch (VeLaEvalError e) {
+            // Expected.
+        }
+    }
+
+    public void testUnknownFunction() {
+        try {
+            vela.numericFunction("nosuchfunction");
+            fail("expected VeLaEvalError");
+        } catch (VeLaEvalError e) {
+            // Expected.
+        }
+    }
+
+    public void testNonConformingFunction() {
+        vela.program("f(x:real y:real):real { x*y }");
+        try {
+            vela.numericFunction("f");
+            fail("expected VeLaEvalError");
+        } catch (VeLaEvalError e) {
+            // Expected.
+        }
+    }
+}
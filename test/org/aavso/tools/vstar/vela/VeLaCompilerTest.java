@@ -0,0 +1,215 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.vela;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.DateInfo;
+import org.aavso.tools.vstar.data.Magnitude;
+import org.aavso.tools.vstar.data.SeriesType;
+import org.aavso.tools.vstar.data.ValidObservation;
+
+/**
+ * Tests that compiled VeLa code yields the same results as the interpreter.
+ */
+public class VeLaCompilerTest extends TestCase {
+
+    private VeLaInterpreter vela;
+
+    public VeLaCompilerTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        Locale.setDefault(Locale.ENGLISH);
+        vela = new VeLaInterpreter(false, false, Collections.emptyList());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        VeLaCompiler.setEnabled(true);
+    }
+
+    // Numeric functions
+
+    public void testArithmetic() {
+        commonNumericFunctionTest("2*t + 1");
+    }
+
+    public void testPower() {
+        commonNumericFunctionTest("t^2 - 3*t^0.5");
+    }
+
+    public void testMixedIntegerAndReal() {
+        commonNumericFunctionTest("7/2 + t + 2^3 - (5 - 8)");
+    }
+
+    public void testIntrinsicFunctionsAndConstants() {
+        commonNumericFunctionTest("12.3 + 0.4*cos(2*PI*t/3.5) - 0.1*sin(2*PI*t/3.5) + sqrt(abs(t))");
+    }
+
+    public void testTwoParameterIntrinsicFunction() {
+        commonNumericFunctionTest("pow(t 3) + atan2(t 2)");
+    }
+
+    public void testSelection() {
+        commonNumericFunctionTest("if t > 0 and not(t > 5) then t else -t");
+    }
+
+    public void testIntegerResultConvertedToReal() {
+        commonNumericFunctionTest("42");
+    }
+
+    public void testIntrinsicNumericFunction() {
+        NumericFunction sqrt = vela.numericFunction("sqrt");
+        assertTrue(sqrt.isCompiled());
+        assertEquals(3.0, sqrt.value(9.0));
+    }
+
+    public void testDivisionByZero() {
+        vela.program("f(t:real):real { 1/(t-2) }");
+        NumericFunction f = vela.numericFunction("f");
+        assertTrue(f.isCompiled());
+        try {
+            f.value(2.0);
+            fail("expected VeLaEvalError");
+        } catch (VeLaEvalError e) {
+            assertEquals("1.0/0.0: division by zero error", e.getMessage());
+        }
+    }
+
+    public void testVariableNotCompiled() {
+        vela.program("a <- 10\nf(t:real):real { a*t }");
+        NumericFunction f = vela.numericFunction("f");
+        assertFalse(f.isCompiled());
+        assertEquals(20.0, f.value(2.0));
+    }
+
+    public void testUserFunctionCallNotCompiled() {
+        vela.program("g(t:real):real { t*2 }\nf(t:real):real { g(t) + 1 }");
+        NumericFunction f = vela.numericFunction("f");
+        assertFalse(f.isCompiled());
+        assertEquals(5.0, f.value(2.0));
+    }
+
+    public void testNonNumericResultNotCompiled() {
+        vela.program("f(t:real):boolean { t > 2 }");
+        assertFalse(vela.numericFunction("f").isCompiled());
+    }
+
+    public void testCompilationDisabled() {
+        VeLaCompiler.setEnabled(false);
+        vela.program("f(t:real):real { 2*t }");
+        NumericFunction f = vela.numericFunction("f");
+        assertFalse(f.isCompiled());
+        assertEquals(4.0, f.value(2.0));
+    }
+
+    // Observation predicates
+
+    public void testBandAndMagnitudeFilter() {
+        commonObservationPredicateTest("magnitude < 12 and band = \"Visual\"");
+    }
+
+    public void testTimeAndUncertaintyFilter() {
+        commonObservationPredicateTest("jd >= 2457849.2 or uncertainty > 0.05");
+    }
+
+    public void testRegexFilter() {
+        commonObservationPredicateTest("band =~ \"Johnson.*\" xor mag > 11.5");
+    }
+
+    public void testStringContainmentFilter() {
+        commonObservationPredicateTest("\"John\" in band");
+    }
+
+    public void testUnknownSymbolNotCompiled() {
+        CompiledProgram program = vela.compile("obscode = \"PEX\"");
+        assertFalse(program.getObservationPredicate().isPresent());
+    }
+
+    public void testNonBooleanNotCompiled() {
+        CompiledProgram program = vela.compile("magnitude + 1");
+        assertFalse(program.getObservationPredicate().isPresent());
+    }
+
+    public void testSequenceNotCompiled() {
+        CompiledProgram program = vela.compile("x <- 12\nmagnitude < x");
+        assertFalse(program.getObservationPredicate().isPresent());
+    }
+
+    // Helpers
+
+    private void commonNumericFunctionTest(String body) {
+        vela.program("f(t:real):real { " + body + " }");
+
+        NumericFunction compiled = vela.numericFunction("f");
+        assertTrue(compiled.isCompiled());
+
+        VeLaCompiler.setEnabled(false);
+        NumericFunction interpreted = vela.numericFunction("f");
+        assertFalse(interpreted.isCompiled());
+        VeLaCompiler.setEnabled(true);
+
+        for (double t = -3; t <= 7; t += 0.25) {
+            assertEquals(interpreted.value(t), compiled.value(t));
+        }
+    }
+
+    private void commonObservationPredicateTest(String filter) {
+        VeLaValidObservationEnvironment.reset();
+
+        CompiledProgram program = vela.compile(filter);
+
+        Optional<Predicate<ValidObservation>> predicate = program.getObservationPredicate();
+        assertTrue(predicate.isPresent());
+
+        for (ValidObservation ob : commonObs()) {
+            Optional<Operand> result = program.evaluate(new VeLaValidObservationEnvironment(ob));
+            assertTrue(result.isPresent());
+            assertEquals(result.get().booleanVal(), predicate.get().test(ob));
+        }
+    }
+
+    private List<ValidObservation> commonObs() {
+        List<ValidObservation> obs = new ArrayList<ValidObservation>();
+
+        obs.add(createOb(2457849.1, 12, 0.1, SeriesType.Visual));
+        obs.add(createOb(2457849.1, 12.02, 0.01, SeriesType.Johnson_V));
+        obs.add(createOb(2457849.2, 11, 0.1, SeriesType.Visual));
+        obs.add(createOb(2457849.2, 11.05, 0.02, SeriesType.Johnson_V));
+
+        return obs;
+    }
+
+    private ValidObservation createOb(double jd, double mag, double uncertainty, SeriesType band) {
+        ValidObservation ob = new ValidObservation();
+        ob.setDateInfo(new DateInfo(jd));
+        ob.setMagnitude(new Magnitude(mag, uncertainty));
+        ob.setBand(band);
+        return ob;
+    }
+}
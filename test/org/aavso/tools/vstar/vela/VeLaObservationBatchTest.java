@@ -0,0 +1,180 @@
+/**
+ * VStar: a statistical analysis tool for variable star data.
+ * Copyright (C) 2010  AAVSO (http://www.aavso.org/)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.aavso.tools.vstar.vela;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import junit.framework.TestCase;
+
+import org.aavso.tools.vstar.data.DateInfo;
+import org.aavso.tools.vstar.data.Magnitude;
+import org.aavso.tools.vstar.data.SeriesType;
+import org.aavso.tools.vstar.data.ValidObservation;
+
+/**
+ * Tests that VeLa code evaluated over a batch of observations yields the same
+ * results as the interpreter does for each observation.
+ */
+public class VeLaObservationBatchTest extends TestCase {
+
+    private VeLaInterpreter vela;
+
+    public VeLaObservationBatchTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        Locale.setDefault(Locale.ENGLISH);
+        vela = new VeLaInterpreter(false, false, Collections.emptyList());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        VeLaCompiler.setEnabled(true);
+    }
+
+    // Filters
+
+    public void testMagnitudeAndBandFilter() {
+        commonFilterTest("magnitude < 12 and band = \"Visual\"");
+    }
+
+    public void testTimeAndUncertaintyFilter() {
+        commonFilterTest("time >= 2457849.2 or error > 0.05");
+    }
+
+    public void testShortBandFilter() {
+        commonFilterTest("shortband = \"V\" xor mag > 11.5");
+    }
+
+    public void testMissingPhaseNotEvaluated() {
+        // Phase is not bound outside phase plot mode nor for observations
+        // without phase.
+        CompiledProgram program = vela.compile("standardphase > 0.25");
+        VeLaObservationBatch batch = new VeLaObservationBatch(vela, commonObs());
+        assertFalse(batch.test(program.getAST()).isPresent());
+    }
+
+    public void testUnknownSymbolNotEvaluated() {
+        CompiledProgram program = vela.compile("obscode = \"PEX\"");
+        VeLaObservationBatch batch = new VeLaObservationBatch(vela, commonObs());
+        assertFalse(batch.test(program.getAST()).isPresent());
+    }
+
+    public void testCompilationDisabled() {
+        VeLaCompiler.setEnabled(false);
+        CompiledProgram program = vela.compile("magnitude < 12");
+        VeLaObservationBatch batch = new VeLaObservationBatch(vela, commonObs());
+        assertFalse(batch.test(program.getAST()).isPresent());
+    }
+
+    // Numeric values
+
+    public void testValues() {
+        List<ValidObservation> obs = commonObs();
+        CompiledProgram program = vela.compile("magnitude - 2.5*uncertainty + (time - 2457849)");
+
+        Optional<double[]> values = new VeLaObservationBatch(vela, obs).values(program.getAST());
+        assertTrue(values.isPresent());
+
+        for (int i = 0; i < obs.size(); i++) {
+            Optional<Operand> result = program.evaluate(new VeLaValidObservationEnvironment(obs.get(i)));
+            assertEquals(result.get().doubleVal(), values.get()[i]);
+        }
+    }
+
+    // Transformation functions
+
+    public void testTransformationFunction() {
+        List<ValidObservation> obs = commonObs();
+
+        vela.program("do() : list { [magnitude + 1 uncertainty*2] }");
+
+        Optional<List<FunctionExecutor>> functions = vela.lookupFunctions("DO");
+        assertTrue(functions.isPresent());
+
+        Optional<List<double[]>> columns = new VeLaObservationBatch(vela, obs).listValues(functions.get().get(0));
+        assertTrue(columns.isPresent());
+        assertEquals(2, columns.get().size());
+
+        CompiledProgram funCall = vela.compile("do()");
+
+        for (int i = 0; i < obs.size(); i++) {
+            Optional<Operand> result = funCall.evaluate(new VeLaValidObservationEnvironment(obs.get(i)));
+            List<Operand> list = result.get().listVal();
+            assertEquals(list.get(0).doubleVal(), columns.get().get(0)[i]);
+            assertEquals(list.get(1).doubleVal(), columns.get().get(1)[i]);
+        }
+    }
+
+    public void testNonListFunctionNotEvaluated() {
+        vela.program("do() : real { magnitude + 1 }");
+        Optional<List<FunctionExecutor>> functions = vela.lookupFunctions("DO");
+        VeLaObservationBatch batch = new VeLaObservationBatch(vela, commonObs());
+        assertFalse(batch.listValues(functions.get().get(0)).isPresent());
+    }
+
+    public void testNonNumericListElementNotEvaluated() {
+        vela.program("do() : list { [magnitude band] }");
+        Optional<List<FunctionExecutor>> functions = vela.lookupFunctions("DO");
+        VeLaObservationBatch batch = new VeLaObservationBatch(vela, commonObs());
+        assertFalse(batch.listValues(functions.get().get(0)).isPresent());
+    }
+
+    // Helpers
+
+    private void commonFilterTest(String filter) {
+        List<ValidObservation> obs = commonObs();
+
+        CompiledProgram program = vela.compile(filter);
+
+        Optional<boolean[]> matches = new VeLaObservationBatch(vela, obs).test(program.getAST());
+        assertTrue(matches.isPresent());
+        assertEquals(obs.size(), matches.get().length);
+
+        for (int i = 0; i < obs.size(); i++) {
+            Optional<Operand> result = program.evaluate(new VeLaValidObservationEnvironment(obs.get(i)));
+            assertTrue(result.isPresent());
+            assertEquals(result.get().booleanVal(), matches.get()[i]);
+        }
+    }
+
+    private List<ValidObservation> commonObs() {
+        List<ValidObservation> obs = new ArrayList<ValidObservation>();
+
+        obs.add(createOb(2457849.1, 12, 0.1, SeriesType.Visual));
+        obs.add(createOb(2457849.1, 12.02, 0.01, SeriesType.Johnson_V));
+        obs.add(createOb(2457849.2, 11, 0.1, SeriesType.Visual));
+        obs.add(createOb(2457849.2, 11.05, 0.02, SeriesType.Johnson_V));
+
+        return obs;
+    }
+
+    private ValidObservation createOb(double jd, double mag, double uncertainty, SeriesType band) {
+        ValidObservation ob = new ValidObservation();
+        ob.setDateInfo(new DateInfo(jd));
+        ob.setMagnitude(new Magnitude(mag, uncertainty));
+        ob.setBand(band);
+        return ob;
+    }
+}
@@ -38,6 +38,7 @@ import org.aavso.tools.vstar.data.DateInfo;
 import org.aavso.tools.vstar.data.Magnitude;
 import org.aavso.tools.vstar.data.SeriesType;
 import org.aavso.tools.vstar.data.ValidObservation;
+import org.aavso.tools.vstar.util.BoundedLRUCache;
 import org.aavso.tools.vstar.util.Tolerance;
 import org.aavso.tools.vstar.util.date.AbstractDateUtil;
 import org.quicktheories.WithQuickTheories;
@@ -373,6 +374,52 @@ public class VeLaTest extends TestCase implements WithQuickTheories {
         assertEquals("foobar", operand.stringVal());
     }
 
+    public void testStringCaseAndWhitespacePreserved() {
+        // Programs differing only in case or whitespace within a string
+        // must not share a cached AST.
+        assertEquals("foo bar", vela.expressionToOperand("\"foo bar\"").stringVal());
+        assertEquals("FOO BAR", vela.expressionToOperand("\"FOO BAR\"").stringVal());
+        assertEquals("foobar", vela.expressionToOperand("\"foobar\"").stringVal());
+    }
+
+    public void testASTCacheBounded() {
+        BoundedLRUCache<String, AST> cache = VeLaInterpreter.getASTCache();
+        for (int i = 0; i < VeLaInterpreter.MAX_CACHED_ASTS + 10; i++) {
+            vela.expressionToOperand(i + "+1");
+        }
+        assertTrue(cache.size() <= VeLaInterpreter.MAX_CACHED_ASTS);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertNotNull(cache.get(VeLaInterpreter.MAX_CACHED_ASTS + "+1"));
+    }
+
+    // Each compilation or evaluation looks the program up in the AST cache
+    // once, so hits and misses are counted once each.
+    public void testASTCacheCountsOneLookup() {
+        BoundedLRUCache<String, AST> cache = VeLaInterpreter.getASTCache();
+        String prog = "42 + " + System.nanoTime();
+
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+        vela.compile(prog);
+        assertEquals(hits, cache.getHitCount());
+        assertEquals(misses + 1, cache.getMissCount());
+
+        vela.compile(prog);
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(misses + 1, cache.getMissCount());
+
+        prog = "43 + " + System.nanoTime();
+        hits = cache.getHitCount();
+        misses = cache.getMissCount();
+        vela.expressionToOperand(prog);
+        assertEquals(hits, cache.getHitCount());
+        assertEquals(misses + 1, cache.getMissCount());
+
+        vela.expressionToOperand(prog);
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
     public void testFormat() {
         String prog = "";
         prog += "s is format(\"%d\n\" [42])";
@@ -2054,6 +2101,56 @@ public class VeLaTest extends TestCase implements WithQuickTheories {
         assertEquals(1, filterObs(expr, obs).size());
     }
 
+    // Compiled programs
+
+    public void testCompiledFilter() {
+        List<ValidObservation> obs = commonObs();
+        String expr = "magnitude > 12 and (uncertainty > 0 and uncertainty <= 0.01)";
+        assertEquals(1, compiledFilterObs(expr, obs).size());
+        assertEquals(filterObs(expr, obs), compiledFilterObs(expr, obs));
+    }
+
+    public void testCompiledProgramEvaluatedManyTimes() {
+        vela.program("x <- 0");
+        CompiledProgram program = vela.compile("x <- x + 1\nx");
+
+        for (int i = 1; i <= 10; i++) {
+            Optional<Operand> result = program.evaluate();
+            assertTrue(result.isPresent());
+            assertEquals(i, result.get().intVal());
+        }
+    }
+
+    public void testCompiledProgramRestoresEnvironmentStack() {
+        List<ValidObservation> obs = commonObs();
+        int depth = vela.getEnvironments().size();
+
+        CompiledProgram program = vela.compile("nosuchvariable > 2");
+
+        try {
+            program.evaluate(new VeLaValidObservationEnvironment(obs.get(0)));
+            fail();
+        } catch (VeLaEvalError e) {
+            // We expect to end up here
+        }
+
+        assertEquals(depth, vela.getEnvironments().size());
+    }
+
+    public void testCompiledCommentOnly() {
+        CompiledProgram program = vela.compile("# comment test");
+        assertFalse(program.evaluate().isPresent());
+    }
+
+    public void testCompileParseError() {
+        try {
+            vela.compile("2457580.25&1004");
+            fail();
+        } catch (VeLaParseError e) {
+            assertTrue(e.getMessage().contains("token recognition error at: '&'"));
+        }
+    }
+
     // Comments
 
     public void testComments1() {
@@ -2341,6 +2438,24 @@ public class VeLaTest extends TestCase implements WithQuickTheories {
         return filteredObs;
     }
 
+    private List<ValidObservation> compiledFilterObs(String velaFilterExpr, List<ValidObservation> obs) {
+
+        VeLaValidObservationEnvironment.reset();
+
+        List<ValidObservation> filteredObs = new ArrayList<ValidObservation>();
+
+        CompiledProgram program = vela.compile(velaFilterExpr);
+
+        for (ValidObservation ob : obs) {
+            Optional<Operand> result = program.evaluate(new VeLaValidObservationEnvironment(ob));
+            if (result.isPresent() && result.get().booleanVal()) {
+                filteredObs.add(ob);
+            }
+        }
+
+        return filteredObs;
+    }
+
     /**
      * Given an operator string and an integer, return a unary function that takes
      * an integer and returns the result of combining the integer with another using